@@ -1,5 +1,6 @@
 package com.arturmolla.bookshelf.config;
 
+import com.arturmolla.bookshelf.config.exceptions.ConnectionThrottledException;
 import com.arturmolla.bookshelf.config.exceptions.OperationNotPermittedException;
 import com.arturmolla.bookshelf.config.exceptions.RateLimitExceededException;
 import com.arturmolla.bookshelf.model.dto.ExceptionResponse;
@@ -7,6 +8,7 @@ import com.arturmolla.bookshelf.model.enums.BusinessErrorCodes;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.mail.MessagingException;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -115,6 +117,19 @@ public class ConfigGlobalExceptionHandler {
                         .build());
     }
 
+    @ExceptionHandler(ConnectionThrottledException.class)
+    public ResponseEntity<ExceptionResponse> handleException(ConnectionThrottledException exp) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exp.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ExceptionResponse.builder()
+                        .businessErrorCode(BusinessErrorCodes.CONNECTION_THROTTLED.getCode())
+                        .businessErrorDescription(BusinessErrorCodes.CONNECTION_THROTTLED.getDescription())
+                        .error(exp.getMessage())
+                        .build());
+    }
+
     @ExceptionHandler(ExpiredJwtException.class)
     public ResponseEntity<ExceptionResponse> handleExpiredJwtException(ExpiredJwtException exp) {
         return ResponseEntity
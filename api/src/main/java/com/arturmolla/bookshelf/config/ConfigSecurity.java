@@ -51,6 +51,8 @@ public class ConfigSecurity {
                                         "/app-feedbacks/public",
                                         "/app-feedbacks/public/**",
                                         "/books/search",
+                                        // WebSocket upgrade — authenticated at the handshake (SocketHandshake)
+                                        "/ws",
                                         "/v3/api-docs",
                                         "/v3/api-docs/**",
                                         "/swagger-resources",
@@ -0,0 +1,66 @@
+package com.arturmolla.bookshelf.config;
+
+import com.arturmolla.bookshelf.security.JwtService;
+import com.arturmolla.bookshelf.security.UserDetailsServiceImpl;
+import com.arturmolla.bookshelf.service.socket.MessagingSocket;
+import com.arturmolla.bookshelf.service.socket.SocketHandshake;
+import com.arturmolla.bookshelf.service.sse.SseAdmission;
+import jakarta.servlet.ServletContext;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.ServletContextAware;
+
+import java.util.List;
+
+/**
+ * Registers the {@link MessagingSocket} endpoint with the servlet container's JSR 356
+ * WebSocket support (Tomcat's), unless {@code application.socket.enabled} is off.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class ConfigWebSocket implements ServletContextAware, SmartInitializingSingleton {
+
+    private final MessagingSocket messagingSocket;
+    private final JwtService jwtService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final SseAdmission sseAdmission;
+
+    @Value("${application.socket.enabled:true}")
+    private boolean enabled;
+
+    private ServletContext servletContext;
+
+    @Override
+    public void setServletContext(@NonNull ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled || servletContext == null) {
+            return;
+        }
+        ServerContainer container = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+        if (container == null) {
+            log.warn("No WebSocket container available, {} is not served", MessagingSocket.PATH);
+            return;
+        }
+        try {
+            container.addEndpoint(ServerEndpointConfig.Builder
+                    .create(MessagingSocket.class, MessagingSocket.PATH)
+                    .subprotocols(List.of(SocketHandshake.PROTOCOL))
+                    .configurator(new SocketHandshake(jwtService, userDetailsService, sseAdmission, messagingSocket))
+                    .build());
+        } catch (DeploymentException e) {
+            throw new IllegalStateException("Failed to register WebSocket endpoint " + MessagingSocket.PATH, e);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.arturmolla.bookshelf.config.exceptions;
+
+import lombok.Getter;
+
+/**
+ * A long-lived connection (SSE) was refused to smooth a burst of connects; the client
+ * should retry after {@link #getRetryAfterSeconds()}.
+ */
+@Getter
+public class ConnectionThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ConnectionThrottledException(long retryAfterSeconds) {
+        super("Too many connections right now. Please retry in " + retryAfterSeconds + " s.");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -58,9 +58,11 @@ public class ControllerBook {
             @RequestParam(name = "page", defaultValue = "0", required = false) int page,
             @RequestParam(name = "size", defaultValue = "15", required = false) int size,
             @RequestParam(name = "query", required = false) String query,
+            @RequestParam(name = "sort", defaultValue = "recent", required = false) String sort,
+            @RequestParam(name = "minRating", required = false) Double minRating,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(serviceBook.getAllBooksPaged(page, size, query, connectedUser));
+        return ResponseEntity.ok(serviceBook.getAllBooksPaged(page, size, query, sort, minRating, connectedUser));
     }
 
     @GetMapping("/owner")
@@ -1,6 +1,7 @@
 package com.arturmolla.bookshelf.controller;
 
 import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.common.SliceResponse;
 import com.arturmolla.bookshelf.model.dto.DtoHomePostRequest;
 import com.arturmolla.bookshelf.model.dto.DtoHomePostResponse;
 import com.arturmolla.bookshelf.model.dto.DtoHomePostUpdateRequest;
@@ -101,6 +102,35 @@ public class ControllerHome {
         return ResponseEntity.ok(serviceHomePost.getAllPosts(page, size, connectedUser));
     }
 
+    /**
+     * Get the authenticated user's timeline: own posts plus posts of friends
+     * and followed users, newest first. Pass the {@code next} of a slice as
+     * {@code before} to get the following one.
+     */
+    @GetMapping("/timeline")
+    @Operation(summary = "Get my personalized timeline (friends and follows, newest first)")
+    public ResponseEntity<SliceResponse<DtoHomePostResponse>> getTimeline(
+            @RequestParam(name = "before", required = false) Long before,
+            @RequestParam(name = "size", defaultValue = "15", required = false) int size,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(serviceHomePost.getTimeline(before, size, connectedUser));
+    }
+
+    /**
+     * Get trending posts, ranked by likes, comments and shares with older
+     * interactions counting less (12h half-life by default).
+     */
+    @GetMapping("/trending")
+    @Operation(summary = "Get trending posts (time-decayed engagement, best first)")
+    public ResponseEntity<PageResponse<DtoHomePostResponse>> getTrendingPosts(
+            @RequestParam(name = "page", defaultValue = "0", required = false) int page,
+            @RequestParam(name = "size", defaultValue = "15", required = false) int size,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(serviceHomePost.getTrendingPosts(page, size, connectedUser));
+    }
+
     /**
      * Get the authenticated user's posts, newest first.
      */
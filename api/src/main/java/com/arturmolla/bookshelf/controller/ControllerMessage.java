@@ -5,12 +5,18 @@ import com.arturmolla.bookshelf.model.common.PageResponse;
 import com.arturmolla.bookshelf.model.dto.DtoConversationResponse;
 import com.arturmolla.bookshelf.model.dto.DtoMessageRequest;
 import com.arturmolla.bookshelf.model.dto.DtoMessageResponse;
+import com.arturmolla.bookshelf.model.entity.EntityMessageMedia;
 import com.arturmolla.bookshelf.service.ServiceMessage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,11 +26,15 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Direct-messaging controller for friends.
  *
@@ -48,10 +58,16 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
  * <h2>SSE event names</h2>
  * <ul>
  *   <li>{@code NEW_MESSAGE}  – pushed to the recipient when a friend sends a message</li>
- *   <li>{@code MESSAGE_READ} – pushed to the sender when the recipient marks a message as read</li>
+ *   <li>{@code MESSAGE_READ} – pushed to the sender when the recipient has read up to a message
+ *       ({@code DtoReadReceipt}: every message up to {@code lastReadMessageId} is read)</li>
  *   <li>{@code heartbeat}    – keep-alive comment; the front end can safely ignore it</li>
  * </ul>
  *
+ * <h2>Media</h2>
+ * Message DTOs never carry media bytes. Messages with an attachment expose
+ * {@code mediaUrl} (and {@code thumbnailUrl} for images), which are served by
+ * {@code GET /messages/{messageId}/media[/thumbnail]} to conversation participants only.
+ *
  * <h2>Front-end usage</h2>
  * <pre>
  * // Open the SSE channel once (e.g. in App.jsx on login)
@@ -85,13 +101,18 @@ public class ControllerMessage {
      * Keep this connection open to receive incoming messages instantly.
      * The server sends a {@code heartbeat} comment every 25 s to prevent
      * Cloudflare / Nginx from killing the idle connection.
+     * <p>
+     * A reconnecting client sends the id of the last event it received as
+     * {@code Last-Event-ID} and gets the events it missed before live ones.
      */
     @GetMapping(value = "/connect", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Subscribe to real-time message events (SSE)")
-    public SseEmitter connect(Authentication connectedUser, HttpServletResponse response) {
+    public SseEmitter connect(Authentication connectedUser,
+                              @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                              HttpServletResponse response) {
         response.setHeader("X-Accel-Buffering", "no");
         response.setHeader("Cache-Control", "no-cache");
-        return serviceMessage.connect(connectedUser);
+        return serviceMessage.connect(connectedUser, lastEventId);
     }
 
     // =========================================================================
@@ -156,7 +177,7 @@ public class ControllerMessage {
     /**
      * Returns the message history with a specific friend (newest first).
      * <p>
-     * Automatically marks all unread messages from the friend as read.
+     * Moves the caller's read watermark up to the newest message of the page.
      *
      * @param friendId ID of the other participant
      */
@@ -178,11 +199,11 @@ public class ControllerMessage {
     // =========================================================================
 
     /**
-     * Marks a specific message as read.
+     * Marks a specific message, and every earlier one in its conversation, as read.
      * <p>
      * Only the recipient (not the sender) may call this endpoint.
-     * On success, a {@code MESSAGE_READ} SSE event is pushed to the original sender
-     * if they are currently connected.
+     * If the read watermark moved, a single {@code MESSAGE_READ} SSE event is pushed
+     * to the original sender if they are currently connected.
      *
      * @param messageId ID of the message to mark as read
      */
@@ -197,6 +218,51 @@ public class ControllerMessage {
         return ResponseEntity.ok(serviceMessage.markAsRead(messageId, connectedUser));
     }
 
+    // =========================================================================
+    // Message media
+    // =========================================================================
+
+    /**
+     * Streams the original media attached to a message.
+     * <p>
+     * Only the two conversation participants may fetch it. Media is immutable
+     * per message, so responses carry a strong {@code ETag} and are privately
+     * cacheable for 7 days. {@code Range} requests are answered with
+     * {@code 206 Partial Content}.
+     *
+     * @param messageId ID of the message whose media to fetch
+     */
+    @GetMapping("/{messageId}/media")
+    @Operation(summary = "Get the media attached to a message (participants only, range-capable)")
+    public ResponseEntity<Resource> getMedia(
+            @Parameter(description = "ID of the message")
+            @PathVariable Long messageId,
+            Authentication connectedUser
+    ) {
+        EntityMessageMedia media = serviceMessage.getMedia(messageId, connectedUser);
+        return mediaResponse(media, media.getData(), media.getContentType(), "m");
+    }
+
+    /**
+     * Streams a downscaled JPEG preview of an image attached to a message.
+     * Falls back to the original bytes for media stored before thumbnails existed.
+     *
+     * @param messageId ID of the message whose thumbnail to fetch
+     */
+    @GetMapping("/{messageId}/media/thumbnail")
+    @Operation(summary = "Get the thumbnail of an image attached to a message (participants only)")
+    public ResponseEntity<Resource> getMediaThumbnail(
+            @Parameter(description = "ID of the message")
+            @PathVariable Long messageId,
+            Authentication connectedUser
+    ) {
+        EntityMessageMedia media = serviceMessage.getMedia(messageId, connectedUser);
+        if (media.getThumbnail() == null) {
+            return mediaResponse(media, media.getData(), media.getContentType(), "m");
+        }
+        return mediaResponse(media, media.getThumbnail(), MediaType.IMAGE_JPEG_VALUE, "t");
+    }
+
     // =========================================================================
     // Delete a message
     // =========================================================================
@@ -219,4 +285,23 @@ public class ControllerMessage {
         serviceMessage.deleteMessage(messageId, connectedUser);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // =========================================================================
+    // Private helpers
+    // =========================================================================
+
+    private ResponseEntity<Resource> mediaResponse(EntityMessageMedia media, byte[] bytes,
+                                                   String contentType, String variant) {
+        MediaType mediaType = contentType != null
+                ? MediaType.parseMediaType(contentType)
+                : MediaType.APPLICATION_OCTET_STREAM;
+        String fileName = media.getFileName() != null ? media.getFileName() : "media";
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(fileName, StandardCharsets.UTF_8).build().toString())
+                .eTag("\"" + variant + media.getMessageId() + "\"")
+                .cacheControl(CacheControl.maxAge(7, TimeUnit.DAYS).cachePrivate())
+                .body(new ByteArrayResource(bytes));
+    }
+}
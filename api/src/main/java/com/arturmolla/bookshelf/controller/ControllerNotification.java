@@ -1,21 +1,26 @@
 package com.arturmolla.bookshelf.controller;
 
 import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.dto.DtoDigestPreference;
 import com.arturmolla.bookshelf.model.dto.DtoNotificationResponse;
+import com.arturmolla.bookshelf.model.enums.DigestFrequency;
 import com.arturmolla.bookshelf.service.ServiceNotification;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @RestController
@@ -61,15 +66,17 @@ public class ControllerNotification {
 
     /**
      * Marks a single notification as read.
+     * {@code createdAt} is the notification's as received; with the id it locates its partition.
      * Returns the updated notification.
      */
     @PatchMapping("/{notification-id}/read")
     @Operation(summary = "Mark a single notification as read")
     public ResponseEntity<DtoNotificationResponse> markAsRead(
             @PathVariable("notification-id") Long notificationId,
+            @RequestParam("createdAt") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAt,
             Authentication connectedUser
     ) {
-        return ResponseEntity.ok(serviceNotification.markAsRead(notificationId, connectedUser));
+        return ResponseEntity.ok(serviceNotification.markAsRead(notificationId, createdAt, connectedUser));
     }
 
     /**
@@ -82,20 +89,46 @@ public class ControllerNotification {
         return ResponseEntity.noContent().build();
     }
 
+    // ─────────────────────────────────────────────────────────────
+    // E-MAIL DIGEST
+    // ─────────────────────────────────────────────────────────────
+
+    /**
+     * Returns how often the authenticated user receives an e-mail digest of unread notifications.
+     */
+    @GetMapping("/digest")
+    @Operation(summary = "Get my notification e-mail digest setting")
+    public ResponseEntity<DtoDigestPreference> getDigestPreference(Authentication connectedUser) {
+        return ResponseEntity.ok(serviceNotification.getDigestPreference(connectedUser));
+    }
+
+    /**
+     * Sets the digest frequency: OFF, DAILY or WEEKLY.
+     */
+    @PutMapping("/digest")
+    @Operation(summary = "Set my notification e-mail digest frequency")
+    public ResponseEntity<DtoDigestPreference> setDigestPreference(
+            @RequestParam("frequency") DigestFrequency frequency,
+            Authentication connectedUser
+    ) {
+        return ResponseEntity.ok(serviceNotification.setDigestPreference(frequency, connectedUser));
+    }
+
     // ─────────────────────────────────────────────────────────────
     // DELETE
     // ─────────────────────────────────────────────────────────────
 
     /**
-     * Deletes a single notification. Only the recipient can delete it.
+     * Deletes a single notification, located by its id and {@code createdAt}. Only the recipient can delete it.
      */
     @DeleteMapping("/{notification-id}")
     @Operation(summary = "Delete a notification")
     public ResponseEntity<Void> deleteNotification(
             @PathVariable("notification-id") Long notificationId,
+            @RequestParam("createdAt") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdAt,
             Authentication connectedUser
     ) {
-        serviceNotification.deleteNotification(notificationId, connectedUser);
+        serviceNotification.deleteNotification(notificationId, createdAt, connectedUser);
         return ResponseEntity.noContent().build();
     }
 
@@ -7,10 +7,13 @@ import com.arturmolla.bookshelf.model.dto.UserDashboardResponse;
 import com.arturmolla.bookshelf.model.user.User;
 import com.arturmolla.bookshelf.service.ServiceDashboard;
 import com.arturmolla.bookshelf.service.ServiceProfile;
+import com.arturmolla.bookshelf.service.export.ServiceDataExport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -25,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("app-profile")
@@ -34,6 +38,7 @@ public class ControllerProfile {
 
     private final ServiceProfile profileService;
     private final ServiceDashboard dashboardService;
+    private final ServiceDataExport dataExportService;
 
 
     @GetMapping("/profile")
@@ -60,6 +65,19 @@ public class ControllerProfile {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping(value = "/profile/export", produces = "application/zip")
+    @Operation(summary = "Download all my data (books, posts, messages, files) as a ZIP archive")
+    @RateLimit(capacity = 2, refillTokens = 2, refillDurationMinutes = 60)
+    public ResponseEntity<StreamingResponseBody> exportUserData(Authentication connectedUser) {
+        Long userId = ((User) connectedUser.getPrincipal()).getId();
+        dataExportService.requireUser(userId);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(ServiceDataExport.fileName(userId)).build().toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(out -> dataExportService.export(userId, out));
+    }
+
     @GetMapping("/me")
     @Operation(summary = "Get user dashboard data")
     @RateLimit(capacity = 10, refillTokens = 10, refillDurationMinutes = 1)
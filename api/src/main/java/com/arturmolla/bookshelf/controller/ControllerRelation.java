@@ -2,7 +2,9 @@ package com.arturmolla.bookshelf.controller;
 
 import com.arturmolla.bookshelf.aspects.annotation.RateLimit;
 import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.common.SliceResponse;
 import com.arturmolla.bookshelf.model.dto.DtoFriendPageResponse;
+import com.arturmolla.bookshelf.model.dto.DtoFriendResponse;
 import com.arturmolla.bookshelf.model.dto.DtoRelationResponse;
 import com.arturmolla.bookshelf.model.dto.DtoUserSearchResult;
 import com.arturmolla.bookshelf.service.ServiceRelation;
@@ -21,6 +23,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("relations")
 @RequiredArgsConstructor
@@ -90,11 +94,11 @@ public class ControllerRelation {
     @GetMapping("/friends")
     @Operation(summary = "Get the current user's friends list")
     @RateLimit(capacity = 10, refillTokens = 10, refillDurationMinutes = 1)
-    public ResponseEntity<PageResponse<DtoRelationResponse>> getMyFriends(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<SliceResponse<DtoFriendResponse>> getMyFriends(
+            @RequestParam(required = false) Long after,
             @RequestParam(defaultValue = "20") int size,
             Authentication connectedUser) {
-        return ResponseEntity.ok(relationService.getMyFriends(page, size, connectedUser));
+        return ResponseEntity.ok(relationService.getMyFriends(after, size, connectedUser));
     }
 
     @DeleteMapping("/friends/{targetUserId}")
@@ -174,6 +178,19 @@ public class ControllerRelation {
         return ResponseEntity.ok(relationService.searchUsers(query, page, size, connectedUser));
     }
 
+    @GetMapping("/suggestions")
+    @Operation(
+            summary = "People you may know",
+            description = "Friends of friends ranked by the number of mutual friends, " +
+                    "followed by users the caller follows but is not friends with."
+    )
+    @RateLimit(capacity = 30, refillTokens = 30, refillDurationMinutes = 1)
+    public ResponseEntity<List<DtoUserSearchResult>> suggestFriends(
+            @RequestParam(defaultValue = "10") int size,
+            Authentication connectedUser) {
+        return ResponseEntity.ok(relationService.suggestFriends(Math.min(size, 50), connectedUser));
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // User / Friend page
     // ─────────────────────────────────────────────────────────────────────────
@@ -1,6 +1,8 @@
 package com.arturmolla.bookshelf.controller;
 
+import com.arturmolla.bookshelf.model.common.PageResponse;
 import com.arturmolla.bookshelf.model.dto.DtoIceServer;
+import com.arturmolla.bookshelf.model.dto.DtoSignalBatchRequest;
 import com.arturmolla.bookshelf.model.dto.DtoSignalRequest;
 import com.arturmolla.bookshelf.model.dto.DtoStreamInfo;
 import com.arturmolla.bookshelf.model.dto.DtoWatcherInfo;
@@ -8,6 +10,8 @@ import com.arturmolla.bookshelf.service.ServiceStream;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
@@ -40,7 +44,7 @@ import java.util.List;
  *  │                                   │                               │
  *  │                                   │◀── GET /streams/{id}/join ────│
  *  │                                   │    add watcher emitter        │
- *  │◀─ WATCHER_JOINED event ───────────│──▶ WATCHER_JOINED event ─────│
+ *  │◀─ WATCHER_JOINED event ───────────│──▶ STREAM_STATE snapshot ────│
  *  │                                   │                               │
  *  │── POST /streams/{id}/signal ─────▶│  relay SDP offer              │
  *  │                                   │──▶ SIGNAL event ─────────────│
@@ -55,11 +59,15 @@ import java.util.List;
  * <h2>SSE event names</h2>
  * <ul>
  *   <li>{@code STREAM_STARTED}  – host's own emitter receives this on start</li>
+ *   <li>{@code STREAM_STATE}    – snapshot sent to a participant on (re)join: watcher count,
+ *       state {@code version} and the watchers it feeds ({@code peerIds})</li>
  *   <li>{@code WATCHER_JOINED}  – broadcast when someone joins</li>
  *   <li>{@code WATCHER_LEFT}    – broadcast when someone leaves / disconnects</li>
  *   <li>{@code STREAM_STOPPED}  – broadcast when host stops the stream</li>
  *   <li>{@code SIGNAL}          – WebRTC SDP / ICE relay; payload = "type:jsonPayload"</li>
  * </ul>
+ * {@code WATCHER_JOINED}, {@code WATCHER_LEFT} and {@code STREAM_STOPPED} are deltas on the
+ * snapshot: each carries the {@code version} it raised the room state to.
  *
  * <h2>Front-end usage</h2>
  * <pre>
@@ -71,7 +79,7 @@ import java.util.List;
  *
  * // Watcher
  * const es = new EventSource('/streams/{hostId}/join', { headers: { Authorization: 'Bearer ...' }});
- * es.addEventListener('WATCHER_JOINED', e => console.log('I joined', JSON.parse(e.data)));
+ * es.addEventListener('STREAM_STATE',   e => console.log('I joined', JSON.parse(e.data)));
  * es.addEventListener('STREAM_STOPPED', e => { es.close(); showStreamEnded(); });
  * es.addEventListener('SIGNAL',         e => handleSignal(JSON.parse(e.data)));
  * </pre>
@@ -136,24 +144,30 @@ public class ControllerStream {
      * <p>
      * Returns a long-lived SSE connection. The watcher receives:
      * <ul>
-     *   <li>{@code WATCHER_JOINED} – immediately on connect (confirms join)</li>
+     *   <li>{@code STREAM_STATE}   – immediately on connect (confirms join)</li>
+     *   <li>{@code WATCHER_JOINED} – when another watcher joins</li>
      *   <li>{@code WATCHER_LEFT}   – when another watcher leaves</li>
      *   <li>{@code STREAM_STOPPED} – when the host ends the stream</li>
-     *   <li>{@code SIGNAL}         – WebRTC SDP / ICE targeted at this watcher</li>
+     *   <li>{@code SIGNAL}         – WebRTC SDP / ICE targeted at this watcher, and relay
+     *       instructions ({@code relay-parent}, {@code relay-child}, {@code relay-drop})</li>
      * </ul>
+     * A watcher that can forward the stream to others passes {@code relay-capacity}; the
+     * server may then have it relay to up to that many watchers instead of the host.
      *
-     * @param hostId the userId of the stream's host (the stream identifier)
+     * @param hostId        the userId of the stream's host (the stream identifier)
+     * @param relayCapacity how many watchers this client can relay to (0 = none)
      */
     @GetMapping(value = "/{host-id}/join", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Join a live stream as a watcher")
     public SseEmitter joinStream(
             @PathVariable("host-id") Long hostId,
+            @RequestParam(value = "relay-capacity", defaultValue = "0") int relayCapacity,
             Authentication connectedUser,
             HttpServletResponse response
     ) {
         response.setHeader("X-Accel-Buffering", "no");
         response.setHeader("Cache-Control", "no-cache");
-        return serviceStream.joinStream(hostId, connectedUser);
+        return serviceStream.joinStream(hostId, relayCapacity, connectedUser);
     }
 
     /**
@@ -209,6 +223,43 @@ public class ControllerStream {
         return ResponseEntity.accepted().build();
     }
 
+    /**
+     * Relay several WebRTC signals in one request, in order — e.g. every ICE candidate
+     * gathered for a peer instead of one {@code /signal} call each. Targets receive the
+     * same {@code SIGNAL} events as with {@code /signal}; ICE candidates for one target
+     * arriving close together are coalesced into one event with {@code signalType}
+     * {@code ice-candidates} and a JSON array of candidates as {@code payload}.
+     *
+     * @param hostId the stream identifier (host's userId)
+     */
+    @PostMapping("/{host-id}/signals")
+    @Operation(summary = "Relay several WebRTC signals at once")
+    public ResponseEntity<Void> signalBatch(
+            @PathVariable("host-id") Long hostId,
+            @Valid @RequestBody DtoSignalBatchRequest request,
+            Authentication connectedUser
+    ) {
+        serviceStream.signalBatch(hostId, request.signals(), connectedUser);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Report that the peer relaying the stream to the authenticated watcher failed.
+     * The server stops using it as a relay and sends the affected watchers
+     * {@code relay-parent} instructions for their new upstream peer.
+     *
+     * @param hostId the stream identifier (host's userId)
+     */
+    @PostMapping("/{host-id}/relay-failure")
+    @Operation(summary = "Report a failed relay peer")
+    public ResponseEntity<Void> reportRelayFailure(
+            @PathVariable("host-id") Long hostId,
+            Authentication connectedUser
+    ) {
+        serviceStream.reportRelayFailure(hostId, connectedUser);
+        return ResponseEntity.accepted().build();
+    }
+
     // =========================================================================
     // DISCOVERY
     // =========================================================================
@@ -234,7 +285,7 @@ public class ControllerStream {
     }
 
     /**
-     * List all currently active streams.
+     * List all currently active streams, as summaries without their watchers.
      */
     @GetMapping
     @Operation(summary = "List all active streams")
@@ -256,29 +307,23 @@ public class ControllerStream {
     }
 
     /**
-     * Get the list of watchers currently connected to a stream.
-     * <p>
-     * The host <strong>must</strong> call this after reconnecting to their stream
-     * so they can re-initiate WebRTC offers to every already-connected watcher.
-     * Without this step, existing watchers will see a blank screen after the host
-     * refreshes their page.
+     * Get one page of the watchers currently connected to a stream, in ascending
+     * userId order.
      * <p>
-     * Example front-end usage (host reconnect):
-     * <pre>
-     * const { data: watchers } = await axios.get(`/streams/${hostId}/watchers`);
-     * for (const w of watchers) {
-     *   await initiateWebRTCOffer(w.watcherId);  // send offer targeted at each watcher
-     * }
-     * </pre>
+     * A reconnecting host does not need this: the {@code STREAM_STATE} snapshot it
+     * receives lists the watchers it must re-offer WebRTC to ({@code peerIds}).
      *
      * @param hostId the stream identifier (host's userId)
+     * @param page   0-based page index
+     * @param size   page size (at most 200)
      */
     @GetMapping("/{host-id}/watchers")
-    @Operation(summary = "List watchers currently connected to a stream")
-    public ResponseEntity<List<DtoWatcherInfo>> getWatchers(
-            @PathVariable("host-id") Long hostId
+    @Operation(summary = "List watchers currently connected to a stream (paginated)")
+    public ResponseEntity<PageResponse<DtoWatcherInfo>> getWatchers(
+            @PathVariable("host-id") Long hostId,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(200) int size
     ) {
-        return ResponseEntity.ok(serviceStream.getWatchers(hostId));
+        return ResponseEntity.ok(serviceStream.getWatchers(hostId, page, size));
     }
 }
-
@@ -1,15 +1,50 @@
 package com.arturmolla.bookshelf.controller.admin;
 
+import com.arturmolla.bookshelf.model.dto.DtoNotificationRetentionStats;
+import com.arturmolla.bookshelf.model.enums.DigestFrequency;
+import com.arturmolla.bookshelf.service.notification.NotificationDigestJob;
+import com.arturmolla.bookshelf.service.notification.NotificationRetention;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("admin")
 @RequiredArgsConstructor
 @PreAuthorize("hasAuthority('ADMIN')")
 @Tag(name = "Admin – User Management")
 public class ControllerAdminOverview {
+
+    private final NotificationRetention notificationRetention;
+    private final NotificationDigestJob notificationDigestJob;
+
+    @GetMapping("/notifications/retention")
+    @Operation(summary = "Notification retention settings and rows pruned since startup")
+    public ResponseEntity<DtoNotificationRetentionStats> getNotificationRetention() {
+        return ResponseEntity.ok(notificationRetention.stats());
+    }
+
+    @PostMapping("/notifications/retention/run")
+    @Operation(summary = "Run notification compaction now (409 if a run is already in progress)")
+    public ResponseEntity<DtoNotificationRetentionStats> runNotificationRetention() {
+        boolean ran = notificationRetention.compact();
+        return ResponseEntity.status(ran ? HttpStatus.OK : HttpStatus.CONFLICT).body(notificationRetention.stats());
+    }
+
+    @PostMapping("/notifications/digest/run")
+    @Operation(summary = "Queue the notification digests of one frequency now")
+    public ResponseEntity<Map<String, Integer>> runNotificationDigest(
+            @RequestParam(name = "frequency", defaultValue = "DAILY") DigestFrequency frequency) {
+        return ResponseEntity.ok(Map.of("queued", notificationDigestJob.send(frequency)));
+    }
 }
@@ -1,9 +1,11 @@
 package com.arturmolla.bookshelf.controller.admin;
 
 import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.dto.DtoAccountDeletionStatus;
 import com.arturmolla.bookshelf.model.dto.DtoAdminUpdateUserRequest;
 import com.arturmolla.bookshelf.model.dto.DtoAdminUserResponse;
 import com.arturmolla.bookshelf.service.ServiceAdmin;
+import com.arturmolla.bookshelf.service.export.ServiceDataExport;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -11,6 +13,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -21,6 +26,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("admin")
@@ -30,6 +36,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class ControllerAdminUsers {
 
     private final ServiceAdmin adminService;
+    private final ServiceDataExport dataExportService;
 
     // -----------------------------------------------------------------------
     // Read
@@ -92,15 +99,34 @@ public class ControllerAdminUsers {
         return ResponseEntity.ok(adminService.unlockUser(id));
     }
 
+    // -----------------------------------------------------------------------
+    // Export
+    // -----------------------------------------------------------------------
+
+    @GetMapping(value = "/users/{id}/export", produces = "application/zip")
+    @Operation(summary = "Download all data of a user as a ZIP archive")
+    public ResponseEntity<StreamingResponseBody> exportUserData(@PathVariable Long id) {
+        dataExportService.requireUser(id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(ServiceDataExport.fileName(id)).build().toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(out -> dataExportService.export(id, out));
+    }
+
     // -----------------------------------------------------------------------
     // Delete
     // -----------------------------------------------------------------------
 
     @DeleteMapping("/users/{id}")
-    @Operation(summary = "Delete a user by ID")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
-        adminService.deleteUser(id);
-        return ResponseEntity.noContent().build();
+    @Operation(summary = "Delete a user by ID (runs in the background; poll the deletion status)")
+    public ResponseEntity<DtoAccountDeletionStatus> deleteUser(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(adminService.deleteUser(id));
     }
-}
 
+    @GetMapping("/users/{id}/deletion")
+    @Operation(summary = "Progress of a user's account deletion")
+    public ResponseEntity<DtoAccountDeletionStatus> getDeletionStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(adminService.getDeletionStatus(id));
+    }
+}
@@ -0,0 +1,5 @@
+package com.arturmolla.bookshelf.model.common;
+
+/** A user who contributed to a (possibly coalesced) notification. */
+public record NotificationActor(Long id, String name) {
+}
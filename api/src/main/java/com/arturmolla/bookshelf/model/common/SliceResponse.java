@@ -0,0 +1,26 @@
+package com.arturmolla.bookshelf.model.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset-paged list, which is never counted: the following slice is
+ * requested with {@code before = next}, which is {@code null} on the last slice.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SliceResponse<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean last;
+    private Long next;
+}
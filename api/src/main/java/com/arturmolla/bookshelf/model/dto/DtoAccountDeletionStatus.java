@@ -0,0 +1,24 @@
+package com.arturmolla.bookshelf.model.dto;
+
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStatus;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStep;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/** Progress of a background account deletion. */
+@Builder
+public record DtoAccountDeletionStatus(
+        Long userId,
+        AccountDeletionStatus status,
+        AccountDeletionStep step,
+        int stepsDone,
+        int totalSteps,
+        long rowsDeleted,
+        int attempts,
+        String lastError,
+        LocalDateTime requestedAt,
+        LocalDateTime updatedAt,
+        LocalDateTime finishedAt
+) {
+}
@@ -0,0 +1,11 @@
+package com.arturmolla.bookshelf.model.dto;
+
+import com.arturmolla.bookshelf.model.enums.DigestFrequency;
+
+import java.time.LocalDateTime;
+
+public record DtoDigestPreference(
+        DigestFrequency frequency,
+        LocalDateTime lastSentAt
+) {
+}
@@ -37,6 +37,9 @@ public class DtoFriendPageResponse {
     private long followersCount;
     private long followingCount;
 
+    /** Friends the authenticated user and the target have in common. */
+    private int mutualFriendCount;
+
     // ── Relation context (from authenticated user's POV) ──────────
     /** Whether the authenticated user and the target are friends. */
     private boolean isFriend;
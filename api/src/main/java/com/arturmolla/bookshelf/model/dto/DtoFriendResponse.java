@@ -0,0 +1,16 @@
+package com.arturmolla.bookshelf.model.dto;
+
+import lombok.Builder;
+
+/**
+ * One entry of the current user's friend list.
+ *
+ * @param friendId userId of the friend
+ * @param fullName display name of the friend
+ */
+@Builder
+public record DtoFriendResponse(
+        Long friendId,
+        String fullName
+) {
+}
@@ -19,7 +19,9 @@ public record DtoHomePostResponse(
         long likeCount,
         long commentCount,
         long shareCount,
-        boolean likedByCurrentUser
+        boolean likedByCurrentUser,
+        long viewCount,
+        long uniqueViewers
 ) {
 }
 
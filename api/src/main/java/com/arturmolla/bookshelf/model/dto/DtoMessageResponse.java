@@ -41,5 +41,10 @@ public class DtoMessageResponse {
     private String mediaName;
     private Long mediaSize;
     private boolean hasMedia;
-    private byte[] mediaData;
+
+    /** Relative URL of the original media bytes; {@code null} when the message has no media. */
+    private String mediaUrl;
+
+    /** Relative URL of a downscaled preview; only set for image media. */
+    private String thumbnailUrl;
 }
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.arturmolla.bookshelf.model.dto;
 
+import com.arturmolla.bookshelf.model.common.NotificationActor;
 import com.arturmolla.bookshelf.model.enums.NotificationType;
 import lombok.Builder;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Builder
 public record DtoNotificationResponse(
@@ -16,7 +18,10 @@ public record DtoNotificationResponse(
         String referenceType,
         Long actorId,
         String actorName,
-        LocalDateTime createdAt
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        int actorCount,
+        List<NotificationActor> latestActors
 ) {
 }
 
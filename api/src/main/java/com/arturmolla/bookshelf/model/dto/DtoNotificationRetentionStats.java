@@ -0,0 +1,23 @@
+package com.arturmolla.bookshelf.model.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Totals of the notification compaction job since the instance started.
+ * {@code rowsDroppedWithPartitions} adds up the planner's row estimates of the dropped partitions.
+ */
+@Builder
+public record DtoNotificationRetentionStats(
+        long runs,
+        long partitionsDropped,
+        long rowsDroppedWithPartitions,
+        long rowsPrunedByAge,
+        long rowsPrunedByCap,
+        LocalDateTime lastRunAt,
+        long lastRunMillis,
+        long maxAgeDays,
+        int maxPerRecipient
+) {
+}
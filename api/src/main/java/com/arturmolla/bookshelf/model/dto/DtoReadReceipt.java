@@ -0,0 +1,23 @@
+package com.arturmolla.bookshelf.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Pushed as {@code MESSAGE_READ}: {@code readerId} has read every message of the
+ * conversation up to and including {@code lastReadMessageId}.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DtoReadReceipt {
+
+    private Long conversationId;
+    private Long readerId;
+    private Long lastReadMessageId;
+}
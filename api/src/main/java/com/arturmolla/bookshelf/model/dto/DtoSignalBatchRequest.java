@@ -0,0 +1,20 @@
+package com.arturmolla.bookshelf.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Several WebRTC signals relayed in one request, in order — typically the ICE
+ * candidates gathered for one or more peers.
+ *
+ * @param signals the signals, at most 100
+ */
+public record DtoSignalBatchRequest(
+        @NotEmpty(message = "At least one signal is required")
+        @Size(max = 100, message = "At most 100 signals per request")
+        List<@Valid DtoSignalRequest> signals
+) {
+}
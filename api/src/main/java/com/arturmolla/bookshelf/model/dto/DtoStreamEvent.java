@@ -1,8 +1,11 @@
 package com.arturmolla.bookshelf.model.dto;
 
 import com.arturmolla.bookshelf.model.enums.StreamEventType;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 
+import java.util.List;
+
 /**
  * Payload pushed to all SSE subscribers when something changes on a stream.
  *
@@ -15,8 +18,16 @@ import lombok.Builder;
  * @param signalType    WebRTC signal type: "offer", "answer", "ice-candidate" (SIGNAL events only)
  * @param payload       raw SDP or ICE candidate JSON string (SIGNAL events only)
  * @param watcherCount  current number of active watchers
+ * @param version       room-state version: set on {@code STREAM_STATE} snapshots and on the
+ *                      {@code WATCHER_JOINED} / {@code WATCHER_LEFT} / {@code STREAM_STOPPED}
+ *                      deltas, each of which raises it by one
+ * @param peerIds       userIds of the watchers the recipient sends the media to
+ *                      ({@code STREAM_STATE} only)
+ * @param parentId      userId of the participant the joined watcher receives the media from
+ *                      ({@code WATCHER_JOINED} only); the host offers to it only if that is itself
  */
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record DtoStreamEvent(
         StreamEventType type,
         Long streamId,
@@ -26,6 +37,9 @@ public record DtoStreamEvent(
         Long targetUserId,
         String signalType,
         String payload,
-        int watcherCount
+        int watcherCount,
+        Long version,
+        List<Long> peerIds,
+        Long parentId
 ) {
 }
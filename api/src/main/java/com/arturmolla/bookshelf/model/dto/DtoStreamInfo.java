@@ -3,10 +3,10 @@ package com.arturmolla.bookshelf.model.dto;
 import lombok.Builder;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
- * Public info about an active live stream.
+ * Public summary of an active live stream. Watchers are listed page by page on
+ * {@code GET /streams/{id}/watchers}.
  *
  * @param streamId     the host's userId (serves as the unique stream identifier)
  * @param hostId       host userId
@@ -14,9 +14,7 @@ import java.util.List;
  * @param title        stream title set by the host
  * @param startedAt    when the stream began
  * @param watcherCount current live watcher count
- * @param watcherNames display names of current watchers
- * @param watcherIds   userIds of current watchers — needed by the host to target
- *                     WebRTC signal messages after a reconnect
+ * @param version      version of the stream's room state (see {@code DtoStreamEvent#version})
  */
 @Builder
 public record DtoStreamInfo(
@@ -26,8 +24,7 @@ public record DtoStreamInfo(
         String title,
         LocalDateTime startedAt,
         int watcherCount,
-        List<String> watcherNames,
-        List<Long> watcherIds
+        long version
 ) {
 }
 
@@ -0,0 +1,21 @@
+package com.arturmolla.bookshelf.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Pushed as {@code TYPING}: {@code userId} is typing in the conversation.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DtoTypingEvent {
+
+    private Long conversationId;
+    private Long userId;
+}
@@ -46,5 +46,8 @@ public class DtoUserSearchResult {
 
     /** True if the current user is following this user. */
     private boolean isFollowing;
+
+    /** Friends the current user and this user have in common. */
+    private int mutualFriendCount;
 }
 
@@ -0,0 +1,67 @@
+package com.arturmolla.bookshelf.model.entity;
+
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStatus;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStep;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A requested account deletion and how far it got; processed by {@code AccountDeletionWorker}.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "account_deletion")
+public class EntityAccountDeletion {
+
+    /** Id of the user being deleted; not a foreign key, the row outlives the user. */
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private AccountDeletionStatus status;
+
+    /** Step in progress; steps before it are done. */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private AccountDeletionStep step;
+
+    @Column(name = "rows_deleted", nullable = false)
+    private long rowsDeleted;
+
+    /** Failed chunks so far. */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /** Earliest time a worker may (re)pick the deletion up. */
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
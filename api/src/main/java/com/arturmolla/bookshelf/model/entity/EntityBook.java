@@ -45,15 +45,25 @@ public class EntityBook extends EntityBase {
     @OneToMany(mappedBy = "book")
     private List<EntityBookTransactionHistory> histories;
 
+    /**
+     * Running totals of all feedback notes. Only ever changed by the atomic
+     * increment in {@code RepositoryBook.addRating}, never by entity updates.
+     */
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    private double ratingSum;
+
+    @Column(name = "rating_count", nullable = false, updatable = false)
+    private int ratingCount;
+
+    /** Average note rounded to one decimal, computed by the database (used for sorting). */
+    @Column(name = "rating", insertable = false, updatable = false)
+    private Double rating;
+
     @Transient
     public Double getRate() {
-        if (feedbacks == null || feedbacks.isEmpty()) {
+        if (ratingCount == 0) {
             return 0.0;
         }
-        var rate = feedbacks.stream()
-                .mapToDouble(EntityFeedback::getNote)
-                .average()
-                .orElse(0.0);
-        return Math.round(rate * 10.0) / 10.0;
+        return Math.round(ratingSum / ratingCount * 10.0) / 10.0;
     }
 }
@@ -13,6 +13,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.LazyGroup;
 
 import java.time.LocalDateTime;
 
@@ -33,6 +34,7 @@ public class EntityBookPdf {
     private Long bookId;
 
     @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("data")
     @Column(name = "data", nullable = false)
     private byte[] data;
 
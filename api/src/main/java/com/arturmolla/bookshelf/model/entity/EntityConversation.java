@@ -67,5 +67,15 @@ public class EntityConversation {
     /** Updated every time a new message is persisted in this conversation. */
     @Column(name = "last_message_at")
     private Instant lastMessageAt;
+
+    /** Id of the newest message {@code user1} has read; messages of user2 up to it are read. */
+    @Column(name = "user1_last_read_id", nullable = false)
+    @Builder.Default
+    private long user1LastReadId = 0L;
+
+    /** Id of the newest message {@code user2} has read; messages of user1 up to it are read. */
+    @Column(name = "user2_last_read_id", nullable = false)
+    @Builder.Default
+    private long user2LastReadId = 0L;
 }
 
@@ -0,0 +1,70 @@
+package com.arturmolla.bookshelf.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * One direction of an accepted friendship. Every accepted
+ * {@link EntityUserRelation} friend request has two rows here,
+ * {@code (a, b)} and {@code (b, a)}, so all friend lookups are
+ * keyed by {@code user_id} alone.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(EntityFriendship.Key.class)
+@Table(
+        name = "friendship",
+        indexes = {
+                @Index(name = "idx_friendship_friend", columnList = "friend_id"),
+                @Index(name = "idx_friendship_relation", columnList = "relation_id")
+        }
+)
+public class EntityFriendship {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "friend_id")
+    private Long friendId;
+
+    /** The accepted friend request this edge was materialized from. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "relation_id", nullable = false)
+    private EntityUserRelation relation;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long friendId;
+    }
+}
@@ -10,6 +10,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,6 +22,7 @@ import java.time.Instant;
 
 /**
  * A single message sent within a {@link EntityConversation}.
+ * Whether it has been read follows from the recipient's watermark on the conversation.
  */
 @Getter
 @Setter
@@ -31,14 +33,19 @@ import java.time.Instant;
 @Table(
         name = "message",
         indexes = {
-                @Index(name = "idx_message_conversation", columnList = "conversation_id, created_at"),
-                @Index(name = "idx_message_unread",       columnList = "conversation_id, is_read")
+                @Index(name = "idx_message_conversation",    columnList = "conversation_id, created_at"),
+                @Index(name = "idx_message_conversation_id", columnList = "conversation_id, id")
         }
 )
 public class EntityMessage {
 
+    /**
+     * Taken one at a time while the conversation row is locked (see {@code MessageWriter}),
+     * so ids grow in commit order within a conversation, as read watermarks require.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_id_seq")
+    @SequenceGenerator(name = "message_id_seq", sequenceName = "message_id_seq", allocationSize = 1)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -60,14 +67,9 @@ public class EntityMessage {
     @JoinColumn(name = "reply_to_id")
     private EntityMessage replyTo;
 
-    /**
-     * Optional: Media data (image/file) attached to this message. Null if no media.
-     */
-    @Column(name = "media_data", columnDefinition = "BYTEA")
-    private byte[] mediaData;
-
     /**
      * MIME type of the media (e.g., image/jpeg, application/pdf). Null if no media.
+     * The bytes themselves live in {@link EntityMessageMedia}, keyed by this message's id.
      */
     @Column(name = "media_type")
     private String mediaType;
@@ -84,11 +86,6 @@ public class EntityMessage {
     @Column(name = "media_size")
     private Long mediaSize;
 
-    /** True once the recipient has acknowledged the message. */
-    @Column(name = "is_read", nullable = false)
-    @Builder.Default
-    private boolean read = false;
-
     @Column(name = "created_at", nullable = false)
     @Builder.Default
     private Instant createdAt = Instant.now();
@@ -0,0 +1,74 @@
+package com.arturmolla.bookshelf.model.entity;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.LazyGroup;
+
+import java.time.Instant;
+
+/**
+ * Binary media attached to a {@link EntityMessage}.
+ * <p>
+ * Stored apart from the message row so that message lists and SSE events only
+ * carry metadata. The primary key is the owning message id, which lets clients
+ * build the media URL without an extra lookup.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "message_media")
+public class EntityMessageMedia {
+
+    @Id
+    @Column(name = "message_id")
+    private Long messageId;
+
+    /** Owning message; its id is copied into {@link #messageId} on persist. */
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "message_id")
+    private EntityMessage message;
+
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("data")
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+
+    /**
+     * Downscaled JPEG preview for image media. Null for non-images and for
+     * media uploaded before thumbnails were introduced. Kept in its own lazy
+     * group so serving a thumbnail never reads the original bytes.
+     */
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("thumbnail")
+    @Column(name = "thumbnail")
+    private byte[] thumbnail;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "uploaded_at", nullable = false)
+    @Builder.Default
+    private Instant uploadedAt = Instant.now();
+}
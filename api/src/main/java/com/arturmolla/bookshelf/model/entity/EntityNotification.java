@@ -1,5 +1,6 @@
 package com.arturmolla.bookshelf.model.entity;
 
+import com.arturmolla.bookshelf.model.common.NotificationActor;
 import com.arturmolla.bookshelf.model.enums.NotificationType;
 import com.arturmolla.bookshelf.model.user.User;
 import jakarta.persistence.Column;
@@ -13,14 +14,20 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.PartitionKey;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 @Getter
 @Setter
@@ -30,13 +37,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Table(name = "notification",
         indexes = {
-                @Index(name = "idx_notification_recipient", columnList = "recipient_id, created_at DESC"),
+                @Index(name = "idx_notification_recipient", columnList = "recipient_id, updated_at DESC"),
                 @Index(name = "idx_notification_unread", columnList = "recipient_id, is_read")
         })
 public class EntityNotification {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notification_id_seq")
+    @SequenceGenerator(name = "notification_id_seq", sequenceName = "notification_id_seq", allocationSize = 50)
     private Long id;
 
     /** The user who receives this notification. */
@@ -74,8 +82,34 @@ public class EntityNotification {
     @Column(name = "reference_type", length = 50)
     private String referenceType;
 
-    @Column(name = "created_at", nullable = false)
+    /**
+     * When the notification was created; the partition key, so it never changes. Hibernate
+     * adds it to the row's updates and deletes, which then only touch its partition. Kept
+     * at the column's microsecond precision so clients can send it back as they got it.
+     */
+    @PartitionKey
+    @Column(name = "created_at", nullable = false, updatable = false)
     @Builder.Default
-    private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    /** Time of the latest event merged into this notification; notifications are ordered by it. */
+    @Column(name = "updated_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    /** Number of distinct actors merged into this notification (1 unless coalesced). */
+    @Column(name = "actor_count", nullable = false)
+    @Builder.Default
+    private int actorCount = 1;
+
+    /** The most recent actors, newest first; only set on coalesced notifications. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "latest_actors")
+    private List<NotificationActor> latestActors;
+
+    /** When the coalescing window of this notification opened. */
+    @Column(name = "window_start", nullable = false)
+    @Builder.Default
+    private LocalDateTime windowStart = LocalDateTime.now();
 }
 
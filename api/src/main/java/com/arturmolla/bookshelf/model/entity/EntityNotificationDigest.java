@@ -0,0 +1,39 @@
+package com.arturmolla.bookshelf.model.entity;
+
+import com.arturmolla.bookshelf.model.enums.DigestFrequency;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** A user's notification e-mail digest subscription. */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "notification_digest")
+public class EntityNotificationDigest {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private DigestFrequency frequency;
+
+    /** When the last digest was queued; the next one covers notifications created after it. */
+    @Column(name = "last_sent_at")
+    private LocalDateTime lastSentAt;
+}
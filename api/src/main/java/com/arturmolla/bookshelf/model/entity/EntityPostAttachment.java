@@ -9,12 +9,14 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.LazyGroup;
 
 import java.time.LocalDateTime;
 
@@ -28,7 +30,8 @@ import java.time.LocalDateTime;
 public class EntityPostAttachment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "post_attachment_id_seq")
+    @SequenceGenerator(name = "post_attachment_id_seq", sequenceName = "post_attachment_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,6 +39,7 @@ public class EntityPostAttachment {
     private EntityHomePost post;
 
     @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("data")
     @Column(name = "data", nullable = false)
     private byte[] data;
 
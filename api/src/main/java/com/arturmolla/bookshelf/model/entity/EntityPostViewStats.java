@@ -0,0 +1,46 @@
+package com.arturmolla.bookshelf.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flushed view statistics of a home post.
+ * <p>
+ * Written in batches by {@code PostViewCounter}; individual views are never stored.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "post_view_stats")
+public class EntityPostViewStats {
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    /** HyperLogLog estimate of distinct viewers, as of the last flush. */
+    @Column(name = "unique_viewers", nullable = false)
+    private long uniqueViewers;
+
+    /** Serialized HyperLogLog registers of the post's viewers. */
+    @Column(name = "viewer_sketch")
+    private byte[] viewerSketch;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
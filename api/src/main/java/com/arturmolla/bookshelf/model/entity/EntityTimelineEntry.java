@@ -0,0 +1,63 @@
+package com.arturmolla.bookshelf.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A post id pushed into one user's home timeline. Rows are written in bulk by
+ * {@code RepositoryTimelineEntry} when a post is created (fan-out on write).
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(EntityTimelineEntry.Key.class)
+@Table(
+        name = "timeline_entry",
+        indexes = {
+                @Index(name = "idx_timeline_entry_user_author", columnList = "user_id, author_id"),
+                @Index(name = "idx_timeline_entry_post", columnList = "post_id")
+        }
+)
+public class EntityTimelineEntry {
+
+    /** Owner of the timeline. */
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long postId;
+    }
+}
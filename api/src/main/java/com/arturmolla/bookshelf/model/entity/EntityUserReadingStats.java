@@ -0,0 +1,74 @@
+package com.arturmolla.bookshelf.model.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-aggregated dashboard statistics for a single user.
+ * <p>
+ * Updated incrementally by {@code ServiceReadingStats} as books are borrowed,
+ * returned and marked as read, so the dashboard is a single primary-key read
+ * instead of several aggregate queries over the borrow history.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "user_reading_stats")
+public class EntityUserReadingStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "books_owned", nullable = false)
+    private long booksOwned;
+
+    @Column(name = "books_read", nullable = false)
+    private long booksRead;
+
+    /** Borrow requests and loans by this user that are not returned yet. */
+    @Column(name = "currently_borrowed", nullable = false)
+    private long currentlyBorrowed;
+
+    /** Returns of this user's books awaiting the owner's approval. */
+    @Column(name = "pending_returns", nullable = false)
+    private long pendingReturns;
+
+    /** Books finished per month, keyed {@code yyyy-MM}; only the last 12 months are kept. */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "monthly_activity", nullable = false)
+    @Builder.Default
+    private Map<String, Long> monthlyActivity = new HashMap<>();
+
+    /** Books finished per genre ({@code Other} when the book has none). */
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "genre_counts", nullable = false)
+    @Builder.Default
+    private Map<String, Long> genreCounts = new HashMap<>();
+
+    /** Consecutive days with reading activity, ending at {@link #lastActivityDate}. */
+    @Column(name = "current_streak", nullable = false)
+    private int currentStreak;
+
+    @Column(name = "longest_streak", nullable = false)
+    private int longestStreak;
+
+    @Column(name = "last_activity_date")
+    private LocalDate lastActivityDate;
+}
@@ -0,0 +1,8 @@
+package com.arturmolla.bookshelf.model.enums;
+
+public enum AccountDeletionStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,41 @@
+package com.arturmolla.bookshelf.model.enums;
+
+/**
+ * Steps of a background account deletion, in execution order. Every step is repeated
+ * in chunks until nothing is left to delete; {@link #ACCOUNT} deletes the user record
+ * with its last chunk.
+ */
+public enum AccountDeletionStep {
+    /** Notifications received by the user, or triggered by the user alone. */
+    NOTIFICATIONS,
+    /** Friend requests and follows on both sides (friendship edges cascade). */
+    RELATIONS,
+    /** The user's materialized home timeline. */
+    TIMELINE,
+    /** Comments, likes and shares made by the user on any post. */
+    COMMENTS,
+    LIKES,
+    SHARES,
+    /** Other users' comments, likes and shares on the user's posts, and the posts' timeline rows. */
+    POST_COMMENTS,
+    POST_LIKES,
+    POST_SHARES,
+    POST_TIMELINES,
+    /** The user's posts; attachments and view stats cascade. */
+    POSTS,
+    /** Messages of the user's conversations, then the conversations. */
+    MESSAGES,
+    CONVERSATIONS,
+    /** Borrow history where the user is the borrower. */
+    BORROW_HISTORY,
+    /** Books owned by the user, with their feedback, history, covers and PDFs. */
+    BOOKS,
+    /** The user's name in other users' coalesced notifications, then tokens, pictures and the user record itself. */
+    ACCOUNT;
+
+    /** The following step, or {@code null} after {@link #ACCOUNT}. */
+    public AccountDeletionStep next() {
+        AccountDeletionStep[] steps = values();
+        return ordinal() + 1 < steps.length ? steps[ordinal() + 1] : null;
+    }
+}
@@ -12,7 +12,8 @@ public enum BusinessErrorCodes {
     ACCOUNT_DISABLED(303, HttpStatus.FORBIDDEN, "User account disabled"),
     BAD_CREDENTIALS(304, HttpStatus.FORBIDDEN, "Login and / or password is incorrect"),
     JWT_EXPIRED(305, HttpStatus.UNAUTHORIZED, "JWT token has expired"),
-    RATE_LIMIT_EXCEEDED(429, HttpStatus.TOO_MANY_REQUESTS, "Too many requests. Please slow down and try again later.");
+    RATE_LIMIT_EXCEEDED(429, HttpStatus.TOO_MANY_REQUESTS, "Too many requests. Please slow down and try again later."),
+    CONNECTION_THROTTLED(503, HttpStatus.SERVICE_UNAVAILABLE, "Too many connections right now. Please retry later.");
 
     @Getter
     private final int code;
@@ -0,0 +1,19 @@
+package com.arturmolla.bookshelf.model.enums;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public enum DigestFrequency {
+    OFF(Duration.ZERO),
+    DAILY(Duration.ofDays(1)),
+    WEEKLY(Duration.ofDays(7));
+
+    /** How far back the first digest of a user reaches. */
+    private final Duration period;
+
+    DigestFrequency(Duration period) {
+        this.period = period;
+    }
+}
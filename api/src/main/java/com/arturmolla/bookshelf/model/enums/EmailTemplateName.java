@@ -5,7 +5,8 @@ import lombok.Getter;
 @Getter
 public enum EmailTemplateName {
     ACTIVATE_ACCOUNT("activate_account"),
-    WELCOME_MESSAGE("welcome_message");
+    WELCOME_MESSAGE("welcome_message"),
+    NOTIFICATION_DIGEST("notification_digest");
 
     private final String name;
 
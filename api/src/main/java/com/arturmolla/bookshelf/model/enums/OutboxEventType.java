@@ -0,0 +1,6 @@
+package com.arturmolla.bookshelf.model.enums;
+
+public enum OutboxEventType {
+    NOTIFICATION,
+    EMAIL
+}
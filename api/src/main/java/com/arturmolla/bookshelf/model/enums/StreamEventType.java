@@ -5,6 +5,10 @@ public enum StreamEventType {
      * Stream has just been started by the host.
      */
     STREAM_STARTED,
+    /**
+     * Snapshot of the stream's room state, sent to a participant when it (re)joins.
+     */
+    STREAM_STATE,
     /**
      * A new watcher joined the stream.
      */
@@ -0,0 +1,28 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityAccountDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RepositoryAccountDeletion extends JpaRepository<EntityAccountDeletion, Long> {
+
+    /**
+     * Locks the oldest unfinished deletion that is due. Rows held by another
+     * instance's worker are skipped rather than waited for.
+     */
+    @Query(value = """
+            SELECT * FROM account_deletion
+            WHERE status IN ('PENDING', 'RUNNING')
+              AND available_at <= :now
+            ORDER BY requested_at
+            LIMIT 1
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<EntityAccountDeletion> lockDue(@Param("now") LocalDateTime now);
+}
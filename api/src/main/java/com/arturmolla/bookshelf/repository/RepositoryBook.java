@@ -2,13 +2,17 @@ package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityBook;
 import com.arturmolla.bookshelf.model.user.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -30,22 +34,29 @@ public interface RepositoryBook extends JpaRepository<EntityBook, Long>, JpaSpec
             AND book.owner.id != :userId""")
     Page<EntityBook> findAllBooks(Pageable pageable, Long userId);
 
-    long countByOwner(User owner);
+    /** Adds one feedback note to the book's rating totals in a single atomic statement. */
+    @Modifying
+    @Query("""
+            UPDATE EntityBook b
+            SET b.ratingSum = b.ratingSum + :note,
+                b.ratingCount = b.ratingCount + 1
+            WHERE b.id = :bookId""")
+    void addRating(Long bookId, double note);
+
+    long countByOwnerId(Long ownerId);
 
-    long countByOwnerAndReadTrue(User owner);
+    long countByOwnerIdAndReadTrue(Long ownerId);
 
     @Query("""
-            SELECT COALESCE(b.genre, 'Other') AS genre,
-                   COUNT(h) AS cnt
-            FROM EntityBookTransactionHistory h
-            JOIN h.book b
-            WHERE h.user.id = :userId
-              AND h.returned = true
-            GROUP BY COALESCE(b.genre, 'Other')
-            ORDER BY cnt DESC""")
-    List<Object[]> findGenreDistributionByUser(Long userId);
+            SELECT COALESCE(b.lastModifiedDate, b.createdDate)
+            FROM EntityBook b
+            WHERE b.owner.id = :ownerId
+              AND b.read = true""")
+    List<LocalDateTime> findReadActivityByOwnerId(Long ownerId);
 
     Page<EntityBook> findByOwnerOrderByCreatedDateDesc(User owner, Pageable pageable);
 
-    List<EntityBook> findByOwner(User owner);
-}
\ No newline at end of file
+    /** Ids of a chunk of an owner's books. */
+    @Query("SELECT b.id FROM EntityBook b WHERE b.owner.id = :ownerId ORDER BY b.id")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId, Limit limit);
+}
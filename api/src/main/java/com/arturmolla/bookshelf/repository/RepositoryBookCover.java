@@ -2,8 +2,12 @@ package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityBookCover;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,6 +15,7 @@ public interface RepositoryBookCover extends JpaRepository<EntityBookCover, Long
 
     Optional<EntityBookCover> findByBookId(Long bookId);
 
-    void deleteByBookId(Long bookId);
+    @Modifying
+    @Query("DELETE FROM EntityBookCover c WHERE c.bookId IN :bookIds")
+    void deleteAllByBookIdIn(@Param("bookIds") List<Long> bookIds);
 }
-
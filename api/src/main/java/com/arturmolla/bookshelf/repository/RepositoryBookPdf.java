@@ -2,8 +2,12 @@ package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityBookPdf;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,8 +15,9 @@ public interface RepositoryBookPdf extends JpaRepository<EntityBookPdf, Long> {
 
     Optional<EntityBookPdf> findByBookId(Long bookId);
 
-    void deleteByBookId(Long bookId);
-
     boolean existsByBookId(Long bookId);
-}
 
+    @Modifying
+    @Query("DELETE FROM EntityBookPdf c WHERE c.bookId IN :bookIds")
+    void deleteAllByBookIdIn(@Param("bookIds") List<Long> bookIds);
+}
@@ -1,6 +1,7 @@
 package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityBookTransactionHistory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,7 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -116,25 +117,31 @@ public interface RepositoryBookTransactionHistory extends JpaRepository<EntityBo
               AND h.returned = true""")
     long countPendingReturnsByOwnerId(Long ownerId);
 
-    @Query(value = """
-            SELECT TO_CHAR(h.last_modified_date, 'YYYY-MM') AS month,
-                   COUNT(h.id)                              AS books_read
-            FROM   book_transaction_history h
-            WHERE  h.user_id  = :userId
-              AND  h.returned = true
-              AND  h.last_modified_date >= :from
-            GROUP BY TO_CHAR(h.last_modified_date, 'YYYY-MM')
-            ORDER BY month ASC""",
-            nativeQuery = true)
-    List<Object[]> findMonthlyReadingActivity(Long userId, LocalDateTime from);
-
-    @Modifying
-    @Query("DELETE FROM EntityBookTransactionHistory h WHERE h.user.id = :userId")
-    void deleteAllByUserId(@Param("userId") Long userId);
+    @Query("""
+            SELECT h.lastModifiedDate, h.book.genre
+            FROM EntityBookTransactionHistory h
+            WHERE h.user.id = :userId
+              AND h.returned = true
+              AND h.lastModifiedDate IS NOT NULL""")
+    List<Object[]> findReturnedActivityByUserId(Long userId);
 
     @Modifying
     @Query("DELETE FROM EntityBookTransactionHistory h WHERE h.book.id IN :bookIds")
     void deleteAllByBookIdIn(@Param("bookIds") List<Long> bookIds);
-}
 
+    /** A chunk of a borrower's history as {@code [historyId, lenderId]}; the lender is null for orphaned books. */
+    @Query("""
+            SELECT h.id, o.id
+            FROM EntityBookTransactionHistory h
+            LEFT JOIN h.book b
+            LEFT JOIN b.owner o
+            WHERE h.user.id = :userId
+            ORDER BY h.id""")
+    List<Object[]> findIdsAndLenderIdsByBorrowerId(@Param("userId") Long userId, Limit limit);
 
+    @Query("""
+            SELECT DISTINCT h.user.id
+            FROM EntityBookTransactionHistory h
+            WHERE h.book.id IN :bookIds""")
+    List<Long> findBorrowerIdsByBookIdIn(@Param("bookIds") Collection<Long> bookIds);
+}
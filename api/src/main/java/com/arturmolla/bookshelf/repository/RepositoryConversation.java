@@ -1,13 +1,17 @@
 package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityConversation;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,8 +41,59 @@ public interface RepositoryConversation extends JpaRepository<EntityConversation
             """)
     Page<EntityConversation> findByUserId(@Param("userId") Long userId, Pageable pageable);
 
-    /** Returns all conversations involving a user as a flat list (used for bulk deletion). */
-    @Query("SELECT c FROM EntityConversation c WHERE c.user1.id = :userId OR c.user2.id = :userId")
-    List<EntityConversation> findAllByUserId(@Param("userId") Long userId);
-}
+    /** Conversations of a user with a message since {@code since}. */
+    @Query("""
+            SELECT c FROM EntityConversation c
+            WHERE (c.user1.id = :userId OR c.user2.id = :userId)
+              AND c.lastMessageAt > :since
+            ORDER BY c.lastMessageAt
+            """)
+    List<EntityConversation> findActiveSince(@Param("userId") Long userId,
+                                             @Param("since") Instant since,
+                                             Limit limit);
+
+    /**
+     * Locks conversation rows until the end of the transaction, in id order so writers
+     * locking several never deadlock. Message inserts take it first: ids are then drawn
+     * after every earlier insert into the same conversation has committed.
+     */
+    @Query(value = "SELECT id FROM conversation WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockForInsert(@Param("ids") Collection<Long> conversationIds);
+
+    /** Moves {@code last_message_at} forward to {@code at}; never moves it back. */
+    @Modifying
+    @Query("""
+            UPDATE EntityConversation c
+               SET c.lastMessageAt = :at
+             WHERE c.id = :id
+               AND (c.lastMessageAt IS NULL OR c.lastMessageAt < :at)
+            """)
+    int advanceLastMessageAt(@Param("id") Long conversationId, @Param("at") Instant at);
+
+    /**
+     * Moves {@code userId}'s read watermark in a conversation up to {@code messageId};
+     * never moves it back. Returns 0 when the watermark was already there.
+     */
+    @Modifying
+    @Query("""
+            UPDATE EntityConversation c
+               SET c.user1LastReadId = CASE WHEN c.user1.id = :userId THEN :messageId ELSE c.user1LastReadId END,
+                   c.user2LastReadId = CASE WHEN c.user2.id = :userId THEN :messageId ELSE c.user2LastReadId END
+             WHERE c.id = :id
+               AND ((c.user1.id = :userId AND c.user1LastReadId < :messageId)
+                 OR (c.user2.id = :userId AND c.user2LastReadId < :messageId))
+            """)
+    int advanceReadWatermark(@Param("id") Long conversationId,
+                             @Param("userId") Long userId,
+                             @Param("messageId") long messageId);
 
+    /** Deletes up to {@code limit} conversations of a user; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM conversation WHERE id IN (
+                SELECT id FROM conversation
+                WHERE user1_id = :userId OR user2_id = :userId
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkInvolvingUser(@Param("userId") Long userId, @Param("limit") int limit);
+}
@@ -0,0 +1,39 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityFriendship;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RepositoryFriendship extends JpaRepository<EntityFriendship, EntityFriendship.Key> {
+
+    /** Primary-key probe: are the two users friends? */
+    boolean existsByUserIdAndFriendId(Long userId, Long friendId);
+
+    long countByUserId(Long userId);
+
+    /**
+     * Friend ids of a user after {@code after}, in id order: a keyset slice read from the
+     * primary key {@code (user_id, friend_id)} alone.
+     */
+    @Query("""
+            SELECT f.friendId FROM EntityFriendship f
+            WHERE f.userId = :userId AND f.friendId > :after
+            ORDER BY f.friendId""")
+    List<Long> findFriendIds(@Param("userId") Long userId, @Param("after") Long after, Limit limit);
+
+    /** Removes both directions of a friendship. */
+    @Modifying
+    @Query("""
+            DELETE FROM EntityFriendship f
+            WHERE (f.userId = :userA AND f.friendId = :userB)
+               OR (f.userId = :userB AND f.friendId = :userA)""")
+    void deleteBetween(@Param("userA") Long userA, @Param("userB") Long userB);
+
+}
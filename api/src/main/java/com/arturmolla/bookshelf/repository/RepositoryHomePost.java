@@ -1,11 +1,15 @@
 package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityHomePost;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,7 +25,11 @@ public interface RepositoryHomePost extends JpaRepository<EntityHomePost, Long>
      */
     Page<EntityHomePost> findByAuthorIdOrderByCreatedDateDesc(Long authorId, Pageable pageable);
 
-    /** Returns all posts belonging to a specific author as a flat list (used for bulk deletion). */
-    List<EntityHomePost> findByAuthorId(Long authorId);
-}
+    /** Those of the given ids that still belong to a post. */
+    @Query("SELECT p.id FROM EntityHomePost p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 
+    /** Ids of a chunk of an author's posts. */
+    @Query("SELECT p.id FROM EntityHomePost p WHERE p.author.id = :authorId ORDER BY p.id")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId, Limit limit);
+}
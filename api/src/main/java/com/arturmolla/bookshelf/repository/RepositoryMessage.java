@@ -1,6 +1,7 @@
 package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityMessage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,61 +10,76 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 
+
 @Repository
 public interface RepositoryMessage extends JpaRepository<EntityMessage, Long> {
 
     /** Returns messages for a conversation, oldest first (chat order). */
     Page<EntityMessage> findByConversationIdOrderByCreatedAtDesc(Long conversationId, Pageable pageable);
 
-    /** Count of unread messages sent TO the given user in a specific conversation. */
+    /** Count of messages sent TO the given user in a conversation above their read watermark. */
     @Query("""
             SELECT COUNT(m) FROM EntityMessage m
             WHERE m.conversation.id = :conversationId
               AND m.sender.id <> :userId
-              AND m.read = false
+              AND m.id > :lastReadId
             """)
     long countUnreadForUser(@Param("conversationId") Long conversationId,
-                            @Param("userId") Long userId);
+                            @Param("userId") Long userId,
+                            @Param("lastReadId") long lastReadId);
 
-    /** Count of conversations with unread messages for a specific user. */
+    /** Count of conversations of a user holding messages from the other participant above the user's watermark. */
     @Query("""
-        SELECT COUNT(DISTINCT m.conversation.id)
-        FROM EntityMessage m
-        WHERE m.read = false
-        AND m.sender.id <> :userId
-        AND m.conversation.id IN (
-            SELECT c.id
-            FROM EntityConversation c
-            WHERE c.user1.id = :userId OR c.user2.id = :userId
-        )
-    """)
+            SELECT COUNT(c) FROM EntityConversation c
+            WHERE (c.user1.id = :userId AND EXISTS (
+                      SELECT 1 FROM EntityMessage m
+                      WHERE m.conversation = c AND m.sender.id = c.user2.id AND m.id > c.user1LastReadId))
+               OR (c.user2.id = :userId AND EXISTS (
+                      SELECT 1 FROM EntityMessage m
+                      WHERE m.conversation = c AND m.sender.id = c.user1.id AND m.id > c.user2LastReadId))
+            """)
     long countUnreadConversationsForUser(@Param("userId") Long userId);
 
-
-    /** Marks every unread message sent by the OTHER user in a conversation as read. */
-    @Modifying
+    /**
+     * Messages a user received since {@code since}, oldest first — used to rebuild the
+     * SSE events a reconnecting client missed.
+     */
     @Query("""
-            UPDATE EntityMessage m
-               SET m.read = true
-             WHERE m.conversation.id = :conversationId
-               AND m.sender.id <> :userId
-               AND m.read = false
+            SELECT m FROM EntityMessage m
+            JOIN FETCH m.conversation c
+            JOIN FETCH m.sender
+            WHERE (c.user1.id = :userId OR c.user2.id = :userId)
+              AND m.sender.id <> :userId
+              AND m.createdAt > :since
+            ORDER BY m.id
             """)
-    void markAllReadInConversation(@Param("conversationId") Long conversationId,
-                                   @Param("userId") Long userId);
+    List<EntityMessage> findReceivedSince(@Param("userId") Long userId,
+                                          @Param("since") Instant since,
+                                          Limit limit);
 
-    /** Last message in a conversation — used to populate conversation list previews. */
+    /**
+     * Content of the last message in a conversation — used to populate conversation list previews.
+     * Selects the text column only, so no message entity (or its media metadata) is hydrated.
+     */
     @Query("""
-            SELECT m FROM EntityMessage m
+            SELECT m.content FROM EntityMessage m
             WHERE m.conversation.id = :conversationId
             ORDER BY m.createdAt DESC
             LIMIT 1
             """)
-    java.util.Optional<EntityMessage> findLastMessage(@Param("conversationId") Long conversationId);
+    java.util.Optional<String> findLastMessageContent(@Param("conversationId") Long conversationId);
 
+    /** Deletes up to {@code limit} messages of the conversations a user takes part in; returns how many. */
     @Modifying
-    @Query("DELETE FROM EntityMessage m WHERE m.conversation.id IN :conversationIds")
-    void deleteAllByConversationIdIn(@Param("conversationIds") List<Long> conversationIds);
-}
\ No newline at end of file
+    @Query(value = """
+            DELETE FROM message WHERE id IN (
+                SELECT m.id FROM message m
+                JOIN conversation c ON c.id = m.conversation_id
+                WHERE c.user1_id = :userId OR c.user2_id = :userId
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkInConversationsOf(@Param("userId") Long userId, @Param("limit") int limit);
+}
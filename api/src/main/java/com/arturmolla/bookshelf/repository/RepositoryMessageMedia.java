@@ -0,0 +1,9 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityMessageMedia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RepositoryMessageMedia extends JpaRepository<EntityMessageMedia, Long> {
+}
@@ -1,6 +1,8 @@
 package com.arturmolla.bookshelf.repository;
 
 import com.arturmolla.bookshelf.model.entity.EntityNotification;
+import com.arturmolla.bookshelf.model.enums.NotificationType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,24 +11,213 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RepositoryNotification extends JpaRepository<EntityNotification, Long> {
 
-    Page<EntityNotification> findByRecipientIdOrderByCreatedAtDesc(Long recipientId, Pageable pageable);
+    Page<EntityNotification> findByRecipientIdOrderByUpdatedAtDesc(Long recipientId, Pageable pageable);
 
     long countByRecipientIdAndReadFalse(Long recipientId);
 
+    /** By primary key, so only the partition holding {@code createdAt} is searched. */
+    Optional<EntityNotification> findByIdAndCreatedAt(Long id, LocalDateTime createdAt);
+
+    /**
+     * Unread notifications whose coalescing window is still open, for the recipients,
+     * types and references of a batch of incoming events.
+     */
+    @Query("""
+            SELECT n FROM EntityNotification n
+            WHERE n.recipient.id IN :recipientIds
+              AND n.type IN :types
+              AND n.referenceId IN :referenceIds
+              AND n.read = false
+              AND n.windowStart >= :since
+            """)
+    List<EntityNotification> findOpenGroups(@Param("recipientIds") Collection<Long> recipientIds,
+                                            @Param("types") Collection<NotificationType> types,
+                                            @Param("referenceIds") Collection<Long> referenceIds,
+                                            @Param("since") LocalDateTime since);
+
+    /**
+     * Records the actors of a coalesced notification, skipping the ones already recorded
+     * and users that no longer exist; returns how many were new.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO notification_actor (notification_id, notification_created_at, actor_id)
+            SELECT :notificationId, :createdAt, u.id
+            FROM   _user u
+            WHERE  u.id IN (:actorIds)
+            ON CONFLICT DO NOTHING""",
+            nativeQuery = true)
+    int addActors(@Param("notificationId") Long notificationId,
+                  @Param("createdAt") LocalDateTime createdAt,
+                  @Param("actorIds") Collection<Long> actorIds);
+
+    /** Forgets the actors recorded before {@code before}, whose coalescing windows have closed. */
+    @Modifying
+    @Query(value = "DELETE FROM notification_actor WHERE added_at < :before", nativeQuery = true)
+    int deleteActorsAddedBefore(@Param("before") LocalDateTime before);
+
     @Modifying
     @Query("UPDATE EntityNotification n SET n.read = true WHERE n.recipient.id = :recipientId AND n.read = false")
     void markAllReadByRecipientId(Long recipientId);
 
-    void deleteByIdAndRecipientId(Long id, Long recipientId);
+    /** Deletes one notification of a recipient by primary key; returns 0 if it is not theirs. */
+    @Modifying
+    @Query("""
+            DELETE FROM EntityNotification n
+            WHERE n.id = :id AND n.createdAt = :createdAt AND n.recipient.id = :recipientId""")
+    int deleteOwn(@Param("id") Long id, @Param("createdAt") LocalDateTime createdAt, @Param("recipientId") Long recipientId);
 
     @Modifying
     @Query("DELETE FROM EntityNotification n WHERE n.recipient.id = :recipientId")
     void deleteAllByRecipientId(Long recipientId);
 
+    /**
+     * The newest {@code maxItems} unread notifications of each digest subscriber in
+     * {@code userIds} updated after their last digest ({@code defaultSince} for a first
+     * one), by recipient and newest first.
+     */
+    @Query(value = """
+            SELECT n.* FROM notification_digest d
+            CROSS JOIN LATERAL (
+                SELECT * FROM notification
+                WHERE recipient_id = d.user_id
+                  AND is_read = false
+                  AND updated_at > COALESCE(d.last_sent_at, :defaultSince)
+                ORDER BY updated_at DESC
+                LIMIT :maxItems
+            ) n
+            WHERE d.user_id IN (:userIds)
+            ORDER BY n.recipient_id, n.updated_at DESC
+            """, nativeQuery = true)
+    List<EntityNotification> findDigestItems(@Param("userIds") Collection<Long> userIds,
+                                             @Param("defaultSince") LocalDateTime defaultSince,
+                                             @Param("maxItems") int maxItems);
+
+    /** Per digest subscriber in {@code userIds} with any: [user id, unread notifications since the last digest]. */
+    @Query(value = """
+            SELECT n.recipient_id, COUNT(*) FROM notification_digest d
+            JOIN notification n ON n.recipient_id = d.user_id
+            WHERE d.user_id IN (:userIds)
+              AND n.is_read = false
+              AND n.updated_at > COALESCE(d.last_sent_at, :defaultSince)
+            GROUP BY n.recipient_id
+            """, nativeQuery = true)
+    List<Object[]> countDigestItems(@Param("userIds") Collection<Long> userIds,
+                                    @Param("defaultSince") LocalDateTime defaultSince);
+
+    /** The newest {@code limit} unread notifications of one recipient updated after {@code since}. */
+    @Query("""
+            SELECT n FROM EntityNotification n
+            WHERE n.recipient.id = :recipientId
+              AND n.read = false
+              AND n.updatedAt > :since
+            ORDER BY n.updatedAt DESC
+            """)
+    List<EntityNotification> findUnreadSince(@Param("recipientId") Long recipientId,
+                                             @Param("since") LocalDateTime since,
+                                             Limit limit);
+
+    // ─── Retention ───────────────────────────────────────────────────────────
+
+    /** Deletes notifications older than {@code cutoff}; only partitions overlapping the cutoff are scanned. */
+    @Modifying
+    @Query(value = "DELETE FROM notification WHERE created_at < :cutoff", nativeQuery = true)
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Deletes everything but the newest {@code cap} notifications of each recipient over the cap.
+     * Scans the whole table; compactions run it once after a start, then only {@link #deleteBeyondCapOf}.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM notification n
+            USING (
+                SELECT id, created_at FROM (
+                    SELECT id, created_at,
+                           ROW_NUMBER() OVER (PARTITION BY recipient_id ORDER BY updated_at DESC, id DESC) AS rn
+                    FROM notification
+                    WHERE recipient_id IN (
+                        SELECT recipient_id FROM notification GROUP BY recipient_id HAVING COUNT(*) > :cap
+                    )
+                ) ranked
+                WHERE ranked.rn > :cap
+            ) excess
+            WHERE n.id = excess.id AND n.created_at = excess.created_at
+            """, nativeQuery = true)
+    int deleteBeyondCapPerRecipient(@Param("cap") int cap);
+
+    /**
+     * Deletes everything but the newest {@code cap} notifications of the given recipients:
+     * one index scan per recipient, reading past its newest {@code cap}.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM notification n
+            USING (
+                SELECT x.id, x.created_at FROM _user u
+                CROSS JOIN LATERAL (
+                    SELECT id, created_at FROM notification
+                    WHERE recipient_id = u.id
+                    ORDER BY updated_at DESC, id DESC
+                    OFFSET :cap
+                ) x
+                WHERE u.id IN (:recipientIds)
+            ) excess
+            WHERE n.id = excess.id AND n.created_at = excess.created_at
+            """, nativeQuery = true)
+    int deleteBeyondCapOf(@Param("cap") int cap, @Param("recipientIds") Collection<Long> recipientIds);
+
+    /** Names of the monthly partitions of {@code notification} (excluding the default partition). */
+    @Query(value = """
+            SELECT child.relname FROM pg_inherits i
+            JOIN pg_class parent ON parent.oid = i.inhparent
+            JOIN pg_class child  ON child.oid  = i.inhrelid
+            WHERE parent.relname = 'notification'
+              AND child.relname LIKE 'notification\\_p%'
+            """, nativeQuery = true)
+    List<String> findMonthlyPartitionNames();
+
+    /** Deletes up to {@code limit} notifications received by a user; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM notification WHERE (id, created_at) IN (
+                SELECT id, created_at FROM notification
+                WHERE recipient_id = :userId
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkByRecipientId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Deletes up to {@code limit} notifications triggered by a user alone; returns how many.
+     * Coalesced ones with other actors are kept and {@link #findWithLatestActor scrubbed} instead.
+     */
+    @Modifying
+    @Query(value = """
+            DELETE FROM notification WHERE (id, created_at) IN (
+                SELECT id, created_at FROM notification
+                WHERE actor_id = :userId AND actor_count = 1
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkByActorId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /** Up to {@code limit} coalesced notifications that show the user among their latest actors. */
+    @Query(value = """
+            SELECT * FROM notification
+            WHERE latest_actors @> jsonb_build_array(jsonb_build_object('id', :userId))
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<EntityNotification> findWithLatestActor(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /** Forgets the user as an actor of any coalesced notification. */
     @Modifying
-    @Query("DELETE FROM EntityNotification n WHERE n.actor.id = :actorId")
-    void deleteAllByActorId(@Param("actorId") Long actorId);
+    @Query(value = "DELETE FROM notification_actor WHERE actor_id = :userId", nativeQuery = true)
+    int deleteActorPairs(@Param("userId") Long userId);
 }
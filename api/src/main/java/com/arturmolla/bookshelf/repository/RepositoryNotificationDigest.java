@@ -0,0 +1,33 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityNotificationDigest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RepositoryNotificationDigest extends JpaRepository<EntityNotificationDigest, Long> {
+
+    /**
+     * Locks the next {@code limit} subscriptions with the given frequency that are due,
+     * i.e. got no digest since {@code dueBefore}, by user id. Rows locked by another
+     * instance's job are skipped rather than waited for.
+     */
+    @Query(value = """
+            SELECT * FROM notification_digest
+            WHERE frequency = :frequency
+              AND user_id > :afterUserId
+              AND (last_sent_at IS NULL OR last_sent_at < :dueBefore)
+            ORDER BY user_id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EntityNotificationDigest> claimDue(@Param("frequency") String frequency,
+                                            @Param("afterUserId") Long afterUserId,
+                                            @Param("dueBefore") LocalDateTime dueBefore,
+                                            @Param("limit") int limit);
+}
@@ -0,0 +1,45 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RepositoryOutboxEvent extends JpaRepository<EntityOutboxEvent, Long> {
+
+    /**
+     * Locks up to {@code limit} due events, oldest first. Rows locked by another
+     * instance's worker are skipped rather than waited for.
+     */
+    @Query(value = """
+            SELECT * FROM outbox_event
+            WHERE failed_at IS NULL
+              AND available_at <= :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EntityOutboxEvent> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("""
+            UPDATE EntityOutboxEvent e
+            SET e.availableAt = :availableAt, e.lastError = :error
+            WHERE e.id = :id
+            """)
+    void reschedule(@Param("id") Long id,
+                    @Param("availableAt") LocalDateTime availableAt,
+                    @Param("error") String error);
+
+    @Modifying
+    @Query("UPDATE EntityOutboxEvent e SET e.failedAt = :failedAt, e.lastError = :error WHERE e.id = :id")
+    void markFailed(@Param("id") Long id,
+                    @Param("failedAt") LocalDateTime failedAt,
+                    @Param("error") String error);
+}
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -16,14 +17,30 @@ public interface RepositoryPostComment extends JpaRepository<EntityPostComment,
 
     Page<EntityPostComment> findByPostIdOrderByCreatedDateAsc(Long postId, Pageable pageable);
 
-    long countByPostId(Long postId);
+    /** (postId, commentedAt) of every comment since {@code since}, used to rebuild trending scores. */
+    @Query("SELECT c.post.id, c.createdDate FROM EntityPostComment c WHERE c.createdDate >= :since")
+    List<Object[]> findInteractionsSince(@Param("since") LocalDateTime since);
 
-    @Modifying
-    @Query("DELETE FROM EntityPostComment c WHERE c.author.id = :authorId")
-    void deleteAllByAuthorId(@Param("authorId") Long authorId);
+    long countByPostId(Long postId);
 
     @Modifying
     @Query("DELETE FROM EntityPostComment c WHERE c.post.id IN :postIds")
     void deleteAllByPostIdIn(@Param("postIds") List<Long> postIds);
-}
 
+    /** Deletes up to {@code limit} comments written by a user; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM post_comment WHERE id IN (
+                SELECT id FROM post_comment WHERE author_id = :authorId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkByAuthorId(@Param("authorId") Long authorId, @Param("limit") int limit);
+
+    /** Deletes up to {@code limit} comments on posts written by {@code authorId}; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM post_comment WHERE id IN (
+                SELECT c.id FROM home_post p JOIN post_comment c ON c.post_id = p.id
+                WHERE p.author_id = :authorId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkOnPostsOf(@Param("authorId") Long authorId, @Param("limit") int limit);
+}
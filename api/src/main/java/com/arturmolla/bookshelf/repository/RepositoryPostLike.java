@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,12 +20,28 @@ public interface RepositoryPostLike extends JpaRepository<EntityPostLike, Long>
 
     long countByPostId(Long postId);
 
-    @Modifying
-    @Query("DELETE FROM EntityPostLike l WHERE l.user.id = :userId")
-    void deleteAllByUserId(@Param("userId") Long userId);
+    /** (postId, likedAt) of every like since {@code since}, used to rebuild trending scores. */
+    @Query("SELECT l.post.id, l.createdAt FROM EntityPostLike l WHERE l.createdAt >= :since")
+    List<Object[]> findInteractionsSince(@Param("since") LocalDateTime since);
 
     @Modifying
     @Query("DELETE FROM EntityPostLike l WHERE l.post.id IN :postIds")
     void deleteAllByPostIdIn(@Param("postIds") List<Long> postIds);
-}
 
+    /** Deletes up to {@code limit} likes given by a user; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM post_like WHERE id IN (
+                SELECT id FROM post_like WHERE user_id = :userId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /** Deletes up to {@code limit} likes on posts written by {@code authorId}; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM post_like WHERE id IN (
+                SELECT c.id FROM home_post p JOIN post_like c ON c.post_id = p.id
+                WHERE p.author_id = :authorId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkOnPostsOf(@Param("authorId") Long authorId, @Param("limit") int limit);
+}
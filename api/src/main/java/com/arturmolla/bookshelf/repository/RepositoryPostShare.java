@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,12 +15,28 @@ public interface RepositoryPostShare extends JpaRepository<EntityPostShare, Long
 
     long countByPostId(Long postId);
 
-    @Modifying
-    @Query("DELETE FROM EntityPostShare s WHERE s.user.id = :userId")
-    void deleteAllByUserId(@Param("userId") Long userId);
+    /** (postId, sharedAt) of every share since {@code since}, used to rebuild trending scores. */
+    @Query("SELECT s.post.id, s.sharedAt FROM EntityPostShare s WHERE s.sharedAt >= :since")
+    List<Object[]> findInteractionsSince(@Param("since") LocalDateTime since);
 
     @Modifying
     @Query("DELETE FROM EntityPostShare s WHERE s.post.id IN :postIds")
     void deleteAllByPostIdIn(@Param("postIds") List<Long> postIds);
-}
 
+    /** Deletes up to {@code limit} shares made by a user; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM post_share WHERE id IN (
+                SELECT id FROM post_share WHERE user_id = :userId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /** Deletes up to {@code limit} shares on posts written by {@code authorId}; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM post_share WHERE id IN (
+                SELECT c.id FROM home_post p JOIN post_share c ON c.post_id = p.id
+                WHERE p.author_id = :authorId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkOnPostsOf(@Param("authorId") Long authorId, @Param("limit") int limit);
+}
@@ -0,0 +1,25 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityPostViewStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RepositoryPostViewStats extends JpaRepository<EntityPostViewStats, Long> {
+
+    /** Row-locks the stats of a flush batch so concurrent flushes do not overwrite each other. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM EntityPostViewStats s WHERE s.postId IN :postIds")
+    List<EntityPostViewStats> findAllByPostIdInForUpdate(@Param("postIds") Collection<Long> postIds);
+
+    /** (postId, viewCount, uniqueViewers) of the given posts, without the sketches. */
+    @Query("SELECT s.postId, s.viewCount, s.uniqueViewers FROM EntityPostViewStats s WHERE s.postId IN :postIds")
+    List<Object[]> findCountsByPostIdIn(@Param("postIds") Collection<Long> postIds);
+}
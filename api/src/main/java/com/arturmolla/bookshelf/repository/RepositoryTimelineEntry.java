@@ -0,0 +1,137 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityHomePost;
+import com.arturmolla.bookshelf.model.entity.EntityTimelineEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RepositoryTimelineEntry extends JpaRepository<EntityTimelineEntry, EntityTimelineEntry.Key> {
+
+    // ── Fan-out on write ──────────────────────────────────────────────────────
+
+    /** Pushes a new post to the author, their friends and their followers in one statement. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO timeline_entry (user_id, post_id, author_id, created_at)
+            SELECT :authorId, :postId, :authorId, :createdAt
+            UNION
+            SELECT f.friend_id, :postId, :authorId, :createdAt
+            FROM   friendship f
+            WHERE  f.user_id = :authorId
+            UNION
+            SELECT r.requester_id, :postId, :authorId, :createdAt
+            FROM   user_relation r
+            WHERE  r.addressee_id = :authorId
+              AND  r.relation_type = 'FOLLOW'
+            ON CONFLICT DO NOTHING""",
+            nativeQuery = true)
+    int fanOutToFriendsAndFollowers(@Param("postId") Long postId,
+                                    @Param("authorId") Long authorId,
+                                    @Param("createdAt") LocalDateTime createdAt);
+
+    /** Fan-out for authors with too many followers: followers read their posts on demand instead. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO timeline_entry (user_id, post_id, author_id, created_at)
+            SELECT :authorId, :postId, :authorId, :createdAt
+            UNION
+            SELECT f.friend_id, :postId, :authorId, :createdAt
+            FROM   friendship f
+            WHERE  f.user_id = :authorId
+            ON CONFLICT DO NOTHING""",
+            nativeQuery = true)
+    int fanOutToFriends(@Param("postId") Long postId,
+                        @Param("authorId") Long authorId,
+                        @Param("createdAt") LocalDateTime createdAt);
+
+    /** Copies an author's most recent posts into a new friend's / follower's timeline. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO timeline_entry (user_id, post_id, author_id, created_at)
+            SELECT :userId, p.id, p.author_id, p.created_date
+            FROM   home_post p
+            WHERE  p.author_id = :authorId
+            ORDER BY p.id DESC
+            LIMIT  :limit
+            ON CONFLICT DO NOTHING""",
+            nativeQuery = true)
+    int backfillFromAuthor(@Param("userId") Long userId,
+                           @Param("authorId") Long authorId,
+                           @Param("limit") int limit);
+
+    // ── Reads ─────────────────────────────────────────────────────────────────
+
+    /** One timeline slice before {@code before}: a backward range scan of the primary key joined to the posts. */
+    @Query("""
+            SELECT p FROM EntityTimelineEntry t
+            JOIN EntityHomePost p ON p.id = t.postId
+            WHERE t.userId = :userId AND t.postId < :before
+            ORDER BY t.postId DESC""")
+    List<EntityHomePost> findTimeline(@Param("userId") Long userId, @Param("before") Long before, Limit limit);
+
+    /**
+     * Timeline slice merged with the posts of high-follower authors that are not fanned
+     * out: the timeline's range scan and one {@code (author_id, id)} range scan per author,
+     * each stopping after {@code limit} rows, then the newest {@code limit} of them.
+     */
+    @Query(value = """
+            SELECT p.* FROM home_post p
+            WHERE p.id IN (
+                (SELECT t.post_id FROM timeline_entry t
+                 WHERE t.user_id = :userId AND t.post_id < :before
+                 ORDER BY t.post_id DESC
+                 LIMIT :limit)
+                UNION ALL
+                (SELECT a.id FROM _user u
+                 CROSS JOIN LATERAL (
+                     SELECT ap.id FROM home_post ap
+                     WHERE ap.author_id = u.id AND ap.id < :before
+                     ORDER BY ap.id DESC
+                     LIMIT :limit
+                 ) a
+                 WHERE u.id IN (:authorIds))
+            )
+            ORDER BY p.id DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<EntityHomePost> findTimelineWithAuthors(@Param("userId") Long userId,
+                                                 @Param("authorIds") Collection<Long> authorIds,
+                                                 @Param("before") Long before,
+                                                 @Param("limit") int limit);
+
+    // ── Cleanup ───────────────────────────────────────────────────────────────
+
+    @Modifying
+    @Query("DELETE FROM EntityTimelineEntry t WHERE t.userId = :userId AND t.authorId = :authorId")
+    void deleteAllByUserIdAndAuthorId(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("DELETE FROM EntityTimelineEntry t WHERE t.postId IN :postIds")
+    void deleteAllByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    /** Deletes up to {@code limit} entries of a user's timeline; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM timeline_entry
+            WHERE user_id = :userId AND post_id IN (
+                SELECT post_id FROM timeline_entry WHERE user_id = :userId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /** Deletes up to {@code limit} entries of posts written by {@code authorId}, from any timeline; returns how many. */
+    @Modifying
+    @Query(value = """
+            DELETE FROM timeline_entry WHERE (user_id, post_id) IN (
+                SELECT t.user_id, t.post_id FROM home_post p JOIN timeline_entry t ON t.post_id = p.id
+                WHERE p.author_id = :authorId LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkOnPostsOf(@Param("authorId") Long authorId, @Param("limit") int limit);
+}
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,6 +17,18 @@ public interface RepositoryUser extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    /** Those of the given ids that still belong to a user. */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /** Those of the given ids whose user may still sign in: enabled and not locked. */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids AND u.enabled = true AND u.accountLocked = false")
+    List<Long> findActiveIds(@Param("ids") Collection<Long> ids);
+
+    /** {@code [id, firstname, lastname]} of the given users, by primary key. */
+    @Query("SELECT u.id, u.firstname, u.lastname FROM User u WHERE u.id IN :ids")
+    List<Object[]> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Full-text user search across first name, last name, combined full name and e-mail.
      * The authenticated user is excluded from the results, as are users who are already
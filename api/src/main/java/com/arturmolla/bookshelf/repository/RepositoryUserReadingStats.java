@@ -0,0 +1,38 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.model.entity.EntityUserReadingStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface RepositoryUserReadingStats extends JpaRepository<EntityUserReadingStats, Long> {
+
+    /** Row-locks the stats of a user so concurrent increments do not overwrite each other. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM EntityUserReadingStats s WHERE s.userId = :userId")
+    Optional<EntityUserReadingStats> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Creates an empty stats row for a user unless one exists, without failing when a
+     * concurrent transaction creates it first (it waits for that one instead).
+     *
+     * @return 1 if this call created the row, else 0
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_reading_stats (user_id) VALUES (:userId) ON CONFLICT (user_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId);
+
+    /** Drops cached stats so they are rebuilt from the source tables on next access. */
+    @Modifying
+    @Query("DELETE FROM EntityUserReadingStats s WHERE s.userId IN :userIds")
+    void deleteAllByUserIdIn(@Param("userIds") Collection<Long> userIds);
+}
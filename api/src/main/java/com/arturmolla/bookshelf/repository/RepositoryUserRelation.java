@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -34,19 +35,6 @@ public interface RepositoryUserRelation extends JpaRepository<EntityUserRelation
     Page<EntityUserRelation> findByRequesterIdAndRelationTypeAndStatus(
             Long requesterId, RelationType type, RelationStatus status, Pageable pageable);
 
-    // ── Friends (accepted) ────────────────────────────────────────────────────
-
-    /**
-     * Accepted friendships where the user is either the requester or the addressee.
-     */
-    @Query("""
-            SELECT r FROM EntityUserRelation r
-            WHERE r.relationType = 'FRIEND_REQUEST'
-              AND r.status = 'ACCEPTED'
-              AND (r.requester.id = :userId OR r.addressee.id = :userId)
-            """)
-    Page<EntityUserRelation> findFriends(@Param("userId") Long userId, Pageable pageable);
-
     // ── Follows ───────────────────────────────────────────────────────────────
 
     /** Users that :userId is following. */
@@ -59,20 +47,27 @@ public interface RepositoryUserRelation extends JpaRepository<EntityUserRelation
 
     // ── Counts ────────────────────────────────────────────────────────────────
 
-    @Query("""
-            SELECT COUNT(r) FROM EntityUserRelation r
-            WHERE r.relationType = 'FRIEND_REQUEST'
-              AND r.status = 'ACCEPTED'
-              AND (r.requester.id = :userId OR r.addressee.id = :userId)
-            """)
-    long countFriends(@Param("userId") Long userId);
-
     long countByRequesterIdAndRelationType(Long requesterId, RelationType type);
 
     long countByAddresseeIdAndRelationType(Long addresseeId, RelationType type);
 
+    // ── Social graph ──────────────────────────────────────────────────────────
+
+    /** Every live relation as (requesterId, addresseeId, relationType, status), for the in-memory graph. */
+    @Query("""
+            SELECT r.requester.id, r.addressee.id, r.relationType, r.status
+            FROM EntityUserRelation r
+            WHERE r.status <> 'REJECTED'
+            """)
+    List<Object[]> findAllGraphEdges();
+
+    /** Deletes up to {@code limit} relations of a user (friendship edges cascade); returns how many. */
     @Modifying
-    @Query("DELETE FROM EntityUserRelation r WHERE r.requester.id = :userId OR r.addressee.id = :userId")
-    void deleteAllInvolvingUser(@Param("userId") Long userId);
+    @Query(value = """
+            DELETE FROM user_relation WHERE id IN (
+                SELECT id FROM user_relation
+                WHERE requester_id = :userId OR addressee_id = :userId
+                LIMIT :limit)
+            """, nativeQuery = true)
+    int deleteChunkInvolvingUser(@Param("userId") Long userId, @Param("limit") int limit);
 }
-
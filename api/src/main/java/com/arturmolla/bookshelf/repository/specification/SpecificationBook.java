@@ -29,6 +29,13 @@ public class SpecificationBook {
                 cb.isTrue(root.get("shareable"));
     }
 
+    /** Books rated at least {@code minRating}; all books when {@code minRating} is null. */
+    public static Specification<EntityBook> hasMinRating(Double minRating) {
+        return (root, query, cb) -> minRating == null
+                ? cb.conjunction()
+                : cb.greaterThanOrEqualTo(root.get("rating"), minRating);
+    }
+
     /**
      * Case-insensitive LIKE search across title, authorName, synopsis, isbn, and genre.
      * Returns all books when {@code query} is null or blank.
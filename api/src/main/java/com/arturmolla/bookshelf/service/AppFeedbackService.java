@@ -82,16 +82,14 @@ public class AppFeedbackService {
             feedback.getUpvotedBy().add(user.getId());
 
             // Notify the feedback author that someone upvoted their feedback
-            repositoryUser.findById(feedback.getCreatedBy()).ifPresent(author ->
-                    serviceNotification.notify(
-                            author,
-                            user,
-                            NotificationType.FEEDBACK_UPVOTED,
-                            user.getFullName() + " upvoted your feedback",
-                            "\"" + feedback.getTitle() + "\" received an upvote.",
-                            id,
-                            "FEEDBACK"
-                    )
+            serviceNotification.notify(
+                    feedback.getCreatedBy(),
+                    user,
+                    NotificationType.FEEDBACK_UPVOTED,
+                    user.getFullName() + " upvoted your feedback",
+                    "\"" + feedback.getTitle() + "\" received an upvote.",
+                    id,
+                    "FEEDBACK"
             );
         }
         return mapperAppFeedback.toDto(repositoryAppFeedback.save(feedback), user.getId());
@@ -123,16 +121,14 @@ public class AppFeedbackService {
         feedback.getComments().add(comment);
 
         // Notify the feedback author that someone commented on their feedback
-        repositoryUser.findById(feedback.getCreatedBy()).ifPresent(author ->
-                serviceNotification.notify(
-                        author,
-                        user,
-                        NotificationType.FEEDBACK_COMMENTED,
-                        user.getFullName() + " commented on your feedback",
-                        "\"" + feedback.getTitle() + "\": " + commentDto.getMessage(),
-                        id,
-                        "FEEDBACK"
-                )
+        serviceNotification.notify(
+                feedback.getCreatedBy(),
+                user,
+                NotificationType.FEEDBACK_COMMENTED,
+                user.getFullName() + " commented on your feedback",
+                "\"" + feedback.getTitle() + "\": " + commentDto.getMessage(),
+                id,
+                "FEEDBACK"
         );
 
         return mapperAppFeedback.toDto(repositoryAppFeedback.save(feedback), user.getId());
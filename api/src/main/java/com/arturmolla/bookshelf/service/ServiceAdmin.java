@@ -1,13 +1,17 @@
 package com.arturmolla.bookshelf.service;
 
+import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.dto.DtoAccountDeletionStatus;
 import com.arturmolla.bookshelf.model.dto.DtoAdminUpdateUserRequest;
 import com.arturmolla.bookshelf.model.dto.DtoAdminUserResponse;
-import com.arturmolla.bookshelf.model.common.PageResponse;
-import com.arturmolla.bookshelf.model.entity.EntityBook;
-import com.arturmolla.bookshelf.model.entity.EntityConversation;
-import com.arturmolla.bookshelf.model.entity.EntityHomePost;
+import com.arturmolla.bookshelf.model.entity.EntityAccountDeletion;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStatus;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStep;
 import com.arturmolla.bookshelf.model.user.User;
-import com.arturmolla.bookshelf.repository.*;
+import com.arturmolla.bookshelf.repository.RepositoryAccountDeletion;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.account.AccountDeletionWorker;
+import com.arturmolla.bookshelf.service.utils.UtilsTransaction;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -15,29 +19,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
 public class ServiceAdmin {
 
     private final RepositoryUser repositoryUser;
-    private final RepositoryToken repositoryToken;
-    private final RepositoryNotification repositoryNotification;
-    private final RepositoryUserRelation repositoryUserRelation;
-    private final RepositoryPostComment repositoryPostComment;
-    private final RepositoryPostLike repositoryPostLike;
-    private final RepositoryPostShare repositoryPostShare;
-    private final RepositoryHomePost repositoryHomePost;
-    private final RepositoryConversation repositoryConversation;
-    private final RepositoryMessage repositoryMessage;
-    private final RepositoryBookTransactionHistory repositoryBookTransactionHistory;
-    private final RepositoryFeedback repositoryFeedback;
-    private final RepositoryBook repositoryBook;
-    private final RepositoryBookCover repositoryBookCover;
-    private final RepositoryBookPdf repositoryBookPdf;
-    private final RepositoryUserProfilePic repositoryUserProfilePic;
-    private final RepositoryUserWallpaper repositoryUserWallpaper;
+    private final RepositoryAccountDeletion repositoryAccountDeletion;
+    private final AccountDeletionWorker accountDeletionWorker;
 
     // -----------------------------------------------------------------------
     // Read
@@ -124,94 +114,75 @@ public class ServiceAdmin {
     }
 
     // -----------------------------------------------------------------------
-    // Delete  (full cascading wipe)
+    // Delete  (background, chunked)
     // -----------------------------------------------------------------------
 
     /**
-     * Deletes a user and ALL of their associated data in the correct FK order:
-     * <ol>
-     *   <li>Activation tokens</li>
-     *   <li>Notifications (as recipient and as actor)</li>
-     *   <li>User relations (friend requests / follows on both sides)</li>
-     *   <li>Social activity: comments, likes, shares <em>made by</em> the user</li>
-     *   <li>Home posts by the user (incl. social data on those posts from other users
-     *       and post attachments via JPA cascade)</li>
-     *   <li>Conversations and all their messages</li>
-     *   <li>Book borrow history where the user is the borrower</li>
-     *   <li>Books owned by the user (feedbacks, transaction history, covers, PDFs)</li>
-     *   <li>Profile picture and wallpaper</li>
-     *   <li>The user record itself</li>
-     * </ol>
+     * Requests the deletion of a user and ALL of their associated data. The account is
+     * disabled and locked right away; {@link AccountDeletionWorker} then deletes the data
+     * in small chunks, each in its own transaction, and finally the user record (see
+     * {@link AccountDeletionStep} for the order). Progress is visible through
+     * {@link #getDeletionStatus}. Requesting again while a deletion is in progress
+     * returns its status; a failed deletion is restarted where it stopped.
      */
     @Transactional
-    public void deleteUser(Long id) {
-        User user = repositoryUser.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
-
-        // 1. Activation / verification tokens
-        repositoryToken.deleteAll(repositoryToken.findAllByUser(user));
-
-        // 2. Notifications where this user is the recipient or the actor
-        repositoryNotification.deleteAllByRecipientId(id);
-        repositoryNotification.deleteAllByActorId(id);
-
-        // 3. Friend / follow relations on both sides
-        repositoryUserRelation.deleteAllInvolvingUser(id);
-
-        // 4. Social activity made by this user (across ALL posts, not just their own)
-        repositoryPostComment.deleteAllByAuthorId(id);
-        repositoryPostLike.deleteAllByUserId(id);
-        repositoryPostShare.deleteAllByUserId(id);
-
-        // 5. Posts authored by this user
-        //    — first remove other users' social activity on those posts,
-        //      then delete the posts (JPA cascade removes post attachments)
-        List<EntityHomePost> userPosts = repositoryHomePost.findByAuthorId(id);
-        if (!userPosts.isEmpty()) {
-            List<Long> postIds = userPosts.stream().map(EntityHomePost::getId).toList();
-            repositoryPostComment.deleteAllByPostIdIn(postIds);
-            repositoryPostLike.deleteAllByPostIdIn(postIds);
-            repositoryPostShare.deleteAllByPostIdIn(postIds);
-            repositoryHomePost.deleteAll(userPosts); // cascades → post_attachment
-        }
-
-        // 6. Conversations (DMs) and all messages within them
-        List<EntityConversation> conversations = repositoryConversation.findAllByUserId(id);
-        if (!conversations.isEmpty()) {
-            List<Long> convIds = conversations.stream().map(EntityConversation::getId).toList();
-            repositoryMessage.deleteAllByConversationIdIn(convIds);
-            repositoryConversation.deleteAll(conversations);
+    public DtoAccountDeletionStatus deleteUser(Long id) {
+        EntityAccountDeletion job = repositoryAccountDeletion.findById(id).orElse(null);
+        if (job == null) {
+            User user = repositoryUser.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
+            user.setEnabled(false);
+            user.setAccountLocked(true);
+            LocalDateTime now = LocalDateTime.now();
+            job = repositoryAccountDeletion.save(EntityAccountDeletion.builder()
+                    .userId(id)
+                    .status(AccountDeletionStatus.PENDING)
+                    .step(AccountDeletionStep.values()[0])
+                    .availableAt(now)
+                    .requestedAt(now)
+                    .updatedAt(now)
+                    .build());
+        } else if (job.getStatus() == AccountDeletionStatus.FAILED) {
+            job.setStatus(AccountDeletionStatus.PENDING);
+            job.setAttempts(0);
+            job.setAvailableAt(LocalDateTime.now());
+            job.setFinishedAt(null);
         }
-
-        // 7. Book borrow history where this user is the borrower
-        repositoryBookTransactionHistory.deleteAllByUserId(id);
-
-        // 8. Books owned by this user
-        //    — must clear feedbacks, borrow history for those books, covers and PDFs first
-        List<EntityBook> ownedBooks = repositoryBook.findByOwner(user);
-        if (!ownedBooks.isEmpty()) {
-            List<Long> bookIds = ownedBooks.stream().map(EntityBook::getId).toList();
-            repositoryFeedback.deleteAllByBookIdIn(bookIds);
-            repositoryBookTransactionHistory.deleteAllByBookIdIn(bookIds);
-            bookIds.forEach(bookId -> {
-                repositoryBookCover.deleteByBookId(bookId);
-                repositoryBookPdf.deleteByBookId(bookId);
-            });
-            repositoryBook.deleteAll(ownedBooks);
+        if (job.getStatus() != AccountDeletionStatus.COMPLETED) {
+            UtilsTransaction.afterCommit(accountDeletionWorker::kick);
         }
+        return toDto(job);
+    }
 
-        // 9. Profile picture and wallpaper (stored by raw userId, no JPA FK)
-        repositoryUserProfilePic.deleteByUserId(id);
-        repositoryUserWallpaper.deleteByUserId(id);
-
-        // 10. The user record (also cleans up the roles join-table automatically)
-        repositoryUser.delete(user);
+    public DtoAccountDeletionStatus getDeletionStatus(Long id) {
+        return repositoryAccountDeletion.findById(id)
+                .map(this::toDto)
+                .orElseThrow(() -> new EntityNotFoundException("No deletion requested for user id: " + id));
     }
 
     // -----------------------------------------------------------------------
     // Mapper
     // -----------------------------------------------------------------------
 
+    private DtoAccountDeletionStatus toDto(EntityAccountDeletion job) {
+        int stepsDone = job.getStatus() == AccountDeletionStatus.COMPLETED
+                ? AccountDeletionStep.values().length
+                : job.getStep().ordinal();
+        return DtoAccountDeletionStatus.builder()
+                .userId(job.getUserId())
+                .status(job.getStatus())
+                .step(job.getStep())
+                .stepsDone(stepsDone)
+                .totalSteps(AccountDeletionStep.values().length)
+                .rowsDeleted(job.getRowsDeleted())
+                .attempts(job.getAttempts())
+                .lastError(job.getLastError())
+                .requestedAt(job.getRequestedAt())
+                .updatedAt(job.getUpdatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
     private DtoAdminUserResponse toDto(User user) {
         return DtoAdminUserResponse.builder()
                 .id(user.getId())
@@ -11,6 +11,7 @@ import com.arturmolla.bookshelf.repository.RepositoryToken;
 import com.arturmolla.bookshelf.repository.RepositoryUser;
 import com.arturmolla.bookshelf.security.JwtService;
 import jakarta.mail.MessagingException;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -40,6 +41,7 @@ public class ServiceAuthentication {
     @Value("${application.mailing.frontend.login-url}")
     private String loginUrl;
 
+    @Transactional
     public void registerUser(DtoRegistrationRequest request) throws MessagingException {
         var userRole = repositoryRole.findByName("USER")
                 .orElseThrow(() -> new IllegalStateException("Role USER not found/initialized"));
@@ -85,6 +87,7 @@ public class ServiceAuthentication {
         repositoryToken.save(savedToken);
     }
 
+    @Transactional
     public void resendActivationToken(String email) throws MessagingException {
         User user = repositoryUser.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found!"));
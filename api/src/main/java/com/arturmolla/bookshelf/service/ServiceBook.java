@@ -39,12 +39,15 @@ public class ServiceBook {
     private final ServiceFileStorage serviceFileStorage;
     private final MapperBook mapperBook;
     private final ServiceNotification serviceNotification;
+    private final ServiceReadingStats serviceReadingStats;
 
     public Long saveBook(DtoBookRequest request, Authentication connectedUser) {
         var user = (User) connectedUser.getPrincipal();
         EntityBook book = mapperBook.toEntityBook(request);
         book.setOwner(user);
-        return repositoryBook.save(book).getId();
+        Long bookId = repositoryBook.save(book).getId();
+        serviceReadingStats.bookAdded(user.getId(), Boolean.TRUE.equals(book.getRead()));
+        return bookId;
     }
 
     public DtoBookResponse updateBook(Long bookId, DtoBookUpdateRequest request, Authentication connectedUser) {
@@ -54,8 +57,14 @@ public class ServiceBook {
         if (!Objects.equals(book.getCreatedBy(), user.getId())) {
             throw new OperationNotPermittedException("You can not perform this action!");
         }
+        boolean wasRead = Boolean.TRUE.equals(book.getRead());
         mapperBook.updateEntityFromRequest(book, request);
-        return mapperBook.toDtoBookResponse(repositoryBook.save(book));
+        EntityBook saved = repositoryBook.save(book);
+        boolean isRead = Boolean.TRUE.equals(saved.getRead());
+        if (wasRead != isRead) {
+            serviceReadingStats.readFlagChanged(book.getOwner().getId(), isRead);
+        }
+        return mapperBook.toDtoBookResponse(saved);
     }
 
     public DtoBookResponse findBookById(Long bookId) {
@@ -71,12 +80,21 @@ public class ServiceBook {
         return mapPageToCustomWrapper(books);
     }
 
-    public PageResponse<DtoBookResponse> getAllBooksPaged(int page, int size, String query, Authentication connectedUser) {
+    /**
+     * Catalogue of other users' shareable books. {@code sort} is {@code recent} (default)
+     * or {@code rating}; the rating order is backed by the partial catalogue rating index.
+     */
+    public PageResponse<DtoBookResponse> getAllBooksPaged(int page, int size, String query, String sort,
+                                                          Double minRating, Authentication connectedUser) {
         var user = (User) connectedUser.getPrincipal();
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdDate").descending());
+        Sort order = "rating".equalsIgnoreCase(sort)
+                ? Sort.by("rating").descending().and(Sort.by("createdDate").descending())
+                : Sort.by("createdDate").descending();
+        Pageable pageable = PageRequest.of(page, size, order);
         var spec = SpecificationBook.notOwnedBy(user.getId())
                 .and(SpecificationBook.notArchived())
                 .and(SpecificationBook.isShareable())
+                .and(SpecificationBook.hasMinRating(minRating))
                 .and(SpecificationBook.matchesQuery(query));
         Page<EntityBook> books = repositoryBook.findAll(spec, pageable);
         return mapPageToCustomWrapper(books);
@@ -154,6 +172,7 @@ public class ServiceBook {
                 .returnApproved(false)
                 .build();
         Long historyId = repositoryBookTransactionHistory.save(bookTransactionHistory).getId();
+        serviceReadingStats.borrowRequested(user.getId());
 
         // Notify book owner about the borrow request
         serviceNotification.notify(
@@ -183,6 +202,7 @@ public class ServiceBook {
         ).orElseThrow(() -> new OperationNotPermittedException("You did not borrow this book!"));
         bookTransactionHistory.setReturned(true);
         Long historyId = repositoryBookTransactionHistory.save(bookTransactionHistory).getId();
+        serviceReadingStats.bookReturned(user.getId(), book.getOwner().getId(), book.getGenre());
 
         // Notify book owner that the book has been returned
         serviceNotification.notify(
@@ -233,6 +253,7 @@ public class ServiceBook {
                 .orElseThrow(() -> new OperationNotPermittedException("No pending borrow request found for this book!"));
         Long historyId = bookTransactionHistory.getId();
         repositoryBookTransactionHistory.delete(bookTransactionHistory);
+        serviceReadingStats.borrowRejected(bookTransactionHistory.getUser().getId());
 
         // Notify the requester that their borrow request was rejected
         serviceNotification.notify(
@@ -262,6 +283,7 @@ public class ServiceBook {
         ).orElseThrow(() -> new OperationNotPermittedException("Book is not returned yet!"));
         bookTransactionHistory.setReturnApproved(true);
         Long historyId = repositoryBookTransactionHistory.save(bookTransactionHistory).getId();
+        serviceReadingStats.returnApproved(user.getId());
 
         // Notify borrower that return was approved
         serviceNotification.notify(
@@ -360,6 +382,7 @@ public class ServiceBook {
             throw new OperationNotPermittedException("You can not perform this action!");
         }
         repositoryBook.deleteById(bookId);
+        serviceReadingStats.bookRemoved(book.getOwner().getId(), Boolean.TRUE.equals(book.getRead()));
     }
 
     public PageResponse<DtoBookResponse> getRecentBooks(int size, Authentication connectedUser) {
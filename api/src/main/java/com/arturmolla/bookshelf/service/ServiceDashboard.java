@@ -4,17 +4,14 @@ import com.arturmolla.bookshelf.model.dto.BookStats;
 import com.arturmolla.bookshelf.model.dto.GenreDistributionDto;
 import com.arturmolla.bookshelf.model.dto.ReadingActivityDto;
 import com.arturmolla.bookshelf.model.dto.UserDashboardResponse;
+import com.arturmolla.bookshelf.model.entity.EntityUserReadingStats;
 import com.arturmolla.bookshelf.model.user.User;
-import com.arturmolla.bookshelf.repository.RepositoryBook;
-import com.arturmolla.bookshelf.repository.RepositoryBookTransactionHistory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,38 +19,22 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ServiceDashboard {
 
-    private final RepositoryBook repositoryBook;
-    private final RepositoryBookTransactionHistory repositoryTransaction;
+    private final ServiceReadingStats serviceReadingStats;
 
     public UserDashboardResponse getDashboard(User user) {
+        EntityUserReadingStats readingStats = serviceReadingStats.getStats(user.getId());
 
         // --- Book Stats ---
-        long booksOwned = repositoryBook.countByOwner(user);
-        long booksRead = repositoryBook.countByOwnerAndReadTrue(user);
-        long currentlyBorrowed = repositoryTransaction.countByReturnedFalseAndUserId(user.getId());
-        long pendingRequests = repositoryTransaction.countPendingReturnsByOwnerId(user.getId());
-
         BookStats stats = BookStats.builder()
-                .booksOwned(booksOwned)
-                .booksRead(booksRead)
-                .currentlyBorrowed(currentlyBorrowed)
-                .returnedBooks(booksRead)
-                .pendingRequests(pendingRequests)
+                .booksOwned(readingStats.getBooksOwned())
+                .booksRead(readingStats.getBooksRead())
+                .currentlyBorrowed(readingStats.getCurrentlyBorrowed())
+                .returnedBooks(readingStats.getBooksRead())
+                .pendingRequests(readingStats.getPendingReturns())
                 .build();
 
-        // --- Reading Activity (last 12 calendar months) ---
-        LocalDateTime twelveMonthsAgo = LocalDate.now().minusMonths(11).withDayOfMonth(1).atStartOfDay();
-        List<Object[]> rawActivity = repositoryTransaction.findMonthlyReadingActivity(
-                user.getId(), twelveMonthsAgo);
-
-        Map<String, Long> activityMap = new HashMap<>();
-        for (Object[] row : rawActivity) {
-            String yearMonth = (String) row[0];
-            long count = ((Number) row[1]).longValue();
-            activityMap.put(yearMonth, count);
-        }
-
-        // Fill all 12 months, defaulting to 0
+        // --- Reading Activity (last 12 calendar months, defaulting to 0) ---
+        Map<String, Long> activityMap = readingStats.getMonthlyActivity();
         List<ReadingActivityDto> readingActivity = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
         for (int i = 11; i >= 0; i--) {
@@ -65,22 +46,23 @@ public class ServiceDashboard {
         }
 
         // --- Genre Distribution ---
-        List<Object[]> rawGenres = repositoryBook.findGenreDistributionByUser(user.getId());
-        long totalRead = rawGenres.stream().mapToLong(r -> ((Number) r[1]).longValue()).sum();
+        Map<String, Long> genreCounts = readingStats.getGenreCounts();
+        long totalRead = genreCounts.values().stream().mapToLong(Long::longValue).sum();
 
         List<GenreDistributionDto> genreDistribution = new ArrayList<>();
-        for (Object[] row : rawGenres) {
-            String genre = row[0] != null ? (String) row[0] : "Other";
-            long count = ((Number) row[1]).longValue();
-            double percentage = totalRead > 0
-                    ? Math.round((count * 100.0 / totalRead) * 100.0) / 100.0
-                    : 0.0;
-            genreDistribution.add(GenreDistributionDto.builder()
-                    .genre(genre)
-                    .count(count)
-                    .percentage(percentage)
-                    .build());
-        }
+        genreCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> {
+                    long count = entry.getValue();
+                    double percentage = totalRead > 0
+                            ? Math.round((count * 100.0 / totalRead) * 100.0) / 100.0
+                            : 0.0;
+                    genreDistribution.add(GenreDistributionDto.builder()
+                            .genre(entry.getKey())
+                            .count(count)
+                            .percentage(percentage)
+                            .build());
+                });
 
         // --- Assemble response ---
         return UserDashboardResponse.builder()
@@ -96,7 +78,7 @@ public class ServiceDashboard {
                 .stats(stats)
                 .readingActivity(readingActivity)
                 .genreDistribution(genreDistribution)
-                .readingStreak(0) // stub — tracking not yet implemented
+                .readingStreak(ServiceReadingStats.effectiveStreak(readingStats, LocalDate.now()))
                 .build();
     }
 }
@@ -1,88 +1,159 @@
 package com.arturmolla.bookshelf.service;
 
 import com.arturmolla.bookshelf.model.enums.EmailTemplateName;
+import com.arturmolla.bookshelf.model.enums.OutboxEventType;
+import com.arturmolla.bookshelf.service.outbox.EmailEvent;
+import com.arturmolla.bookshelf.service.outbox.ServiceOutbox;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * E-mail sending. {@link #sendEmail}, {@link #sendWelcomeEmail} and {@link #sendDigest} only
+ * queue the mail in the outbox (in the caller's transaction); {@code OutboxWorker} renders
+ * and sends it via {@link #deliverAll}, retrying on failure, so mail survives restarts and
+ * SMTP outages.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ServiceEmail {
 
+    private static final String FROM = "mollaartur13@gmail.com";
+
     private final JavaMailSender mailSender;
     private final SpringTemplateEngine templateEngine;
+    private final ServiceOutbox serviceOutbox;
 
-    @Async
     public void sendEmail(String to, String username, EmailTemplateName emailTemplate,
                           String confirmUrl, String activationCode,
-                          String subject) throws MessagingException {
-        String templateName;
-        if (emailTemplate == null) {
-            templateName = "confirm-email";
-        } else {
-            templateName = emailTemplate.getName();
-        }
-
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, MimeMessageHelper.MULTIPART_MODE_MIXED, StandardCharsets.UTF_8.name());
+                          String subject) {
         Map<String, Object> properties = new HashMap<>();
         properties.put("username", username);
         properties.put("email", to);
         properties.put("confirmUrl", confirmUrl);
         properties.put("activation_code", activationCode);
+        serviceOutbox.enqueue(OutboxEventType.EMAIL,
+                new EmailEvent(to, subject, templateName(emailTemplate), properties));
+    }
 
-        Context context = new Context();
-        context.setVariables(properties);
-
-        helper.setFrom("mollaartur13@gmail.com");
-        helper.setTo(to);
-        helper.setSubject(subject);
-
-        String template = templateEngine.process(templateName, context);
+    public void sendWelcomeEmail(String to, String username,
+                                 EmailTemplateName emailTemplate,
+                                 String loginUrl, String subject) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("username", username);
+        properties.put("loginUrl", loginUrl);
+        serviceOutbox.enqueue(OutboxEventType.EMAIL,
+                new EmailEvent(to, subject, templateName(emailTemplate), properties));
+    }
 
-        helper.setText(template, true);
+    /**
+     * Queues a notification digest.
+     *
+     * @param items     the newest unread notifications, each with {@code title}, {@code message} and {@code createdAt}
+     * @param moreCount unread notifications of the period not listed in {@code items}
+     */
+    public void sendDigest(String to, String username, List<Map<String, String>> items,
+                           int moreCount, String appUrl, String subject) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("username", username);
+        properties.put("items", items);
+        properties.put("moreCount", moreCount);
+        properties.put("appUrl", appUrl);
+        serviceOutbox.enqueue(OutboxEventType.EMAIL,
+                new EmailEvent(to, subject, templateName(EmailTemplateName.NOTIFICATION_DIGEST), properties));
+    }
 
-        mailSender.send(mimeMessage);
+    /**
+     * Renders and sends several queued e-mails over a single SMTP connection.
+     *
+     * @return the failed e-mails by their index in {@code emails}, with the cause; empty if all were sent
+     */
+    public Map<Integer, Exception> deliverAll(List<EmailEvent> emails) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        Map<MimeMessage, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                MimeMessage message = render(emails.get(i));
+                messages.add(message);
+                indexes.put(message, i);
+            } catch (MessagingException | RuntimeException e) {
+                failures.put(i, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        try {
+            mailSender.send(messages.toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            // Only the listed messages failed; a connection failure lists all of them
+            e.getFailedMessages().forEach((message, cause) -> {
+                Integer index = indexes.get(message);
+                if (index != null) {
+                    failures.put(index, cause);
+                }
+            });
+            if (e.getFailedMessages().isEmpty()) {
+                indexes.values().forEach(index -> failures.put(index, e));
+            }
+        } catch (MailException e) {
+            indexes.values().forEach(index -> failures.put(index, e));
+        }
+        return failures;
     }
 
-    @Async
-    public void sendWelcomeEmail(String to, String username,
-                                 EmailTemplateName emailTemplate,
-                                 String loginUrl, String subject) throws MessagingException {
-        String templateName;
-        if (emailTemplate == null) {
-            templateName = "confirm-email";
-        } else {
-            templateName = emailTemplate.getName();
+    /**
+     * Parses every e-mail template once at startup so Thymeleaf's template cache is warm
+     * before the first batch of mail is rendered.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmTemplates() {
+        for (EmailTemplateName template : EmailTemplateName.values()) {
+            try {
+                templateEngine.process(template.getName(), new Context());
+            } catch (RuntimeException e) {
+                log.warn("Could not pre-load e-mail template {}: {}", template.getName(), e.getMessage());
+            }
         }
+    }
 
+    private MimeMessage render(EmailEvent email) throws MessagingException {
         MimeMessage mimeMessage = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, MimeMessageHelper.MULTIPART_MODE_MIXED, StandardCharsets.UTF_8.name());
-        Map<String, Object> properties = new HashMap<>();
-        properties.put("username", username);
-        properties.put("loginUrl", loginUrl);
 
         Context context = new Context();
-        context.setVariables(properties);
+        context.setVariables(email.variables());
 
-        helper.setFrom("mollaartur13@gmail.com");
-        helper.setTo(to);
-        helper.setSubject(subject);
+        helper.setFrom(FROM);
+        helper.setTo(email.to());
+        helper.setSubject(email.subject());
 
-        String template = templateEngine.process(templateName, context);
+        String template = templateEngine.process(email.templateName(), context);
 
         helper.setText(template, true);
+        return mimeMessage;
+    }
 
-        mailSender.send(mimeMessage);
+    private static String templateName(EmailTemplateName emailTemplate) {
+        return emailTemplate == null ? "confirm-email" : emailTemplate.getName();
     }
 }
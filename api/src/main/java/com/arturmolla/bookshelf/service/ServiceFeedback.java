@@ -11,6 +11,7 @@ import com.arturmolla.bookshelf.repository.RepositoryBook;
 import com.arturmolla.bookshelf.repository.RepositoryFeedback;
 import com.arturmolla.bookshelf.service.mapper.MapperFeedback;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -30,6 +31,7 @@ public class ServiceFeedback {
     private final RepositoryFeedback repositoryFeedback;
     private final ServiceNotification serviceNotification;
 
+    @Transactional
     public Long saveFeedback(DtoFeedbackRequest request, Authentication connectedUser) {
         var book = repositoryBook.findById(request.bookId())
                 .orElseThrow(() -> new EntityNotFoundException("Book was not found"));
@@ -42,6 +44,9 @@ public class ServiceFeedback {
         }
         var feedback = mapperFeedback.toFeedbackEntity(request);
         Long feedbackId = repositoryFeedback.save(feedback).getId();
+        if (request.note() != null) {
+            repositoryBook.addRating(book.getId(), request.note());
+        }
 
         // Notify book owner about new feedback
         serviceNotification.notify(
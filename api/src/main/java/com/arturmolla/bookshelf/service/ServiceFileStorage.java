@@ -47,6 +47,16 @@ public class ServiceFileStorage {
      */
     private static final float JPEG_QUALITY = 0.85f;
 
+    /**
+     * Maximum dimension (width or height) of generated thumbnails.
+     */
+    private static final int THUMBNAIL_DIMENSION = 320;
+
+    /**
+     * JPEG quality for thumbnails (0.0 – 1.0).
+     */
+    private static final float THUMBNAIL_QUALITY = 0.75f;
+
     private final RepositoryBookCover repositoryBookCover;
     private final RepositoryBookPdf repositoryBookPdf;
     private final RepositoryUserProfilePic repositoryUserProfilePic;
@@ -303,7 +313,26 @@ public class ServiceFileStorage {
         return compressImage(originalBytes);
     }
 
+    /**
+     * Produces a small JPEG preview (longest side {@value #THUMBNAIL_DIMENSION} px)
+     * suitable for inline chat rendering.
+     *
+     * @return the thumbnail bytes, or {@code null} if the input cannot be decoded as an image
+     */
+    byte[] createThumbnailBytes(byte[] originalBytes) {
+        try {
+            return scaleToJpeg(originalBytes, THUMBNAIL_DIMENSION, THUMBNAIL_QUALITY);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not create thumbnail: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private byte[] compressImage(byte[] originalBytes) throws IOException {
+        return scaleToJpeg(originalBytes, MAX_DIMENSION, JPEG_QUALITY);
+    }
+
+    private byte[] scaleToJpeg(byte[] originalBytes, int maxDimension, float quality) throws IOException {
         BufferedImage original = ImageIO.read(new ByteArrayInputStream(originalBytes));
         if (original == null) {
             throw new IllegalArgumentException("Uploaded file is not a readable image");
@@ -316,10 +345,10 @@ public class ServiceFileStorage {
         int targetWidth;
         int targetHeight;
         if (origWidth >= origHeight) {
-            targetWidth = Math.min(origWidth, MAX_DIMENSION);
+            targetWidth = Math.min(origWidth, maxDimension);
             targetHeight = (int) Math.round((double) origHeight / origWidth * targetWidth);
         } else {
-            targetHeight = Math.min(origHeight, MAX_DIMENSION);
+            targetHeight = Math.min(origHeight, maxDimension);
             targetWidth = (int) Math.round((double) origWidth / origHeight * targetHeight);
         }
 
@@ -346,7 +375,7 @@ public class ServiceFileStorage {
             writer.setOutput(ios);
             ImageWriteParam param = writer.getDefaultWriteParam();
             param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-            param.setCompressionQuality(JPEG_QUALITY);
+            param.setCompressionQuality(quality);
             writer.write(null, new IIOImage(scaled, null, null), param);
         } finally {
             writer.dispose();
@@ -2,6 +2,7 @@ package com.arturmolla.bookshelf.service;
 
 import com.arturmolla.bookshelf.config.exceptions.OperationNotPermittedException;
 import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.common.SliceResponse;
 import com.arturmolla.bookshelf.model.dto.DtoHomePostRequest;
 import com.arturmolla.bookshelf.model.dto.DtoHomePostResponse;
 import com.arturmolla.bookshelf.model.dto.DtoHomePostUpdateRequest;
@@ -20,7 +21,8 @@ import com.arturmolla.bookshelf.repository.RepositoryHomePost;
 import com.arturmolla.bookshelf.repository.RepositoryPostComment;
 import com.arturmolla.bookshelf.repository.RepositoryPostLike;
 import com.arturmolla.bookshelf.repository.RepositoryPostShare;
-import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.feed.PostViewCounter;
+import com.arturmolla.bookshelf.service.feed.TrendingIndex;
 import com.arturmolla.bookshelf.service.mapper.MapperHomePost;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -30,6 +32,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -37,8 +40,12 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -57,10 +64,12 @@ public class ServiceHomePost {
     private final RepositoryPostLike repositoryPostLike;
     private final RepositoryPostComment repositoryPostComment;
     private final RepositoryPostShare repositoryPostShare;
-    private final RepositoryUser repositoryUser;
     private final MapperHomePost mapperHomePost;
     private final ServiceFileStorage serviceFileStorage;
     private final ServiceNotification serviceNotification;
+    private final ServiceTimeline serviceTimeline;
+    private final TrendingIndex trendingIndex;
+    private final PostViewCounter postViewCounter;
 
     @Value("${application.frontend.url:http://localhost:4200}")
     private String frontendUrl;
@@ -94,6 +103,7 @@ public class ServiceHomePost {
         }
 
         EntityHomePost saved = repositoryHomePost.save(post);
+        serviceTimeline.postCreated(saved);
         log.info("Post created with id={} by userId={}", saved.getId(), user.getId());
         return saved.getId();
     }
@@ -103,11 +113,12 @@ public class ServiceHomePost {
     // -------------------------------------------------------------------------
 
     /**
-     * Returns a single post by id.
+     * Returns a single post by id and counts it as viewed.
      */
     public DtoHomePostResponse getPostById(Long postId, Authentication connectedUser) {
         EntityHomePost post = findPostOrThrow(postId);
         Long currentUserId = connectedUser != null ? ((User) connectedUser.getPrincipal()).getId() : null;
+        recordView(post, currentUserId);
         return toResponseWithCounts(post, currentUserId);
     }
 
@@ -118,7 +129,52 @@ public class ServiceHomePost {
         Pageable pageable = PageRequest.of(page, size);
         Page<EntityHomePost> pageResult = repositoryHomePost.findAllByOrderByCreatedDateDesc(pageable);
         Long currentUserId = connectedUser != null ? ((User) connectedUser.getPrincipal()).getId() : null;
-        return toPageResponse(pageResult, currentUserId);
+        return toPageResponse(pageResult, currentUserId, true);
+    }
+
+    /**
+     * Returns posts ranked by time-decayed likes, comments and shares. Ids come from the
+     * pre-sorted {@link TrendingIndex}; only the posts of the requested page are loaded.
+     * A negative page is read as the first one.
+     */
+    public PageResponse<DtoHomePostResponse> getTrendingPosts(int page, int size, Authentication connectedUser) {
+        Long currentUserId = connectedUser != null ? ((User) connectedUser.getPrincipal()).getId() : null;
+        int total = trendingIndex.size();
+        List<Long> ids = Arrays.stream(trendingIndex.page(page, size)).boxed().toList();
+        Map<Long, EntityHomePost> posts = repositoryHomePost.findAllById(ids).stream()
+                .collect(Collectors.toMap(EntityHomePost::getId, Function.identity()));
+        List<EntityHomePost> ordered = ids.stream()
+                .map(posts::get)
+                .filter(Objects::nonNull)
+                .toList();
+        List<DtoHomePostResponse> content = toResponses(ordered, currentUserId, true);
+        int totalPages = size > 0 ? (total + size - 1) / size : 0;
+        return PageResponse.<DtoHomePostResponse>builder()
+                .content(content)
+                .number(Math.max(page, 0))
+                .size(size)
+                .totalElement(total)
+                .totalPages(totalPages)
+                .first(page <= 0)
+                .last(page >= totalPages - 1)
+                .build();
+    }
+
+    /**
+     * Returns the authenticated user's personalized timeline: their own posts and
+     * posts of friends and followed users, newest first, in slices of posts with an id
+     * below {@code before} ({@code null} for the newest).
+     */
+    public SliceResponse<DtoHomePostResponse> getTimeline(Long before, int size, Authentication connectedUser) {
+        var user = (User) connectedUser.getPrincipal();
+        Slice<EntityHomePost> slice = serviceTimeline.getTimeline(user.getId(), before, size);
+        List<EntityHomePost> posts = slice.getContent();
+        return SliceResponse.<DtoHomePostResponse>builder()
+                .content(toResponses(posts, user.getId(), true))
+                .size(size)
+                .last(!slice.hasNext())
+                .next(slice.hasNext() ? posts.getLast().getId() : null)
+                .build();
     }
 
     /**
@@ -129,7 +185,7 @@ public class ServiceHomePost {
         Pageable pageable = PageRequest.of(page, size);
         Page<EntityHomePost> pageResult =
                 repositoryHomePost.findByAuthorIdOrderByCreatedDateDesc(user.getId(), pageable);
-        return toPageResponse(pageResult, user.getId());
+        return toPageResponse(pageResult, user.getId(), false);
     }
 
     // -------------------------------------------------------------------------
@@ -203,6 +259,8 @@ public class ServiceHomePost {
         EntityHomePost post = findPostOrThrow(postId);
         assertOwnership(post, user);
 
+        serviceTimeline.postsDeleted(List.of(postId));
+        trendingIndex.remove(postId);
         repositoryHomePost.delete(post);
         log.info("Post id={} deleted by userId={}", postId, user.getId());
     }
@@ -233,6 +291,7 @@ public class ServiceHomePost {
         repositoryPostLike.findByPostIdAndUserId(postId, user.getId()).ifPresentOrElse(
                 like -> {
                     repositoryPostLike.delete(like);
+                    trendingIndex.retract(postId, TrendingIndex.Signal.LIKE, like.getCreatedAt());
                     log.info("Post id={} unliked by userId={}", postId, user.getId());
                 },
                 () -> {
@@ -242,6 +301,7 @@ public class ServiceHomePost {
                             .createdAt(LocalDateTime.now())
                             .build();
                     repositoryPostLike.save(like);
+                    trendingIndex.record(postId, TrendingIndex.Signal.LIKE);
                     log.info("Post id={} liked by userId={}", postId, user.getId());
                     // Notify post author
                     serviceNotification.notify(
@@ -291,6 +351,7 @@ public class ServiceHomePost {
 
         EntityPostComment saved = repositoryPostComment.save(comment);
         log.info("Comment id={} added to postId={} by userId={}", saved.getId(), postId, user.getId());
+        trendingIndex.record(postId, TrendingIndex.Signal.COMMENT);
 
         // Notify post author
         serviceNotification.notify(
@@ -301,19 +362,15 @@ public class ServiceHomePost {
                 postId, "POST"
         );
 
-        // Notify tagged users
+        // Notify tagged users (unknown ids are dropped when the notifications are delivered)
         if (request.taggedUserIds() != null) {
-            for (Long taggedId : request.taggedUserIds()) {
-                repositoryUser.findById(taggedId).ifPresent(tagged ->
-                        serviceNotification.notify(
-                                tagged, user,
-                                NotificationType.TAGGED,
-                                user.getFullName() + " mentioned you in a comment",
-                                "\"" + truncate(request.content(), 100) + "\"",
-                                saved.getId(), "COMMENT"
-                        )
-                );
-            }
+            serviceNotification.notifyAll(
+                    request.taggedUserIds(), user,
+                    NotificationType.TAGGED,
+                    user.getFullName() + " mentioned you in a comment",
+                    "\"" + truncate(request.content(), 100) + "\"",
+                    saved.getId(), "COMMENT"
+            );
         }
 
         return mapperHomePost.toCommentResponse(saved);
@@ -399,6 +456,7 @@ public class ServiceHomePost {
                 .sharedAt(LocalDateTime.now())
                 .build();
         repositoryPostShare.save(share);
+        trendingIndex.record(postId, TrendingIndex.Signal.SHARE);
         log.info("Post id={} shared by userId={}", postId, user.getId());
 
         // Notify post author
@@ -452,12 +510,44 @@ public class ServiceHomePost {
         return text.length() <= maxLen ? text : text.substring(0, maxLen) + "…";
     }
 
-    private DtoHomePostResponse toResponseWithCounts(EntityHomePost post, Long currentUserId) {        long likeCount = repositoryPostLike.countByPostId(post.getId());
+    private DtoHomePostResponse toResponseWithCounts(EntityHomePost post, Long currentUserId) {
+        PostViewCounter.ViewStats views = postViewCounter.stats(List.of(post.getId()))
+                .getOrDefault(post.getId(), PostViewCounter.ViewStats.NONE);
+        return toResponseWithCounts(post, currentUserId, views);
+    }
+
+    private DtoHomePostResponse toResponseWithCounts(EntityHomePost post,
+                                                     Long currentUserId,
+                                                     PostViewCounter.ViewStats views) {
+        long likeCount = repositoryPostLike.countByPostId(post.getId());
         long commentCount = repositoryPostComment.countByPostId(post.getId());
         long shareCount = repositoryPostShare.countByPostId(post.getId());
         boolean likedByCurrentUser = currentUserId != null
                 && repositoryPostLike.existsByPostIdAndUserId(post.getId(), currentUserId);
-        return mapperHomePost.toResponse(post, likeCount, commentCount, shareCount, likedByCurrentUser);
+        return mapperHomePost.toResponse(post, likeCount, commentCount, shareCount, likedByCurrentUser,
+                views.views(), views.uniqueViewers());
+    }
+
+    /**
+     * Maps a page of posts, loading view stats in one query. Feed pages count as a view
+     * of every post shown ({@code countViews}); the author's own posts never do.
+     */
+    private List<DtoHomePostResponse> toResponses(List<EntityHomePost> posts, Long currentUserId, boolean countViews) {
+        if (countViews) {
+            posts.forEach(post -> recordView(post, currentUserId));
+        }
+        Map<Long, PostViewCounter.ViewStats> views =
+                postViewCounter.stats(posts.stream().map(EntityHomePost::getId).toList());
+        return posts.stream()
+                .map(post -> toResponseWithCounts(post, currentUserId,
+                        views.getOrDefault(post.getId(), PostViewCounter.ViewStats.NONE)))
+                .toList();
+    }
+
+    private void recordView(EntityHomePost post, Long viewerId) {
+        if (viewerId == null || !Objects.equals(post.getAuthor().getId(), viewerId)) {
+            postViewCounter.recordView(post.getId(), viewerId);
+        }
     }
 
     private List<EntityPostAttachment> buildAttachments(List<MultipartFile> files, EntityHomePost post) {
@@ -494,11 +584,10 @@ public class ServiceHomePost {
         return result;
     }
 
-    private PageResponse<DtoHomePostResponse> toPageResponse(Page<EntityHomePost> page, Long currentUserId) {
-        List<DtoHomePostResponse> content = page.getContent()
-                .stream()
-                .map(post -> toResponseWithCounts(post, currentUserId))
-                .toList();
+    private PageResponse<DtoHomePostResponse> toPageResponse(Page<EntityHomePost> page,
+                                                             Long currentUserId,
+                                                             boolean countViews) {
+        List<DtoHomePostResponse> content = toResponses(page.getContent(), currentUserId, countViews);
         return PageResponse.<DtoHomePostResponse>builder()
                 .content(content)
                 .number(page.getNumber())
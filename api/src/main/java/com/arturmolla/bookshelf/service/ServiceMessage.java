@@ -6,22 +6,30 @@ import com.arturmolla.bookshelf.model.dto.DtoConversationResponse;
 import com.arturmolla.bookshelf.model.dto.DtoMessageReplySnippet;
 import com.arturmolla.bookshelf.model.dto.DtoMessageRequest;
 import com.arturmolla.bookshelf.model.dto.DtoMessageResponse;
+import com.arturmolla.bookshelf.model.dto.DtoReadReceipt;
+import com.arturmolla.bookshelf.model.dto.DtoTypingEvent;
 import com.arturmolla.bookshelf.model.entity.EntityConversation;
 import com.arturmolla.bookshelf.model.entity.EntityMessage;
-import com.arturmolla.bookshelf.model.enums.RelationStatus;
-import com.arturmolla.bookshelf.model.enums.RelationType;
+import com.arturmolla.bookshelf.model.entity.EntityMessageMedia;
 import com.arturmolla.bookshelf.model.user.User;
 import com.arturmolla.bookshelf.repository.RepositoryConversation;
 import com.arturmolla.bookshelf.repository.RepositoryMessage;
+import com.arturmolla.bookshelf.repository.RepositoryMessageMedia;
 import com.arturmolla.bookshelf.repository.RepositoryUser;
-import com.arturmolla.bookshelf.repository.RepositoryUserRelation;
+import com.arturmolla.bookshelf.service.messaging.ConversationDirectory;
 import com.arturmolla.bookshelf.service.messaging.MessageEmitterRegistry;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.arturmolla.bookshelf.service.messaging.MessageWriter;
+import com.arturmolla.bookshelf.service.messaging.SseDispatcher;
+import com.arturmolla.bookshelf.service.messaging.SseEventLog;
+import com.arturmolla.bookshelf.service.messaging.SsePushEvent;
+import com.arturmolla.bookshelf.service.sse.SseAdmission;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
@@ -30,8 +38,13 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -50,22 +63,37 @@ public class ServiceMessage {
     private static final long SSE_TIMEOUT_MS = TimeUnit.HOURS.toMillis(1);
     private static final long HEARTBEAT_INTERVAL_SEC = 25;
 
+    /** Event ids may run ahead of the clock in bursts; rebuilt replays start this much earlier. */
+    private static final Duration REPLAY_CLOCK_MARGIN = Duration.ofSeconds(5);
+
     private static final ScheduledExecutorService heartbeatExecutor =
             Executors.newScheduledThreadPool(2);
 
     // ─── SSE event name constants ─────────────────────────────────────────────
     public static final String EVENT_NEW_MESSAGE  = "NEW_MESSAGE";
     public static final String EVENT_MESSAGE_READ = "MESSAGE_READ";
+    public static final String EVENT_TYPING       = "TYPING";
+    /** More was missed than can be replayed: the client reloads its state over REST instead. */
+    public static final String EVENT_RESYNC       = "resync";
 
     // ─── Dependencies ─────────────────────────────────────────────────────────
     private final RepositoryConversation repositoryConversation;
     private final RepositoryMessage      repositoryMessage;
+    private final RepositoryMessageMedia repositoryMessageMedia;
     private final RepositoryUser         repositoryUser;
-    private final RepositoryUserRelation repositoryUserRelation;
     private final MessageEmitterRegistry emitterRegistry;
-    private final ObjectMapper           objectMapper;
+    private final ConversationDirectory  conversationDirectory;
+    private final MessageWriter          messageWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SseDispatcher          sseDispatcher;
+    private final SseEventLog            sseEventLog;
+    private final SseAdmission           sseAdmission;
+    private final ServiceNotification    serviceNotification;
     private final ServiceFileStorage     serviceFileStorage;
 
+    @Value("${application.sse.replay-db-limit:200}")
+    private int replayDbLimit;
+
     // =========================================================================
     // SSE – connect / disconnect
     // =========================================================================
@@ -81,11 +109,20 @@ public class ServiceMessage {
      * <pre>
      * const es = new EventSource('/messages/connect', { withCredentials: true });
      * es.addEventListener('NEW_MESSAGE',  e => appendMessage(JSON.parse(e.data)));
-     * es.addEventListener('MESSAGE_READ', e => markDelivered(JSON.parse(e.data)));
+     * es.addEventListener('MESSAGE_READ', e => markReadUpTo(JSON.parse(e.data)));  // DtoReadReceipt
      * es.addEventListener('heartbeat',    () => {});  // keep-alive — ignore
      * </pre>
+     * Every event carries an id. A client reconnecting with the last id it saw gets the
+     * events it missed first: from {@link SseEventLog} while it still holds them, else
+     * rebuilt from the database (messages received, current read receipts and
+     * notifications since the time of that id). When more was missed than the rebuild
+     * replays, the client gets a single {@code resync} event instead and reloads its
+     * conversations and notifications.
+     *
+     * @param lastEventId the {@code Last-Event-ID} of a reconnecting client, or {@code null}
      */
-    public SseEmitter connect(Authentication auth) {
+    public SseEmitter connect(Authentication auth, String lastEventId) {
+        sseAdmission.admit();
         User user = principal(auth);
 
         // If the user reconnects, cleanly close the old emitter first.
@@ -109,6 +146,7 @@ public class ServiceMessage {
         Runnable cleanup = () -> {
             if (!cleaned.compareAndSet(false, true)) return;
             heartbeat.cancel(false);
+            sseDispatcher.detach(user.getId(), emitter);
             emitterRegistry.remove(user.getId());
             log.info("Messaging SSE disconnected: userId={}", user.getId());
         };
@@ -117,11 +155,84 @@ public class ServiceMessage {
         emitter.onError(e -> cleanup.run());
         emitter.onCompletion(cleanup);
 
+        attachConnection(user, emitter, SseDispatcher.sink(emitter), lastEventId);
         emitterRegistry.register(user.getId(), emitter);
-        log.info("Messaging SSE connected: userId={}", user.getId());
+        log.info("Messaging SSE connected: userId={} lastEventId={}", user.getId(), lastEventId);
         return emitter;
     }
 
+    /**
+     * Routes the user's messaging events to {@code connection} (an SSE emitter or a
+     * WebSocket session), first replaying what the client missed after {@code lastEventId}
+     * as described on {@link #connect}.
+     */
+    public void attachConnection(User user, Object connection, SseDispatcher.Sink sink, String lastEventId) {
+        Long afterId = parseEventId(lastEventId);
+        List<SsePushEvent> missed = List.of();
+        if (afterId != null && !sseEventLog.covers(afterId)) {
+            long head = sseEventLog.head();
+            missed = missedEvents(user, SseEventLog.timeOf(afterId).minus(REPLAY_CLOCK_MARGIN));
+            afterId = head;
+        }
+        sseDispatcher.attach(user.getId(), connection, sink, afterId, missed);
+        if (!missed.isEmpty()) {
+            log.info("Rebuilt {} missed messaging events for userId={}", missed.size(), user.getId());
+        }
+    }
+
+    /**
+     * Events of the messaging channel for {@code user} since {@code since}, rebuilt from the
+     * database: messages received, the friends' current read receipts of conversations active
+     * since then, and notifications. If any kind has more than {@code replayDbLimit} rows, a
+     * partial replay would leave a gap behind the cursor, so a single {@code resync} event is
+     * returned instead.
+     */
+    private List<SsePushEvent> missedEvents(User user, Instant since) {
+        List<SsePushEvent> resync = List.of(new SsePushEvent(user.getId(), EVENT_RESYNC, Map.of()));
+        Limit overLimit = Limit.of(replayDbLimit + 1);
+
+        List<EntityMessage> received = repositoryMessage.findReceivedSince(user.getId(), since, overLimit);
+        List<EntityConversation> active = repositoryConversation.findActiveSince(user.getId(), since, overLimit);
+        if (received.size() > replayDbLimit || active.size() > replayDbLimit) {
+            return resync;
+        }
+        List<SsePushEvent> notifications = serviceNotification.missedEvents(user.getId(),
+                LocalDateTime.ofInstant(since, ZoneId.systemDefault()), replayDbLimit + 1);
+        if (notifications.size() > replayDbLimit) {
+            return resync;
+        }
+
+        List<SsePushEvent> events = new ArrayList<>();
+        for (EntityMessage m : received) {
+            boolean read = m.getId() <= lastReadIdOf(m.getConversation(), user.getId());
+            events.add(new SsePushEvent(user.getId(), EVENT_NEW_MESSAGE, toMessageDto(m, read)));
+        }
+        for (EntityConversation c : active) {
+            Long friendId = otherParticipantId(c, user.getId());
+            long friendLastRead = lastReadIdOf(c, friendId);
+            if (friendLastRead > 0) {
+                events.add(new SsePushEvent(user.getId(), EVENT_MESSAGE_READ, DtoReadReceipt.builder()
+                        .conversationId(c.getId())
+                        .readerId(friendId)
+                        .lastReadMessageId(friendLastRead)
+                        .build()));
+            }
+        }
+        events.addAll(notifications);
+        return events;
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     // =========================================================================
     // Send a message
     // =========================================================================
@@ -131,6 +242,9 @@ public class ServiceMessage {
      * <p>
      * Only accepted friends may message each other.  The conversation row is
      * created on-the-fly the first time two friends exchange a message.
+     * Friendship and the conversation id come from {@link ConversationDirectory};
+     * the insert goes through the group-commit {@link MessageWriter}, so this
+     * method holds no transaction of its own.
      * <p>
      * If the recipient currently has an open SSE connection, the message is
      * pushed to them instantly via a {@code NEW_MESSAGE} event.
@@ -141,19 +255,21 @@ public class ServiceMessage {
      * @return the persisted message as a DTO
      * @throws OperationNotPermittedException if the two users are not friends
      */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public DtoMessageResponse sendMessage(Long friendId, DtoMessageRequest request, Authentication auth) {
         User sender = principal(auth);
-        User recipient = findUserOrThrow(friendId);
-        ensureFriendship(sender.getId(), recipient.getId());
-        EntityConversation conversation = repositoryConversation
-                .findByUsers(sender.getId(), recipient.getId())
-                .orElseGet(() -> createConversation(sender, recipient));
+        if (!conversationDirectory.areFriends(sender.getId(), friendId)) {
+            findUserOrThrow(friendId);
+            throw new OperationNotPermittedException(
+                    "You can only message users who are your friends.");
+        }
+        long conversationId = conversationDirectory.conversationId(sender.getId(), friendId);
         EntityMessage replyTo = null;
         if (request.getReplyToId() != null) {
             replyTo = repositoryMessage.findById(request.getReplyToId())
                     .orElseThrow(() -> new EntityNotFoundException(
                             "Message not found: " + request.getReplyToId()));
-            if (!replyTo.getConversation().getId().equals(conversation.getId())) {
+            if (!replyTo.getConversation().getId().equals(conversationId)) {
                 throw new OperationNotPermittedException(
                         "You can only reply to messages within the same conversation.");
             }
@@ -171,7 +287,7 @@ public class ServiceMessage {
                 mediaName = media.getOriginalFilename();
                 mediaSize = (long) mediaData.length;
                 // If image and too large, compress
-                if (mediaType != null && mediaType.startsWith("image") && mediaData.length > ServiceFileStorage.COMPRESS_THRESHOLD_BYTES) {
+                if (isImage(mediaType) && mediaData.length > ServiceFileStorage.COMPRESS_THRESHOLD_BYTES) {
                     mediaData = serviceFileStorage.compressImageBytes(mediaData);
                     mediaType = "image/jpeg";
                     mediaSize = (long) mediaData.length;
@@ -181,25 +297,53 @@ public class ServiceMessage {
             }
         }
         EntityMessage message = EntityMessage.builder()
-                .conversation(conversation)
+                .conversation(repositoryConversation.getReferenceById(conversationId))
                 .sender(sender)
                 .content(request.getContent())
                 .replyTo(replyTo)
-                .mediaData(mediaData)
                 .mediaType(mediaType)
                 .mediaName(mediaName)
                 .mediaSize(mediaSize)
                 .build();
-        message = repositoryMessage.save(message);
-        conversation.setLastMessageAt(Instant.now());
-        repositoryConversation.save(conversation);
-        DtoMessageResponse response = toMessageDto(message);
-        pushToUser(recipient.getId(), EVENT_NEW_MESSAGE, response);
+        EntityMessageMedia messageMedia = null;
+        if (mediaData != null) {
+            byte[] thumbnail = isImage(mediaType) ? serviceFileStorage.createThumbnailBytes(mediaData) : null;
+            messageMedia = EntityMessageMedia.builder()
+                    .data(mediaData)
+                    .thumbnail(thumbnail)
+                    .contentType(mediaType)
+                    .fileName(mediaName)
+                    .fileSize(mediaSize)
+                    .build();
+        }
+        // Returns once the batch holding the message has committed
+        message = messageWriter.write(message, messageMedia);
+        DtoMessageResponse response = toMessageDto(message, false);
+        pushToUser(friendId, EVENT_NEW_MESSAGE, response);
         log.debug("Message sent: senderId={} recipientId={} conversationId={}",
-                sender.getId(), recipient.getId(), conversation.getId());
+                sender.getId(), friendId, conversationId);
         return response;
     }
 
+    /**
+     * Tells a friend the authenticated user is typing to them. Pushed as {@code TYPING}
+     * ({@link DtoTypingEvent}) to the friend's live connection only — never stored or replayed.
+     * Only looks the conversation up: before the first message there is none to type in,
+     * and nothing is pushed.
+     */
+    public void typing(Long friendId, Authentication auth) {
+        User user = principal(auth);
+        if (!conversationDirectory.areFriends(user.getId(), friendId)) {
+            throw new OperationNotPermittedException(
+                    "You can only message users who are your friends.");
+        }
+        conversationDirectory.findConversationId(user.getId(), friendId).ifPresent(conversationId ->
+                sseDispatcher.pushTransient(new SsePushEvent(friendId, EVENT_TYPING, DtoTypingEvent.builder()
+                        .conversationId(conversationId)
+                        .userId(user.getId())
+                        .build())));
+    }
+
     // =========================================================================
     // Conversation list
     // =========================================================================
@@ -240,7 +384,8 @@ public class ServiceMessage {
 
     /**
      * Returns the full message history between the authenticated user and a friend,
-     * latest first, and marks all messages from the friend as read.
+     * latest first, and moves the user's read watermark up to the newest message of
+     * the page. The friend gets a single {@code MESSAGE_READ} receipt if it moved.
      *
      * @param friendId ID of the other participant
      */
@@ -253,15 +398,18 @@ public class ServiceMessage {
                 .orElseThrow(() -> new EntityNotFoundException(
                         "No conversation found between you and userId=" + friendId));
 
-        // Mark unread messages from the friend as read.
-        repositoryMessage.markAllReadInConversation(conversation.getId(), user.getId());
-
         Page<EntityMessage> result = repositoryMessage
                 .findByConversationIdOrderByCreatedAtDesc(conversation.getId(), PageRequest.of(page, size));
 
+        long newest = result.getContent().stream().mapToLong(EntityMessage::getId).max().orElse(0L);
+        markReadUpTo(conversation, user.getId(), newest);
+        long friendLastRead = lastReadIdOf(conversation, friend.getId());
+
+        // The friend's messages on this page are now read; the user's are read up to the friend's watermark
         List<DtoMessageResponse> content = result.getContent()
                 .stream()
-                .map(this::toMessageDto)
+                .map(m -> toMessageDto(m, !Objects.equals(m.getSender().getId(), user.getId())
+                        || m.getId() <= friendLastRead))
                 .toList().reversed();
 
         return PageResponse.<DtoMessageResponse>builder()
@@ -276,11 +424,11 @@ public class ServiceMessage {
     }
 
     // =========================================================================
-    // Mark a single message as read
+    // Mark messages as read
     // =========================================================================
 
     /**
-     * Marks a specific message as read.
+     * Marks a message, and every earlier message of the conversation, as read.
      * Only the recipient (not the sender) may call this.
      *
      * @throws EntityNotFoundException        if the message does not exist
@@ -296,13 +444,34 @@ public class ServiceMessage {
             throw new OperationNotPermittedException("Only the recipient can mark a message as read.");
         }
 
-        message.setRead(true);
-        message = repositoryMessage.save(message);
+        markReadUpTo(message.getConversation(), user.getId(), message.getId());
+        return toMessageDto(message, true);
+    }
 
-        // Notify the sender that their message was read.
-        pushToUser(message.getSender().getId(), EVENT_MESSAGE_READ, toMessageDto(message));
+    // =========================================================================
+    // Message media
+    // =========================================================================
+
+    /**
+     * Returns the media attached to a message.
+     * Only the two participants of the message's conversation may access it.
+     *
+     * @throws EntityNotFoundException        if the message does not exist or has no media
+     * @throws OperationNotPermittedException if the caller is not a participant
+     */
+    public EntityMessageMedia getMedia(Long messageId, Authentication auth) {
+        User user = principal(auth);
+        EntityMessage message = repositoryMessage.findById(messageId)
+                .orElseThrow(() -> new EntityNotFoundException("Message not found: " + messageId));
 
-        return toMessageDto(message);
+        EntityConversation conversation = message.getConversation();
+        if (!Objects.equals(conversation.getUser1().getId(), user.getId())
+                && !Objects.equals(conversation.getUser2().getId(), user.getId())) {
+            throw new OperationNotPermittedException("You are not a participant of this conversation.");
+        }
+
+        return repositoryMessageMedia.findById(messageId)
+                .orElseThrow(() -> new EntityNotFoundException("No media for message: " + messageId));
     }
 
     // =========================================================================
@@ -342,39 +511,6 @@ public class ServiceMessage {
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
     }
 
-    /** Throws if the two users are not accepted friends. */
-    private void ensureFriendship(Long userAId, Long userBId) {
-        boolean friends =
-                repositoryUserRelation.findByRequesterIdAndAddresseeIdAndRelationType(
-                        userAId, userBId, RelationType.FRIEND_REQUEST)
-                        .map(r -> r.getStatus() == RelationStatus.ACCEPTED)
-                        .orElse(false)
-                ||
-                repositoryUserRelation.findByRequesterIdAndAddresseeIdAndRelationType(
-                        userBId, userAId, RelationType.FRIEND_REQUEST)
-                        .map(r -> r.getStatus() == RelationStatus.ACCEPTED)
-                        .orElse(false);
-
-        if (!friends) {
-            throw new OperationNotPermittedException(
-                    "You can only message users who are your friends.");
-        }
-    }
-
-    /**
-     * Creates a new conversation with canonical ID ordering (smaller ID = user1).
-     */
-    private EntityConversation createConversation(User a, User b) {
-        User user1 = a.getId() < b.getId() ? a : b;
-        User user2 = a.getId() < b.getId() ? b : a;
-        return repositoryConversation.save(
-                EntityConversation.builder()
-                        .user1(user1)
-                        .user2(user2)
-                        .build()
-        );
-    }
-
     /**
      * Given a conversation and one participant, returns the ID of the other participant.
      */
@@ -384,30 +520,38 @@ public class ServiceMessage {
                 : conversation.getUser1().getId();
     }
 
-    /** Pushes an SSE event to a user if they are currently connected. */
-    private void pushToUser(Long userId, String eventName, Object payload) {
-        emitterRegistry.find(userId).ifPresent(emitter -> {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name(eventName)
-                        .data(toJson(payload)));
-            } catch (IOException e) {
-                log.warn("Failed to push SSE event to userId={}: {}", userId, e.getMessage());
-                emitter.completeWithError(e);
-            }
-        });
+    /**
+     * Moves {@code readerId}'s watermark up to {@code messageId} and, if it moved, sends
+     * the other participant one {@code MESSAGE_READ} receipt.
+     */
+    private void markReadUpTo(EntityConversation conversation, Long readerId, long messageId) {
+        if (messageId <= lastReadIdOf(conversation, readerId)
+                || repositoryConversation.advanceReadWatermark(conversation.getId(), readerId, messageId) == 0) {
+            return;
+        }
+        pushToUser(otherParticipantId(conversation, readerId), EVENT_MESSAGE_READ, DtoReadReceipt.builder()
+                .conversationId(conversation.getId())
+                .readerId(readerId)
+                .lastReadMessageId(messageId)
+                .build());
     }
 
-    private String toJson(Object obj) {
-        try {
-            return objectMapper.writeValueAsString(obj);
-        } catch (JsonProcessingException e) {
-            log.error("JSON serialisation error", e);
-            return "{}";
-        }
+    /** Id of the newest message {@code userId} has read in the conversation. */
+    private static long lastReadIdOf(EntityConversation conversation, Long userId) {
+        return Objects.equals(conversation.getUser1().getId(), userId)
+                ? conversation.getUser1LastReadId()
+                : conversation.getUser2LastReadId();
     }
 
-    private DtoMessageResponse toMessageDto(EntityMessage m) {
+    /**
+     * Pushes an SSE event to a user if they are connected, once the current transaction
+     * has committed; the send itself runs on {@link SseDispatcher} threads.
+     */
+    private void pushToUser(Long userId, String eventName, Object payload) {
+        eventPublisher.publishEvent(new SsePushEvent(userId, eventName, payload));
+    }
+
+    private DtoMessageResponse toMessageDto(EntityMessage m, boolean read) {
         DtoMessageResponse.DtoMessageResponseBuilder builder = DtoMessageResponse.builder()
                 .id(m.getId())
                 .conversationId(m.getConversation().getId())
@@ -415,20 +559,27 @@ public class ServiceMessage {
                 .senderName(m.getSender().getFullName())
                 .content(m.getContent())
                 .replyTo(toReplySnippet(m.getReplyTo()))
-                .read(m.isRead())
+                .read(read)
                 .createdAt(m.getCreatedAt())
                 .mediaType(m.getMediaType())
                 .mediaName(m.getMediaName())
                 .mediaSize(m.getMediaSize())
-                .hasMedia(m.getMediaData() != null);
+                .hasMedia(m.getMediaSize() != null);
 
-        if (m.getMediaType() != null && m.getMediaType().startsWith("image")) {
-            builder.mediaData(m.getMediaData());
+        if (m.getMediaSize() != null) {
+            builder.mediaUrl("messages/" + m.getId() + "/media");
+            if (isImage(m.getMediaType())) {
+                builder.thumbnailUrl("messages/" + m.getId() + "/media/thumbnail");
+            }
         }
 
         return builder.build();
     }
 
+    private static boolean isImage(String mediaType) {
+        return mediaType != null && mediaType.startsWith("image");
+    }
+
     /**
      * Builds a compact reply snippet from the referenced message.
      * Returns {@code null} when the message is not a reply.
@@ -452,11 +603,11 @@ public class ServiceMessage {
                 ? c.getUser2()
                 : c.getUser1();
 
-        String preview = repositoryMessage.findLastMessage(c.getId())
-                .map(m -> truncate(m.getContent(), 80))
+        String preview = repositoryMessage.findLastMessageContent(c.getId())
+                .map(content -> truncate(content, 80))
                 .orElse(null);
 
-        long unread = repositoryMessage.countUnreadForUser(c.getId(), caller.getId());
+        long unread = repositoryMessage.countUnreadForUser(c.getId(), caller.getId(), lastReadIdOf(c, caller.getId()));
 
         return DtoConversationResponse.builder()
                 .conversationId(c.getId())
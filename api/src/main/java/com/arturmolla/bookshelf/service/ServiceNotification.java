@@ -1,22 +1,49 @@
 package com.arturmolla.bookshelf.service;
 
 import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.common.NotificationActor;
+import com.arturmolla.bookshelf.model.dto.DtoDigestPreference;
 import com.arturmolla.bookshelf.model.dto.DtoNotificationResponse;
 import com.arturmolla.bookshelf.model.entity.EntityNotification;
+import com.arturmolla.bookshelf.model.entity.EntityNotificationDigest;
+import com.arturmolla.bookshelf.model.enums.DigestFrequency;
 import com.arturmolla.bookshelf.model.enums.NotificationType;
 import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.model.enums.OutboxEventType;
 import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import com.arturmolla.bookshelf.repository.RepositoryNotificationDigest;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.account.AccountDeletionWorker;
+import com.arturmolla.bookshelf.service.messaging.SseDispatcher;
+import com.arturmolla.bookshelf.service.messaging.SsePushEvent;
+import com.arturmolla.bookshelf.service.notification.NotificationRetention;
+import com.arturmolla.bookshelf.service.outbox.NotificationCoalescer;
+import com.arturmolla.bookshelf.service.outbox.NotificationEvent;
+import com.arturmolla.bookshelf.service.outbox.OutboxWorker;
+import com.arturmolla.bookshelf.service.outbox.ServiceOutbox;
+import com.arturmolla.bookshelf.service.utils.UtilsTransaction;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -24,15 +51,32 @@ import java.util.Objects;
 @Transactional
 public class ServiceNotification {
 
+    /** SSE event name of a notification pushed on the messaging channel. */
+    public static final String EVENT_NOTIFICATION = "notification";
+
     private final RepositoryNotification repositoryNotification;
+    private final RepositoryUser repositoryUser;
+    private final ServiceOutbox serviceOutbox;
+    private final SseDispatcher sseDispatcher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationCoalescer notificationCoalescer;
+    private final RepositoryNotificationDigest repositoryNotificationDigest;
+    private final NotificationRetention notificationRetention;
+
+    @Value("${application.notifications.coalesce-window-minutes:60}")
+    private long coalesceWindowMinutes;
 
     // ─────────────────────────────────────────────────────────────
     //  Internal helper – called by other services
     // ─────────────────────────────────────────────────────────────
 
     /**
-     * Creates a notification. Silently skips if the actor and recipient are the same
+     * Queues a notification. Silently skips if the actor and recipient are the same
      * (no one wants a notification for their own action).
+     * <p>
+     * The notification is written to the outbox in the caller's transaction and
+     * created (and pushed to the recipient if online) by {@link OutboxWorker} shortly
+     * after the transaction commits.
      *
      * @param recipient     user who will receive the notification
      * @param actor         user who triggered the event (null = system notification)
@@ -49,21 +93,246 @@ public class ServiceNotification {
                        String message,
                        Long referenceId,
                        String referenceType) {
-        // Don't notify users about their own actions
-        if (actor != null && Objects.equals(recipient.getId(), actor.getId())) {
-            return;
+        notify(recipient.getId(), actor, type, title, message, referenceId, referenceType);
+    }
+
+    /** Same as {@link #notify(User, User, NotificationType, String, String, Long, String)} by recipient id. */
+    public void notify(Long recipientId,
+                       User actor,
+                       NotificationType type,
+                       String title,
+                       String message,
+                       Long referenceId,
+                       String referenceType) {
+        notifyAll(List.of(recipientId), actor, type, title, message, referenceId, referenceType);
+    }
+
+    /**
+     * Queues the same notification for several recipients. Ids of users that no longer
+     * exist are dropped at delivery time, so callers need not look recipients up.
+     * <p>
+     * Types in {@link NotificationCoalescer#COALESCING} (likes, comments, shares) skip the
+     * outbox: once the transaction commits they go to the in-memory coalescing buffer and
+     * are merged into the recipient's open notification for the same reference.
+     */
+    public void notifyAll(Collection<Long> recipientIds,
+                          User actor,
+                          NotificationType type,
+                          String title,
+                          String message,
+                          Long referenceId,
+                          String referenceType) {
+        Long actorId = actor != null ? actor.getId() : null;
+        String actorName = actor != null ? actor.getFullName() : null;
+        List<NotificationEvent> events = recipientIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                // Don't notify users about their own actions
+                .filter(recipientId -> !Objects.equals(recipientId, actorId))
+                .map(recipientId -> new NotificationEvent(
+                        recipientId, actorId, actorName, type, title, message, referenceId, referenceType))
+                .toList();
+        if (notificationCoalescer.accepts(type) && referenceId != null) {
+            UtilsTransaction.afterCommit(() -> events.forEach(notificationCoalescer::add));
+        } else {
+            serviceOutbox.enqueueAll(OutboxEventType.NOTIFICATION, events);
         }
-        EntityNotification notification = EntityNotification.builder()
-                .recipient(recipient)
-                .actor(actor)
-                .type(type)
-                .title(title)
-                .message(message)
-                .referenceId(referenceId)
-                .referenceType(referenceType)
-                .build();
-        repositoryNotification.save(notification);
-        log.debug("Notification [{}] created for userId={}", type, recipient.getId());
+    }
+
+    /**
+     * Inserts queued notifications in bulk and, once committed, pushes each one to its
+     * recipient's SSE channel if they are connected. Called by {@link OutboxWorker}.
+     */
+    public void createAll(List<NotificationEvent> events) {
+        Set<Long> userIds = new HashSet<>();
+        for (NotificationEvent event : events) {
+            userIds.add(event.recipientId());
+            if (event.actorId() != null) {
+                userIds.add(event.actorId());
+            }
+        }
+        Set<Long> existing = new HashSet<>(repositoryUser.findExistingIds(userIds));
+
+        List<EntityNotification> notifications = events.stream()
+                .filter(event -> existing.contains(event.recipientId()))
+                .map(event -> EntityNotification.builder()
+                        .recipient(repositoryUser.getReferenceById(event.recipientId()))
+                        .actor(event.actorId() != null && existing.contains(event.actorId())
+                                ? repositoryUser.getReferenceById(event.actorId())
+                                : null)
+                        .type(event.type())
+                        .title(event.title())
+                        .message(event.message())
+                        .referenceId(event.referenceId())
+                        .referenceType(event.referenceType())
+                        .build())
+                .toList();
+        repositoryNotification.saveAll(notifications);
+        notificationRetention.recordWrites(notifications.stream().map(n -> n.getRecipient().getId()).toList());
+        publish(notifications);
+    }
+
+    /**
+     * Merges drained coalescing groups into their recipients' open notifications (unread,
+     * window opened less than {@code coalesceWindowMinutes} ago), creating one where none
+     * is open. Called by {@link OutboxWorker}.
+     * <p>
+     * The actors of each row are recorded in {@code notification_actor}, so an actor counts
+     * once per row however many others came in between.
+     */
+    public void mergeCoalesced(Map<NotificationCoalescer.Key, NotificationCoalescer.Group> groups) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> recipientIds = new HashSet<>();
+        Set<NotificationType> types = EnumSet.noneOf(NotificationType.class);
+        Set<Long> referenceIds = new HashSet<>();
+        groups.forEach((key, group) -> {
+            recipientIds.add(key.recipientId());
+            types.add(key.type());
+            referenceIds.add(key.referenceId());
+            userIds.addAll(group.actorIds());
+        });
+        userIds.addAll(recipientIds);
+        Set<Long> existing = new HashSet<>(repositoryUser.findExistingIds(userIds));
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<NotificationCoalescer.Key, EntityNotification> open = new HashMap<>();
+        for (EntityNotification n : repositoryNotification.findOpenGroups(
+                recipientIds, types, referenceIds, now.minusMinutes(coalesceWindowMinutes))) {
+            open.merge(new NotificationCoalescer.Key(n.getRecipient().getId(), n.getType(), n.getReferenceId()), n,
+                    (a, b) -> a.getWindowStart().isAfter(b.getWindowStart()) ? a : b);
+        }
+
+        List<EntityNotification> changed = new ArrayList<>();
+        List<Long> created = new ArrayList<>();
+        groups.forEach((key, group) -> {
+            if (!existing.contains(key.recipientId())) {
+                return;
+            }
+            NotificationEvent latest = group.latest();
+            List<NotificationActor> actors = group.latestActors().stream()
+                    .filter(actor -> existing.contains(actor.id()))
+                    .toList();
+            EntityNotification row = open.get(key);
+            if (row == null) {
+                row = EntityNotification.builder()
+                        .recipient(repositoryUser.getReferenceById(key.recipientId()))
+                        .type(key.type())
+                        .referenceId(key.referenceId())
+                        .referenceType(latest.referenceType())
+                        .actorCount(0)
+                        .latestActors(List.of())
+                        .windowStart(now)
+                        .build();
+            }
+            if (row.getId() == null) {
+                row = repositoryNotification.save(row);
+                created.add(key.recipientId());
+            }
+            List<NotificationActor> previous = row.getLatestActors() != null ? row.getLatestActors() : List.of();
+            int newActors = group.actorIds().isEmpty() ? 0
+                    : repositoryNotification.addActors(row.getId(), row.getCreatedAt(), group.actorIds());
+            row.setActorCount(Math.max(1, row.getActorCount() + newActors));
+            row.setLatestActors(mergeActors(actors, previous));
+            NotificationActor lead = row.getLatestActors().isEmpty() ? null : row.getLatestActors().get(0);
+            row.setActor(lead != null ? repositoryUser.getReferenceById(lead.id()) : null);
+            row.setTitle(coalescedTitle(latest.title(), latest.actorName(), row.getActorCount() - 1));
+            row.setMessage(latest.message());
+            row.setUpdatedAt(group.latestAt());
+            changed.add(row);
+        });
+        repositoryNotification.saveAll(changed);
+        notificationRetention.recordWrites(created);
+        publish(changed);
+    }
+
+    /**
+     * Title of a notification merged from several actors: the single-actor title with
+     * its leading actor name widened, e.g. "Alice liked your post" with 23 others becomes
+     * "Alice and 23 others liked your post".
+     */
+    static String coalescedTitle(String title, String actorName, int others) {
+        if (others <= 0 || actorName == null || !title.startsWith(actorName)) {
+            return title;
+        }
+        return actorName + " and " + others + (others == 1 ? " other" : " others")
+                + title.substring(actorName.length());
+    }
+
+    private static List<NotificationActor> mergeActors(List<NotificationActor> newest, List<NotificationActor> older) {
+        List<NotificationActor> merged = new ArrayList<>(newest);
+        for (NotificationActor actor : older) {
+            if (merged.size() >= NotificationCoalescer.LATEST_ACTORS) {
+                break;
+            }
+            if (merged.stream().noneMatch(a -> Objects.equals(a.id(), actor.id()))) {
+                merged.add(actor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Takes a deleted user out of up to {@code limit} coalesced notifications of other
+     * recipients; returns how many were changed. The user's id and name leave
+     * {@code latest_actors} and the title, the count drops by one, and a row whose latest
+     * event was the user's loses that event's message. A row left without actors is
+     * deleted. Called by {@link AccountDeletionWorker} until it comes back short.
+     */
+    public int forgetActor(Long userId, int limit) {
+        if (repositoryNotification.deleteActorPairs(userId) > 0) {
+            log.debug("Dropped the coalescing actor pairs of userId={}", userId);
+        }
+        List<EntityNotification> rows = repositoryNotification.findWithLatestActor(userId, limit);
+        List<EntityNotification> changed = new ArrayList<>();
+        List<EntityNotification> emptied = new ArrayList<>();
+        for (EntityNotification row : rows) {
+            List<NotificationActor> previous = row.getLatestActors();
+            List<NotificationActor> remaining = previous.stream()
+                    .filter(actor -> !Objects.equals(actor.id(), userId))
+                    .toList();
+            if (remaining.isEmpty()) {
+                emptied.add(row);
+                continue;
+            }
+            NotificationActor oldLead = previous.get(0);
+            NotificationActor newLead = remaining.get(0);
+            int actorCount = Math.max(remaining.size(), row.getActorCount() - 1);
+            String prefix = coalescedTitle(oldLead.name(), oldLead.name(), row.getActorCount() - 1);
+            if (oldLead.name() != null && newLead.name() != null && row.getTitle().startsWith(prefix)) {
+                String rest = row.getTitle().substring(prefix.length());
+                row.setTitle(coalescedTitle(newLead.name() + rest, newLead.name(), actorCount - 1));
+            }
+            if (Objects.equals(oldLead.id(), userId)) {
+                row.setMessage(null);
+            }
+            row.setLatestActors(remaining);
+            row.setActorCount(actorCount);
+            row.setActor(repositoryUser.getReferenceById(newLead.id()));
+            changed.add(row);
+        }
+        repositoryNotification.saveAll(changed);
+        repositoryNotification.deleteAll(emptied);
+        return rows.size();
+    }
+
+    /**
+     * The newest {@code limit} unread notifications of a user created since {@code since},
+     * oldest first, as the SSE events a reconnecting client missed.
+     */
+    public List<SsePushEvent> missedEvents(Long userId, LocalDateTime since, int limit) {
+        return repositoryNotification.findUnreadSince(userId, since, Limit.of(limit)).reversed().stream()
+                .map(n -> new SsePushEvent(userId, EVENT_NOTIFICATION, toResponse(n)))
+                .toList();
+    }
+
+    /** Pushes the notifications to the recipients that are connected, once they are committed. */
+    private void publish(List<EntityNotification> notifications) {
+        List<EntityNotification> online = notifications.stream()
+                .filter(n -> sseDispatcher.isConnected(n.getRecipient().getId()))
+                .toList();
+        online.forEach(n -> eventPublisher.publishEvent(
+                new SsePushEvent(n.getRecipient().getId(), EVENT_NOTIFICATION, toResponse(n))));
+        log.debug("{} notifications written, {} pushed", notifications.size(), online.size());
     }
 
     // ─────────────────────────────────────────────────────────────
@@ -75,7 +344,7 @@ public class ServiceNotification {
                                                                      Authentication connectedUser) {
         var user = (User) connectedUser.getPrincipal();
         Page<EntityNotification> result = repositoryNotification
-                .findByRecipientIdOrderByCreatedAtDesc(user.getId(), PageRequest.of(page, size));
+                .findByRecipientIdOrderByUpdatedAtDesc(user.getId(), PageRequest.of(page, size));
 
         List<DtoNotificationResponse> content = result.getContent()
                 .stream()
@@ -105,9 +374,10 @@ public class ServiceNotification {
      * @throws EntityNotFoundException     if the notification does not exist
      * @throws IllegalArgumentException    if the notification does not belong to the user
      */
-    public DtoNotificationResponse markAsRead(Long notificationId, Authentication connectedUser) {
+    public DtoNotificationResponse markAsRead(Long notificationId, LocalDateTime createdAt,
+                                              Authentication connectedUser) {
         var user = (User) connectedUser.getPrincipal();
-        EntityNotification notification = repositoryNotification.findById(notificationId)
+        EntityNotification notification = repositoryNotification.findByIdAndCreatedAt(notificationId, createdAt)
                 .orElseThrow(() -> new EntityNotFoundException("Notification not found with id: " + notificationId));
 
         if (!Objects.equals(notification.getRecipient().getId(), user.getId())) {
@@ -130,10 +400,10 @@ public class ServiceNotification {
      *
      * @throws EntityNotFoundException  if the notification does not exist or does not belong to the user
      */
-    public void deleteNotification(Long notificationId, Authentication connectedUser) {
+    public void deleteNotification(Long notificationId, LocalDateTime createdAt, Authentication connectedUser) {
         var user = (User) connectedUser.getPrincipal();
         // Uses the combined key so it's a no-op if the record doesn't exist or belongs to someone else
-        repositoryNotification.deleteByIdAndRecipientId(notificationId, user.getId());
+        repositoryNotification.deleteOwn(notificationId, createdAt, user.getId());
         log.debug("Notification id={} deleted by userId={}", notificationId, user.getId());
     }
 
@@ -144,6 +414,28 @@ public class ServiceNotification {
         log.debug("All notifications cleared for userId={}", user.getId());
     }
 
+    /** Returns the authenticated user's e-mail digest setting; {@code OFF} if never set. */
+    public DtoDigestPreference getDigestPreference(Authentication connectedUser) {
+        var user = (User) connectedUser.getPrincipal();
+        return repositoryNotificationDigest.findById(user.getId())
+                .map(digest -> new DtoDigestPreference(digest.getFrequency(), digest.getLastSentAt()))
+                .orElse(new DtoDigestPreference(DigestFrequency.OFF, null));
+    }
+
+    /**
+     * Sets how often the authenticated user gets an e-mail digest of unread notifications.
+     * The first digest after subscribing covers one period back.
+     */
+    public DtoDigestPreference setDigestPreference(DigestFrequency frequency, Authentication connectedUser) {
+        var user = (User) connectedUser.getPrincipal();
+        EntityNotificationDigest digest = repositoryNotificationDigest.findById(user.getId())
+                .orElseGet(() -> EntityNotificationDigest.builder().userId(user.getId()).build());
+        digest.setFrequency(frequency);
+        repositoryNotificationDigest.save(digest);
+        log.debug("Notification digest set to {} for userId={}", frequency, user.getId());
+        return new DtoDigestPreference(digest.getFrequency(), digest.getLastSentAt());
+    }
+
     // ─────────────────────────────────────────────────────────────
     //  Private mapper
     // ─────────────────────────────────────────────────────────────
@@ -160,6 +452,9 @@ public class ServiceNotification {
                 .actorId(n.getActor() != null ? n.getActor().getId() : null)
                 .actorName(n.getActor() != null ? n.getActor().getFullName() : null)
                 .createdAt(n.getCreatedAt())
+                .updatedAt(n.getUpdatedAt())
+                .actorCount(n.getActorCount())
+                .latestActors(n.getLatestActors() != null ? n.getLatestActors() : List.of())
                 .build();
     }
 }
@@ -0,0 +1,208 @@
+package com.arturmolla.bookshelf.service;
+
+import com.arturmolla.bookshelf.model.entity.EntityUserReadingStats;
+import com.arturmolla.bookshelf.repository.RepositoryBook;
+import com.arturmolla.bookshelf.repository.RepositoryBookTransactionHistory;
+import com.arturmolla.bookshelf.repository.RepositoryUserReadingStats;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Maintains the pre-aggregated {@link EntityUserReadingStats} row of each user.
+ * <p>
+ * Book and borrow operations report their effect here inside their own transaction,
+ * and the counters are adjusted under a row lock. A missing row (new user, or stats
+ * invalidated by an admin delete) is rebuilt once from the source tables. It is created
+ * with {@code INSERT ... ON CONFLICT DO NOTHING}, so when two transactions find it
+ * missing at once the second waits for the first one's row and uses it instead of
+ * failing on the primary key.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ServiceReadingStats {
+
+    static final int ACTIVITY_MONTHS = 12;
+    static final String NO_GENRE = "Other";
+    static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final RepositoryUserReadingStats repositoryStats;
+    private final RepositoryBook repositoryBook;
+    private final RepositoryBookTransactionHistory repositoryTransaction;
+
+    public EntityUserReadingStats getStats(Long userId) {
+        return repositoryStats.findById(userId).orElseGet(() -> {
+            boolean created = repositoryStats.insertIfAbsent(userId) == 1;
+            EntityUserReadingStats stats = repositoryStats.findById(userId).orElseThrow();
+            return created ? rebuild(stats) : stats;
+        });
+    }
+
+    /** Drops the stats of the given users; they are rebuilt on next access. */
+    public void invalidate(Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            repositoryStats.deleteAllByUserIdIn(userIds);
+        }
+    }
+
+    // ─── Events ─────────────────────────────────────────────────────────────
+
+    public void bookAdded(Long ownerId, boolean read) {
+        update(ownerId, stats -> {
+            stats.setBooksOwned(stats.getBooksOwned() + 1);
+            if (read) {
+                stats.setBooksRead(stats.getBooksRead() + 1);
+                recordActiveDay(stats, LocalDate.now());
+            }
+        });
+    }
+
+    public void bookRemoved(Long ownerId, boolean read) {
+        update(ownerId, stats -> {
+            stats.setBooksOwned(decrement(stats.getBooksOwned()));
+            if (read) {
+                stats.setBooksRead(decrement(stats.getBooksRead()));
+            }
+        });
+    }
+
+    public void readFlagChanged(Long ownerId, boolean read) {
+        update(ownerId, stats -> {
+            if (read) {
+                stats.setBooksRead(stats.getBooksRead() + 1);
+                recordActiveDay(stats, LocalDate.now());
+            } else {
+                stats.setBooksRead(decrement(stats.getBooksRead()));
+            }
+        });
+    }
+
+    public void borrowRequested(Long borrowerId) {
+        update(borrowerId, stats -> stats.setCurrentlyBorrowed(stats.getCurrentlyBorrowed() + 1));
+    }
+
+    public void borrowRejected(Long borrowerId) {
+        update(borrowerId, stats -> stats.setCurrentlyBorrowed(decrement(stats.getCurrentlyBorrowed())));
+    }
+
+    public void bookReturned(Long borrowerId, Long ownerId, String genre) {
+        update(borrowerId, stats -> {
+            stats.setCurrentlyBorrowed(decrement(stats.getCurrentlyBorrowed()));
+            recordFinished(stats, LocalDate.now(), genre);
+        });
+        update(ownerId, stats -> stats.setPendingReturns(stats.getPendingReturns() + 1));
+    }
+
+    public void returnApproved(Long ownerId) {
+        update(ownerId, stats -> stats.setPendingReturns(decrement(stats.getPendingReturns())));
+    }
+
+    /**
+     * Streak as shown to the user: it only stays alive while the last activity
+     * was today or yesterday.
+     */
+    public static int effectiveStreak(EntityUserReadingStats stats, LocalDate today) {
+        LocalDate last = stats.getLastActivityDate();
+        return last != null && !last.isBefore(today.minusDays(1)) ? stats.getCurrentStreak() : 0;
+    }
+
+    // ─── Internals ──────────────────────────────────────────────────────────
+
+    /**
+     * Applies {@code change} to the locked row. Callers report an event after writing
+     * it, so when this transaction creates the row the change is already part of the
+     * source tables and is not applied a second time. A row another transaction created
+     * meanwhile was rebuilt without this transaction's uncommitted writes, so the change
+     * is applied to it.
+     */
+    private void update(Long userId, Consumer<EntityUserReadingStats> change) {
+        Optional<EntityUserReadingStats> locked = repositoryStats.findByUserIdForUpdate(userId);
+        if (locked.isPresent()) {
+            change.accept(locked.get());
+            return;
+        }
+        boolean created = repositoryStats.insertIfAbsent(userId) == 1;
+        EntityUserReadingStats stats = repositoryStats.findByUserIdForUpdate(userId).orElseThrow();
+        if (created) {
+            rebuild(stats);
+        } else {
+            change.accept(stats);
+        }
+    }
+
+    /** Fills a freshly created, empty row from the source tables. */
+    EntityUserReadingStats rebuild(EntityUserReadingStats stats) {
+        Long userId = stats.getUserId();
+        log.debug("Rebuilding reading stats for user {}", userId);
+        stats.setBooksOwned(repositoryBook.countByOwnerId(userId));
+        stats.setBooksRead(repositoryBook.countByOwnerIdAndReadTrue(userId));
+        stats.setCurrentlyBorrowed(repositoryTransaction.countByReturnedFalseAndUserId(userId));
+        stats.setPendingReturns(repositoryTransaction.countPendingReturnsByOwnerId(userId));
+
+        // Replay finished loans and books marked as read in chronological order
+        record Activity(LocalDate day, String genre, boolean finished) {
+        }
+        List<Activity> activities = new ArrayList<>();
+        for (Object[] row : repositoryTransaction.findReturnedActivityByUserId(userId)) {
+            activities.add(new Activity(((LocalDateTime) row[0]).toLocalDate(), (String) row[1], true));
+        }
+        for (LocalDateTime readAt : repositoryBook.findReadActivityByOwnerId(userId)) {
+            activities.add(new Activity(readAt.toLocalDate(), null, false));
+        }
+        activities.sort(Comparator.comparing(Activity::day));
+        for (Activity activity : activities) {
+            if (activity.finished()) {
+                recordFinished(stats, activity.day(), activity.genre());
+            } else {
+                recordActiveDay(stats, activity.day());
+            }
+        }
+        return stats;
+    }
+
+    /** Counts a finished book in its month and genre bucket and extends the streak. */
+    static void recordFinished(EntityUserReadingStats stats, LocalDate day, String genre) {
+        // Maps are replaced rather than mutated so dirty tracking picks up the change
+        Map<String, Long> months = new HashMap<>(stats.getMonthlyActivity());
+        months.merge(day.format(MONTH_FORMAT), 1L, Long::sum);
+        String oldest = LocalDate.now().minusMonths(ACTIVITY_MONTHS - 1L).format(MONTH_FORMAT);
+        months.keySet().removeIf(month -> month.compareTo(oldest) < 0);
+        stats.setMonthlyActivity(months);
+
+        Map<String, Long> genres = new HashMap<>(stats.getGenreCounts());
+        genres.merge(genre != null ? genre : NO_GENRE, 1L, Long::sum);
+        stats.setGenreCounts(genres);
+
+        recordActiveDay(stats, day);
+    }
+
+    static void recordActiveDay(EntityUserReadingStats stats, LocalDate day) {
+        LocalDate last = stats.getLastActivityDate();
+        if (last != null && !day.isAfter(last)) {
+            return;
+        }
+        int streak = last != null && last.plusDays(1).equals(day) ? stats.getCurrentStreak() + 1 : 1;
+        stats.setCurrentStreak(streak);
+        stats.setLongestStreak(Math.max(stats.getLongestStreak(), streak));
+        stats.setLastActivityDate(day);
+    }
+
+    private static long decrement(long value) {
+        return Math.max(0, value - 1);
+    }
+}
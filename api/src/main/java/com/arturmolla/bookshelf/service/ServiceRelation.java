@@ -1,19 +1,25 @@
 package com.arturmolla.bookshelf.service;
 
 import com.arturmolla.bookshelf.model.common.PageResponse;
+import com.arturmolla.bookshelf.model.common.SliceResponse;
 import com.arturmolla.bookshelf.model.dto.DtoFriendPageResponse;
+import com.arturmolla.bookshelf.model.dto.DtoFriendResponse;
 import com.arturmolla.bookshelf.model.dto.DtoRelationResponse;
 import com.arturmolla.bookshelf.model.dto.DtoUserSearchResult;
+import com.arturmolla.bookshelf.model.entity.EntityFriendship;
 import com.arturmolla.bookshelf.model.entity.EntityUserRelation;
 import com.arturmolla.bookshelf.model.enums.NotificationType;
 import com.arturmolla.bookshelf.model.enums.RelationStatus;
 import com.arturmolla.bookshelf.model.enums.RelationType;
 import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryFriendship;
 import com.arturmolla.bookshelf.repository.RepositoryUser;
 import com.arturmolla.bookshelf.repository.RepositoryUserRelation;
+import com.arturmolla.bookshelf.service.social.SocialGraph;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
@@ -21,6 +27,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -29,9 +39,12 @@ import java.util.List;
 public class ServiceRelation {
 
     private final RepositoryUserRelation relationRepository;
+    private final RepositoryFriendship friendshipRepository;
     private final RepositoryUser userRepository;
     private final ServiceNotification notificationService;
     private final ServiceFileStorage fileStorage;
+    private final SocialGraph socialGraph;
+    private final ServiceTimeline serviceTimeline;
 
     // ─────────────────────────────────────────────────────────────────────────
     // Friend requests
@@ -65,6 +78,7 @@ public class ServiceRelation {
                 .build();
 
         relation = relationRepository.save(relation);
+        socialGraph.friendRequestSent(requester.getId(), targetUserId);
 
         notificationService.notify(
                 addressee,
@@ -91,6 +105,10 @@ public class ServiceRelation {
 
         relation.setStatus(RelationStatus.ACCEPTED);
         relation = relationRepository.save(relation);
+        materializeFriendship(relation);
+        socialGraph.friendRequestAccepted(relation.getRequester().getId(), addressee.getId());
+        serviceTimeline.connected(relation.getRequester().getId(), addressee.getId());
+        serviceTimeline.connected(addressee.getId(), relation.getRequester().getId());
 
         notificationService.notify(
                 relation.getRequester(),
@@ -117,6 +135,7 @@ public class ServiceRelation {
 
         relation.setStatus(RelationStatus.REJECTED);
         relation = relationRepository.save(relation);
+        socialGraph.friendshipEnded(relation.getRequester().getId(), addressee.getId());
 
         notificationService.notify(
                 relation.getRequester(),
@@ -151,7 +170,15 @@ public class ServiceRelation {
                                         "No friend relation found with userId=" + targetUserId))
                 );
 
+        friendshipRepository.deleteBetween(currentUser.getId(), targetUserId);
         relationRepository.delete(relation);
+        if (RelationStatus.ACCEPTED.equals(relation.getStatus())) {
+            serviceTimeline.disconnected(currentUser.getId(), targetUserId,
+                    socialGraph.isFollowing(currentUser.getId(), targetUserId));
+            serviceTimeline.disconnected(targetUserId, currentUser.getId(),
+                    socialGraph.isFollowing(targetUserId, currentUser.getId()));
+        }
+        socialGraph.friendshipEnded(currentUser.getId(), targetUserId);
         log.info("Friendship removed between userId={} and userId={}", currentUser.getId(), targetUserId);
     }
 
@@ -183,6 +210,8 @@ public class ServiceRelation {
                 .build();
 
         relation = relationRepository.save(relation);
+        socialGraph.followed(follower.getId(), targetUserId);
+        serviceTimeline.connected(follower.getId(), targetUserId);
 
         notificationService.notify(
                 followed,
@@ -210,6 +239,9 @@ public class ServiceRelation {
                         "You are not following userId=" + targetUserId));
 
         relationRepository.delete(relation);
+        socialGraph.unfollowed(follower.getId(), targetUserId);
+        serviceTimeline.disconnected(follower.getId(), targetUserId,
+                socialGraph.areFriends(follower.getId(), targetUserId));
         log.info("userId={} unfollowed userId={}", follower.getId(), targetUserId);
     }
 
@@ -217,13 +249,33 @@ public class ServiceRelation {
     // Listings
     // ─────────────────────────────────────────────────────────────────────────
 
-    /** Returns all accepted friends of the authenticated user, paged. */
+    /**
+     * Returns the authenticated user's friends after friend id {@code after}, in id order.
+     * <p>
+     * The slice is read from the friendship key alone, without a count; the names of just
+     * that slice are then looked up by primary key. {@code next} is the {@code after} of
+     * the following slice.
+     */
     @Transactional(readOnly = true)
-    public PageResponse<DtoRelationResponse> getMyFriends(int page, int size, Authentication connectedUser) {
+    public SliceResponse<DtoFriendResponse> getMyFriends(Long after, int size, Authentication connectedUser) {
         var user = (User) connectedUser.getPrincipal();
-        Page<EntityUserRelation> result = relationRepository.findFriends(
-                user.getId(), PageRequest.of(page, size));
-        return toPageResponse(result);
+        List<Long> ids = friendshipRepository.findFriendIds(
+                user.getId(), after != null ? after : 0L, Limit.of(size + 1));
+        boolean hasNext = ids.size() > size;
+        if (hasNext) {
+            ids = ids.subList(0, size);
+        }
+        Map<Long, String> names = ids.isEmpty() ? Map.of() : userRepository.findNamesByIdIn(ids).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> row[1] + " " + row[2]));
+        List<DtoFriendResponse> content = ids.stream()
+                .map(id -> new DtoFriendResponse(id, names.get(id)))
+                .toList();
+        return SliceResponse.<DtoFriendResponse>builder()
+                .content(content)
+                .size(size)
+                .last(!hasNext)
+                .next(hasNext ? ids.getLast() : null)
+                .build();
     }
 
     /** Returns incoming pending friend requests for the authenticated user. */
@@ -280,7 +332,7 @@ public class ServiceRelation {
         User target = findUser(targetUserId);
 
         // Social counts
-        long friendCount   = relationRepository.countFriends(targetUserId);
+        long friendCount   = friendshipRepository.countByUserId(targetUserId);
         long followersCount = relationRepository.countByAddresseeIdAndRelationType(targetUserId, RelationType.FOLLOW);
         long followingCount = relationRepository.countByRequesterIdAndRelationType(targetUserId, RelationType.FOLLOW);
 
@@ -330,6 +382,7 @@ public class ServiceRelation {
                 .friendCount(friendCount)
                 .followersCount(followersCount)
                 .followingCount(followingCount)
+                .mutualFriendCount(socialGraph.mutualFriendCount(currentUser.getId(), targetUserId))
                 .isFriend(isFriend)
                 .friendRequestStatus(friendRequestStatus)
                 .pendingFriendRequestId(pendingFriendRequestId)
@@ -377,6 +430,30 @@ public class ServiceRelation {
                 .build();
     }
 
+    // ─────────────────────────────────────────────────────────────────────────
+    // Suggestions
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * "People you may know": friends of friends ranked by mutual friend count,
+     * served from the in-memory {@link SocialGraph}. Only the chosen users are loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<DtoUserSearchResult> suggestFriends(int size, Authentication connectedUser) {
+        var currentUser = (User) connectedUser.getPrincipal();
+        List<SocialGraph.Suggestion> suggestions = socialGraph.suggest(currentUser.getId(), size);
+        Map<Long, User> users = userRepository.findAllById(
+                        suggestions.stream().map(SocialGraph.Suggestion::userId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return suggestions.stream()
+                .map(s -> users.get(s.userId()))
+                .filter(Objects::nonNull)
+                .map(u -> toUserSearchResult(u, currentUser))
+                .toList();
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // Private helpers
     // ─────────────────────────────────────────────────────────────────────────
@@ -391,6 +468,16 @@ public class ServiceRelation {
                 .orElseThrow(() -> new EntityNotFoundException("Relation not found with id: " + relationId));
     }
 
+    /** Writes both directions of an accepted friendship to the edge table. */
+    private void materializeFriendship(EntityUserRelation relation) {
+        Long requesterId = relation.getRequester().getId();
+        Long addresseeId = relation.getAddressee().getId();
+        friendshipRepository.saveAll(List.of(
+                EntityFriendship.builder().userId(requesterId).friendId(addresseeId).relation(relation).build(),
+                EntityFriendship.builder().userId(addresseeId).friendId(requesterId).relation(relation).build()
+        ));
+    }
+
     private void validateAddresseeOwnership(EntityUserRelation relation, User user) {
         if (!relation.getAddressee().getId().equals(user.getId())) {
             throw new IllegalArgumentException("You are not the recipient of this friend request.");
@@ -477,6 +564,7 @@ public class ServiceRelation {
                 .friendRequestStatus(friendRequestStatus)
                 .pendingFriendRequestId(pendingFriendRequestId)
                 .isFollowing(isFollowing)
+                .mutualFriendCount(socialGraph.mutualFriendCount(currentId, targetId))
                 .build();
     }
 }
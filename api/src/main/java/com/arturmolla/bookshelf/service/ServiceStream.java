@@ -7,15 +7,23 @@ import com.arturmolla.bookshelf.model.dto.DtoSignalRequest;
 import com.arturmolla.bookshelf.model.dto.DtoStreamEvent;
 import com.arturmolla.bookshelf.model.dto.DtoStreamInfo;
 import com.arturmolla.bookshelf.model.dto.DtoWatcherInfo;
+import com.arturmolla.bookshelf.model.common.PageResponse;
 import com.arturmolla.bookshelf.model.enums.StreamEventType;
 import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.service.socket.SocketSessions;
+import com.arturmolla.bookshelf.service.sse.SseAdmission;
 import com.arturmolla.bookshelf.service.stream.LiveStream;
+import com.arturmolla.bookshelf.service.stream.RelayTree;
+import com.arturmolla.bookshelf.service.stream.SignalCoalescer;
+import com.arturmolla.bookshelf.service.stream.StreamDelivery;
 import com.arturmolla.bookshelf.service.stream.StreamRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -45,12 +53,35 @@ public class ServiceStream {
      */
     private static final long HEARTBEAT_INTERVAL_SEC = 30;
 
+    /** Signal types of WebRTC ICE candidates: one, or a JSON array of several. */
+    public static final String SIGNAL_ICE_CANDIDATE = "ice-candidate";
+    public static final String SIGNAL_ICE_CANDIDATES = "ice-candidates";
+
+    /**
+     * Relay instructions sent by the server ({@code payload} is {@code {"peerId":…}}): receive
+     * the stream from the peer, start forwarding it to the peer (send it an offer), stop
+     * forwarding it to the peer.
+     */
+    public static final String SIGNAL_RELAY_PARENT = "relay-parent";
+    public static final String SIGNAL_RELAY_CHILD = "relay-child";
+    public static final String SIGNAL_RELAY_DROP = "relay-drop";
+
     private static final ScheduledExecutorService heartbeatExecutor =
             Executors.newScheduledThreadPool(4);
 
     private final StreamRegistry registry;
     private final ObjectMapper objectMapper;
     private final WebRtcProperties webRtcProperties;
+    private final SseAdmission sseAdmission;
+    private final SocketSessions socketSessions;
+    private final SignalCoalescer signalCoalescer;
+    private final StreamDelivery streamDelivery;
+
+    @Value("${application.stream.relay.host-fanout:6}")
+    private int hostFanout;
+
+    @Value("${application.stream.relay.max-relay-fanout:4}")
+    private int maxRelayFanout;
 
     // =========================================================================
     // ICE SERVERS
@@ -79,6 +110,7 @@ public class ServiceStream {
      * Only one stream per user is allowed at any time.
      */
     public SseEmitter startStream(String title, Authentication auth) {
+        sseAdmission.admit();
         User host = principal(auth);
 
         if (registry.hasStream(host.getId())) {
@@ -86,7 +118,7 @@ public class ServiceStream {
                     "You already have an active stream. Stop it before starting a new one.");
         }
 
-        LiveStream stream = new LiveStream(host.getId(), host.getFullName(), title);
+        LiveStream stream = new LiveStream(host.getId(), host.getFullName(), title, hostFanout);
         registry.register(stream);
         log.info("Stream started: hostId={} title='{}'", host.getId(), title);
 
@@ -94,7 +126,8 @@ public class ServiceStream {
         stream.addParticipant(host.getId(), host.getFullName(), emitter);
 
         // Notify the host that the stream is live
-        sendToOne(emitter, buildEvent(StreamEventType.STREAM_STARTED, stream, host, null));
+        stream.atCurrentVersion(version ->
+                deliver(host.getId(), emitter, buildEvent(StreamEventType.STREAM_STARTED, stream, host, version)));
         return emitter;
     }
 
@@ -104,10 +137,18 @@ public class ServiceStream {
 
     /**
      * Joins an existing stream as a watcher.
+     * <p>
+     * The watcher is placed in the stream's {@link RelayTree} before it is announced, and
+     * {@code WATCHER_JOINED} carries its parent. One placed under the host is sent an offer
+     * by the host on that event, as before; one placed under a relay, and every later move,
+     * is carried out through relay {@code SIGNAL}s.
      *
-     * @param hostId the userId of the stream host (stream identifier)
+     * @param hostId        the userId of the stream host (stream identifier)
+     * @param relayCapacity how many other watchers this watcher can forward the stream to;
+     *                      0 for a client that does not relay
      */
-    public SseEmitter joinStream(Long hostId, Authentication auth) {
+    public SseEmitter joinStream(Long hostId, int relayCapacity, Authentication auth) {
+        sseAdmission.admit();
         User watcher = principal(auth);
         LiveStream stream = findOrThrow(hostId);
 
@@ -123,48 +164,56 @@ public class ServiceStream {
             stream.addParticipant(hostId, watcher.getFullName(), emitter);
             log.info("Host SSE reconnected: hostId={}", hostId);
 
-            // Re-send STREAM_STARTED so the host UI restores its state
-            sendToOne(emitter, buildEvent(StreamEventType.STREAM_STARTED, stream, watcher, null));
-
-            // Re-send WATCHER_JOINED for every currently connected watcher so the host
-            // can re-initiate WebRTC offers to them. Without this the host loses track of
-            // existing watchers after a page refresh and they all get a blank screen.
-            stream.getParticipantIds().stream()
-                    .filter(id -> !id.equals(hostId))
-                    .forEach(watcherId -> {
-                        String watcherName = stream.getParticipantNames().getOrDefault(watcherId, "unknown");
-                        DtoStreamEvent rejoined = DtoStreamEvent.builder()
-                                .type(StreamEventType.WATCHER_JOINED)
-                                .streamId(stream.getHostId())
-                                .streamTitle(stream.getTitle())
-                                .actorId(watcherId)
-                                .actorName(watcherName)
-                                .watcherCount(stream.getWatcherCount())
-                                .build();
-                        sendToOne(emitter, rejoined);
-                    });
+            // One snapshot restores the host UI and lists the watchers the host feeds
+            // directly, so it can re-initiate WebRTC offers to them. Without this the host
+            // loses track of existing watchers after a page refresh and they all get a
+            // blank screen.
+            stream.atCurrentVersion(version -> deliver(hostId, emitter, snapshot(stream, hostId, version)));
             return emitter;
         }
 
-        if (stream.hasParticipant(watcher.getId())) {
+        boolean reconnecting = stream.hasParticipant(watcher.getId());
+        if (reconnecting) {
             // Watcher is reconnecting — silently swap the old emitter so the cleanup
             // callback is a no-op and does NOT broadcast WATCHER_LEFT / WATCHER_JOINED.
             SseEmitter old = stream.silentRemove(watcher.getId());
             if (old != null) old.complete();
         }
 
+        // A reconnecting watcher keeps its place, and gets back a relay capacity it lost
+        // by failing; its relay links are set up again. It is announced again as a change
+        // of its own, so every delta carries a new version.
+        RelayTree tree = stream.getRelayTree();
+        int capacity = Math.min(Math.max(relayCapacity, 0), maxRelayFanout);
         SseEmitter emitter = createEmitter(stream, watcher.getId());
-        stream.addParticipant(watcher.getId(), watcher.getFullName(), emitter);
+        stream.change(() -> {
+            stream.addParticipant(watcher.getId(), watcher.getFullName(), emitter);
+            if (reconnecting) {
+                tree.restore(watcher.getId(), capacity);
+                return tree.links(watcher.getId());
+            }
+            return tree.join(watcher.getId(), capacity);
+        }, (moves, version) -> {
+            // Tell THIS watcher about the current stream state (confirms they have joined)
+            deliver(watcher.getId(), emitter, snapshot(stream, watcher.getId(), version));
+
+            // Notify every OTHER participant (especially the HOST) that someone joined, and
+            // who feeds it: the HOST sends an SDP offer only to a watcher placed under itself.
+            broadcastExcept(stream, watcher.getId(), DtoStreamEvent.builder()
+                    .type(StreamEventType.WATCHER_JOINED)
+                    .streamId(stream.getHostId())
+                    .streamTitle(stream.getTitle())
+                    .actorId(watcher.getId())
+                    .actorName(watcher.getFullName())
+                    .watcherCount(stream.getWatcherCount())
+                    .version(version)
+                    .parentId(tree.parentOf(watcher.getId()))
+                    .build());
+
+            sendRelayMoves(stream, moves);
+        });
         log.info("Watcher joined: userId={} streamId={}", watcher.getId(), hostId);
 
-        // Tell THIS watcher about the current stream state (confirms they have joined)
-        sendToOne(emitter, buildEvent(StreamEventType.WATCHER_JOINED, stream, watcher, null));
-
-        // Notify every OTHER participant (especially the HOST) that someone joined.
-        // The HOST uses actorId from this event to know which watcher to send an SDP offer to.
-        broadcastExcept(stream, watcher.getId(),
-                buildEvent(StreamEventType.WATCHER_JOINED, stream, watcher, null));
-
         return emitter;
     }
 
@@ -185,10 +234,79 @@ public class ServiceStream {
                     "As the host, use the stop endpoint to end your stream.");
         }
 
-        stream.removeParticipant(watcher.getId());
+        stream.change(() -> {
+            close(watcher.getId(), stream.silentRemove(watcher.getId()));
+            return stream.getRelayTree().leave(watcher.getId());
+        }, (moves, version) -> {
+            broadcastAll(stream, buildEvent(StreamEventType.WATCHER_LEFT, stream, watcher, version));
+            sendRelayMoves(stream, moves);
+        });
+        signalCoalescer.forget(hostId, watcher.getId());
         log.info("Watcher left: userId={} streamId={}", watcher.getId(), hostId);
+    }
 
-        broadcastAll(stream, buildEvent(StreamEventType.WATCHER_LEFT, stream, watcher, null));
+    // =========================================================================
+    // RELAY
+    // =========================================================================
+
+    /**
+     * Reports that the authenticated watcher's relay (the peer it receives the stream
+     * from) failed, e.g. its connection dropped or it cannot keep up. Once enough of its
+     * children agree ({@link RelayTree#reportFailure}) the relay is no longer used as one
+     * and the watchers it fed are moved elsewhere in the tree; it gets its capacity back
+     * when it reconnects. A failing host is not a relay and is ignored.
+     */
+    public void reportRelayFailure(Long hostId, Authentication auth) {
+        User watcher = principal(auth);
+        LiveStream stream = findOrThrow(hostId);
+
+        if (!stream.hasParticipant(watcher.getId())) {
+            throw new OperationNotPermittedException("You are not a participant of this stream.");
+        }
+        Long relayId = stream.getRelayTree().parentOf(watcher.getId());
+        if (relayId == null || relayId.equals(hostId)) {
+            return;
+        }
+        List<RelayTree.Move> moves = stream.getRelayTree().reportFailure(watcher.getId());
+        log.info("Relay failure reported: relayId={} reportedBy={} streamId={} dropped={}",
+                relayId, watcher.getId(), hostId, !moves.isEmpty());
+        sendRelayMoves(stream, moves);
+    }
+
+    /**
+     * Tells the participants of each move what to do. A watcher that just joined under
+     * the host needs no instruction: the host offers to it on {@code WATCHER_JOINED},
+     * whose {@code parentId} is the host.
+     */
+    private void sendRelayMoves(LiveStream stream, List<RelayTree.Move> moves) {
+        for (RelayTree.Move move : moves) {
+            if (move.oldParentId() == null && move.newParentId() == stream.getHostId()) {
+                continue;
+            }
+            if (move.oldParentId() != null) {
+                sendRelay(stream, move.oldParentId(), SIGNAL_RELAY_DROP, move.childId());
+            }
+            sendRelay(stream, move.newParentId(), SIGNAL_RELAY_CHILD, move.childId());
+            sendRelay(stream, move.childId(), SIGNAL_RELAY_PARENT, move.newParentId());
+        }
+    }
+
+    private void sendRelay(LiveStream stream, long recipientId, String signalType, long peerId) {
+        if (!stream.hasParticipant(recipientId)) {
+            return;
+        }
+        DtoStreamEvent event = DtoStreamEvent.builder()
+                .type(StreamEventType.SIGNAL)
+                .streamId(stream.getHostId())
+                .streamTitle(stream.getTitle())
+                .actorId(peerId)
+                .actorName(stream.getParticipantNames().getOrDefault(peerId, "unknown"))
+                .targetUserId(recipientId)
+                .signalType(signalType)
+                .payload("{\"peerId\":" + peerId + "}")
+                .watcherCount(stream.getWatcherCount())
+                .build();
+        sendSignal(stream, recipientId, event);
     }
 
     // =========================================================================
@@ -208,9 +326,13 @@ public class ServiceStream {
         }
 
         // Broadcast the stop event before closing emitters so FE receives it
-        broadcastAll(stream, buildEvent(StreamEventType.STREAM_STOPPED, stream, host, null));
-        stream.closeAll();
-        registry.remove(host.getId());
+        stream.change(() -> {
+            registry.remove(host.getId());
+            return host;
+        }, (stopped, version) ->
+                broadcastAll(stream, buildEvent(StreamEventType.STREAM_STOPPED, stream, stopped, version)));
+        closeAll(stream);
+        signalCoalescer.forget(host.getId(), null);
         log.info("Stream stopped: hostId={}", host.getId());
     }
 
@@ -222,46 +344,112 @@ public class ServiceStream {
      * Relays a WebRTC signalling message (SDP offer/answer or ICE candidate)
      * from the sender to a specific target, or broadcasts to all if targetUserId is null.
      *
-     * <p><strong>Ordering guarantee:</strong> sendToOne is synchronous —
-     * signals are delivered in the exact order they arrive at the server,
-     * which is critical for the WebRTC handshake (offer → answer → ICE candidates).</p>
+     * <p><strong>Ordering guarantee:</strong> each target's signals are queued on its
+     * {@link StreamDelivery} stripe and delivered in the exact order they arrive at the
+     * server, which is critical for the WebRTC handshake (offer → answer → ICE candidates).
+     * A participant with an open WebSocket ({@link com.arturmolla.bookshelf.service.socket.MessagingSocket})
+     * gets its signals there, else on the stream's SSE connection.</p>
      *
      * <p>Signal types the front-end should handle:</p>
      * <ul>
      *   <li>{@code offer}         – host sent an SDP offer; watcher must answer</li>
      *   <li>{@code answer}        – watcher replied; host sets remote description</li>
      *   <li>{@code ice-candidate} – ICE candidate from either peer; add to RTCPeerConnection</li>
+     *   <li>{@code ice-candidates} – several coalesced ICE candidates, a JSON array in {@code payload}</li>
      * </ul>
      */
     public void signal(Long hostId, DtoSignalRequest request, Authentication auth) {
+        signalBatch(hostId, List.of(request), auth);
+    }
+
+    /**
+     * Relays several signals of the authenticated user at once (e.g. the ICE candidates
+     * gathered for one or more peers), in order. Every target must be connected, otherwise
+     * none of the signals is relayed.
+     * <p>
+     * ICE candidates are not sent one SSE event each: the candidates one sender sends one
+     * target within a short window are coalesced ({@link SignalCoalescer}) into a single
+     * {@code SIGNAL} with {@code signalType} {@value #SIGNAL_ICE_CANDIDATES} and the
+     * candidates as a JSON array in {@code payload}. A lone candidate keeps its original
+     * form. Offers and answers flush the target's queued candidates first.
+     */
+    public void signalBatch(Long hostId, List<DtoSignalRequest> requests, Authentication auth) {
         User sender = principal(auth);
         LiveStream stream = findOrThrow(hostId);
 
         if (!stream.hasParticipant(sender.getId())) {
             throw new OperationNotPermittedException("You are not a participant of this stream.");
         }
+        for (DtoSignalRequest request : requests) {
+            if (request.targetUserId() != null && !stream.hasParticipant(request.targetUserId())) {
+                throw new EntityNotFoundException(
+                        "Target user " + request.targetUserId() + " is not connected to this stream.");
+            }
+        }
 
-        DtoStreamEvent event = DtoStreamEvent.builder()
+        for (DtoSignalRequest request : requests) {
+            List<Long> targets = request.targetUserId() != null
+                    ? List.of(request.targetUserId())
+                    : stream.getParticipantIds().stream().filter(uid -> !uid.equals(sender.getId())).toList();
+            for (Long targetId : targets) {
+                if (SIGNAL_ICE_CANDIDATE.equals(request.signalType())) {
+                    signalCoalescer.add(hostId, sender.getId(), targetId, request.payload(),
+                            candidates -> sendCandidates(stream, sender, targetId, candidates));
+                } else {
+                    DtoStreamEvent event = signalEvent(stream, sender, request.targetUserId(),
+                            request.signalType(), request.payload());
+                    signalCoalescer.inOrder(hostId, sender.getId(), targetId, () -> sendSignal(stream, targetId, event));
+                }
+            }
+        }
+    }
+
+    private void sendCandidates(LiveStream stream, User sender, Long targetId, List<String> candidates) {
+        DtoStreamEvent event = candidates.size() == 1
+                ? signalEvent(stream, sender, targetId, SIGNAL_ICE_CANDIDATE, candidates.getFirst())
+                : signalEvent(stream, sender, targetId, SIGNAL_ICE_CANDIDATES, toJsonArray(candidates));
+        sendSignal(stream, targetId, event);
+    }
+
+    private DtoStreamEvent signalEvent(LiveStream stream, User sender, Long targetUserId,
+                                       String signalType, String payload) {
+        return DtoStreamEvent.builder()
                 .type(StreamEventType.SIGNAL)
-                .streamId(hostId)
+                .streamId(stream.getHostId())
                 .streamTitle(stream.getTitle())
                 .actorId(sender.getId())
                 .actorName(sender.getFullName())
-                .targetUserId(request.targetUserId())
-                .signalType(request.signalType())
-                .payload(request.payload())
+                .targetUserId(targetUserId)
+                .signalType(signalType)
+                .payload(payload)
                 .watcherCount(stream.getWatcherCount())
                 .build();
+    }
 
-        if (request.targetUserId() != null) {
-            SseEmitter target = stream.getEmitter(request.targetUserId());
-            if (target == null) {
-                throw new EntityNotFoundException(
-                        "Target user " + request.targetUserId() + " is not connected to this stream.");
+    /** The candidates (each a JSON object) as one JSON array; ones that are not valid JSON are sent as strings. */
+    private String toJsonArray(List<String> candidates) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (String candidate : candidates) {
+            try {
+                array.add(objectMapper.readTree(candidate));
+            } catch (JsonProcessingException e) {
+                array.add(candidate);
             }
-            sendToOne(target, event);
-        } else {
-            broadcastExcept(stream, sender.getId(), event);
+        }
+        return array.toString();
+    }
+
+    private void sendSignal(LiveStream stream, Long userId, DtoStreamEvent event) {
+        SseEmitter emitter = stream.getEmitter(userId);
+        if (emitter != null) {
+            streamDelivery.submit(userId, () -> sendSignal(userId, emitter, event));
+        }
+    }
+
+    /** Sends a signal over the participant's WebSocket when they have one, else over the stream's SSE. */
+    private void sendSignal(Long userId, SseEmitter emitter, DtoStreamEvent event) {
+        if (!socketSessions.isOpen(userId) || !socketSessions.push(userId, event.type().name(), toJson(event))) {
+            sendToOne(emitter, event);
         }
     }
 
@@ -269,7 +457,7 @@ public class ServiceStream {
     // LIST
     // =========================================================================
 
-    /** Returns metadata for all currently active streams. */
+    /** Returns a summary of every currently active stream, without its watchers. */
     public List<DtoStreamInfo> listStreams() {
         return registry.allStreams().stream()
                 .map(this::toInfo)
@@ -282,18 +470,29 @@ public class ServiceStream {
     }
 
     /**
-     * Returns a list of all watchers currently connected to the stream.
-     * This is used by the host after a reconnect to discover existing watchers and
-     * re-initiate WebRTC offers to them (so they don't get stuck on a blank screen).
+     * Returns one page of the watchers currently connected to the stream, in ascending
+     * userId order.
      */
-    public List<DtoWatcherInfo> getWatchers(Long hostId) {
+    public PageResponse<DtoWatcherInfo> getWatchers(Long hostId, int page, int size) {
         LiveStream stream = findOrThrow(hostId);
-        return stream.getWatcherIds().stream()
+        int total = stream.getWatcherCount();
+        int totalPages = (total + size - 1) / size;
+        List<DtoWatcherInfo> content = stream.getWatcherIds(page, size).stream()
                 .map(id -> DtoWatcherInfo.builder()
                         .watcherId(id)
                         .watcherName(stream.getParticipantNames().getOrDefault(id, "unknown"))
                         .build())
                 .toList();
+
+        return PageResponse.<DtoWatcherInfo>builder()
+                .content(content)
+                .number(page)
+                .size(size)
+                .totalElement(total)
+                .totalPages(totalPages)
+                .first(page == 0)
+                .last(page >= totalPages - 1)
+                .build();
     }
 
     // =========================================================================
@@ -336,32 +535,34 @@ public class ServiceStream {
             // Use silentRemove so we only remove from the maps without calling
             // emitter.complete() again (the emitter is already completing/timed-out).
             String displayName = stream.getParticipantNames().getOrDefault(userId, "unknown");
-            stream.silentRemove(userId);
-            log.info("SSE emitter cleaned up: userId={} streamId={}", userId, stream.getHostId());
-
-            if (userId.equals(stream.getHostId())) {
-                log.info("Host disconnected — stopping stream hostId={}", stream.getHostId());
-                DtoStreamEvent stopEvent = DtoStreamEvent.builder()
-                        .type(StreamEventType.STREAM_STOPPED)
+            boolean isHost = userId.equals(stream.getHostId());
+            stream.change(() -> {
+                stream.silentRemove(userId);
+                if (isHost) {
+                    registry.remove(stream.getHostId());
+                    return List.<RelayTree.Move>of();
+                }
+                return stream.getRelayTree().leave(userId);
+            }, (moves, version) -> {
+                DtoStreamEvent event = DtoStreamEvent.builder()
+                        .type(isHost ? StreamEventType.STREAM_STOPPED : StreamEventType.WATCHER_LEFT)
                         .streamId(stream.getHostId())
                         .streamTitle(stream.getTitle())
                         .actorId(userId)
                         .actorName(displayName)
-                        .watcherCount(0)
+                        .watcherCount(isHost ? 0 : stream.getWatcherCount())
+                        .version(version)
                         .build();
-                broadcastAll(stream, stopEvent);
-                stream.closeAll();
-                registry.remove(stream.getHostId());
-            } else {
-                DtoStreamEvent leftEvent = DtoStreamEvent.builder()
-                        .type(StreamEventType.WATCHER_LEFT)
-                        .streamId(stream.getHostId())
-                        .streamTitle(stream.getTitle())
-                        .actorId(userId)
-                        .actorName(displayName)
-                        .watcherCount(stream.getWatcherCount())
-                        .build();
-                broadcastAll(stream, leftEvent);
+                broadcastAll(stream, event);
+                sendRelayMoves(stream, moves);
+            });
+            signalCoalescer.forget(stream.getHostId(), userId);
+            log.info("SSE emitter cleaned up: userId={} streamId={}", userId, stream.getHostId());
+
+            if (isHost) {
+                log.info("Host disconnected — stopping stream hostId={}", stream.getHostId());
+                closeAll(stream);
+                signalCoalescer.forget(stream.getHostId(), null);
             }
         };
 
@@ -372,25 +573,46 @@ public class ServiceStream {
         return emitter;
     }
 
-    private DtoStreamEvent buildEvent(StreamEventType type, LiveStream stream, User actor, Long targetUserId) {
+    private DtoStreamEvent buildEvent(StreamEventType type, LiveStream stream, User actor, long version) {
         return DtoStreamEvent.builder()
                 .type(type)
                 .streamId(stream.getHostId())
                 .streamTitle(stream.getTitle())
                 .actorId(actor.getId())
                 .actorName(actor.getFullName())
-                .targetUserId(targetUserId)
                 .watcherCount(stream.getWatcherCount())
+                .version(version)
+                .build();
+    }
+
+    /**
+     * The room state as seen by {@code recipientId} at {@code version}: the host as actor,
+     * the watcher count, and the watchers the recipient feeds. Must be built under the
+     * stream's lock; later changes arrive as deltas with higher versions.
+     */
+    private DtoStreamEvent snapshot(LiveStream stream, Long recipientId, long version) {
+        return DtoStreamEvent.builder()
+                .type(StreamEventType.STREAM_STATE)
+                .streamId(stream.getHostId())
+                .streamTitle(stream.getTitle())
+                .actorId(stream.getHostId())
+                .actorName(stream.getHostName())
+                .targetUserId(recipientId)
+                .watcherCount(stream.getWatcherCount())
+                .version(version)
+                .peerIds(stream.getRelayTree().childrenOf(recipientId).stream()
+                        .filter(stream::hasParticipant)
+                        .toList())
                 .build();
     }
 
     /**
-     * Sends an event synchronously to a single emitter.
+     * Sends an event to a single emitter, on the calling thread.
      *
-     * <p><strong>MUST remain synchronous</strong> — WebRTC signalling requires
-     * strict ordering (offer → answer → ICE candidates). Making this async
-     * causes race conditions that result in failed peer connections and a
-     * blank black video screen on the watcher side.</p>
+     * <p>Participants are only written to through {@link StreamDelivery}, which runs this
+     * for each of them in the order the events were queued. WebRTC signalling requires
+     * strict ordering (offer → answer → ICE candidates), and a watcher must get its
+     * snapshot before any signal of a peer that learned about it from the same change.</p>
      */
     public void sendToOne(SseEmitter emitter, DtoStreamEvent event) {
         try {
@@ -400,21 +622,43 @@ public class ServiceStream {
         } catch (IOException e) {
             log.warn("Failed to send SSE event to emitter: {}", e.getMessage());
             emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            // The emitter completed (participant left or reconnected) after the event was queued
+            log.debug("SSE emitter already completed, dropped {}", event.type());
         }
     }
 
+    /** Queues an event for one participant, behind everything queued for them before. */
+    private void deliver(Long userId, SseEmitter emitter, DtoStreamEvent event) {
+        streamDelivery.submit(userId, () -> sendToOne(emitter, event));
+    }
+
     /** Broadcasts an event to every participant in the stream. */
     private void broadcastAll(LiveStream stream, DtoStreamEvent event) {
-        stream.getEmitters().forEach((uid, emitter) -> sendToOne(emitter, event));
+        stream.getEmitters().forEach((uid, emitter) -> deliver(uid, emitter, event));
     }
 
     /** Broadcasts an event to every participant EXCEPT the excluded userId. */
     private void broadcastExcept(LiveStream stream, Long excludeUserId, DtoStreamEvent event) {
         stream.getEmitters().forEach((uid, emitter) -> {
-            if (!uid.equals(excludeUserId)) sendToOne(emitter, event);
+            if (!uid.equals(excludeUserId)) deliver(uid, emitter, event);
         });
     }
 
+    /** Completes a removed participant's emitter once the events queued for it are sent. */
+    private void close(Long userId, SseEmitter emitter) {
+        if (emitter != null && !streamDelivery.submit(userId, emitter::complete)) {
+            emitter.complete();
+        }
+    }
+
+    /** Removes every participant and completes their emitters once the events queued for them are sent. */
+    private void closeAll(LiveStream stream) {
+        for (Long userId : List.copyOf(stream.getParticipantIds())) {
+            close(userId, stream.silentRemove(userId));
+        }
+    }
+
     private String toJson(Object obj) {
         try {
             return objectMapper.writeValueAsString(obj);
@@ -432,8 +676,7 @@ public class ServiceStream {
                 .title(stream.getTitle())
                 .startedAt(stream.getStartedAt())
                 .watcherCount(stream.getWatcherCount())
-                .watcherNames(stream.getWatcherNames())
-                .watcherIds(stream.getWatcherIds())
+                .version(stream.getVersion())
                 .build();
     }
 }
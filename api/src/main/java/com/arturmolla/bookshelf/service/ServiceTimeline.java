@@ -0,0 +1,99 @@
+package com.arturmolla.bookshelf.service;
+
+import com.arturmolla.bookshelf.model.entity.EntityHomePost;
+import com.arturmolla.bookshelf.repository.RepositoryTimelineEntry;
+import com.arturmolla.bookshelf.service.social.SocialGraph;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Personalized home timeline (own posts, friends and followed users).
+ * <p>
+ * Post ids are pushed to every audience member's {@code timeline_entry} rows when a
+ * post is created. Authors with more than {@code fanoutFollowerLimit} followers only
+ * fan out to their friends; followers merge those authors' posts in when reading.
+ * Timelines are read in slices before a post id (keyset), never counted.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ServiceTimeline {
+
+    /** Posts copied into a timeline when a new friendship or follow is created. */
+    static final int BACKFILL_POSTS = 50;
+
+    private final RepositoryTimelineEntry repositoryTimeline;
+    private final SocialGraph socialGraph;
+
+    @Value("${application.timeline.fanout-follower-limit:10000}")
+    private int fanoutFollowerLimit;
+
+    // ─── Writes ─────────────────────────────────────────────────────────────
+
+    public void postCreated(EntityHomePost post) {
+        Long authorId = post.getAuthor().getId();
+        int pushed = isFanOutOnRead(authorId)
+                ? repositoryTimeline.fanOutToFriends(post.getId(), authorId, post.getCreatedDate())
+                : repositoryTimeline.fanOutToFriendsAndFollowers(post.getId(), authorId, post.getCreatedDate());
+        log.debug("Post id={} pushed to {} timelines", post.getId(), pushed);
+    }
+
+    public void postsDeleted(Collection<Long> postIds) {
+        if (!postIds.isEmpty()) {
+            repositoryTimeline.deleteAllByPostIdIn(postIds);
+        }
+    }
+
+    /** {@code userId} became a friend or follower of {@code authorId}. */
+    public void connected(Long userId, Long authorId) {
+        repositoryTimeline.backfillFromAuthor(userId, authorId, BACKFILL_POSTS);
+    }
+
+    /**
+     * {@code userId} stopped being a friend or follower of {@code authorId}; the author's
+     * posts leave the timeline unless the other kind of connection remains.
+     */
+    public void disconnected(Long userId, Long authorId, boolean stillConnected) {
+        if (!stillConnected) {
+            repositoryTimeline.deleteAllByUserIdAndAuthorId(userId, authorId);
+        }
+    }
+
+    // ─── Reads ──────────────────────────────────────────────────────────────
+
+    /**
+     * The newest {@code size} posts of the user's timeline with an id below {@code before}
+     * ({@code null} for the first slice). The next slice starts before the last post's id.
+     */
+    public Slice<EntityHomePost> getTimeline(Long userId, Long before, int size) {
+        List<Long> pullAuthors = new ArrayList<>();
+        for (long authorId : socialGraph.following(userId)) {
+            if (isFanOutOnRead(authorId) && !socialGraph.areFriends(userId, authorId)) {
+                pullAuthors.add(authorId);
+            }
+        }
+        long beforeId = before != null ? before : Long.MAX_VALUE;
+        // One extra row tells whether another slice follows
+        List<EntityHomePost> posts = pullAuthors.isEmpty()
+                ? repositoryTimeline.findTimeline(userId, beforeId, Limit.of(size + 1))
+                : repositoryTimeline.findTimelineWithAuthors(userId, pullAuthors, beforeId, size + 1);
+        boolean hasNext = posts.size() > size;
+        return new SliceImpl<>(hasNext ? posts.subList(0, size) : posts, PageRequest.ofSize(size), hasNext);
+    }
+
+    private boolean isFanOutOnRead(long authorId) {
+        return socialGraph.followerCount(authorId) > fanoutFollowerLimit;
+    }
+}
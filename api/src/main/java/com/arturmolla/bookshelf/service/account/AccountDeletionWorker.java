@@ -0,0 +1,352 @@
+package com.arturmolla.bookshelf.service.account;
+
+import com.arturmolla.bookshelf.model.entity.EntityAccountDeletion;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStatus;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStep;
+import com.arturmolla.bookshelf.repository.RepositoryAccountDeletion;
+import com.arturmolla.bookshelf.repository.RepositoryBook;
+import com.arturmolla.bookshelf.repository.RepositoryBookCover;
+import com.arturmolla.bookshelf.repository.RepositoryBookPdf;
+import com.arturmolla.bookshelf.repository.RepositoryBookTransactionHistory;
+import com.arturmolla.bookshelf.repository.RepositoryConversation;
+import com.arturmolla.bookshelf.repository.RepositoryFeedback;
+import com.arturmolla.bookshelf.repository.RepositoryHomePost;
+import com.arturmolla.bookshelf.repository.RepositoryMessage;
+import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import com.arturmolla.bookshelf.repository.RepositoryPostComment;
+import com.arturmolla.bookshelf.repository.RepositoryPostLike;
+import com.arturmolla.bookshelf.repository.RepositoryPostShare;
+import com.arturmolla.bookshelf.repository.RepositoryTimelineEntry;
+import com.arturmolla.bookshelf.repository.RepositoryToken;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.repository.RepositoryUserProfilePic;
+import com.arturmolla.bookshelf.repository.RepositoryUserRelation;
+import com.arturmolla.bookshelf.repository.RepositoryUserWallpaper;
+import com.arturmolla.bookshelf.service.ServiceNotification;
+import com.arturmolla.bookshelf.service.ServiceReadingStats;
+import com.arturmolla.bookshelf.service.feed.TrendingIndex;
+import com.arturmolla.bookshelf.service.social.SocialGraph;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deletes accounts in the background, in bounded chunks.
+ * <p>
+ * {@code ServiceAdmin.deleteUser} only records an {@code account_deletion} row. This
+ * worker claims due rows ({@code SKIP LOCKED}, with a lease like the outbox) and walks
+ * the {@link AccountDeletionStep}s in order. Each chunk deletes at most
+ * {@code chunkSize} rows (or {@code parentChunkSize} posts / books; a post's comments,
+ * likes, shares and timeline rows are chunked by row in steps of their own before it,
+ * a book's children go with it) in its own short transaction, which also records the progress it made;
+ * a step ends when a chunk comes back short. After a restart or a failure the
+ * deletion therefore resumes at the chunk it stopped at. Failed chunks are retried
+ * after {@code retryDelay} until {@code maxAttempts}, after which the deletion is
+ * marked {@link AccountDeletionStatus#FAILED} and can be re-requested.
+ */
+@Slf4j
+@Component
+public class AccountDeletionWorker {
+
+    /** How long a claimed deletion stays invisible to other workers; renewed by every chunk. */
+    static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final RepositoryAccountDeletion repositoryAccountDeletion;
+    private final RepositoryUser repositoryUser;
+    private final RepositoryToken repositoryToken;
+    private final RepositoryNotification repositoryNotification;
+    private final RepositoryUserRelation repositoryUserRelation;
+    private final RepositoryTimelineEntry repositoryTimelineEntry;
+    private final RepositoryPostComment repositoryPostComment;
+    private final RepositoryPostLike repositoryPostLike;
+    private final RepositoryPostShare repositoryPostShare;
+    private final RepositoryHomePost repositoryHomePost;
+    private final RepositoryMessage repositoryMessage;
+    private final RepositoryConversation repositoryConversation;
+    private final RepositoryBookTransactionHistory repositoryBookTransactionHistory;
+    private final RepositoryFeedback repositoryFeedback;
+    private final RepositoryBook repositoryBook;
+    private final RepositoryBookCover repositoryBookCover;
+    private final RepositoryBookPdf repositoryBookPdf;
+    private final RepositoryUserProfilePic repositoryUserProfilePic;
+    private final RepositoryUserWallpaper repositoryUserWallpaper;
+    private final ServiceNotification serviceNotification;
+    private final ServiceReadingStats serviceReadingStats;
+    private final SocialGraph socialGraph;
+    private final TrendingIndex trendingIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int parentChunkSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    /** One drain per instance at a time; the scheduled poll and after-commit kicks share it. */
+    private final ReentrantLock draining = new ReentrantLock();
+
+    public AccountDeletionWorker(RepositoryAccountDeletion repositoryAccountDeletion,
+                                 RepositoryUser repositoryUser,
+                                 RepositoryToken repositoryToken,
+                                 RepositoryNotification repositoryNotification,
+                                 RepositoryUserRelation repositoryUserRelation,
+                                 RepositoryTimelineEntry repositoryTimelineEntry,
+                                 RepositoryPostComment repositoryPostComment,
+                                 RepositoryPostLike repositoryPostLike,
+                                 RepositoryPostShare repositoryPostShare,
+                                 RepositoryHomePost repositoryHomePost,
+                                 RepositoryMessage repositoryMessage,
+                                 RepositoryConversation repositoryConversation,
+                                 RepositoryBookTransactionHistory repositoryBookTransactionHistory,
+                                 RepositoryFeedback repositoryFeedback,
+                                 RepositoryBook repositoryBook,
+                                 RepositoryBookCover repositoryBookCover,
+                                 RepositoryBookPdf repositoryBookPdf,
+                                 RepositoryUserProfilePic repositoryUserProfilePic,
+                                 RepositoryUserWallpaper repositoryUserWallpaper,
+                                 ServiceNotification serviceNotification,
+                                 ServiceReadingStats serviceReadingStats,
+                                 SocialGraph socialGraph,
+                                 TrendingIndex trendingIndex,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${application.account-deletion.chunk-size:1000}") int chunkSize,
+                                 @Value("${application.account-deletion.parent-chunk-size:50}") int parentChunkSize,
+                                 @Value("${application.account-deletion.max-attempts:5}") int maxAttempts,
+                                 @Value("${application.account-deletion.retry-delay-seconds:60}") long retryDelaySeconds) {
+        this.repositoryAccountDeletion = repositoryAccountDeletion;
+        this.repositoryUser = repositoryUser;
+        this.repositoryToken = repositoryToken;
+        this.repositoryNotification = repositoryNotification;
+        this.repositoryUserRelation = repositoryUserRelation;
+        this.repositoryTimelineEntry = repositoryTimelineEntry;
+        this.repositoryPostComment = repositoryPostComment;
+        this.repositoryPostLike = repositoryPostLike;
+        this.repositoryPostShare = repositoryPostShare;
+        this.repositoryHomePost = repositoryHomePost;
+        this.repositoryMessage = repositoryMessage;
+        this.repositoryConversation = repositoryConversation;
+        this.repositoryBookTransactionHistory = repositoryBookTransactionHistory;
+        this.repositoryFeedback = repositoryFeedback;
+        this.repositoryBook = repositoryBook;
+        this.repositoryBookCover = repositoryBookCover;
+        this.repositoryBookPdf = repositoryBookPdf;
+        this.repositoryUserProfilePic = repositoryUserProfilePic;
+        this.repositoryUserWallpaper = repositoryUserWallpaper;
+        this.serviceNotification = serviceNotification;
+        this.serviceReadingStats = serviceReadingStats;
+        this.socialGraph = socialGraph;
+        this.trendingIndex = trendingIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.parentChunkSize = parentChunkSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofSeconds(retryDelaySeconds);
+    }
+
+    /** Starts draining right away instead of at the next poll; called after a deletion is requested. */
+    @Async
+    public void kick() {
+        drain();
+    }
+
+    /** Processes due deletions one after another until none is left. */
+    @Scheduled(fixedDelayString = "${application.account-deletion.poll-ms:10000}")
+    public void drain() {
+        if (!draining.tryLock()) {
+            return;
+        }
+        try {
+            Long userId;
+            while ((userId = transactionTemplate.execute(status -> claim())) != null) {
+                process(userId);
+            }
+        } finally {
+            draining.unlock();
+        }
+    }
+
+    private Long claim() {
+        LocalDateTime now = LocalDateTime.now();
+        return repositoryAccountDeletion.lockDue(now)
+                .map(job -> {
+                    job.setStatus(AccountDeletionStatus.RUNNING);
+                    job.setAvailableAt(now.plus(LEASE));
+                    job.setUpdatedAt(now);
+                    return job.getUserId();
+                })
+                .orElse(null);
+    }
+
+    private void process(Long userId) {
+        long started = System.currentTimeMillis();
+        while (true) {
+            AccountDeletionStatus status;
+            try {
+                status = transactionTemplate.execute(tx -> runChunk(userId));
+            } catch (RuntimeException e) {
+                recordFailure(userId, e);
+                return;
+            }
+            if (status != AccountDeletionStatus.RUNNING) {
+                log.info("Account deletion of userId={} {} ({} ms in this run)",
+                        userId, status, System.currentTimeMillis() - started);
+                return;
+            }
+        }
+    }
+
+    /** Deletes one chunk of the current step and records it in the same transaction. */
+    private AccountDeletionStatus runChunk(Long userId) {
+        EntityAccountDeletion job = repositoryAccountDeletion.findById(userId).orElse(null);
+        if (job == null || job.getStatus() != AccountDeletionStatus.RUNNING) {
+            return job == null ? AccountDeletionStatus.COMPLETED : job.getStatus();
+        }
+        AccountDeletionStep step = job.getStep();
+        int limit = step == AccountDeletionStep.POSTS || step == AccountDeletionStep.BOOKS
+                ? parentChunkSize
+                : chunkSize;
+        int deleted = deleteChunk(step, userId, limit);
+
+        LocalDateTime now = LocalDateTime.now();
+        job.setRowsDeleted(job.getRowsDeleted() + deleted);
+        job.setAvailableAt(now.plus(LEASE));
+        job.setUpdatedAt(now);
+        if (deleted < limit) {
+            AccountDeletionStep next = step.next();
+            if (next == null) {
+                job.setStatus(AccountDeletionStatus.COMPLETED);
+                job.setFinishedAt(now);
+            } else {
+                job.setStep(next);
+            }
+        }
+        return job.getStatus();
+    }
+
+    /** Deletes up to {@code limit} rows (or parents) of one step; returns how many. */
+    int deleteChunk(AccountDeletionStep step, Long userId, int limit) {
+        return switch (step) {
+            case NOTIFICATIONS -> {
+                int deleted = repositoryNotification.deleteChunkByRecipientId(userId, limit);
+                yield deleted < limit
+                        ? deleted + repositoryNotification.deleteChunkByActorId(userId, limit - deleted)
+                        : deleted;
+            }
+            case RELATIONS -> {
+                int deleted = repositoryUserRelation.deleteChunkInvolvingUser(userId, limit);
+                if (deleted < limit) {
+                    socialGraph.userDeleted(userId);
+                }
+                yield deleted;
+            }
+            case TIMELINE -> repositoryTimelineEntry.deleteChunkByUserId(userId, limit);
+            case COMMENTS -> repositoryPostComment.deleteChunkByAuthorId(userId, limit);
+            case LIKES -> repositoryPostLike.deleteChunkByUserId(userId, limit);
+            case SHARES -> repositoryPostShare.deleteChunkByUserId(userId, limit);
+            case POST_COMMENTS -> repositoryPostComment.deleteChunkOnPostsOf(userId, limit);
+            case POST_LIKES -> repositoryPostLike.deleteChunkOnPostsOf(userId, limit);
+            case POST_SHARES -> repositoryPostShare.deleteChunkOnPostsOf(userId, limit);
+            case POST_TIMELINES -> repositoryTimelineEntry.deleteChunkOnPostsOf(userId, limit);
+            case POSTS -> deletePosts(userId, limit);
+            case MESSAGES -> repositoryMessage.deleteChunkInConversationsOf(userId, limit);
+            case CONVERSATIONS -> repositoryConversation.deleteChunkInvolvingUser(userId, limit);
+            case BORROW_HISTORY -> deleteBorrowHistory(userId, limit);
+            case BOOKS -> deleteBooks(userId, limit);
+            case ACCOUNT -> {
+                int scrubbed = serviceNotification.forgetActor(userId, limit);
+                if (scrubbed < limit) {
+                    deleteAccount(userId);
+                }
+                yield scrubbed;
+            }
+        };
+    }
+
+    // ─── Steps ──────────────────────────────────────────────────────────────
+
+    /**
+     * Other users' activity on the posts and their timeline rows went in the POST_* steps,
+     * chunked by row; what arrived since, attachments and view stats cascade.
+     */
+    private int deletePosts(Long userId, int limit) {
+        List<Long> postIds = repositoryHomePost.findIdsByAuthorId(userId, Limit.of(limit));
+        if (postIds.isEmpty()) {
+            return 0;
+        }
+        postIds.forEach(trendingIndex::remove);
+        repositoryHomePost.deleteAllByIdInBatch(postIds);
+        return postIds.size();
+    }
+
+    /** The lenders' reading stats change with their borrowers' history. */
+    private int deleteBorrowHistory(Long userId, int limit) {
+        List<Object[]> rows = repositoryBookTransactionHistory.findIdsAndLenderIdsByBorrowerId(userId, Limit.of(limit));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+        Set<Long> lenders = new HashSet<>();
+        rows.stream().filter(row -> row[1] != null).forEach(row -> lenders.add((Long) row[1]));
+        serviceReadingStats.invalidate(lenders);
+        repositoryBookTransactionHistory.deleteAllByIdInBatch(ids);
+        return ids.size();
+    }
+
+    private int deleteBooks(Long userId, int limit) {
+        List<Long> bookIds = repositoryBook.findIdsByOwnerId(userId, Limit.of(limit));
+        if (bookIds.isEmpty()) {
+            return 0;
+        }
+        serviceReadingStats.invalidate(repositoryBookTransactionHistory.findBorrowerIdsByBookIdIn(bookIds));
+        repositoryFeedback.deleteAllByBookIdIn(bookIds);
+        repositoryBookTransactionHistory.deleteAllByBookIdIn(bookIds);
+        repositoryBookCover.deleteAllByBookIdIn(bookIds);
+        repositoryBookPdf.deleteAllByBookIdIn(bookIds);
+        repositoryBook.deleteAllByIdInBatch(bookIds);
+        return bookIds.size();
+    }
+
+    /**
+     * By now only small per-user rows are left, once the user is out of other recipients'
+     * coalesced notifications; the roles join table cascades.
+     */
+    private void deleteAccount(Long userId) {
+        repositoryUser.findById(userId).ifPresent(user -> {
+            repositoryToken.deleteAll(repositoryToken.findAllByUser(user));
+            repositoryUserProfilePic.deleteByUserId(userId);
+            repositoryUserWallpaper.deleteByUserId(userId);
+            serviceReadingStats.invalidate(Set.of(userId));
+            repositoryUser.delete(user);
+        });
+    }
+
+    // ─── Failures ───────────────────────────────────────────────────────────
+
+    private void recordFailure(Long userId, RuntimeException error) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> repositoryAccountDeletion.findById(userId).ifPresent(job -> {
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLastError(String.valueOf(error.getMessage()));
+            job.setUpdatedAt(now);
+            if (job.getAttempts() >= maxAttempts) {
+                log.error("Giving up on account deletion of userId={} at step {} after {} attempts: {}",
+                        userId, job.getStep(), job.getAttempts(), error.getMessage());
+                job.setStatus(AccountDeletionStatus.FAILED);
+                job.setFinishedAt(now);
+            } else {
+                log.warn("Account deletion of userId={} failed at step {} (attempt {}), retrying in {}: {}",
+                        userId, job.getStep(), job.getAttempts(), retryDelay, error.getMessage());
+                job.setAvailableAt(now.plus(retryDelay));
+            }
+        }));
+    }
+}
@@ -0,0 +1,238 @@
+package com.arturmolla.bookshelf.service.export;
+
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports all data of a user as a ZIP archive written straight to an output stream.
+ * <p>
+ * Rows are read through JDBC with a fetch size, so PostgreSQL hands them over in
+ * cursor batches instead of materializing the whole result, and every row is written
+ * as one JSON line ({@code .ndjson}) as soon as it is read. Blobs (covers, PDFs,
+ * attachments, message media, pictures) are copied {@code blobChunkBytes} at a time
+ * with {@code substring(data ...)}, never holding a whole file. Memory use is therefore
+ * flat regardless of account size. Everything is read in one read-only, repeatable-read
+ * transaction so the archive is a consistent snapshot.
+ */
+@Slf4j
+@Service
+public class ServiceDataExport {
+
+    /** A blob to copy: the query key and its path in the archive. */
+    private record BlobRef(long key, String entryName) {
+    }
+
+    private final RepositoryUser repositoryUser;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshot;
+    private final int blobChunkBytes;
+
+    public ServiceDataExport(RepositoryUser repositoryUser,
+                             ObjectMapper objectMapper,
+                             DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${application.export.fetch-size:500}") int fetchSize,
+                             @Value("${application.export.blob-chunk-kb:1024}") int blobChunkKb) {
+        this.repositoryUser = repositoryUser;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.blobChunkBytes = blobChunkKb * 1024;
+    }
+
+    /** @throws EntityNotFoundException if the user does not exist (checked before anything is written) */
+    public void requireUser(Long userId) {
+        if (!repositoryUser.existsById(userId)) {
+            throw new EntityNotFoundException("User not found with id: " + userId);
+        }
+    }
+
+    public static String fileName(Long userId) {
+        return "bookshelf-export-" + userId + ".zip";
+    }
+
+    /** Writes the archive of {@code userId} to {@code out}; does not close {@code out}. */
+    public void export(Long userId, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            snapshot.executeWithoutResult(status -> writeArchive(userId, zip));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        zip.finish();
+        zip.flush();
+        log.info("Exported data of userId={} ({} ms)", userId, System.currentTimeMillis() - started);
+    }
+
+    private void writeArchive(Long userId, ZipOutputStream zip) {
+        // ─── Rows ───
+        rows(zip, "profile.ndjson", """
+                SELECT id, firstname, lastname, date_of_birth, email, provider, bio, location,
+                       created_date, last_modified_date
+                FROM _user WHERE id = ?""", userId);
+        rows(zip, "books.ndjson",
+                "SELECT * FROM book WHERE owner_id = ? ORDER BY id", userId);
+        rows(zip, "book-feedback.ndjson",
+                "SELECT * FROM feedback WHERE created_by = ? ORDER BY id", userId);
+        rows(zip, "borrow-history.ndjson",
+                "SELECT * FROM book_transaction_history WHERE user_id = ? ORDER BY id", userId);
+        rows(zip, "posts.ndjson", """
+                SELECT id, title, content, created_date, last_modified_date
+                FROM home_post WHERE author_id = ? ORDER BY id""", userId);
+        rows(zip, "post-comments.ndjson", """
+                SELECT id, post_id, content, created_date, last_modified_date
+                FROM post_comment WHERE author_id = ? ORDER BY id""", userId);
+        rows(zip, "post-likes.ndjson",
+                "SELECT post_id, created_at FROM post_like WHERE user_id = ? ORDER BY id", userId);
+        rows(zip, "post-shares.ndjson",
+                "SELECT * FROM post_share WHERE user_id = ? ORDER BY id", userId);
+        rows(zip, "relations.ndjson", """
+                SELECT id, requester_id, addressee_id, relation_type, status, created_at
+                FROM user_relation WHERE requester_id = ? OR addressee_id = ? ORDER BY id""", userId, userId);
+        rows(zip, "messages.ndjson", """
+                SELECT m.id, m.conversation_id, m.sender_id, m.content, m.reply_to_id,
+                       m.media_type, m.media_name, m.media_size,
+                       m.id <= CASE WHEN m.sender_id = c.user1_id
+                                    THEN c.user2_last_read_id ELSE c.user1_last_read_id END AS is_read,
+                       m.created_at
+                FROM message m
+                JOIN conversation c ON c.id = m.conversation_id
+                WHERE c.user1_id = ? OR c.user2_id = ?
+                ORDER BY m.conversation_id, m.id""", userId, userId);
+        rows(zip, "notifications.ndjson", """
+                SELECT id, type, title, message, is_read, reference_id, reference_type,
+                       actor_id, actor_count, created_at
+                FROM notification WHERE recipient_id = ? ORDER BY created_at, id""", userId);
+
+        // ─── Blobs ───
+        blobs(zip, "book_cover", "id", """
+                SELECT bc.id AS key, 'books/' || bc.book_id || '/cover-' AS prefix, COALESCE(bc.file_name, 'cover') AS file_name
+                FROM book_cover bc JOIN book b ON b.id = bc.book_id
+                WHERE b.owner_id = ? ORDER BY bc.id""", userId);
+        blobs(zip, "book_pdf", "id", """
+                SELECT bp.id AS key, 'books/' || bp.book_id || '/' AS prefix, COALESCE(bp.file_name, 'book.pdf') AS file_name
+                FROM book_pdf bp JOIN book b ON b.id = bp.book_id
+                WHERE b.owner_id = ? ORDER BY bp.id""", userId);
+        blobs(zip, "post_attachment", "id", """
+                SELECT pa.id AS key, 'posts/' || pa.post_id || '/' || pa.id || '-' AS prefix, COALESCE(pa.file_name, 'attachment') AS file_name
+                FROM post_attachment pa JOIN home_post p ON p.id = pa.post_id
+                WHERE p.author_id = ? ORDER BY pa.id""", userId);
+        blobs(zip, "message_media", "message_id", """
+                SELECT mm.message_id AS key, 'messages/' || mm.message_id || '-' AS prefix, COALESCE(mm.file_name, 'media') AS file_name
+                FROM message_media mm
+                JOIN message m ON m.id = mm.message_id
+                JOIN conversation c ON c.id = m.conversation_id
+                WHERE c.user1_id = ? OR c.user2_id = ? ORDER BY mm.message_id""", userId, userId);
+        blobs(zip, "user_profile_pic", "id", """
+                SELECT id AS key, 'profile/picture-' AS prefix, COALESCE(file_name, 'picture') AS file_name
+                FROM user_profile_pic WHERE user_id = ?""", userId);
+        blobs(zip, "user_wallpaper", "id", """
+                SELECT id AS key, 'profile/wallpaper-' AS prefix, COALESCE(file_name, 'wallpaper') AS file_name
+                FROM user_wallpaper WHERE user_id = ?""", userId);
+    }
+
+    /** Streams the rows of {@code sql} into one NDJSON entry. */
+    private void rows(ZipOutputStream zip, String entryName, String sql, Object... args) {
+        try {
+            zip.putNextEntry(new ZipEntry(entryName));
+            jdbcTemplate.query(sql, rs -> {
+                try {
+                    zip.write(objectMapper.writeValueAsBytes(toMap(rs)));
+                    zip.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args);
+            zip.closeEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copies the {@code data} column of the rows listed by {@code listSql} (columns
+     * {@code key}, {@code prefix}, {@code file_name}) into one archive entry each, chunk
+     * by chunk. The entry is the trusted prefix followed by the sanitized file name.
+     */
+    private void blobs(ZipOutputStream zip, String table, String keyColumn, String listSql, Object... args) {
+        List<BlobRef> refs = new ArrayList<>();
+        jdbcTemplate.query(listSql, rs -> {
+            refs.add(new BlobRef(rs.getLong("key"), rs.getString("prefix") + safeFileName(rs.getString("file_name"))));
+        }, args);
+        String chunkSql = "SELECT substring(data FROM ? FOR ?) FROM " + table + " WHERE " + keyColumn + " = ?";
+        for (BlobRef ref : refs) {
+            try {
+                zip.putNextEntry(new ZipEntry(ref.entryName()));
+                for (int offset = 1; ; offset += blobChunkBytes) {
+                    byte[] chunk = jdbcTemplate.queryForObject(chunkSql, byte[].class, offset, blobChunkBytes, ref.key());
+                    if (chunk == null || chunk.length == 0) {
+                        break;
+                    }
+                    zip.write(chunk);
+                    if (chunk.length < blobChunkBytes) {
+                        break;
+                    }
+                }
+                zip.closeEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static Map<String, Object> toMap(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            Object value = rs.getObject(i);
+            if (value instanceof Timestamp timestamp) {
+                value = timestamp.toLocalDateTime();
+            } else if (value instanceof Date date) {
+                value = date.toLocalDate();
+            }
+            row.put(meta.getColumnLabel(i), value);
+        }
+        return row;
+    }
+
+    /**
+     * File names come from uploads; they must not add path segments to the entry they
+     * are appended to, so separators and {@code ..} are replaced.
+     */
+    static String safeFileName(String fileName) {
+        if (fileName == null) {
+            return "file";
+        }
+        String file = fileName.replaceAll("[/\\\\:*?\"<>|]", "_").replace("..", "_");
+        return file.isBlank() || file.equals(".") ? "file" : file;
+    }
+}
@@ -0,0 +1,85 @@
+package com.arturmolla.bookshelf.service.feed;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog cardinality sketch over {@code long} ids.
+ * <p>
+ * Uses {@value #PRECISION} bits of a 64-bit hash to pick one of {@value #REGISTERS}
+ * one-byte registers (1 KiB per sketch, about 3% standard error); each register
+ * keeps the longest run of leading zeros seen in the remaining bits. Small
+ * cardinalities fall back to linear counting, so counts stay close to exact while
+ * most registers are still empty. Not thread-safe.
+ */
+final class HyperLogLog {
+
+    static final int PRECISION = 10;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    /** Restores a sketch written by {@link #toBytes()}; {@code null} or a foreign size yields an empty one. */
+    static HyperLogLog fromBytes(byte[] bytes) {
+        return bytes == null || bytes.length != REGISTERS
+                ? new HyperLogLog()
+                : new HyperLogLog(Arrays.copyOf(bytes, REGISTERS));
+    }
+
+    byte[] toBytes() {
+        return Arrays.copyOf(registers, REGISTERS);
+    }
+
+    void add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), 64 - PRECISION) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /** Folds {@code other} into this sketch (register-wise maximum). */
+    void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double raw = alpha * REGISTERS * REGISTERS / sum;
+        if (raw <= 2.5 * REGISTERS && zeros > 0) {
+            return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    /** MurmurHash3 64-bit finalizer; spreads sequential ids over all bits. */
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
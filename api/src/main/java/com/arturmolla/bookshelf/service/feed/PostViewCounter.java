@@ -0,0 +1,215 @@
+package com.arturmolla.bookshelf.service.feed;
+
+import com.arturmolla.bookshelf.model.entity.EntityPostViewStats;
+import com.arturmolla.bookshelf.repository.RepositoryHomePost;
+import com.arturmolla.bookshelf.repository.RepositoryPostViewStats;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Buffers home post views in memory and flushes them to {@code post_view_stats} in batches.
+ * <p>
+ * A view increments a striped {@link LongAdder} and, for signed-in viewers, adds the
+ * viewer id to the post's {@link HyperLogLog} sketch. {@link #flush()} swaps the buffer
+ * out and merges it into the stored rows, one transaction per batch, so the database
+ * sees one write per viewed post per flush instead of one per view. A batch that fails
+ * to write is put back and retried on the next flush, and the buffer is flushed once
+ * more on shutdown.
+ */
+@Slf4j
+@Component
+public class PostViewCounter {
+
+    /** Total views and estimated distinct viewers of a post. */
+    public record ViewStats(long views, long uniqueViewers) {
+        public static final ViewStats NONE = new ViewStats(0, 0);
+    }
+
+    /** Views of one post since the last flush. */
+    private static final class Pending {
+        final LongAdder views = new LongAdder();
+        private HyperLogLog viewers;
+
+        synchronized void addViewer(long viewerId) {
+            if (viewers == null) {
+                viewers = new HyperLogLog();
+            }
+            viewers.add(viewerId);
+        }
+
+        synchronized HyperLogLog viewers() {
+            return viewers;
+        }
+
+        /** Folds another buffer of the same post into this one (used when a flush is retried). */
+        synchronized void absorb(Pending other) {
+            views.add(other.views.sum());
+            HyperLogLog otherViewers = other.viewers();
+            if (otherViewers != null) {
+                if (viewers == null) {
+                    viewers = new HyperLogLog();
+                }
+                viewers.merge(otherViewers);
+            }
+        }
+    }
+
+    private final RepositoryPostViewStats repositoryPostViewStats;
+    private final RepositoryHomePost repositoryHomePost;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    /** Views hold the read lock; swapping the buffer out for a flush holds the write lock. */
+    private final ReadWriteLock bufferLock = new ReentrantReadWriteLock();
+    private volatile Map<Long, Pending> buffer = new ConcurrentHashMap<>();
+
+    public PostViewCounter(RepositoryPostViewStats repositoryPostViewStats,
+                           RepositoryHomePost repositoryHomePost,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${application.views.flush-batch-size:500}") int batchSize) {
+        this.repositoryPostViewStats = repositoryPostViewStats;
+        this.repositoryHomePost = repositoryHomePost;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    // ─── Recording ──────────────────────────────────────────────────────────
+
+    /**
+     * Counts one view of a post. {@code viewerId} may be {@code null} for anonymous
+     * views, which count towards the total only.
+     */
+    public void recordView(long postId, Long viewerId) {
+        bufferLock.readLock().lock();
+        try {
+            Pending pending = buffer.computeIfAbsent(postId, id -> new Pending());
+            pending.views.increment();
+            if (viewerId != null) {
+                pending.addViewer(viewerId);
+            }
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+    }
+
+    // ─── Reads ──────────────────────────────────────────────────────────────
+
+    /**
+     * Stats of the given posts. Totals include views not flushed yet; the unique
+     * viewer estimate is the one stored at the last flush.
+     */
+    public Map<Long, ViewStats> stats(Collection<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, ViewStats> result = new HashMap<>();
+        for (Object[] row : repositoryPostViewStats.findCountsByPostIdIn(postIds)) {
+            result.put((Long) row[0], new ViewStats((Long) row[1], (Long) row[2]));
+        }
+        Map<Long, Pending> current = buffer;
+        for (Long postId : postIds) {
+            Pending pending = current.get(postId);
+            if (pending != null) {
+                ViewStats stored = result.getOrDefault(postId, ViewStats.NONE);
+                result.put(postId, new ViewStats(stored.views() + pending.views.sum(), stored.uniqueViewers()));
+            }
+        }
+        return result;
+    }
+
+    // ─── Flushing ───────────────────────────────────────────────────────────
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${application.views.flush-ms:10000}")
+    public void flush() {
+        Map<Long, Pending> drained;
+        bufferLock.writeLock().lock();
+        try {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            drained = buffer;
+            buffer = new ConcurrentHashMap<>();
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+
+        List<Long> postIds = new ArrayList<>(drained.keySet());
+        int written = 0;
+        for (int from = 0; from < postIds.size(); from += batchSize) {
+            List<Long> batch = postIds.subList(from, Math.min(from + batchSize, postIds.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(batch, drained));
+                written += batch.size();
+            } catch (RuntimeException e) {
+                log.warn("View flush of {} posts failed, retrying on next flush: {}", batch.size(), e.getMessage());
+                requeue(batch, drained);
+            }
+        }
+        log.debug("Flushed views of {} posts", written);
+    }
+
+    private void writeBatch(List<Long> batch, Map<Long, Pending> drained) {
+        Map<Long, EntityPostViewStats> rows = repositoryPostViewStats.findAllByPostIdInForUpdate(batch).stream()
+                .collect(Collectors.toMap(EntityPostViewStats::getPostId, Function.identity()));
+
+        // Posts deleted since they were viewed have no row and must not get one
+        Set<Long> missing = new HashSet<>(batch);
+        missing.removeAll(rows.keySet());
+        Set<Long> alive = missing.isEmpty() ? Set.of() : new HashSet<>(repositoryHomePost.findExistingIds(missing));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<EntityPostViewStats> changed = new ArrayList<>(batch.size());
+        for (Long postId : batch) {
+            EntityPostViewStats row = rows.get(postId);
+            if (row == null) {
+                if (!alive.contains(postId)) {
+                    continue;
+                }
+                row = EntityPostViewStats.builder().postId(postId).build();
+            }
+            Pending pending = drained.get(postId);
+            row.setViewCount(row.getViewCount() + pending.views.sum());
+            HyperLogLog viewers = pending.viewers();
+            if (viewers != null) {
+                HyperLogLog sketch = HyperLogLog.fromBytes(row.getViewerSketch());
+                sketch.merge(viewers);
+                row.setViewerSketch(sketch.toBytes());
+                row.setUniqueViewers(sketch.estimate());
+            }
+            row.setUpdatedAt(now);
+            changed.add(row);
+        }
+        repositoryPostViewStats.saveAll(changed);
+    }
+
+    private void requeue(List<Long> batch, Map<Long, Pending> drained) {
+        bufferLock.readLock().lock();
+        try {
+            for (Long postId : batch) {
+                buffer.computeIfAbsent(postId, id -> new Pending()).absorb(drained.get(postId));
+            }
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+    }
+}
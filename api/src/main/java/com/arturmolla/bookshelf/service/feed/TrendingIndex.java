@@ -0,0 +1,197 @@
+package com.arturmolla.bookshelf.service.feed;
+
+import com.arturmolla.bookshelf.repository.RepositoryPostComment;
+import com.arturmolla.bookshelf.repository.RepositoryPostLike;
+import com.arturmolla.bookshelf.repository.RepositoryPostShare;
+import com.arturmolla.bookshelf.service.utils.UtilsTransaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trending ranking of home posts with exponential time decay.
+ * <p>
+ * Each interaction adds {@code weight · 2^((now − epoch) / halfLife)} to the post's
+ * score. Because every score is expressed relative to the same epoch, adding an
+ * event never requires decaying the others, and the relative order equals the order
+ * of the decayed scores. {@link #rebalance()} periodically moves the epoch to "now"
+ * (rescaling all scores so they cannot overflow), drops posts whose score has
+ * decayed away and publishes a freshly sorted ranking that pages are served from.
+ */
+@Slf4j
+@Component
+public class TrendingIndex {
+
+    /** Interaction kinds and their weight in the score. */
+    public enum Signal {
+        LIKE(1.0), COMMENT(3.0), SHARE(5.0);
+
+        final double weight;
+
+        Signal(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    /** Decayed scores below this are forgotten on rebalance. */
+    static final double MIN_SCORE = 0.05;
+
+    private final RepositoryPostLike repositoryPostLike;
+    private final RepositoryPostComment repositoryPostComment;
+    private final RepositoryPostShare repositoryPostShare;
+    private final double decayPerSecond;
+    private final Duration window;
+
+    private final Map<Long, DoubleAdder> scores = new ConcurrentHashMap<>();
+    /** Increments hold the read lock; rebalancing the epoch holds the write lock. */
+    private final ReadWriteLock epochLock = new ReentrantReadWriteLock();
+    private volatile long epochSecond = Instant.now().getEpochSecond();
+    private volatile long[] ranking = new long[0];
+
+    public TrendingIndex(RepositoryPostLike repositoryPostLike,
+                         RepositoryPostComment repositoryPostComment,
+                         RepositoryPostShare repositoryPostShare,
+                         @Value("${application.trending.half-life-hours:12}") long halfLifeHours,
+                         @Value("${application.trending.window-days:7}") long windowDays) {
+        this.repositoryPostLike = repositoryPostLike;
+        this.repositoryPostComment = repositoryPostComment;
+        this.repositoryPostShare = repositoryPostShare;
+        this.decayPerSecond = Math.log(2) / Duration.ofHours(halfLifeHours).toSeconds();
+        this.window = Duration.ofDays(windowDays);
+    }
+
+    // ─── Loading ────────────────────────────────────────────────────────────
+
+    /** Replays the interactions of the last window so scores survive a restart. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime since = LocalDateTime.now().minus(window);
+        int events = replay(repositoryPostLike.findInteractionsSince(since), Signal.LIKE)
+                + replay(repositoryPostComment.findInteractionsSince(since), Signal.COMMENT)
+                + replay(repositoryPostShare.findInteractionsSince(since), Signal.SHARE);
+        rebalance();
+        log.info("Trending index loaded: {} interactions, {} ranked posts", events, ranking.length);
+    }
+
+    private int replay(List<Object[]> rows, Signal signal) {
+        for (Object[] row : rows) {
+            Instant at = ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant();
+            add((Long) row[0], signal.weight, at);
+        }
+        return rows.size();
+    }
+
+    // ─── Updates ────────────────────────────────────────────────────────────
+
+    /** Records an interaction once the surrounding transaction commits. */
+    public void record(long postId, Signal signal) {
+        UtilsTransaction.afterCommit(() -> add(postId, signal.weight, Instant.now()));
+    }
+
+    /**
+     * Withdraws an interaction (e.g. an unlike) made at {@code createdAt}: the same amount
+     * it added then, so the score goes back to what it would be without it.
+     */
+    public void retract(long postId, Signal signal, LocalDateTime createdAt) {
+        Instant at = createdAt.atZone(ZoneId.systemDefault()).toInstant();
+        UtilsTransaction.afterCommit(() -> add(postId, -signal.weight, at));
+    }
+
+    public void remove(long postId) {
+        UtilsTransaction.afterCommit(() -> scores.remove(postId));
+    }
+
+    void add(long postId, double weight, Instant at) {
+        epochLock.readLock().lock();
+        try {
+            double scaled = weight * Math.exp(decayPerSecond * (at.getEpochSecond() - epochSecond));
+            scores.computeIfAbsent(postId, id -> new DoubleAdder()).add(scaled);
+        } finally {
+            epochLock.readLock().unlock();
+        }
+    }
+
+    // ─── Rebalance ──────────────────────────────────────────────────────────
+
+    /**
+     * Moves the epoch to now, rescales and prunes all scores, and publishes a new
+     * sorted ranking.
+     */
+    @Scheduled(fixedDelayString = "${application.trending.rebalance-ms:60000}")
+    public void rebalance() {
+        long[] ids;
+        double[] values;
+        epochLock.writeLock().lock();
+        try {
+            long now = Instant.now().getEpochSecond();
+            double factor = Math.exp(-decayPerSecond * (now - epochSecond));
+            epochSecond = now;
+            ids = new long[scores.size()];
+            values = new double[scores.size()];
+            int n = 0;
+            for (var it = scores.entrySet().iterator(); it.hasNext(); ) {
+                var entry = it.next();
+                double rescaled = entry.getValue().sum() * factor;
+                if (rescaled < MIN_SCORE || n == ids.length) {
+                    it.remove();
+                    continue;
+                }
+                DoubleAdder adder = new DoubleAdder();
+                adder.add(rescaled);
+                entry.setValue(adder);
+                ids[n] = entry.getKey();
+                values[n] = rescaled;
+                n++;
+            }
+            ids = Arrays.copyOf(ids, n);
+            values = Arrays.copyOf(values, n);
+        } finally {
+            epochLock.writeLock().unlock();
+        }
+        ranking = sortByScore(ids, values);
+    }
+
+    private static long[] sortByScore(long[] ids, double[] values) {
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> values[i]).reversed()
+                .thenComparing(i -> -ids[i]));
+        long[] sorted = new long[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = ids[order[i]];
+        }
+        return sorted;
+    }
+
+    // ─── Reads ──────────────────────────────────────────────────────────────
+
+    /** Post ids of one trending page, best first; a negative page or size reads as 0. */
+    public long[] page(int page, int size) {
+        long[] current = ranking;
+        int from = (int) Math.min((long) Math.max(page, 0) * Math.max(size, 0), current.length);
+        int to = (int) Math.min((long) from + Math.max(size, 0), current.length);
+        return Arrays.copyOfRange(current, from, to);
+    }
+
+    public int size() {
+        return ranking.length;
+    }
+}
@@ -28,7 +28,9 @@ public class MapperHomePost {
                                           long likeCount,
                                           long commentCount,
                                           long shareCount,
-                                          boolean likedByCurrentUser) {
+                                          boolean likedByCurrentUser,
+                                          long viewCount,
+                                          long uniqueViewers) {
         List<DtoAttachmentResponse> attachments = entity.getAttachments() == null
                 ? Collections.emptyList()
                 : entity.getAttachments().stream()
@@ -49,12 +51,14 @@ public class MapperHomePost {
                 .commentCount(commentCount)
                 .shareCount(shareCount)
                 .likedByCurrentUser(likedByCurrentUser)
+                .viewCount(viewCount)
+                .uniqueViewers(uniqueViewers)
                 .build();
     }
 
     /** Convenience overload with zeroed social counts (e.g. for internal use). */
     public DtoHomePostResponse toResponse(EntityHomePost entity) {
-        return toResponse(entity, 0, 0, 0, false);
+        return toResponse(entity, 0, 0, 0, false, 0, 0);
     }
 
     public DtoPostCommentResponse toCommentResponse(EntityPostComment comment) {
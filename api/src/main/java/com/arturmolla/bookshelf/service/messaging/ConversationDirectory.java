@@ -0,0 +1,106 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import com.arturmolla.bookshelf.model.entity.EntityConversation;
+import com.arturmolla.bookshelf.repository.RepositoryConversation;
+import com.arturmolla.bookshelf.repository.RepositoryFriendship;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cached lookups on the message send path.
+ * <p>
+ * Friendship is always answered by a primary-key probe of {@code friendship}: the
+ * in-memory social graph of this instance misses unfriends made on other instances,
+ * so it cannot authorise a send. The conversation id of a pair of users never changes
+ * once created, so it is kept in a bounded LRU map. A cached id of a conversation
+ * deleted with an account is never used again, since the pair no longer passes the
+ * friendship check.
+ */
+@Component
+public class ConversationDirectory {
+
+    /** A pair of users in canonical order (smaller id first), as stored in {@code conversation}. */
+    record Pair(long user1, long user2) {
+        static Pair of(long a, long b) {
+            return a < b ? new Pair(a, b) : new Pair(b, a);
+        }
+    }
+
+    private final RepositoryConversation repositoryConversation;
+    private final RepositoryFriendship repositoryFriendship;
+    private final RepositoryUser repositoryUser;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Pair, Long> conversationIds;
+
+    public ConversationDirectory(RepositoryConversation repositoryConversation,
+                                 RepositoryFriendship repositoryFriendship,
+                                 RepositoryUser repositoryUser,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${application.messaging.conversation-cache-size:10000}") int cacheSize) {
+        this.repositoryConversation = repositoryConversation;
+        this.repositoryFriendship = repositoryFriendship;
+        this.repositoryUser = repositoryUser;
+        this.transactionTemplate = transactionTemplate;
+        this.conversationIds = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Pair, Long> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public boolean areFriends(long userA, long userB) {
+        return repositoryFriendship.existsByUserIdAndFriendId(userA, userB);
+    }
+
+    /**
+     * Id of the conversation between two users, created on first use. A concurrent first
+     * message of the same pair loses the insert race on {@code uq_conversation} and reads
+     * the winner's row instead.
+     */
+    public long conversationId(long userA, long userB) {
+        Pair pair = Pair.of(userA, userB);
+        return findConversationId(pair).orElseGet(() -> {
+            Long id = create(pair);
+            conversationIds.put(pair, id);
+            return id;
+        });
+    }
+
+    /** Id of the conversation between two users, if they have one; never creates it. */
+    public Optional<Long> findConversationId(long userA, long userB) {
+        return findConversationId(Pair.of(userA, userB));
+    }
+
+    private Optional<Long> findConversationId(Pair pair) {
+        Long cached = conversationIds.get(pair);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Long> id = repositoryConversation.findByUsers(pair.user1(), pair.user2())
+                .map(EntityConversation::getId);
+        id.ifPresent(found -> conversationIds.put(pair, found));
+        return id;
+    }
+
+    private Long create(Pair pair) {
+        try {
+            return transactionTemplate.execute(status -> repositoryConversation.save(EntityConversation.builder()
+                    .user1(repositoryUser.getReferenceById(pair.user1()))
+                    .user2(repositoryUser.getReferenceById(pair.user2()))
+                    .build()).getId());
+        } catch (DataIntegrityViolationException e) {
+            return repositoryConversation.findByUsers(pair.user1(), pair.user2())
+                    .map(EntityConversation::getId)
+                    .orElseThrow(() -> e);
+        }
+    }
+}
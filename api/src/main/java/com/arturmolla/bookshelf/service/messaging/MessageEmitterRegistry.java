@@ -3,6 +3,7 @@ package com.arturmolla.bookshelf.service.messaging;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -35,6 +36,11 @@ public class MessageEmitterRegistry {
         return emitters.containsKey(userId);
     }
 
+    /** A copy of the current connections, userId → emitter. */
+    public Map<Long, SseEmitter> snapshot() {
+        return Map.copyOf(emitters);
+    }
+
     public int onlineCount() {
         return emitters.size();
     }
@@ -0,0 +1,239 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import com.arturmolla.bookshelf.model.entity.EntityMessage;
+import com.arturmolla.bookshelf.model.entity.EntityMessageMedia;
+import com.arturmolla.bookshelf.repository.RepositoryConversation;
+import com.arturmolla.bookshelf.repository.RepositoryMessage;
+import com.arturmolla.bookshelf.repository.RepositoryMessageMedia;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Group-commit writer for chat messages.
+ * <p>
+ * Senders hand their message to {@link #write} and block until it is durable. A single
+ * writer thread takes whatever has queued up since its last commit (waiting at most
+ * {@code lingerMs} for more, up to {@code maxBatch} messages) and stores it in one
+ * transaction: the messages and their media as JDBC batches, and one
+ * {@code last_message_at} update per conversation of the batch. Every sender of the
+ * batch is released once that transaction has committed. The conversation rows are
+ * locked before any message id is drawn, so within a conversation ids follow commit
+ * order across writer threads, callers writing on their own thread and instances:
+ * read watermarks ({@code userN_last_read_id}) depend on it. If a batch fails, its messages
+ * are retried one transaction each so only the offending message fails.
+ * <p>
+ * When the queue is full the sender writes its message on its own thread instead.
+ */
+@Slf4j
+@Component
+public class MessageWriter {
+
+    private record Pending(EntityMessage message, EntityMessageMedia media, CompletableFuture<EntityMessage> ack) {
+    }
+
+    private final RepositoryMessage repositoryMessage;
+    private final RepositoryMessageMedia repositoryMessageMedia;
+    private final RepositoryConversation repositoryConversation;
+    private final RepositoryUser repositoryUser;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final BlockingQueue<Pending> queue;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public MessageWriter(RepositoryMessage repositoryMessage,
+                         RepositoryMessageMedia repositoryMessageMedia,
+                         RepositoryConversation repositoryConversation,
+                         RepositoryUser repositoryUser,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${application.messaging.group-commit.max-batch:200}") int maxBatch,
+                         @Value("${application.messaging.group-commit.linger-ms:2}") long lingerMs,
+                         @Value("${application.messaging.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.repositoryMessage = repositoryMessage;
+        this.repositoryMessageMedia = repositoryMessageMedia;
+        this.repositoryConversation = repositoryConversation;
+        this.repositoryUser = repositoryUser;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "message-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stops taking new batches once the queue is drained. */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        writeEach(rest);
+    }
+
+    // ─── Submitting ─────────────────────────────────────────────────────────
+
+    /**
+     * Stores a new message (and its media, if any) and returns it with its id once the
+     * batch it went into has committed. Only the ids of its conversation, sender and
+     * reply target are used.
+     */
+    public EntityMessage write(EntityMessage message, EntityMessageMedia media) {
+        try {
+            return submit(message, media).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    CompletableFuture<EntityMessage> submit(EntityMessage message, EntityMessageMedia media) {
+        Pending pending = new Pending(message, media, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            writeEach(List.of(pending));
+        }
+        return pending.ack();
+    }
+
+    // ─── Writing ────────────────────────────────────────────────────────────
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatch) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writeEach(batch);
+                return;
+            } catch (RuntimeException e) {
+                log.error("Message writer failed on a batch of {}", batch.size(), e);
+                batch.forEach(pending -> pending.ack().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /** Writes {@code batch} in one transaction, falling back to one transaction per message. */
+    private void write(List<Pending> batch) {
+        try {
+            List<EntityMessage> rows = transactionTemplate.execute(status -> store(batch));
+            acknowledge(batch, rows);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.getFirst().ack().completeExceptionally(e);
+                return;
+            }
+            log.warn("Group commit of {} messages failed, writing them one by one: {}", batch.size(), e.getMessage());
+            writeEach(batch);
+        }
+    }
+
+    private void writeEach(List<Pending> batch) {
+        for (Pending pending : batch) {
+            try {
+                List<EntityMessage> rows = transactionTemplate.execute(status -> store(List.of(pending)));
+                acknowledge(List.of(pending), rows);
+            } catch (RuntimeException e) {
+                pending.ack().completeExceptionally(e);
+            }
+        }
+    }
+
+    private List<EntityMessage> store(List<Pending> batch) {
+        repositoryConversation.lockForInsert(batch.stream()
+                .map(pending -> pending.message().getConversation().getId())
+                .collect(Collectors.toCollection(TreeSet::new)));
+        List<EntityMessage> rows = new ArrayList<>(batch.size());
+        List<EntityMessageMedia> media = new ArrayList<>();
+        Map<Long, Instant> lastMessageAt = new HashMap<>();
+        for (Pending pending : batch) {
+            EntityMessage message = pending.message();
+            EntityMessage row = EntityMessage.builder()
+                    .conversation(repositoryConversation.getReferenceById(message.getConversation().getId()))
+                    .sender(repositoryUser.getReferenceById(message.getSender().getId()))
+                    .replyTo(message.getReplyTo() == null
+                            ? null : repositoryMessage.getReferenceById(message.getReplyTo().getId()))
+                    .content(message.getContent())
+                    .mediaType(message.getMediaType())
+                    .mediaName(message.getMediaName())
+                    .mediaSize(message.getMediaSize())
+                    .createdAt(message.getCreatedAt())
+                    .build();
+            rows.add(row);
+            if (pending.media() != null) {
+                EntityMessageMedia source = pending.media();
+                media.add(EntityMessageMedia.builder()
+                        .message(row)
+                        .data(source.getData())
+                        .thumbnail(source.getThumbnail())
+                        .contentType(source.getContentType())
+                        .fileName(source.getFileName())
+                        .fileSize(source.getFileSize())
+                        .uploadedAt(source.getUploadedAt())
+                        .build());
+            }
+            lastMessageAt.merge(message.getConversation().getId(), message.getCreatedAt(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        }
+        repositoryMessage.saveAll(rows);
+        if (!media.isEmpty()) {
+            repositoryMessageMedia.saveAll(media);
+        }
+        lastMessageAt.forEach(repositoryConversation::advanceLastMessageAt);
+        return rows;
+    }
+
+    private static void acknowledge(List<Pending> batch, List<EntityMessage> rows) {
+        for (int i = 0; i < batch.size(); i++) {
+            EntityMessage message = batch.get(i).message();
+            message.setId(rows.get(i).getId());
+            batch.get(i).ack().complete(message);
+        }
+    }
+}
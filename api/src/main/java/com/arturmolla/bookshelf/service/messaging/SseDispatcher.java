@@ -0,0 +1,257 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers {@link SsePushEvent}s to connected users.
+ * <p>
+ * Events are picked up after the publishing transaction commits (immediately when
+ * there is none), so a rolled-back change is never pushed, and are only queued on the
+ * committing thread: the {@code emitter.send} I/O runs on dispatcher threads once the
+ * transaction and its JDBC connection are released. Each user is served by a fixed
+ * stripe, one thread per stripe, so a user's events arrive in the order they were
+ * published. A full stripe queue drops the event, as a disconnected client would miss it.
+ * <p>
+ * Every event is recorded in the {@link SseEventLog} and sent with its id. A client that
+ * reconnects with {@code Last-Event-ID} is {@link #attach attached} with the events it
+ * missed: the replay runs on the user's stripe before any live event, and live events
+ * it already covered are skipped.
+ * <p>
+ * A user's connection is either an SSE emitter or a WebSocket session, written through a
+ * {@link Sink}; the latest one attached receives the user's events.
+ */
+@Slf4j
+@Component
+public class SseDispatcher {
+
+    /** A connection events are written to. */
+    public interface Sink {
+        /** Writes one event; {@code id} may be {@code null}. Returns {@code false} if the connection failed. */
+        boolean send(Long id, String name, String json);
+    }
+
+    /** Delivery state of one connection; only touched on the user's stripe once attached. */
+    private static final class Cursor {
+        final Object connection;
+        final Sink sink;
+        volatile long lastSentId;
+        volatile boolean replaying;
+
+        Cursor(Object connection, Sink sink) {
+            this.connection = connection;
+            this.sink = sink;
+        }
+    }
+
+    private final SseEventLog eventLog;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService[] stripes;
+    private final Map<Long, Cursor> cursors = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SseDispatcher(SseEventLog eventLog,
+                         ObjectMapper objectMapper,
+                         @Value("${application.sse.dispatch-threads:4}") int threads,
+                         @Value("${application.sse.dispatch-queue-capacity:10000}") int queueCapacity) {
+        this.eventLog = eventLog;
+        this.objectMapper = objectMapper;
+        this.stripes = new ExecutorService[threads];
+        AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "sse-dispatch-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPush(SsePushEvent event) {
+        long id = eventLog.append(event);
+        if (isConnected(event.userId())) {
+            enqueue(event, () -> deliver(id, event));
+        }
+    }
+
+    /**
+     * Delivers an event that is only meaningful right now (e.g. typing): it is not
+     * recorded for replay and is sent without an id.
+     */
+    public void pushTransient(SsePushEvent event) {
+        if (isConnected(event.userId())) {
+            enqueue(event, () -> deliverTransient(event));
+        }
+    }
+
+    public boolean isConnected(Long userId) {
+        return cursors.containsKey(userId);
+    }
+
+    // ─── Connections ────────────────────────────────────────────────────────
+
+    /**
+     * Routes the user's events to {@code emitter}. Call before registering the emitter
+     * in {@link MessageEmitterRegistry}.
+     *
+     * @param afterId the last event id the client has seen, or {@code null} for a fresh connection
+     * @param missed  events rebuilt from the database for a client whose {@code afterId} the log
+     *                no longer covers, sent first (the last one carrying {@code afterId}); empty otherwise
+     */
+    public void attach(Long userId, SseEmitter emitter, Long afterId, List<SsePushEvent> missed) {
+        attach(userId, emitter, sink(emitter), afterId, missed);
+    }
+
+    /**
+     * Routes the user's events to {@code connection} through {@code sink}, replacing the
+     * connection attached before.
+     *
+     * @see #attach(Long, SseEmitter, Long, List)
+     */
+    public void attach(Long userId, Object connection, Sink sink, Long afterId, List<SsePushEvent> missed) {
+        Cursor cursor = new Cursor(connection, sink);
+        cursors.put(userId, cursor);
+        if (afterId == null) {
+            return;
+        }
+        cursor.replaying = true;
+        try {
+            stripe(userId).execute(() -> replay(userId, cursor, afterId, missed));
+        } catch (RejectedExecutionException e) {
+            log.warn("SSE dispatch queue full, not replaying missed events for userId={}", userId);
+            cursor.replaying = false;
+        }
+    }
+
+    /** Stops routing events to {@code connection}, unless the user has connected again since. */
+    public void detach(Long userId, Object connection) {
+        cursors.computeIfPresent(userId, (id, cursor) -> cursor.connection == connection ? null : cursor);
+    }
+
+    /** Events dropped because a dispatch queue was full. */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        for (ExecutorService stripe : stripes) {
+            stripe.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // ─── Delivery ───────────────────────────────────────────────────────────
+
+    private ExecutorService stripe(Long userId) {
+        return stripes[Math.floorMod(Long.hashCode(userId), stripes.length)];
+    }
+
+    private void enqueue(SsePushEvent event, Runnable task) {
+        try {
+            stripe(event.userId()).execute(task);
+        } catch (RejectedExecutionException e) {
+            long total = dropped.incrementAndGet();
+            log.warn("SSE dispatch queue full, dropped {} for userId={} ({} dropped so far)",
+                    event.name(), event.userId(), total);
+        }
+    }
+
+    private void replay(Long userId, Cursor cursor, long afterId, List<SsePushEvent> missed) {
+        long sentUpTo = afterId;
+        for (int i = 0; i < missed.size(); i++) {
+            Long id = i == missed.size() - 1 ? afterId : null;
+            if (!send(cursor, id, missed.get(i))) {
+                return;
+            }
+        }
+        List<SseEventLog.Entry> buffered = eventLog.since(userId, afterId);
+        for (SseEventLog.Entry entry : buffered != null ? buffered : List.<SseEventLog.Entry>of()) {
+            if (!send(cursor, entry.id(), entry.event())) {
+                return;
+            }
+            sentUpTo = entry.id();
+        }
+        cursor.lastSentId = sentUpTo;
+        cursor.replaying = false;
+        log.debug("Replayed {} missed and {} buffered SSE events to userId={}",
+                missed.size(), buffered != null ? buffered.size() : 0, userId);
+    }
+
+    private void deliver(long id, SsePushEvent event) {
+        Cursor cursor = cursors.get(event.userId());
+        if (cursor == null || cursor.replaying || id <= cursor.lastSentId) {
+            return;
+        }
+        if (send(cursor, id, event)) {
+            cursor.lastSentId = id;
+        }
+    }
+
+    private void deliverTransient(SsePushEvent event) {
+        Cursor cursor = cursors.get(event.userId());
+        if (cursor != null && !cursor.replaying) {
+            send(cursor, null, event);
+        }
+    }
+
+    private boolean send(Cursor cursor, Long id, SsePushEvent event) {
+        boolean sent = cursor.sink.send(id, event.name(), toJson(event.payload()));
+        if (!sent) {
+            log.warn("Failed to push event {} to userId={}", event.name(), event.userId());
+        }
+        return sent;
+    }
+
+    /** The {@link Sink} writing to an SSE emitter. */
+    public static Sink sink(SseEmitter emitter) {
+        return (id, name, json) -> send(emitter, id, name, json);
+    }
+
+    private static boolean send(SseEmitter emitter, Long id, String name, String json) {
+        SseEmitter.SseEventBuilder builder = SseEmitter.event();
+        if (id != null) {
+            builder.id(String.valueOf(id));
+        }
+        builder.name(name).data(json);
+        try {
+            emitter.send(builder);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // IllegalStateException: the emitter completed between lookup and send
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.error("JSON serialisation error", e);
+            return "{}";
+        }
+    }
+}
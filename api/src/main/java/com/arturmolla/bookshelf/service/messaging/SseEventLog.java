@@ -0,0 +1,134 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-memory log of the events pushed on the messaging SSE channel, used to
+ * replay what a client missed while it was reconnecting ({@code Last-Event-ID}).
+ * <p>
+ * Every event gets an id that grows monotonically, also across restarts: ids are
+ * derived from the wall clock ({@code epochMillis * 1000}, bumped by one when several
+ * events share a millisecond), so {@link #timeOf} can turn an id the buffer no longer
+ * holds into a point in time for a database range query. The log keeps the newest
+ * {@code capacity} events of all users in a ring, and each user's share of them in a
+ * queue of its own, so a replay only walks that user's events.
+ * <p>
+ * The log only {@link #covers} ids it issued itself. After a restart or a rolling deploy
+ * a client may present an id of another instance that falls inside this log's range; it
+ * matches no event here, so the replay falls back to the database.
+ */
+@Component
+public class SseEventLog {
+
+    public record Entry(long id, SsePushEvent event) {
+    }
+
+    /** The newest events of all users, in id order. */
+    private final Entry[] ring;
+    private final Map<Long, ArrayDeque<Entry>> byUser = new HashMap<>();
+    private int next;
+    private int size;
+    private long lastId;
+    /** The log holds every event with an id above this one. */
+    private long coveredAfter;
+
+    public SseEventLog(@Value("${application.sse.replay-buffer-size:20000}") int capacity) {
+        this.ring = new Entry[capacity];
+        this.lastId = System.currentTimeMillis() * 1000;
+        this.coveredAfter = lastId;
+    }
+
+    /** Records an event and returns its id. */
+    public synchronized long append(SsePushEvent event) {
+        lastId = Math.max(lastId + 1, System.currentTimeMillis() * 1000);
+        if (size == ring.length) {
+            Entry evicted = ring[next];
+            coveredAfter = evicted.id();
+            ArrayDeque<Entry> ofUser = byUser.get(evicted.event().userId());
+            ofUser.pollFirst();
+            if (ofUser.isEmpty()) {
+                byUser.remove(evicted.event().userId());
+            }
+        } else {
+            size++;
+        }
+        Entry entry = new Entry(lastId, event);
+        ring[next] = entry;
+        next = (next + 1) % ring.length;
+        byUser.computeIfAbsent(event.userId(), id -> new ArrayDeque<>()).addLast(entry);
+        return lastId;
+    }
+
+    /** Id of the newest event, or the start id if there is none yet. */
+    public synchronized long head() {
+        return lastId;
+    }
+
+    /**
+     * Whether every event after {@code afterId} is still in the log: {@code afterId} is
+     * the id of an event this log holds, or the one it last evicted (its start id before
+     * any was evicted).
+     */
+    public synchronized boolean covers(long afterId) {
+        return afterId == coveredAfter || indexOf(afterId) >= 0;
+    }
+
+    /**
+     * The events of {@code userId} with an id above {@code afterId}, oldest first, or
+     * {@code null} when the log no longer {@link #covers} {@code afterId}.
+     */
+    public synchronized List<Entry> since(long userId, long afterId) {
+        if (!covers(afterId)) {
+            return null;
+        }
+        ArrayDeque<Entry> ofUser = byUser.get(userId);
+        if (ofUser == null) {
+            return List.of();
+        }
+        List<Entry> result = new ArrayList<>();
+        Iterator<Entry> newestFirst = ofUser.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Entry entry = newestFirst.next();
+            if (entry.id() <= afterId) {
+                break;
+            }
+            result.add(entry);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /** Position of the event with {@code id} in the ring (binary search, ids ascend from the oldest), or -1. */
+    private int indexOf(long id) {
+        int start = (next - size + ring.length) % ring.length;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = ring[(start + mid) % ring.length].id();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return (start + mid) % ring.length;
+            }
+        }
+        return -1;
+    }
+
+    /** The time an event id was issued at; later than that when ids ran ahead of the clock in a burst. */
+    public static Instant timeOf(long id) {
+        return Instant.ofEpochMilli(id / 1000);
+    }
+}
@@ -0,0 +1,15 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+/**
+ * Domain event asking for an SSE event to be pushed to a user on the messaging channel
+ * (new message, read receipt, notification).
+ * <p>
+ * Publish it with Spring's {@code ApplicationEventPublisher}; {@link SseDispatcher}
+ * delivers it only after the publishing transaction has committed, on its own threads.
+ *
+ * @param userId  recipient of the event
+ * @param name    SSE event name, e.g. {@code NEW_MESSAGE}
+ * @param payload serialised to JSON as the event data; must not need an open session
+ */
+public record SsePushEvent(Long userId, String name, Object payload) {
+}
@@ -0,0 +1,163 @@
+package com.arturmolla.bookshelf.service.notification;
+
+import com.arturmolla.bookshelf.model.entity.EntityNotification;
+import com.arturmolla.bookshelf.model.entity.EntityNotificationDigest;
+import com.arturmolla.bookshelf.model.enums.DigestFrequency;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import com.arturmolla.bookshelf.repository.RepositoryNotificationDigest;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.ServiceEmail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends each subscribed user one e-mail per period listing their unread notifications,
+ * instead of one e-mail per event.
+ * <p>
+ * Subscriptions ({@code notification_digest}) are walked in keyset pages of
+ * {@code batchSize} users. Each page is one transaction that claims the page's due
+ * subscriptions with {@code FOR UPDATE SKIP LOCKED}, as the outbox worker claims its
+ * events, so instances running the job at the same time split the subscribers instead
+ * of mailing them twice; a subscription is due when it got no digest in the last half
+ * period. The page then loads at most {@code maxItems} unread notifications per user,
+ * newest first, and their total counts, queues one digest e-mail per user that has any
+ * and advances their {@code last_sent_at}; the outbox then sends the queued e-mails in
+ * batches over one SMTP connection.
+ */
+@Slf4j
+@Component
+public class NotificationDigestJob {
+
+    private static final DateTimeFormatter ITEM_TIME = DateTimeFormatter.ofPattern("dd MMM, HH:mm");
+
+    private record PageResult(Long lastUserId, int size, int queued) {
+    }
+
+    private final RepositoryNotificationDigest repositoryNotificationDigest;
+    private final RepositoryNotification repositoryNotification;
+    private final RepositoryUser repositoryUser;
+    private final ServiceEmail serviceEmail;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxItems;
+    private final DayOfWeek weeklyDay;
+    private final String appUrl;
+
+    public NotificationDigestJob(RepositoryNotificationDigest repositoryNotificationDigest,
+                                 RepositoryNotification repositoryNotification,
+                                 RepositoryUser repositoryUser,
+                                 ServiceEmail serviceEmail,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${application.notifications.digest.batch-size:200}") int batchSize,
+                                 @Value("${application.notifications.digest.max-items:10}") int maxItems,
+                                 @Value("${application.notifications.digest.weekly-day:MONDAY}") DayOfWeek weeklyDay,
+                                 @Value("${application.mailing.frontend.login-url:}") String appUrl) {
+        this.repositoryNotificationDigest = repositoryNotificationDigest;
+        this.repositoryNotification = repositoryNotification;
+        this.repositoryUser = repositoryUser;
+        this.serviceEmail = serviceEmail;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxItems = maxItems;
+        this.weeklyDay = weeklyDay;
+        this.appUrl = appUrl;
+    }
+
+    /** Daily digests every run; weekly ones on {@code weeklyDay}. */
+    @Scheduled(cron = "${application.notifications.digest.cron:0 0 7 * * *}")
+    public void sendDue() {
+        send(DigestFrequency.DAILY);
+        if (LocalDateTime.now().getDayOfWeek() == weeklyDay) {
+            send(DigestFrequency.WEEKLY);
+        }
+    }
+
+    /** Queues the digests of every user subscribed with {@code frequency}; returns how many were queued. */
+    public int send(DigestFrequency frequency) {
+        if (frequency == DigestFrequency.OFF) {
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        Long afterUserId = 0L;
+        int users = 0;
+        int queued = 0;
+        PageResult page;
+        do {
+            Long after = afterUserId;
+            page = transactionTemplate.execute(status -> sendPage(frequency, after, now));
+            if (page == null) {
+                break;
+            }
+            users += page.size();
+            queued += page.queued();
+            afterUserId = page.lastUserId();
+        } while (page.size() == batchSize);
+        log.info("{} notification digests: {} of {} subscribers had unread notifications ({} ms)",
+                frequency, queued, users, System.currentTimeMillis() - started);
+        return queued;
+    }
+
+    private PageResult sendPage(DigestFrequency frequency, Long afterUserId, LocalDateTime now) {
+        List<EntityNotificationDigest> subscriptions = repositoryNotificationDigest.claimDue(frequency.name(),
+                afterUserId, now.minus(frequency.getPeriod().dividedBy(2)), batchSize);
+        if (subscriptions.isEmpty()) {
+            return new PageResult(afterUserId, 0, 0);
+        }
+        List<Long> userIds = subscriptions.stream().map(EntityNotificationDigest::getUserId).toList();
+        LocalDateTime defaultSince = now.minus(frequency.getPeriod());
+        Map<Long, Long> unreadCounts = new HashMap<>();
+        for (Object[] row : repositoryNotification.countDigestItems(userIds, defaultSince)) {
+            unreadCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        Map<Long, List<EntityNotification>> unread = unreadCounts.isEmpty()
+                ? Map.of()
+                : repositoryNotification.findDigestItems(unreadCounts.keySet(), defaultSince, maxItems).stream()
+                        .collect(Collectors.groupingBy(n -> n.getRecipient().getId()));
+        Map<Long, User> recipients = repositoryUser.findAllById(unread.keySet()).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        int queued = 0;
+        for (EntityNotificationDigest subscription : subscriptions) {
+            List<EntityNotification> notifications = unread.getOrDefault(subscription.getUserId(), List.of());
+            User recipient = recipients.get(subscription.getUserId());
+            if (!notifications.isEmpty() && recipient != null && recipient.isEnabled()) {
+                int total = Math.toIntExact(Math.max(unreadCounts.get(subscription.getUserId()), notifications.size()));
+                queue(recipient, notifications, total, frequency);
+                queued++;
+            }
+            subscription.setLastSentAt(now);
+        }
+        return new PageResult(subscriptions.get(subscriptions.size() - 1).getUserId(), subscriptions.size(), queued);
+    }
+
+    /** {@code notifications} are the newest {@code maxItems} of {@code total}, newest first. */
+    private void queue(User recipient, List<EntityNotification> notifications, int total, DigestFrequency frequency) {
+        List<Map<String, String>> items = new ArrayList<>();
+        for (EntityNotification n : notifications) {
+            Map<String, String> item = new HashMap<>();
+            item.put("title", n.getTitle());
+            item.put("message", n.getMessage());
+            item.put("createdAt", n.getUpdatedAt().format(ITEM_TIME));
+            items.add(item);
+        }
+        String subject = "Your " + frequency.name().toLowerCase() + " Bookshelf digest: "
+                + total + (total == 1 ? " unread notification" : " unread notifications");
+        serviceEmail.sendDigest(recipient.getEmail(), recipient.getFullName(), items,
+                total - items.size(), appUrl, subject);
+    }
+}
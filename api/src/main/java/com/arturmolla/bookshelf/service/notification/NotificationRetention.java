@@ -0,0 +1,246 @@
+package com.arturmolla.bookshelf.service.notification;
+
+import com.arturmolla.bookshelf.model.dto.DtoNotificationRetentionStats;
+import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retention and compaction of the {@code notification} table.
+ * <p>
+ * The table is range-partitioned by month on {@code created_at} (see migration V1_22).
+ * Each run of {@link #compact()}:
+ * <ol>
+ *   <li>creates the partitions of the next {@code partitionsAhead} months,</li>
+ *   <li>drops whole partitions that ended before the retention cutoff,</li>
+ *   <li>deletes the remaining rows older than the cutoff (only the boundary partition),</li>
+ *   <li>trims the recipients that got notifications since the last run ({@link #recordWrites})
+ *       to the newest {@code maxPerRecipient}; the first run after a start trims every
+ *       recipient, since writes before the start were not recorded,</li>
+ *   <li>forgets the actors recorded for coalescing windows that have closed.</li>
+ * </ol>
+ * Runs are single-flight across the cron job, the admin endpoint and other instances:
+ * each holds a PostgreSQL advisory lock for its duration and a run that cannot take it
+ * is skipped. Running totals are exposed through {@link #stats()}; the rows of dropped
+ * partitions are the planner's estimate, since counting them would scan each partition.
+ */
+@Slf4j
+@Component
+public class NotificationRetention {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String PARTITION_PREFIX = "notification_p";
+    /** Advisory lock key of a compaction run; arbitrary, but unique among the application's advisory locks. */
+    static final long COMPACTION_LOCK = 0x4e4f544946L;
+    /** Recipients trimmed to the cap by one statement. */
+    static final int CAP_BATCH = 500;
+
+    private final RepositoryNotification repositoryNotification;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration maxAge;
+    private final int maxPerRecipient;
+    private final int partitionsAhead;
+    private final Duration coalesceWindow;
+
+    /** Recipients written to since their cap was last enforced; only they can be over it. */
+    private final Set<Long> written = ConcurrentHashMap.newKeySet();
+    private volatile boolean trimAll = true;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong partitionsDropped = new AtomicLong();
+    private final AtomicLong rowsDroppedWithPartitions = new AtomicLong();
+    private final AtomicLong rowsPrunedByAge = new AtomicLong();
+    private final AtomicLong rowsPrunedByCap = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+
+    public NotificationRetention(RepositoryNotification repositoryNotification,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${application.notifications.retention.max-age-days:90}") long maxAgeDays,
+                                 @Value("${application.notifications.retention.max-per-recipient:500}") int maxPerRecipient,
+                                 @Value("${application.notifications.retention.partitions-ahead:2}") int partitionsAhead,
+                                 @Value("${application.notifications.coalesce-window-minutes:60}") long coalesceWindowMinutes) {
+        this.repositoryNotification = repositoryNotification;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.maxPerRecipient = maxPerRecipient;
+        this.partitionsAhead = partitionsAhead;
+        this.coalesceWindow = Duration.ofMinutes(coalesceWindowMinutes);
+    }
+
+    /** Notes recipients that got new notifications, to be trimmed to the cap by the next run. */
+    public void recordWrites(Collection<Long> recipientIds) {
+        written.addAll(recipientIds);
+    }
+
+    /** Runs a compaction unless one is already running; returns whether this call ran it. */
+    @Scheduled(cron = "${application.notifications.retention.cron:0 30 3 * * *}")
+    public boolean compact() {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, "pg_try_advisory_lock")) {
+                log.info("Notification compaction already running, skipped");
+                return false;
+            }
+            try {
+                run();
+                return true;
+            } finally {
+                advisoryLock(connection, "pg_advisory_unlock");
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    private void run() {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(maxAge);
+
+        createUpcomingPartitions(YearMonth.from(now));
+        int dropped = dropExpiredPartitions(cutoff);
+        Integer byAge = transactionTemplate.execute(status -> repositoryNotification.deleteOlderThan(cutoff));
+        int byCap = trimToCap();
+        transactionTemplate.executeWithoutResult(status ->
+                repositoryNotification.deleteActorsAddedBefore(now.minus(coalesceWindow)));
+
+        runs.incrementAndGet();
+        rowsPrunedByAge.addAndGet(byAge != null ? byAge : 0);
+        rowsPrunedByCap.addAndGet(byCap);
+        lastRunAt = now;
+        lastRunMillis = System.currentTimeMillis() - started;
+        log.info("Notification compaction: {} partitions dropped, {} rows pruned by age, {} by per-recipient cap ({} ms)",
+                dropped, byAge, byCap, lastRunMillis);
+    }
+
+    private int trimToCap() {
+        if (trimAll) {
+            written.clear();
+            Integer trimmed = transactionTemplate.execute(status ->
+                    repositoryNotification.deleteBeyondCapPerRecipient(maxPerRecipient));
+            trimAll = false;
+            return trimmed != null ? trimmed : 0;
+        }
+        int trimmed = 0;
+        List<Long> batch = new ArrayList<>(CAP_BATCH);
+        Iterator<Long> pending = written.iterator();
+        while (pending.hasNext()) {
+            batch.add(pending.next());
+            pending.remove();
+            if (batch.size() == CAP_BATCH || !pending.hasNext()) {
+                trimmed += trimBatch(batch);
+                batch = new ArrayList<>(CAP_BATCH);
+            }
+        }
+        return trimmed;
+    }
+
+    private int trimBatch(List<Long> recipientIds) {
+        try {
+            Integer trimmed = transactionTemplate.execute(status ->
+                    repositoryNotification.deleteBeyondCapOf(maxPerRecipient, recipientIds));
+            return trimmed != null ? trimmed : 0;
+        } catch (RuntimeException e) {
+            written.addAll(recipientIds);
+            throw e;
+        }
+    }
+
+    public DtoNotificationRetentionStats stats() {
+        return DtoNotificationRetentionStats.builder()
+                .runs(runs.get())
+                .partitionsDropped(partitionsDropped.get())
+                .rowsDroppedWithPartitions(rowsDroppedWithPartitions.get())
+                .rowsPrunedByAge(rowsPrunedByAge.get())
+                .rowsPrunedByCap(rowsPrunedByCap.get())
+                .lastRunAt(lastRunAt)
+                .lastRunMillis(lastRunMillis)
+                .maxAgeDays(maxAge.toDays())
+                .maxPerRecipient(maxPerRecipient)
+                .build();
+    }
+
+    /** Calls a session-level advisory lock function on the compaction key; returns its result. */
+    private static boolean advisoryLock(Connection connection, String function) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT " + function + "(?)")) {
+            statement.setLong(1, COMPACTION_LOCK);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    // ─── Partitions ─────────────────────────────────────────────────────────
+
+    private void createUpcomingPartitions(YearMonth current) {
+        for (int i = 0; i <= partitionsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                        + " PARTITION OF notification FOR VALUES FROM ('" + month.atDay(1)
+                        + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+            } catch (DataAccessException e) {
+                // e.g. notification_default already holds rows of that month
+                log.error("Could not create notification partition for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    /** Drops the partitions whose whole range lies before {@code cutoff}. */
+    private int dropExpiredPartitions(LocalDateTime cutoff) {
+        int dropped = 0;
+        for (String name : repositoryNotification.findMonthlyPartitionNames()) {
+            YearMonth month = parseMonth(name);
+            if (month == null || !month.plusMonths(1).atDay(1).atStartOfDay().isBefore(cutoff)) {
+                continue;
+            }
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE relname = ?", Long.class, name);
+            // Detached first: notification_actor references the partitioned table
+            jdbcTemplate.execute("ALTER TABLE notification DETACH PARTITION " + name);
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+            partitionsDropped.incrementAndGet();
+            rowsDroppedWithPartitions.addAndGet(rows != null ? rows : 0);
+            dropped++;
+            log.info("Dropped notification partition {} (~{} rows)", name, rows);
+        }
+        return dropped;
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    /** Month of a partition name, or {@code null} if it is not one of ours. */
+    static YearMonth parseMonth(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        String suffix = partitionName.substring(PARTITION_PREFIX.length());
+        return suffix.matches("\\d{6}") ? YearMonth.parse(suffix, PARTITION_SUFFIX) : null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.arturmolla.bookshelf.service.outbox;
+
+import java.util.Map;
+
+/** Outbox payload of an e-mail rendered from a Thymeleaf template. */
+public record EmailEvent(
+        String to,
+        String subject,
+        String templateName,
+        Map<String, Object> variables
+) {
+}
@@ -0,0 +1,139 @@
+package com.arturmolla.bookshelf.service.outbox;
+
+import com.arturmolla.bookshelf.model.common.NotificationActor;
+import com.arturmolla.bookshelf.model.enums.NotificationType;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory aggregation buffer for high-volume notification types.
+ * <p>
+ * Likes, comments and shares are not written one row each: events with the same
+ * recipient, type and reference are folded into one {@link Group} here, and
+ * {@link OutboxWorker} periodically merges the drained groups into the recipient's
+ * open notification ("Alice and 23 others liked your post"). Unlike the outbox, the
+ * buffer is not durable; a crash loses at most one flush interval of these
+ * low-value notifications.
+ */
+@Component
+public class NotificationCoalescer {
+
+    /** Types that are coalesced; all others go through the outbox one by one. */
+    public static final Set<NotificationType> COALESCING = EnumSet.of(
+            NotificationType.POST_LIKED,
+            NotificationType.POST_COMMENTED,
+            NotificationType.POST_SHARED,
+            NotificationType.FEEDBACK_UPVOTED,
+            NotificationType.FEEDBACK_COMMENTED);
+
+    /** Actors kept (newest first) on a coalesced notification. */
+    public static final int LATEST_ACTORS = 3;
+
+    public record Key(Long recipientId, NotificationType type, Long referenceId) {
+    }
+
+    /** Events of one {@link Key} since the last flush. */
+    public static final class Group {
+        private final Set<Long> actorIds = new HashSet<>();
+        private final LinkedList<NotificationActor> latestActors = new LinkedList<>();
+        private NotificationEvent latest;
+        private LocalDateTime latestAt;
+
+        synchronized void add(NotificationEvent event, LocalDateTime at) {
+            latest = event;
+            latestAt = at;
+            if (event.actorId() != null) {
+                actorIds.add(event.actorId());
+                latestActors.removeIf(actor -> Objects.equals(actor.id(), event.actorId()));
+                latestActors.addFirst(new NotificationActor(event.actorId(), event.actorName()));
+                if (latestActors.size() > LATEST_ACTORS) {
+                    latestActors.removeLast();
+                }
+            }
+        }
+
+        synchronized void absorb(Group older) {
+            actorIds.addAll(older.actorIds);
+            for (NotificationActor actor : older.latestActors) {
+                if (latestActors.size() < LATEST_ACTORS
+                        && latestActors.stream().noneMatch(a -> Objects.equals(a.id(), actor.id()))) {
+                    latestActors.addLast(actor);
+                }
+            }
+            if (latest == null) {
+                latest = older.latest;
+                latestAt = older.latestAt;
+            }
+        }
+
+        /** The most recent event; its title and message describe the group. */
+        public synchronized NotificationEvent latest() {
+            return latest;
+        }
+
+        public synchronized LocalDateTime latestAt() {
+            return latestAt;
+        }
+
+        public synchronized Set<Long> actorIds() {
+            return Set.copyOf(actorIds);
+        }
+
+        public synchronized List<NotificationActor> latestActors() {
+            return new ArrayList<>(latestActors);
+        }
+    }
+
+    /** Events hold the read lock; swapping the buffer out holds the write lock. */
+    private final ReadWriteLock bufferLock = new ReentrantReadWriteLock();
+    private volatile Map<Key, Group> buffer = new ConcurrentHashMap<>();
+
+    public boolean accepts(NotificationType type) {
+        return COALESCING.contains(type);
+    }
+
+    public void add(NotificationEvent event) {
+        Key key = new Key(event.recipientId(), event.type(), event.referenceId());
+        LocalDateTime now = LocalDateTime.now();
+        bufferLock.readLock().lock();
+        try {
+            buffer.computeIfAbsent(key, k -> new Group()).add(event, now);
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+    }
+
+    /** Takes everything buffered so far. */
+    public Map<Key, Group> drain() {
+        bufferLock.writeLock().lock();
+        try {
+            Map<Key, Group> drained = buffer;
+            buffer = new ConcurrentHashMap<>();
+            return drained;
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+    }
+
+    /** Puts back groups whose flush failed; newer events for the same key take precedence. */
+    public void requeue(Map<Key, Group> groups) {
+        bufferLock.readLock().lock();
+        try {
+            groups.forEach((key, group) -> buffer.computeIfAbsent(key, k -> new Group()).absorb(group));
+        } finally {
+            bufferLock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.arturmolla.bookshelf.service.outbox;
+
+import com.arturmolla.bookshelf.model.enums.NotificationType;
+
+/** Outbox payload of a notification to create; see {@code ServiceNotification#notify}. */
+public record NotificationEvent(
+        Long recipientId,
+        Long actorId,
+        String actorName,
+        NotificationType type,
+        String title,
+        String message,
+        Long referenceId,
+        String referenceType
+) {
+}
@@ -0,0 +1,225 @@
+package com.arturmolla.bookshelf.service.outbox;
+
+import com.arturmolla.bookshelf.model.entity.EntityOutboxEvent;
+import com.arturmolla.bookshelf.model.enums.OutboxEventType;
+import com.arturmolla.bookshelf.repository.RepositoryOutboxEvent;
+import com.arturmolla.bookshelf.service.ServiceEmail;
+import com.arturmolla.bookshelf.service.ServiceNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers {@code outbox_event} rows in batches.
+ * <p>
+ * A batch is claimed in a short transaction that locks the due rows ({@code SKIP LOCKED},
+ * so several instances can drain concurrently), counts the attempt and pushes
+ * {@code available_at} past a lease: if the instance dies mid-delivery the rows become
+ * due again once the lease expires. Notifications of a batch are then inserted in one
+ * transaction together with the deletion of their events; if that fails they are retried
+ * one per transaction, so only the events that fail on their own are rescheduled. The
+ * e-mails of a batch are
+ * sent over one SMTP connection outside any transaction. Failures are retried with
+ * exponential backoff until {@code maxAttempts}, after which the event is marked failed
+ * and kept.
+ * <p>
+ * The worker also flushes the {@link NotificationCoalescer} buffer, merging the
+ * likes / comments / shares collected since the last flush into notification rows.
+ */
+@Slf4j
+@Component
+public class OutboxWorker {
+
+    /** How long a claimed batch stays invisible to other workers. */
+    static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final RepositoryOutboxEvent repositoryOutboxEvent;
+    private final ServiceOutbox serviceOutbox;
+    private final ServiceNotification serviceNotification;
+    private final ServiceEmail serviceEmail;
+    private final NotificationCoalescer notificationCoalescer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    public OutboxWorker(RepositoryOutboxEvent repositoryOutboxEvent,
+                        ServiceOutbox serviceOutbox,
+                        ServiceNotification serviceNotification,
+                        ServiceEmail serviceEmail,
+                        NotificationCoalescer notificationCoalescer,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${application.outbox.batch-size:200}") int batchSize,
+                        @Value("${application.outbox.max-attempts:8}") int maxAttempts,
+                        @Value("${application.outbox.retry-backoff-seconds:30}") long retryBackoffSeconds) {
+        this.repositoryOutboxEvent = repositoryOutboxEvent;
+        this.serviceOutbox = serviceOutbox;
+        this.serviceNotification = serviceNotification;
+        this.serviceEmail = serviceEmail;
+        this.notificationCoalescer = notificationCoalescer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofSeconds(retryBackoffSeconds);
+    }
+
+    /** Drains full batches back to back, then waits for the next poll. */
+    @Scheduled(fixedDelayString = "${application.outbox.poll-ms:1000}")
+    public void drain() {
+        int claimed;
+        do {
+            claimed = drainBatch();
+        } while (claimed == batchSize);
+    }
+
+    int drainBatch() {
+        List<EntityOutboxEvent> batch = transactionTemplate.execute(status -> claim());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        List<EntityOutboxEvent> notifications = new ArrayList<>();
+        List<EntityOutboxEvent> emails = new ArrayList<>();
+        for (EntityOutboxEvent event : batch) {
+            (event.getType() == OutboxEventType.NOTIFICATION ? notifications : emails).add(event);
+        }
+        deliverNotifications(notifications);
+        deliverEmails(emails);
+        return batch.size();
+    }
+
+    private List<EntityOutboxEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EntityOutboxEvent> due = repositoryOutboxEvent.lockDue(now, batchSize);
+        for (EntityOutboxEvent event : due) {
+            event.setAttempts(event.getAttempts() + 1);
+            event.setAvailableAt(now.plus(LEASE));
+        }
+        return due;
+    }
+
+    /** Merges buffered like / comment / share notifications, {@code batchSize} groups per transaction. */
+    @Scheduled(fixedDelayString = "${application.notifications.coalesce-flush-ms:5000}")
+    public void flushCoalesced() {
+        Map<NotificationCoalescer.Key, NotificationCoalescer.Group> drained = notificationCoalescer.drain();
+        Map<NotificationCoalescer.Key, NotificationCoalescer.Group> batch = new HashMap<>();
+        for (var entry : drained.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == batchSize) {
+                mergeCoalesced(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mergeCoalesced(batch);
+        }
+    }
+
+    private void mergeCoalesced(Map<NotificationCoalescer.Key, NotificationCoalescer.Group> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> serviceNotification.mergeCoalesced(batch));
+        } catch (RuntimeException e) {
+            log.warn("Merging {} coalesced notifications failed, retrying on next flush: {}",
+                    batch.size(), e.getMessage());
+            notificationCoalescer.requeue(batch);
+        }
+    }
+
+    // ─── Delivery ───────────────────────────────────────────────────────────
+
+    private void deliverNotifications(List<EntityOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (events.size() > 1) {
+            try {
+                insertNotifications(events);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Delivering {} notifications failed, retrying one by one: {}", events.size(), e.getMessage());
+            }
+        }
+        Map<EntityOutboxEvent, Exception> failures = new HashMap<>();
+        for (EntityOutboxEvent event : events) {
+            try {
+                insertNotifications(List.of(event));
+            } catch (RuntimeException e) {
+                log.warn("Delivering outbox notification id={} failed (attempt {}): {}",
+                        event.getId(), event.getAttempts(), e.getMessage());
+                failures.put(event, e);
+            }
+        }
+        recordOutcome(List.of(), failures);
+    }
+
+    /** Inserts the notifications and deletes their events in one transaction. */
+    private void insertNotifications(List<EntityOutboxEvent> events) {
+        List<NotificationEvent> payloads = events.stream()
+                .map(event -> serviceOutbox.read(event, NotificationEvent.class))
+                .toList();
+        List<Long> ids = events.stream().map(EntityOutboxEvent::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            serviceNotification.createAll(payloads);
+            repositoryOutboxEvent.deleteAllByIdInBatch(ids);
+        });
+    }
+
+    /** Sends the e-mails of a batch over one SMTP connection. */
+    private void deliverEmails(List<EntityOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<EmailEvent> payloads = events.stream()
+                .map(event -> serviceOutbox.read(event, EmailEvent.class))
+                .toList();
+        Map<Integer, Exception> failed = serviceEmail.deliverAll(payloads);
+
+        List<Long> delivered = new ArrayList<>();
+        Map<EntityOutboxEvent, Exception> failures = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            EntityOutboxEvent event = events.get(i);
+            Exception error = failed.get(i);
+            if (error == null) {
+                delivered.add(event.getId());
+            } else {
+                log.warn("Sending outbox e-mail id={} failed (attempt {}): {}",
+                        event.getId(), event.getAttempts(), error.getMessage());
+                failures.put(event, error);
+            }
+        }
+        recordOutcome(delivered, failures);
+    }
+
+    private void recordOutcome(List<Long> delivered, Map<EntityOutboxEvent, Exception> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                repositoryOutboxEvent.deleteAllByIdInBatch(delivered);
+            }
+            failures.forEach((event, error) -> {
+                String message = String.valueOf(error.getMessage());
+                if (event.getAttempts() >= maxAttempts) {
+                    log.error("Giving up on outbox event id={} ({}) after {} attempts: {}",
+                            event.getId(), event.getType(), event.getAttempts(), message);
+                    repositoryOutboxEvent.markFailed(event.getId(), now, message);
+                } else {
+                    repositoryOutboxEvent.reschedule(event.getId(), now.plus(backoff(event.getAttempts())), message);
+                }
+            });
+        });
+    }
+
+    /** {@code retryBackoff · 2^(attempts − 1)}, capped at one day. */
+    Duration backoff(int attempts) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return delay.compareTo(Duration.ofDays(1)) > 0 ? Duration.ofDays(1) : delay;
+    }
+}
@@ -0,0 +1,56 @@
+package com.arturmolla.bookshelf.service.outbox;
+
+import com.arturmolla.bookshelf.model.entity.EntityOutboxEvent;
+import com.arturmolla.bookshelf.model.enums.OutboxEventType;
+import com.arturmolla.bookshelf.repository.RepositoryOutboxEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records side effects in the {@code outbox_event} table. Called inside the
+ * transaction of the action that causes them, so an event exists if and only if
+ * the action committed; {@link OutboxWorker} delivers it afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ServiceOutbox {
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD = new TypeReference<>() {
+    };
+
+    private final RepositoryOutboxEvent repositoryOutboxEvent;
+    private final ObjectMapper objectMapper;
+
+    public void enqueue(OutboxEventType type, Object payload) {
+        enqueueAll(type, List.of(payload));
+    }
+
+    public void enqueueAll(OutboxEventType type, Collection<?> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<EntityOutboxEvent> events = payloads.stream()
+                .map(payload -> EntityOutboxEvent.builder()
+                        .type(type)
+                        .payload(objectMapper.convertValue(payload, PAYLOAD))
+                        .availableAt(now)
+                        .createdAt(now)
+                        .build())
+                .toList();
+        repositoryOutboxEvent.saveAll(events);
+    }
+
+    <T> T read(EntityOutboxEvent event, Class<T> payloadType) {
+        return objectMapper.convertValue(event.getPayload(), payloadType);
+    }
+}
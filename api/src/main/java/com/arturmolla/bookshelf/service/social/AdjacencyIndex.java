@@ -0,0 +1,272 @@
+package com.arturmolla.bookshelf.service.social;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Adjacency lists of a user graph as primitive, sorted {@code long[]} arrays.
+ * <p>
+ * The bulk of the graph lives in a compressed sparse row (CSR) layout: a sorted
+ * array of vertex ids, an offsets array and one contiguous array of neighbour ids.
+ * Incremental changes are written to a small copy-on-write overlay holding the
+ * full, updated neighbour array of each touched vertex. Once the overlay grows past
+ * {@link #COMPACT_THRESHOLD} vertices it is frozen, a fresh overlay takes the
+ * following writes, and the frozen one is merged with the CSR block on the
+ * {@code compactor}; the merged block is swapped in when done. Writers never wait
+ * for a merge.
+ * <p>
+ * Reads are lock-free: a reader takes the current {@link State} once and works on
+ * immutable arrays. Writes are serialized by the instance monitor.
+ */
+final class AdjacencyIndex {
+
+    static final long[] EMPTY = new long[0];
+    static final int COMPACT_THRESHOLD = 4096;
+
+    private record Csr(long[] vertices, int[] offsets, long[] targets) {
+
+        static final Csr EMPTY_CSR = new Csr(EMPTY, new int[]{0}, EMPTY);
+
+        long[] neighbours(long vertex) {
+            int slot = Arrays.binarySearch(vertices, vertex);
+            return slot < 0 ? EMPTY : Arrays.copyOfRange(targets, offsets[slot], offsets[slot + 1]);
+        }
+
+        int degree(long vertex) {
+            int slot = Arrays.binarySearch(vertices, vertex);
+            return slot < 0 ? 0 : offsets[slot + 1] - offsets[slot];
+        }
+    }
+
+    /**
+     * {@code overlay} takes the writes; {@code frozen} is the overlay being merged into
+     * {@code base}, or {@code null} when no merge is running. Lookups go overlay, frozen, base.
+     */
+    private record State(Csr base, Map<Long, long[]> frozen, Map<Long, long[]> overlay) {
+    }
+
+    private final Executor compactor;
+    private volatile State state = new State(Csr.EMPTY_CSR, null, new ConcurrentHashMap<>());
+
+    AdjacencyIndex(Executor compactor) {
+        this.compactor = compactor;
+    }
+
+    // ─── Reads ──────────────────────────────────────────────────────────────
+
+    /** Sorted neighbour ids of {@code vertex}; never modify the returned array. */
+    long[] neighbours(long vertex) {
+        State current = state;
+        long[] changed = changed(current, vertex);
+        return changed != null ? changed : current.base().neighbours(vertex);
+    }
+
+    int degree(long vertex) {
+        State current = state;
+        long[] changed = changed(current, vertex);
+        return changed != null ? changed.length : current.base().degree(vertex);
+    }
+
+    boolean contains(long from, long to) {
+        return Arrays.binarySearch(neighbours(from), to) >= 0;
+    }
+
+    private static long[] changed(State current, long vertex) {
+        long[] changed = current.overlay().get(vertex);
+        if (changed == null && current.frozen() != null) {
+            changed = current.frozen().get(vertex);
+        }
+        return changed;
+    }
+
+    // ─── Writes ─────────────────────────────────────────────────────────────
+
+    synchronized void add(long from, long to) {
+        long[] current = neighbours(from);
+        int pos = Arrays.binarySearch(current, to);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        long[] updated = new long[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, insertAt);
+        updated[insertAt] = to;
+        System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+        put(from, updated);
+    }
+
+    synchronized void remove(long from, long to) {
+        long[] current = neighbours(from);
+        int pos = Arrays.binarySearch(current, to);
+        if (pos < 0) {
+            return;
+        }
+        long[] updated = new long[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, pos);
+        System.arraycopy(current, pos + 1, updated, pos, current.length - pos - 1);
+        put(from, updated);
+    }
+
+    /** Drops all outgoing edges of {@code vertex}. */
+    synchronized void clear(long vertex) {
+        if (degree(vertex) > 0) {
+            put(vertex, EMPTY);
+        }
+    }
+
+    /**
+     * Replaces the whole graph with the given edge list (parallel arrays).
+     * Duplicate edges are collapsed; a merge still running is discarded.
+     */
+    synchronized void load(long[] from, long[] to, int edgeCount) {
+        state = new State(buildCsr(from, to, edgeCount), null, new ConcurrentHashMap<>());
+    }
+
+    private void put(long vertex, long[] neighbours) {
+        State current = state;
+        current.overlay().put(vertex, neighbours);
+        if (current.frozen() == null && current.overlay().size() >= COMPACT_THRESHOLD) {
+            State freezing = new State(current.base(), current.overlay(), new ConcurrentHashMap<>());
+            state = freezing;
+            compactor.execute(() -> compact(freezing));
+        }
+    }
+
+    /** Merges the frozen overlay into a fresh CSR block, then swaps it in; runs on the compactor. */
+    private void compact(State freezing) {
+        Csr merged = merge(freezing.base(), freezing.frozen());
+        synchronized (this) {
+            State current = state;
+            if (current.frozen() == freezing.frozen()) {
+                state = new State(merged, null, current.overlay());
+            }
+        }
+    }
+
+    /** {@code base} with the neighbour arrays of the {@code changes} vertices replaced, empty ones dropped. */
+    private static Csr merge(Csr base, Map<Long, long[]> changes) {
+        long[] changed = new long[changes.size()];
+        int changedCount = 0;
+        int changedTargets = 0;
+        for (Map.Entry<Long, long[]> entry : changes.entrySet()) {
+            changed[changedCount++] = entry.getKey();
+            changedTargets += entry.getValue().length;
+        }
+        Arrays.sort(changed);
+
+        long[] vertices = new long[base.vertices().length + changedCount];
+        int[] offsets = new int[vertices.length + 1];
+        long[] targets = new long[base.targets().length + changedTargets];
+        int vertexCount = 0;
+        int targetCount = 0;
+        int i = 0;
+        int j = 0;
+        while (i < base.vertices().length || j < changedCount) {
+            long vertex;
+            long[] list = null;
+            int from = 0;
+            int length;
+            if (j < changedCount && (i == base.vertices().length || changed[j] <= base.vertices()[i])) {
+                vertex = changed[j];
+                if (i < base.vertices().length && base.vertices()[i] == vertex) {
+                    i++;
+                }
+                j++;
+                list = changes.get(vertex);
+                length = list.length;
+            } else {
+                vertex = base.vertices()[i];
+                from = base.offsets()[i];
+                length = base.offsets()[i + 1] - from;
+                i++;
+            }
+            if (length == 0) {
+                continue;
+            }
+            vertices[vertexCount] = vertex;
+            offsets[vertexCount] = targetCount;
+            System.arraycopy(list != null ? list : base.targets(), from, targets, targetCount, length);
+            vertexCount++;
+            targetCount += length;
+        }
+        offsets[vertexCount] = targetCount;
+        return new Csr(
+                Arrays.copyOf(vertices, vertexCount),
+                Arrays.copyOf(offsets, vertexCount + 1),
+                Arrays.copyOf(targets, targetCount));
+    }
+
+    /**
+     * Groups the edges by source vertex: the distinct sources are sorted, each edge is
+     * counted into its source's slot, then each slot's targets are sorted and deduplicated
+     * in place. Only primitive arrays are sorted.
+     */
+    private static Csr buildCsr(long[] from, long[] to, int edgeCount) {
+        if (edgeCount == 0) {
+            return Csr.EMPTY_CSR;
+        }
+        long[] sources = Arrays.copyOf(from, edgeCount);
+        Arrays.sort(sources);
+        int vertexCount = 0;
+        for (int k = 0; k < edgeCount; k++) {
+            if (vertexCount == 0 || sources[vertexCount - 1] != sources[k]) {
+                sources[vertexCount++] = sources[k];
+            }
+        }
+        long[] vertices = Arrays.copyOf(sources, vertexCount);
+
+        int[] offsets = new int[vertexCount + 1];
+        int[] slots = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            slots[e] = Arrays.binarySearch(vertices, from[e]);
+            offsets[slots[e] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, vertexCount);
+        long[] targets = new long[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            targets[next[slots[e]]++] = to[e];
+        }
+
+        int targetCount = 0;
+        int start = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int end = offsets[v + 1];
+            Arrays.sort(targets, start, end);
+            offsets[v] = targetCount;
+            for (int k = start; k < end; k++) {
+                if (targetCount == offsets[v] || targets[targetCount - 1] != targets[k]) {
+                    targets[targetCount++] = targets[k];
+                }
+            }
+            start = end;
+        }
+        offsets[vertexCount] = targetCount;
+        return new Csr(vertices, offsets, Arrays.copyOf(targets, targetCount));
+    }
+
+    // ─── Sorted-array helpers ───────────────────────────────────────────────
+
+    /** Size of the intersection of two sorted arrays. */
+    static int intersectionSize(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+}
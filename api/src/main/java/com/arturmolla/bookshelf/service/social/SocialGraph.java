@@ -0,0 +1,295 @@
+package com.arturmolla.bookshelf.service.social;
+
+import com.arturmolla.bookshelf.model.enums.RelationStatus;
+import com.arturmolla.bookshelf.model.enums.RelationType;
+import com.arturmolla.bookshelf.repository.RepositoryUserRelation;
+import com.arturmolla.bookshelf.service.utils.UtilsTransaction;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process index of the friend / follow graph, built from {@code user_relation}
+ * at startup and kept current by {@link com.arturmolla.bookshelf.service.ServiceRelation}.
+ * <p>
+ * Answers "people you may know" and mutual-friend counts from sorted primitive
+ * adjacency arrays ({@link AdjacencyIndex}) without touching the database.
+ * Changes are applied after the surrounding transaction commits, so a rolled-back
+ * request never leaks into the graph. Each application instance keeps its own copy.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SocialGraph {
+
+    /** Upper bound on friend-of-friend ids scanned per suggestion request. */
+    static final int MAX_CANDIDATE_SCAN = 50_000;
+
+    private final RepositoryUserRelation relationRepository;
+
+    /** Merges the indexes' overlays into their CSR blocks off the committing threads. */
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "social-graph-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AdjacencyIndex friends = new AdjacencyIndex(compactor);
+    private final AdjacencyIndex pending = new AdjacencyIndex(compactor);
+    private final AdjacencyIndex following = new AdjacencyIndex(compactor);
+    private final AdjacencyIndex followers = new AdjacencyIndex(compactor);
+
+    /** Changes committed while the initial load is running; replayed once it is in place. */
+    private List<Runnable> deferred = new ArrayList<>();
+
+    /** A ranked suggestion: candidate user id and the number of friends in common. */
+    public record Suggestion(long userId, int mutualFriends) {
+    }
+
+    // ─── Loading ────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> edges = relationRepository.findAllGraphEdges();
+        EdgeList friendEdges = new EdgeList(edges.size() * 2);
+        EdgeList pendingEdges = new EdgeList(edges.size() * 2);
+        EdgeList followEdges = new EdgeList(edges.size());
+        EdgeList followerEdges = new EdgeList(edges.size());
+        for (Object[] row : edges) {
+            long requester = (Long) row[0];
+            long addressee = (Long) row[1];
+            if (row[2] == RelationType.FOLLOW) {
+                followEdges.add(requester, addressee);
+                followerEdges.add(addressee, requester);
+            } else if (row[3] == RelationStatus.ACCEPTED) {
+                friendEdges.addBoth(requester, addressee);
+            } else if (row[3] == RelationStatus.PENDING) {
+                pendingEdges.addBoth(requester, addressee);
+            }
+        }
+
+        List<Runnable> replay;
+        synchronized (this) {
+            friendEdges.loadInto(friends);
+            pendingEdges.loadInto(pending);
+            followEdges.loadInto(following);
+            followerEdges.loadInto(followers);
+            replay = deferred;
+            deferred = null;
+        }
+        replay.forEach(Runnable::run);
+        log.info("Social graph loaded: {} relations, {} changes replayed", edges.size(), replay.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    // ─── Change events ──────────────────────────────────────────────────────
+
+    public void friendRequestSent(long requesterId, long addresseeId) {
+        afterCommit(() -> {
+            pending.add(requesterId, addresseeId);
+            pending.add(addresseeId, requesterId);
+        });
+    }
+
+    public void friendRequestAccepted(long requesterId, long addresseeId) {
+        afterCommit(() -> {
+            pending.remove(requesterId, addresseeId);
+            pending.remove(addresseeId, requesterId);
+            friends.add(requesterId, addresseeId);
+            friends.add(addresseeId, requesterId);
+        });
+    }
+
+    /** A request was rejected or cancelled, or a friendship was removed. */
+    public void friendshipEnded(long userA, long userB) {
+        afterCommit(() -> {
+            pending.remove(userA, userB);
+            pending.remove(userB, userA);
+            friends.remove(userA, userB);
+            friends.remove(userB, userA);
+        });
+    }
+
+    public void followed(long followerId, long followedId) {
+        afterCommit(() -> {
+            following.add(followerId, followedId);
+            followers.add(followedId, followerId);
+        });
+    }
+
+    public void unfollowed(long followerId, long followedId) {
+        afterCommit(() -> {
+            following.remove(followerId, followedId);
+            followers.remove(followedId, followerId);
+        });
+    }
+
+    public void userDeleted(long userId) {
+        afterCommit(() -> {
+            for (long other : friends.neighbours(userId)) {
+                friends.remove(other, userId);
+            }
+            for (long other : pending.neighbours(userId)) {
+                pending.remove(other, userId);
+            }
+            for (long other : followers.neighbours(userId)) {
+                following.remove(other, userId);
+            }
+            for (long other : following.neighbours(userId)) {
+                followers.remove(other, userId);
+            }
+            friends.clear(userId);
+            pending.clear(userId);
+            following.clear(userId);
+            followers.clear(userId);
+        });
+    }
+
+    // ─── Queries ────────────────────────────────────────────────────────────
+
+    public boolean areFriends(long userA, long userB) {
+        return friends.contains(userA, userB);
+    }
+
+    public boolean isFollowing(long followerId, long followedId) {
+        return following.contains(followerId, followedId);
+    }
+
+    /** Sorted ids of the users {@code userId} follows. */
+    public long[] following(long userId) {
+        return following.neighbours(userId);
+    }
+
+    public int followerCount(long userId) {
+        return followers.degree(userId);
+    }
+
+    public int mutualFriendCount(long userA, long userB) {
+        return AdjacencyIndex.intersectionSize(friends.neighbours(userA), friends.neighbours(userB));
+    }
+
+    /**
+     * Friends-of-friends of {@code userId} ranked by mutual friend count, followed by
+     * users they already follow. Existing friends, pending requests and the user
+     * themselves are never suggested.
+     */
+    public List<Suggestion> suggest(long userId, int limit) {
+        long[] myFriends = friends.neighbours(userId);
+        long[] myFollowing = following.neighbours(userId);
+
+        // Collect every friend-of-friend id (with repeats), plus followed users
+        long[] buffer = new long[64];
+        int size = 0;
+        for (long friend : myFriends) {
+            long[] theirFriends = friends.neighbours(friend);
+            if (size + theirFriends.length > MAX_CANDIDATE_SCAN) {
+                break;
+            }
+            buffer = ensureCapacity(buffer, size + theirFriends.length);
+            System.arraycopy(theirFriends, 0, buffer, size, theirFriends.length);
+            size += theirFriends.length;
+        }
+        buffer = ensureCapacity(buffer, size + myFollowing.length);
+        System.arraycopy(myFollowing, 0, buffer, size, myFollowing.length);
+        size += myFollowing.length;
+        Arrays.sort(buffer, 0, size);
+
+        // Each run of equal ids is one candidate; friends-of-friends runs count mutual friends
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(RANKING.reversed());
+        int i = 0;
+        while (i < size) {
+            long candidate = buffer[i];
+            int j = i;
+            while (j < size && buffer[j] == candidate) {
+                j++;
+            }
+            int mutual = j - i;
+            i = j;
+            if (candidate == userId
+                    || Arrays.binarySearch(myFriends, candidate) >= 0
+                    || pending.contains(userId, candidate)) {
+                continue;
+            }
+            if (Arrays.binarySearch(myFollowing, candidate) >= 0) {
+                mutual--; // the followed-user entry is not a mutual friend
+            }
+            top.add(new Suggestion(candidate, mutual));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Suggestion> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result;
+    }
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingInt(Suggestion::mutualFriends).reversed()
+            .thenComparingLong(Suggestion::userId);
+
+    // ─── Internals ──────────────────────────────────────────────────────────
+
+    private void afterCommit(Runnable change) {
+        Runnable guarded = () -> {
+            synchronized (this) {
+                if (deferred != null) {
+                    deferred.add(change);
+                    return;
+                }
+            }
+            change.run();
+        };
+        UtilsTransaction.afterCommit(guarded);
+    }
+
+    private static long[] ensureCapacity(long[] array, int required) {
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length * 2));
+    }
+
+    /** Growable parallel arrays of (from, to) edges used while loading. */
+    private static final class EdgeList {
+        private long[] from;
+        private long[] to;
+        private int size;
+
+        EdgeList(int capacity) {
+            from = new long[Math.max(capacity, 16)];
+            to = new long[Math.max(capacity, 16)];
+        }
+
+        void add(long a, long b) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+            }
+            from[size] = a;
+            to[size] = b;
+            size++;
+        }
+
+        void addBoth(long a, long b) {
+            add(a, b);
+            add(b, a);
+        }
+
+        void loadInto(AdjacencyIndex index) {
+            index.load(from, to, size);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.arturmolla.bookshelf.service.socket;
+
+import com.arturmolla.bookshelf.config.exceptions.OperationNotPermittedException;
+import com.arturmolla.bookshelf.config.exceptions.RateLimitExceededException;
+import com.arturmolla.bookshelf.model.dto.DtoMessageRequest;
+import com.arturmolla.bookshelf.model.dto.DtoSignalRequest;
+import com.arturmolla.bookshelf.model.dto.ExceptionResponse;
+import com.arturmolla.bookshelf.model.enums.BusinessErrorCodes;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.ServiceMessage;
+import com.arturmolla.bookshelf.service.ServiceStream;
+import com.arturmolla.bookshelf.service.messaging.SseDispatcher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.MessageHandler;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Optional WebSocket transport for messaging and stream signalling, at {@value #PATH}.
+ * <p>
+ * One connection carries both directions: the client's requests, which otherwise cost an
+ * HTTP POST each through the security filter chain, and every push of the messaging SSE
+ * channel. The SSE endpoints stay for clients that do not use it; a user's messaging
+ * pushes go to whichever connection they opened last. The session is authenticated once
+ * at the handshake ({@link SocketHandshake}); a reconnecting client passes the last event
+ * id it saw as {@code ?lastEventId=} and gets what it missed first, as with
+ * {@code Last-Event-ID} on SSE.
+ *
+ * <h4>Frames</h4>
+ * Text frames of compact JSON ({@link SocketRequest} in, {@link SocketFrame} out):
+ * <pre>
+ * → {"t":"send","r":1,"d":{"friendId":7,"content":"Hi","replyToId":null}}
+ * ← {"t":"ack","r":1,"d":{…DtoMessageResponse…}}
+ * → {"t":"typing","d":{"friendId":7}}
+ * → {"t":"signal","r":2,"d":{"hostId":3,"targetUserId":7,"signalType":"ice-candidate","payload":"…"}}
+ * ← {"t":"ack","r":2}
+ * → {"t":"ping"}                                     ← {"t":"pong"}
+ * ← {"t":"NEW_MESSAGE","i":1792430403876001,"d":{…}}   pushes; "i" only on replayable ones
+ * ← {"t":"SIGNAL","d":{…DtoStreamEvent…}}               signalling of streams the user is in
+ * ← {"t":"error","r":1,"d":{"error":"…"}}
+ * </pre>
+ * Sessions idle for longer than {@code idleTimeoutSeconds} are closed; clients ping every 30 s.
+ * {@code send}, {@code typing} and {@code signal} frames are rate limited per user and frame
+ * type, {@code framesPerMinute} each, like {@code POST /messages/{friendId}} is per IP; a
+ * frame over the limit gets an {@code error} reply. Failures are answered the way
+ * {@code ConfigGlobalExceptionHandler} answers them over HTTP; unexpected ones without
+ * their message.
+ * <p>
+ * Every {@code sweepMs} the open sessions are checked again: one whose handshake token
+ * has expired, or whose user has since been disabled or locked, is closed with 1008
+ * (policy violation). The same sweep drops rate-limit buckets that have refilled, so
+ * only users who sent frames in the last minute keep one.
+ */
+@Slf4j
+@Component
+public class MessagingSocket extends Endpoint {
+
+    public static final String PATH = "/ws";
+
+    private static final int MAX_FRAME_BYTES = 64 * 1024;
+    private static final Set<String> RATE_LIMITED = Set.of("send", "typing", "signal");
+
+    private final ServiceMessage serviceMessage;
+    private final ServiceStream serviceStream;
+    private final SseDispatcher sseDispatcher;
+    private final SocketSessions socketSessions;
+    private final RepositoryUser repositoryUser;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final long idleTimeoutMs;
+    private final int framesPerMinute;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public MessagingSocket(ServiceMessage serviceMessage,
+                           ServiceStream serviceStream,
+                           SseDispatcher sseDispatcher,
+                           SocketSessions socketSessions,
+                           RepositoryUser repositoryUser,
+                           ObjectMapper objectMapper,
+                           Validator validator,
+                           @Value("${application.socket.idle-timeout-seconds:90}") long idleTimeoutSeconds,
+                           @Value("${application.socket.frames-per-minute:60}") int framesPerMinute) {
+        this.serviceMessage = serviceMessage;
+        this.serviceStream = serviceStream;
+        this.sseDispatcher = sseDispatcher;
+        this.socketSessions = socketSessions;
+        this.repositoryUser = repositoryUser;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.idleTimeoutMs = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        this.framesPerMinute = framesPerMinute;
+    }
+
+    // ─── Lifecycle ──────────────────────────────────────────────────────────
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        if (session.getUserProperties().get(SocketHandshake.REFUSAL) instanceof CloseReason refusal) {
+            socketSessions.close(session, refusal);
+            return;
+        }
+        User user = (User) session.getUserProperties().get(SocketHandshake.USER);
+        Authentication auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        session.setMaxIdleTimeout(idleTimeoutMs);
+        session.setMaxTextMessageBufferSize(MAX_FRAME_BYTES);
+        session.addMessageHandler(String.class, (MessageHandler.Whole<String>) text -> onFrame(session, auth, text));
+
+        socketSessions.register(user.getId(), session).ifPresent(old -> socketSessions.close(old,
+                new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "replaced")));
+        serviceMessage.attachConnection(user, session,
+                (id, name, json) -> socketSessions.send(session, SocketFrame.push(name, id, json)),
+                lastEventId(session));
+        log.info("Messaging WebSocket connected: userId={}", user.getId());
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason reason) {
+        if (session.getUserProperties().get(SocketHandshake.USER) instanceof User user) {
+            sseDispatcher.detach(user.getId(), session);
+            socketSessions.remove(user.getId(), session);
+            log.info("Messaging WebSocket disconnected: userId={} code={}", user.getId(), reason.getCloseCode());
+        }
+    }
+
+    @Override
+    public void onError(Session session, Throwable error) {
+        log.debug("WebSocket error: {}", error.getMessage());
+    }
+
+    /** Closes sessions past their token's expiry or of users no longer allowed in; drops refilled buckets. */
+    @Scheduled(fixedDelayString = "${application.socket.sweep-ms:30000}")
+    public void sweep() {
+        buckets.values().removeIf(bucket -> bucket.getAvailableTokens() >= framesPerMinute);
+
+        Map<Long, Session> sessions = socketSessions.snapshot();
+        if (sessions.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Set<Long> active = new HashSet<>(repositoryUser.findActiveIds(sessions.keySet()));
+        sessions.forEach((userId, session) -> {
+            if (session.getUserProperties().get(SocketHandshake.EXPIRES_AT) instanceof Instant expiresAt
+                    && !expiresAt.isAfter(now)) {
+                socketSessions.close(session, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "token expired"));
+            } else if (!active.contains(userId)) {
+                socketSessions.close(session, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "unauthorized"));
+            }
+        });
+    }
+
+    // ─── Requests ───────────────────────────────────────────────────────────
+
+    void onFrame(Session session, Authentication auth, String text) {
+        SocketRequest request;
+        try {
+            request = objectMapper.readValue(text, SocketRequest.class);
+        } catch (JsonProcessingException e) {
+            socketSessions.send(session, SocketFrame.reply("error", null, error("Malformed frame")));
+            return;
+        }
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        try {
+            SocketFrame reply = handle(request, auth);
+            if (reply != null) {
+                socketSessions.send(session, reply);
+            }
+        } catch (RuntimeException e) {
+            socketSessions.send(session, SocketFrame.reply("error", request.r(), toJson(errorFor(e))));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /** Runs one request and returns the reply, or {@code null} when there is none to send. */
+    private SocketFrame handle(SocketRequest request, Authentication auth) {
+        JsonNode d = request.d();
+        String type = request.t() == null ? "" : request.t();
+        if (RATE_LIMITED.contains(type)) {
+            consumeToken((User) auth.getPrincipal(), type);
+        }
+        switch (type) {
+            case "send" -> {
+                DtoMessageRequest body = new DtoMessageRequest(text(d, "content"), id(d, "replyToId"), null);
+                validate(body);
+                return SocketFrame.reply("ack", request.r(),
+                        toJson(serviceMessage.sendMessage(requiredId(d, "friendId"), body, auth)));
+            }
+            case "typing" -> serviceMessage.typing(requiredId(d, "friendId"), auth);
+            case "signal" -> {
+                DtoSignalRequest body = new DtoSignalRequest(
+                        id(d, "targetUserId"), text(d, "signalType"), text(d, "payload"));
+                validate(body);
+                serviceStream.signal(requiredId(d, "hostId"), body, auth);
+            }
+            case "ping" -> {
+                return SocketFrame.reply("pong", request.r(), null);
+            }
+            default -> throw new IllegalArgumentException("Unknown frame type: " + request.t());
+        }
+        return request.r() == null ? null : SocketFrame.reply("ack", request.r(), null);
+    }
+
+    private void consumeToken(User user, String type) {
+        Bucket bucket = buckets.computeIfAbsent(user.getId() + ":" + type, k -> Bucket.builder()
+                .addLimit(Bandwidth.classic(framesPerMinute, Refill.greedy(framesPerMinute, Duration.ofMinutes(1))))
+                .build());
+        if (!bucket.tryConsume(1)) {
+            throw new RateLimitExceededException();
+        }
+    }
+
+    private <T> void validate(T body) {
+        Set<ConstraintViolation<T>> violations = validator.validate(body);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private static String lastEventId(Session session) {
+        List<String> values = session.getRequestParameterMap().get("lastEventId");
+        return values == null || values.isEmpty() ? null : values.getFirst();
+    }
+
+    private static String text(JsonNode d, String field) {
+        JsonNode node = d == null ? null : d.get(field);
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static Long id(JsonNode d, String field) {
+        JsonNode node = d == null ? null : d.get(field);
+        return node == null || !node.canConvertToLong() ? null : node.asLong();
+    }
+
+    private static Long requiredId(JsonNode d, String field) {
+        Long id = id(d, field);
+        if (id == null) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return id;
+    }
+
+    /** The body {@code ConfigGlobalExceptionHandler} would answer {@code e} with, minus unexpected messages. */
+    private static ExceptionResponse errorFor(RuntimeException e) {
+        if (e instanceof RateLimitExceededException) {
+            return ExceptionResponse.builder()
+                    .businessErrorCode(BusinessErrorCodes.RATE_LIMIT_EXCEEDED.getCode())
+                    .businessErrorDescription(BusinessErrorCodes.RATE_LIMIT_EXCEEDED.getDescription())
+                    .error(e.getMessage())
+                    .build();
+        }
+        if (e instanceof OperationNotPermittedException
+                || e instanceof EntityNotFoundException
+                || e instanceof IllegalArgumentException) {
+            return ExceptionResponse.builder().error(e.getMessage()).build();
+        }
+        log.error("WebSocket request failed", e);
+        return ExceptionResponse.builder().businessErrorDescription("Internal error, contact the admin").build();
+    }
+
+    private String error(String message) {
+        return toJson(ExceptionResponse.builder().error(message).build());
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.arturmolla.bookshelf.service.socket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * One text frame written to a WebSocket client. Keys are kept to one letter since
+ * every push and acknowledgement carries them.
+ *
+ * @param t type: a push event name ({@code NEW_MESSAGE}, {@code SIGNAL}, …) or {@code ack},
+ *          {@code error}, {@code pong}, {@code reconnect}
+ * @param r the client's request number this frame answers (acks and errors only)
+ * @param i event id to resume from after a reconnect (replayable pushes only)
+ * @param d the payload, already serialised as JSON
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SocketFrame(String t, Long r, Long i, @JsonRawValue String d) {
+
+    public static SocketFrame push(String name, Long id, String json) {
+        return new SocketFrame(name, null, id, json);
+    }
+
+    public static SocketFrame reply(String type, Long requestNumber, String json) {
+        return new SocketFrame(type, requestNumber, null, json);
+    }
+}
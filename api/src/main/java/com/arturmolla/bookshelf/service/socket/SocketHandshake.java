@@ -0,0 +1,126 @@
+package com.arturmolla.bookshelf.service.socket;
+
+import com.arturmolla.bookshelf.config.exceptions.ConnectionThrottledException;
+import com.arturmolla.bookshelf.security.JwtService;
+import com.arturmolla.bookshelf.security.UserDetailsServiceImpl;
+import com.arturmolla.bookshelf.service.sse.SseAdmission;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Authenticates a WebSocket once, at the handshake, and hands every session to the
+ * single {@link MessagingSocket} bean.
+ * <p>
+ * Browsers cannot set headers on a WebSocket, so the JWT travels as a subprotocol:
+ * the client offers {@code ["bookshelf.v1", "bearer.<jwt>"]} and the server selects
+ * {@code bookshelf.v1}. Other clients may send {@code Authorization: Bearer <jwt>}
+ * instead. The handshake cannot be refused with an HTTP status here, so a failed check
+ * is recorded in the session's properties and the session is closed right after it
+ * opens: 1008 (policy violation) for a missing or invalid token, 1013 (try again later)
+ * when {@link SseAdmission} refuses the connect. The token's expiry is recorded with the
+ * user; {@link MessagingSocket} closes the session once it has passed.
+ */
+@Slf4j
+public class SocketHandshake extends ServerEndpointConfig.Configurator {
+
+    public static final String PROTOCOL = "bookshelf.v1";
+    /** Session property holding the authenticated {@link com.arturmolla.bookshelf.model.user.User}. */
+    static final String USER = "user";
+    /** Session property holding the {@link java.time.Instant} the handshake's token expires at. */
+    static final String EXPIRES_AT = "expiresAt";
+    /** Session property holding the {@link CloseReason} to close a refused session with. */
+    static final String REFUSAL = "refusal";
+
+    private static final String BEARER_PROTOCOL_PREFIX = "bearer.";
+
+    private final JwtService jwtService;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final SseAdmission admission;
+    private final MessagingSocket endpoint;
+
+    public SocketHandshake(JwtService jwtService,
+                           UserDetailsServiceImpl userDetailsService,
+                           SseAdmission admission,
+                           MessagingSocket endpoint) {
+        this.jwtService = jwtService;
+        this.userDetailsService = userDetailsService;
+        this.admission = admission;
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void modifyHandshake(ServerEndpointConfig config, HandshakeRequest request, HandshakeResponse response) {
+        try {
+            admission.admit();
+        } catch (ConnectionThrottledException e) {
+            config.getUserProperties().put(REFUSAL, new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER,
+                    "retry-after:" + e.getRetryAfterSeconds()));
+            return;
+        }
+        String jwt = token(request);
+        UserDetails user = authenticate(jwt);
+        if (user == null) {
+            config.getUserProperties().put(REFUSAL,
+                    new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "unauthorized"));
+            return;
+        }
+        config.getUserProperties().put(USER, user);
+        config.getUserProperties().put(EXPIRES_AT, jwtService.extractExpiration(jwt).toInstant());
+    }
+
+    @Override
+    public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+        return requested.contains(PROTOCOL) ? PROTOCOL : "";
+    }
+
+    @Override
+    public <T> T getEndpointInstance(Class<T> endpointClass) {
+        return endpointClass.cast(endpoint);
+    }
+
+    private static String token(HandshakeRequest request) {
+        List<String> protocols = request.getHeaders().getOrDefault(HandshakeRequest.SEC_WEBSOCKET_PROTOCOL, List.of());
+        for (String header : protocols) {
+            String token = Arrays.stream(header.split(","))
+                    .map(String::trim)
+                    .filter(protocol -> protocol.startsWith(BEARER_PROTOCOL_PREFIX))
+                    .map(protocol -> protocol.substring(BEARER_PROTOCOL_PREFIX.length()))
+                    .findFirst()
+                    .orElse(null);
+            if (token != null) {
+                return token;
+            }
+        }
+        List<String> authorization = request.getHeaders().getOrDefault(HttpHeaders.AUTHORIZATION, List.of());
+        return authorization.stream()
+                .filter(header -> header.startsWith("Bearer "))
+                .map(header -> header.substring(7))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private UserDetails authenticate(String jwt) {
+        if (jwt == null) {
+            return null;
+        }
+        try {
+            String email = jwtService.extractEmail(jwt);
+            if (email == null) {
+                return null;
+            }
+            UserDetails user = userDetailsService.loadUserByUsername(email);
+            return jwtService.isTokenValid(jwt, user) ? user : null;
+        } catch (RuntimeException e) {
+            log.debug("WebSocket handshake rejected: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.arturmolla.bookshelf.service.socket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One text frame received from a WebSocket client.
+ *
+ * @param t type: {@code send}, {@code typing}, {@code signal} or {@code ping}
+ * @param r optional request number, echoed in the {@code ack} / {@code error} reply
+ * @param d the request body
+ */
+public record SocketRequest(String t, Long r, JsonNode d) {
+}
@@ -0,0 +1,91 @@
+package com.arturmolla.bookshelf.service.socket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of the open WebSocket sessions, one per user like
+ * {@link com.arturmolla.bookshelf.service.messaging.MessageEmitterRegistry}: a new
+ * session of the same user replaces the old one.
+ * <p>
+ * Frames may be written from several threads (dispatcher stripes, signalling requests,
+ * the session's own replies), so every write holds the session's lock.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SocketSessions {
+
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+
+    /** Registers {@code session} and returns the session it replaced, if any. */
+    public Optional<Session> register(Long userId, Session session) {
+        return Optional.ofNullable(sessions.put(userId, session));
+    }
+
+    /** Removes {@code session}, unless the user has connected again since. */
+    public void remove(Long userId, Session session) {
+        sessions.remove(userId, session);
+    }
+
+    public boolean isOpen(Long userId) {
+        return sessions.containsKey(userId);
+    }
+
+    /** A copy of the current sessions, userId → session. */
+    public Map<Long, Session> snapshot() {
+        return Map.copyOf(sessions);
+    }
+
+    /**
+     * Pushes an event to the user's session. Returns {@code false} if the user has no
+     * session or the write failed.
+     */
+    public boolean push(Long userId, String name, String json) {
+        Session session = sessions.get(userId);
+        return session != null && send(session, SocketFrame.push(name, null, json));
+    }
+
+    /** Writes one frame; returns {@code false} if the session is closed or the write failed. */
+    public boolean send(Session session, SocketFrame frame) {
+        String text;
+        try {
+            text = objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            log.error("JSON serialisation error", e);
+            return false;
+        }
+        synchronized (session) {
+            if (!session.isOpen()) {
+                return false;
+            }
+            try {
+                session.getBasicRemote().sendText(text);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.warn("Failed to write WebSocket frame {}: {}", frame.t(), e.getMessage());
+                close(session, new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "write failed"));
+                return false;
+            }
+        }
+    }
+
+    public void close(Session session, CloseReason reason) {
+        try {
+            session.close(reason);
+        } catch (IOException | IllegalStateException e) {
+            // Already closed
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.arturmolla.bookshelf.service.sse;
+
+import com.arturmolla.bookshelf.config.exceptions.ConnectionThrottledException;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.Refill;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the SSE connect endpoints (messaging and streams).
+ * <p>
+ * Opening a stream costs a JWT user lookup and the client's refetch of its state, so
+ * connects are admitted from one instance-wide token bucket: {@code burst} at once, then
+ * {@code connectsPerSecond}. A refused client gets a {@code Retry-After} of the wait
+ * for a token plus random jitter, so a refused burst comes back spread out instead of
+ * as the same burst. While the instance {@link #close drains} for shutdown every connect
+ * is refused.
+ */
+@Component
+public class SseAdmission {
+
+    private final Bucket bucket;
+    private final int jitterSeconds;
+    private volatile boolean closed;
+
+    public SseAdmission(@Value("${application.sse.admission.connects-per-second:50}") int connectsPerSecond,
+                        @Value("${application.sse.admission.burst:200}") int burst,
+                        @Value("${application.sse.admission.retry-jitter-seconds:10}") int jitterSeconds) {
+        this.bucket = Bucket.builder()
+                .addLimit(Bandwidth.classic(burst, Refill.greedy(connectsPerSecond, Duration.ofSeconds(1))))
+                .build();
+        this.jitterSeconds = jitterSeconds;
+    }
+
+    /**
+     * Takes a connect slot or throws {@link ConnectionThrottledException}.
+     */
+    public void admit() {
+        if (closed) {
+            throw new ConnectionThrottledException(retryAfter(0));
+        }
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        if (!probe.isConsumed()) {
+            throw new ConnectionThrottledException(retryAfter(probe.getNanosToWaitForRefill()));
+        }
+    }
+
+    /** Refuses every further connect; called when the instance starts draining. */
+    public void close() {
+        closed = true;
+    }
+
+    private long retryAfter(long nanosToWait) {
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(nanosToWait) + 1;
+        return seconds + ThreadLocalRandom.current().nextInt(jitterSeconds + 1);
+    }
+}
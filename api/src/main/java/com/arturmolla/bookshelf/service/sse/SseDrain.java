@@ -0,0 +1,179 @@
+package com.arturmolla.bookshelf.service.sse;
+
+import com.arturmolla.bookshelf.service.messaging.MessageEmitterRegistry;
+import com.arturmolla.bookshelf.service.socket.SocketFrame;
+import com.arturmolla.bookshelf.service.socket.SocketSessions;
+import com.arturmolla.bookshelf.service.stream.LiveStream;
+import com.arturmolla.bookshelf.service.stream.StreamRegistry;
+import jakarta.websocket.CloseReason;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closes the open SSE (and WebSocket) connections gradually when the application shuts down.
+ * <p>
+ * Without it every emitter dies at once and all clients reconnect in the same second.
+ * Instead, new connects are refused ({@link SseAdmission#close}) and the open ones are
+ * closed in shuffled waves of {@code waveSize}, spread over at most {@code maxDurationMs}.
+ * Before its connection is closed each client gets a {@code reconnect} event whose SSE
+ * {@code retry:} field (and JSON {@code retryMs}) is a random delay between
+ * {@code retryMinMs} and {@code retryMaxMs}, so reconnects reach the next instance spread
+ * out as well.
+ * <p>
+ * Stream participants are detached from their {@link LiveStream} before their emitter is
+ * closed, so closing a host does not cascade into closing the whole room at once.
+ * Runs in the first shutdown phase, before the web server's graceful shutdown waits for
+ * open requests.
+ */
+@Slf4j
+@Component
+public class SseDrain implements SmartLifecycle {
+
+    private static final String RECONNECT = "reconnect";
+
+    /** One connection to close, given the retry delay to hint. */
+    private interface Connection {
+        void close(long retryMs);
+    }
+
+    private final MessageEmitterRegistry messageEmitterRegistry;
+    private final StreamRegistry streamRegistry;
+    private final SocketSessions socketSessions;
+    private final SseAdmission admission;
+    private final int waveSize;
+    private final long waveIntervalMs;
+    private final long maxDurationMs;
+    private final long retryMinMs;
+    private final long retryMaxMs;
+    private volatile boolean running;
+
+    public SseDrain(MessageEmitterRegistry messageEmitterRegistry,
+                    StreamRegistry streamRegistry,
+                    SocketSessions socketSessions,
+                    SseAdmission admission,
+                    @Value("${application.sse.drain.wave-size:200}") int waveSize,
+                    @Value("${application.sse.drain.wave-interval-ms:250}") long waveIntervalMs,
+                    @Value("${application.sse.drain.max-duration-ms:10000}") long maxDurationMs,
+                    @Value("${application.sse.drain.retry-min-ms:1000}") long retryMinMs,
+                    @Value("${application.sse.drain.retry-max-ms:15000}") long retryMaxMs) {
+        this.messageEmitterRegistry = messageEmitterRegistry;
+        this.streamRegistry = streamRegistry;
+        this.socketSessions = socketSessions;
+        this.admission = admission;
+        this.waveSize = waveSize;
+        this.waveIntervalMs = waveIntervalMs;
+        this.maxDurationMs = maxDurationMs;
+        this.retryMinMs = retryMinMs;
+        this.retryMaxMs = retryMaxMs;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        drain();
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        Thread thread = new Thread(() -> {
+            try {
+                drain();
+            } finally {
+                callback.run();
+            }
+        }, "sse-drain");
+        thread.start();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Stops before the web server's graceful shutdown (which runs at a lower phase). */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    // ─── Draining ───────────────────────────────────────────────────────────
+
+    /** Refuses new connects, then closes the open ones in waves. */
+    void drain() {
+        running = false;
+        admission.close();
+        List<Connection> connections = openConnections();
+        if (connections.isEmpty()) {
+            return;
+        }
+        Collections.shuffle(connections);
+        int waves = (connections.size() + waveSize - 1) / waveSize;
+        long interval = waves > 1 ? Math.min(waveIntervalMs, maxDurationMs / (waves - 1)) : 0;
+        log.info("Draining {} SSE connections in {} waves, {} ms apart", connections.size(), waves, interval);
+
+        for (int wave = 0; wave < waves; wave++) {
+            if (wave > 0 && !pause(interval)) {
+                return;
+            }
+            int end = Math.min(connections.size(), (wave + 1) * waveSize);
+            connections.subList(wave * waveSize, end).forEach(connection ->
+                    connection.close(ThreadLocalRandom.current().nextLong(retryMinMs, retryMaxMs + 1)));
+        }
+    }
+
+    private List<Connection> openConnections() {
+        List<Connection> connections = new ArrayList<>();
+        messageEmitterRegistry.snapshot().values()
+                .forEach(emitter -> connections.add(retryMs -> close(emitter, retryMs)));
+        for (LiveStream stream : streamRegistry.allStreams()) {
+            stream.getEmitters().forEach((userId, emitter) -> connections.add(retryMs -> {
+                stream.silentRemove(userId);
+                close(emitter, retryMs);
+            }));
+        }
+        socketSessions.snapshot().values().forEach(session -> connections.add(retryMs -> {
+            socketSessions.send(session, SocketFrame.push(RECONNECT, null, retryJson(retryMs)));
+            socketSessions.close(session, new CloseReason(CloseReason.CloseCodes.SERVICE_RESTART, "restarting"));
+        }));
+        return connections;
+    }
+
+    private static void close(SseEmitter emitter, long retryMs) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(RECONNECT)
+                    .reconnectTime(retryMs)
+                    .data(retryJson(retryMs)));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // Already gone
+        }
+    }
+
+    private static String retryJson(long retryMs) {
+        return "{\"retryMs\":" + retryMs + "}";
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -5,12 +5,26 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
 
 /**
  * In-memory representation of one active live stream.
  * <p>
- * Thread-safe: all mutable state is held in {@link ConcurrentHashMap}.
+ * The room state (who is watching) is versioned: every join, leave and stop raises the
+ * {@link #getVersion() version}, which participants get with the snapshot sent on
+ * (re)join and with every delta event after it. A change is applied, versioned and its
+ * delta queued for delivery in one step under the stream's lock ({@link #change}), so
+ * every participant's queue holds the deltas in version order and no snapshot falls
+ * between a change and its delta. The writes themselves run outside the lock
+ * ({@link StreamDelivery}).
+ * <p>
+ * Thread-safe: participants are held in {@link ConcurrentHashMap}, the version is
+ * guarded by the stream's lock.
  */
 @Getter
 public class LiveStream {
@@ -34,11 +48,26 @@ public class LiveStream {
      */
     private final ConcurrentHashMap<Long, String> participantNames = new ConcurrentHashMap<>();
 
+    /**
+     * Who relays the media to whom; every watcher is in it while connected.
+     */
+    private final RelayTree relayTree;
+
+    private long version;
+
     public LiveStream(Long hostId, String hostName, String title) {
+        this(hostId, hostName, title, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param hostFanout how many watchers the host sends the media to directly
+     */
+    public LiveStream(Long hostId, String hostName, String title, int hostFanout) {
         this.hostId = hostId;
         this.hostName = hostName;
         this.title = title;
         this.startedAt = LocalDateTime.now();
+        this.relayTree = new RelayTree(hostId, hostFanout);
     }
 
     // -------------------------------------------------------------------------
@@ -50,14 +79,6 @@ public class LiveStream {
         participantNames.put(userId, displayName);
     }
 
-    public void removeParticipant(Long userId) {
-        SseEmitter emitter = emitters.remove(userId);
-        participantNames.remove(userId);
-        if (emitter != null) {
-            emitter.complete();
-        }
-    }
-
     public boolean hasParticipant(Long userId) {
         return emitters.containsKey(userId);
     }
@@ -74,23 +95,48 @@ public class LiveStream {
         return emitters.containsKey(hostId) ? total - 1 : total;
     }
 
-    public java.util.List<String> getWatcherNames() {
-        return participantNames.entrySet().stream()
-                .filter(e -> !e.getKey().equals(hostId))
-                .map(java.util.Map.Entry::getValue)
-                .toList();
-    }
-
     /**
-     * UserIds of every connected watcher (excludes the host).
-     * Used by the host when reconnecting to know who to re-offer WebRTC to.
+     * UserIds of connected watchers (excludes the host) in ascending order, one page of them.
      */
-    public java.util.List<Long> getWatcherIds() {
+    public List<Long> getWatcherIds(int page, int size) {
         return emitters.keySet().stream()
                 .filter(id -> !id.equals(hostId))
+                .sorted(Comparator.naturalOrder())
+                .skip((long) page * size)
+                .limit(size)
                 .toList();
     }
 
+    // -------------------------------------------------------------------------
+    // Room-state version
+    // -------------------------------------------------------------------------
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Changes the room state: runs {@code mutation}, raises the version and hands the
+     * mutation's result and the new version to {@code announce}, which queues the delta.
+     * All three happen under the stream's lock, so neither may block on I/O.
+     *
+     * @return the new version
+     */
+    public synchronized <T> long change(Supplier<T> mutation, ObjLongConsumer<T> announce) {
+        T result = mutation.get();
+        long next = ++version;
+        announce.accept(result, next);
+        return next;
+    }
+
+    /**
+     * Runs {@code action} with the current version under the stream's lock, e.g. to queue
+     * a snapshot that no concurrent change can overtake.
+     */
+    public synchronized void atCurrentVersion(LongConsumer action) {
+        action.accept(version);
+    }
+
     /**
      * Retrieves the emitter for a specific participant, or null if not connected.
      */
@@ -102,8 +148,8 @@ public class LiveStream {
      * Removes a participant from the internal maps <strong>without</strong> completing
      * their emitter.
      *
-     * <p>Use this in reconnect scenarios before calling {@code emitter.complete()} on
-     * the old emitter.  Because the participant is no longer present in the maps,
+     * <p>Use this before calling {@code emitter.complete()} on the removed emitter, e.g.
+     * on leave, stop or reconnect.  Because the participant is no longer present in the maps,
      * the old emitter's cleanup callback will see {@code hasParticipant == false}
      * and return early — preventing spurious {@code WATCHER_LEFT} / {@code STREAM_STOPPED}
      * broadcasts or accidental stream destruction.</p>
@@ -114,14 +160,5 @@ public class LiveStream {
         participantNames.remove(userId);
         return emitters.remove(userId);
     }
-
-    /**
-     * Completes all SSE emitters — called when the stream is stopped.
-     */
-    public void closeAll() {
-        emitters.values().forEach(SseEmitter::complete);
-        emitters.clear();
-        participantNames.clear();
-    }
 }
 
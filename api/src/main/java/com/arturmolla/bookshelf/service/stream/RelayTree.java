@@ -0,0 +1,350 @@
+package com.arturmolla.bookshelf.service.stream;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Relay topology of one live stream: who receives the media from whom.
+ * <p>
+ * Without relays every watcher pulls the stream straight from the host, so a stream is
+ * capped by the host's upload bandwidth. Here the host feeds at most {@code hostFanout}
+ * watchers and every watcher that declared a relay capacity forwards the stream to at
+ * most that many others, forming a tree with bounded fanout rooted at the host.
+ * <ul>
+ *   <li>A joining watcher takes the shallowest free slot. A relay joining while a
+ *       watcher of smaller capacity sits shallower than that slot takes its place and
+ *       adopts it (with its subtree), so the strongest relays stay near the host and the
+ *       tree stays flat.</li>
+ *   <li>When a relay leaves, its child with the most capacity takes its slot and the
+ *       other children are placed again, each with its subtree.</li>
+ *   <li>A relay reported as failed by {@value #FAILURE_QUORUM} of its children (or by its
+ *       only child) is kept as a plain watcher and its children are placed again. It gets
+ *       its capacity back when it declares it again, e.g. after reconnecting.</li>
+ *   <li>When no slot is free the watcher is attached to the host beyond its fanout,
+ *       i.e. the stream degrades to a direct connection as before.</li>
+ * </ul>
+ * Every change is returned as the list of {@link Move}s to carry out.
+ * <p>
+ * Thread-safe: all methods are synchronized on the tree.
+ */
+public class RelayTree {
+
+    /**
+     * {@code child} now receives the stream from {@code newParentId} instead of
+     * {@code oldParentId} ({@code null} for a watcher that just joined or whose parent is
+     * re-announced).
+     */
+    public record Move(long childId, Long oldParentId, long newParentId) {
+    }
+
+    /** Distinct children that must report a relay before it stops being used as one. */
+    static final int FAILURE_QUORUM = 2;
+
+    private static final class Node {
+        final long id;
+        int capacity;
+        int depth;
+        Node parent;
+        final Set<Node> children = new LinkedHashSet<>();
+        /** Children that reported this relay as failed. */
+        final Set<Long> failureReports = new HashSet<>();
+
+        Node(long id, int capacity) {
+            this.id = id;
+            this.capacity = capacity;
+        }
+
+        int free() {
+            return capacity - children.size();
+        }
+    }
+
+    /** Nodes with a free slot: shallowest first, then the one with the most room. */
+    private static final Comparator<Node> BY_SLOT = Comparator.<Node>comparingInt(n -> n.depth)
+            .thenComparing(Comparator.comparingInt(Node::free).reversed())
+            .thenComparingLong(n -> n.id);
+
+    private static final Comparator<Node> BY_DEPTH = Comparator.<Node>comparingInt(n -> n.depth)
+            .thenComparingLong(n -> n.id);
+
+    private final Node root;
+    private final Map<Long, Node> nodes = new HashMap<>();
+    private final TreeSet<Node> open = new TreeSet<>(BY_SLOT);
+    /** Watchers by relay capacity, shallowest first. */
+    private final Map<Integer, TreeSet<Node>> byCapacity = new HashMap<>();
+
+    public RelayTree(long hostId, int hostFanout) {
+        this.root = new Node(hostId, Math.max(1, hostFanout));
+        nodes.put(hostId, root);
+        list(root);
+    }
+
+    // ─── Changes ────────────────────────────────────────────────────────────
+
+    /**
+     * Places a new watcher. The first move is the watcher's own; a relay may displace a
+     * weaker watcher, which then follows as a second move.
+     *
+     * @param relayCapacity how many watchers it can forward the stream to; 0 for none
+     */
+    public synchronized List<Move> join(long watcherId, int relayCapacity) {
+        if (nodes.containsKey(watcherId)) {
+            return List.of();
+        }
+        Node node = new Node(watcherId, Math.max(0, relayCapacity));
+        nodes.put(watcherId, node);
+        List<Move> moves = new ArrayList<>();
+        place(node, null, moves);
+        return moves;
+    }
+
+    /** Removes a watcher and re-homes the watchers it relayed to. */
+    public synchronized List<Move> leave(long watcherId) {
+        Node node = nodes.get(watcherId);
+        if (node == null || node == root) {
+            return List.of();
+        }
+        nodes.remove(watcherId);
+        Node parent = node.parent;
+        detach(node);
+        unlist(node);
+
+        List<Node> orphans = release(node);
+        List<Move> moves = new ArrayList<>();
+        Node heir = orphans.stream()
+                .filter(o -> o.capacity > 0)
+                .max(Comparator.comparingInt(o -> o.capacity))
+                .orElse(null);
+        if (heir != null) {
+            orphans.remove(heir);
+            attach(heir, parent, watcherId, moves);
+        }
+        for (Node orphan : orphans) {
+            place(orphan, watcherId, moves);
+        }
+        return moves;
+    }
+
+    /**
+     * Records that {@code watcherId} lost the stream from its relay. The relay is only
+     * given up once {@value #FAILURE_QUORUM} of its current children reported it (or its
+     * only child did), so one misbehaving watcher cannot take a working relay out of the
+     * tree; until then nothing moves.
+     */
+    public synchronized List<Move> reportFailure(long watcherId) {
+        Node node = nodes.get(watcherId);
+        if (node == null || node.parent == null || node.parent == root) {
+            return List.of();
+        }
+        Node relay = node.parent;
+        relay.failureReports.add(watcherId);
+        relay.failureReports.removeIf(reporter -> relay.children.stream().noneMatch(c -> c.id == reporter));
+        if (relay.failureReports.size() < Math.min(FAILURE_QUORUM, relay.children.size())) {
+            return List.of();
+        }
+        return relayFailed(relay.id);
+    }
+
+    /**
+     * Gives a watcher back a relay capacity it lost by failing, e.g. once it reconnected
+     * and declared it again. Its free slots are used by the next watchers to join.
+     */
+    public synchronized void restore(long watcherId, int relayCapacity) {
+        Node node = nodes.get(watcherId);
+        if (node == null || node == root || relayCapacity <= node.capacity) {
+            return;
+        }
+        unlist(node);
+        node.capacity = relayCapacity;
+        node.failureReports.clear();
+        list(node);
+    }
+
+    /** Stops using {@code relayId} as a relay and re-homes the watchers it relayed to. */
+    public synchronized List<Move> relayFailed(long relayId) {
+        Node node = nodes.get(relayId);
+        if (node == null || node == root) {
+            return List.of();
+        }
+        unlist(node);
+        node.capacity = 0;
+        node.failureReports.clear();
+        List<Node> orphans = release(node);
+        list(node);
+
+        List<Move> moves = new ArrayList<>();
+        for (Node orphan : orphans) {
+            place(orphan, relayId, moves);
+        }
+        return moves;
+    }
+
+    /**
+     * The current links of a watcher, as moves without an old parent: the one to its
+     * parent and the ones to its children. Used to re-establish them after it reconnected.
+     */
+    public synchronized List<Move> links(long watcherId) {
+        Node node = nodes.get(watcherId);
+        if (node == null || node == root) {
+            return List.of();
+        }
+        List<Move> links = new ArrayList<>();
+        links.add(new Move(watcherId, null, node.parent.id));
+        node.children.forEach(child -> links.add(new Move(child.id, null, watcherId)));
+        return links;
+    }
+
+    // ─── Queries ────────────────────────────────────────────────────────────
+
+    /** The participant a watcher receives the stream from, or {@code null} if it is not in the tree. */
+    public synchronized Long parentOf(long watcherId) {
+        Node node = nodes.get(watcherId);
+        return node == null || node.parent == null ? null : node.parent.id;
+    }
+
+    /** The watchers a participant (the host or a relay) forwards the stream to. */
+    public synchronized List<Long> childrenOf(long participantId) {
+        Node node = nodes.get(participantId);
+        return node == null ? List.of() : node.children.stream().map(n -> n.id).toList();
+    }
+
+    /** Hops between the host and a watcher (1 for a direct connection), or -1 if it is not in the tree. */
+    public synchronized int depthOf(long watcherId) {
+        Node node = nodes.get(watcherId);
+        return node == null ? -1 : node.depth;
+    }
+
+    /** Number of watchers in the tree. */
+    public synchronized int size() {
+        return nodes.size() - 1;
+    }
+
+    // ─── Placement ──────────────────────────────────────────────────────────
+
+    /** Attaches a detached node, with its subtree, where it keeps the tree flattest. */
+    private void place(Node node, Long formerParentId, List<Move> moves) {
+        Node slot = bestSlot();
+        Node weaker = shallowestWeaker(node.capacity);
+        if (weaker != null && (slot == null || weaker.depth < slot.depth)) {
+            Node parent = weaker.parent;
+            detach(weaker);
+            attach(node, parent, formerParentId, moves);
+            if (node.free() > 0) {
+                attach(weaker, node, parent.id, moves);
+            } else {
+                place(weaker, parent.id, moves);
+            }
+            return;
+        }
+        attach(node, slot != null ? slot : root, formerParentId, moves);
+    }
+
+    private Node bestSlot() {
+        for (Node candidate : open) {
+            if (isRooted(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /** The shallowest placed watcher with less relay capacity than {@code capacity}. */
+    private Node shallowestWeaker(int capacity) {
+        Node shallowest = null;
+        for (Map.Entry<Integer, TreeSet<Node>> entry : byCapacity.entrySet()) {
+            if (entry.getKey() >= capacity) {
+                continue;
+            }
+            for (Node candidate : entry.getValue()) {
+                if (shallowest != null && candidate.depth >= shallowest.depth) {
+                    break;
+                }
+                if (isRooted(candidate)) {
+                    shallowest = candidate;
+                    break;
+                }
+            }
+        }
+        return shallowest;
+    }
+
+    /**
+     * Whether a node is connected to the host. While nodes are re-homed their subtrees are
+     * detached, and must not be used as slots.
+     */
+    private boolean isRooted(Node node) {
+        Node n = node;
+        while (n.parent != null) {
+            n = n.parent;
+        }
+        return n == root;
+    }
+
+    private void attach(Node child, Node parent, Long formerParentId, List<Move> moves) {
+        unlist(parent);
+        parent.children.add(child);
+        list(parent);
+        child.parent = parent;
+        setDepth(child, parent.depth + 1);
+        moves.add(new Move(child.id, formerParentId, parent.id));
+    }
+
+    private void detach(Node child) {
+        Node parent = child.parent;
+        if (parent == null) {
+            return;
+        }
+        unlist(parent);
+        parent.children.remove(child);
+        list(parent);
+        child.parent = null;
+    }
+
+    /** Detaches and returns all children of {@code node}, which must not be listed. */
+    private static List<Node> release(Node node) {
+        List<Node> orphans = new ArrayList<>(node.children);
+        for (Node orphan : orphans) {
+            orphan.parent = null;
+        }
+        node.children.clear();
+        return orphans;
+    }
+
+    private void setDepth(Node node, int depth) {
+        if (node.depth == depth) {
+            return;
+        }
+        unlist(node);
+        node.depth = depth;
+        list(node);
+        for (Node child : node.children) {
+            setDepth(child, depth + 1);
+        }
+    }
+
+    // The sets are ordered by depth and free slots, so a node leaves them before either changes.
+
+    private void list(Node node) {
+        if (node.free() > 0) {
+            open.add(node);
+        }
+        if (node != root) {
+            byCapacity.computeIfAbsent(node.capacity, c -> new TreeSet<>(BY_DEPTH)).add(node);
+        }
+    }
+
+    private void unlist(Node node) {
+        open.remove(node);
+        TreeSet<Node> peers = byCapacity.get(node.capacity);
+        if (peers != null) {
+            peers.remove(node);
+        }
+    }
+}
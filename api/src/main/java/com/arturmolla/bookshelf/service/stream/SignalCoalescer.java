@@ -0,0 +1,136 @@
+package com.arturmolla.bookshelf.service.stream;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces the ICE candidates one participant sends another into fewer SSE events.
+ * <p>
+ * A WebRTC negotiation trickles dozens of candidates per peer within a few hundred
+ * milliseconds. Candidates are queued per lane (stream, sender, target) and flushed
+ * together once {@code windowMs} has passed since the first one, or as soon as
+ * {@code maxBatch} have queued. Any other signal on the lane ({@link #inOrder}) first
+ * flushes what is queued, so the target sees signals in the order they were sent.
+ * Each lane flushes under its own lock; lanes are dropped when their stream or one of
+ * the two participants goes away ({@link #forget}).
+ */
+@Slf4j
+@Component
+public class SignalCoalescer {
+
+    private record LaneKey(long streamId, long senderId, long targetId) {
+    }
+
+    private static final class Lane {
+        final List<String> pending = new ArrayList<>();
+        Consumer<List<String>> flush;
+        ScheduledFuture<?> timer;
+    }
+
+    private final ConcurrentHashMap<LaneKey, Lane> lanes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final long windowMs;
+    private final int maxBatch;
+
+    public SignalCoalescer(@Value("${application.stream.signal-coalesce.window-ms:20}") long windowMs,
+                           @Value("${application.stream.signal-coalesce.max-batch:20}") int maxBatch,
+                           @Value("${application.stream.signal-coalesce.threads:2}") int threads) {
+        this.windowMs = windowMs;
+        this.maxBatch = maxBatch;
+        AtomicInteger counter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "signal-coalescer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a candidate on the lane. {@code flush} receives the lane's queued candidates,
+     * oldest first, on a coalescer thread or, when the batch fills up, on the caller's.
+     */
+    public void add(long streamId, long senderId, long targetId, String candidate, Consumer<List<String>> flush) {
+        Lane lane = lanes.computeIfAbsent(new LaneKey(streamId, senderId, targetId), key -> new Lane());
+        synchronized (lane) {
+            lane.pending.add(candidate);
+            lane.flush = flush;
+            if (lane.pending.size() >= maxBatch) {
+                drain(lane);
+            } else if (lane.timer == null) {
+                lane.timer = scheduler.schedule(() -> {
+                    synchronized (lane) {
+                        lane.timer = null;
+                        drain(lane);
+                    }
+                }, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** Flushes the lane's queued candidates, then runs {@code send}, both under the lane's lock. */
+    public void inOrder(long streamId, long senderId, long targetId, Runnable send) {
+        Lane lane = lanes.get(new LaneKey(streamId, senderId, targetId));
+        if (lane == null) {
+            send.run();
+            return;
+        }
+        synchronized (lane) {
+            drain(lane);
+            send.run();
+        }
+    }
+
+    /** Drops the lanes of a stream, or only those from or to {@code userId} when it is not {@code null}. */
+    public void forget(long streamId, Long userId) {
+        lanes.entrySet().removeIf(entry -> {
+            LaneKey key = entry.getKey();
+            if (key.streamId() != streamId
+                    || userId != null && key.senderId() != userId && key.targetId() != userId) {
+                return false;
+            }
+            synchronized (entry.getValue()) {
+                Lane lane = entry.getValue();
+                if (lane.timer != null) {
+                    lane.timer.cancel(false);
+                }
+                lane.pending.clear();
+            }
+            return true;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /** Hands the queued candidates to the lane's flush; the caller holds the lane's lock. */
+    private static void drain(Lane lane) {
+        if (lane.timer != null) {
+            lane.timer.cancel(false);
+            lane.timer = null;
+        }
+        if (lane.pending.isEmpty()) {
+            return;
+        }
+        List<String> batch = List.copyOf(lane.pending);
+        lane.pending.clear();
+        try {
+            lane.flush.accept(batch);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} ICE candidates: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.arturmolla.bookshelf.service.stream;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes to the participants of live streams off the caller's thread, in order per participant.
+ * <p>
+ * Room changes are versioned and announced under the stream's lock ({@link LiveStream#change});
+ * only the queueing happens there, the blocking {@code emitter.send} runs here. Each participant
+ * is served by a fixed stripe, one thread per stripe, so its events and signals arrive in the
+ * order they were queued, and a slow participant only delays the others on its stripe. A full
+ * stripe queue drops the write, as a disconnected client would miss it; a client that then sees
+ * a gap in the room-state versions re-reads the room.
+ */
+@Slf4j
+@Component
+public class StreamDelivery {
+
+    private final ExecutorService[] stripes;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public StreamDelivery(@Value("${application.stream.delivery.threads:4}") int threads,
+                          @Value("${application.stream.delivery.queue-capacity:10000}") int queueCapacity) {
+        this.stripes = new ExecutorService[threads];
+        AtomicInteger counter = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "stream-delivery-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Queues {@code write} behind everything queued for the participant before.
+     *
+     * @return {@code false} if the participant's stripe queue was full and the write dropped
+     */
+    public boolean submit(long participantId, Runnable write) {
+        try {
+            stripes[Math.floorMod(Long.hashCode(participantId), stripes.length)].execute(write);
+            return true;
+        } catch (RejectedExecutionException e) {
+            long total = dropped.incrementAndGet();
+            log.warn("Stream delivery queue full, dropped a write to userId={} ({} dropped so far)",
+                    participantId, total);
+            return false;
+        }
+    }
+
+    /** Writes dropped because a delivery queue was full. */
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        for (ExecutorService stripe : stripes) {
+            stripe.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
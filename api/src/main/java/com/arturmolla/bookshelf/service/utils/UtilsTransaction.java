@@ -0,0 +1,28 @@
+package com.arturmolla.bookshelf.service.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class UtilsTransaction {
+
+    private UtilsTransaction() {
+    }
+
+    /**
+     * Runs {@code action} once the current transaction has committed, or immediately
+     * when no transaction is active. Used to keep in-memory indexes in step with
+     * committed data only.
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+-- ============================================================
+-- V1_14__move_message_media_to_own_table.sql
+-- Moves message media bytes out of the message row into a
+-- dedicated table so that history pages, SSE payloads and
+-- last-message previews never drag image blobs along.
+--
+-- message_media shares its primary key with message (1:0..1),
+-- so the media URL can be derived from the message id alone.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS message_media (
+    message_id   BIGINT       PRIMARY KEY REFERENCES message(id) ON DELETE CASCADE,
+    data         BYTEA        NOT NULL,
+    thumbnail    BYTEA,
+    content_type VARCHAR(255),
+    file_name    VARCHAR(255),
+    file_size    BIGINT,
+    uploaded_at  TIMESTAMPTZ  NOT NULL DEFAULT NOW()
+);
+
+-- Existing media is copied as-is; thumbnails are generated only for new
+-- uploads, the media endpoint falls back to the original bytes otherwise.
+INSERT INTO message_media (message_id, data, content_type, file_name, file_size, uploaded_at)
+SELECT id, media_data, media_type, media_name, media_size, created_at
+FROM message
+WHERE media_data IS NOT NULL;
+
+ALTER TABLE message
+    DROP COLUMN media_data;
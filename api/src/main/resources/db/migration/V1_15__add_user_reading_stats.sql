@@ -0,0 +1,24 @@
+-- ============================================================
+-- V1_15__add_user_reading_stats.sql
+-- Pre-aggregated dashboard statistics, one row per user.
+--
+-- Maintained incrementally by the book workflow (borrow, return,
+-- approve return, read flag). Rows are created lazily: the first
+-- dashboard load for a user without a row rebuilds it from
+-- book / book_transaction_history, so no backfill is needed here.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS user_reading_stats (
+    user_id            BIGINT   PRIMARY KEY REFERENCES _user(id) ON DELETE CASCADE,
+    books_owned        BIGINT   NOT NULL DEFAULT 0,
+    books_read         BIGINT   NOT NULL DEFAULT 0,
+    currently_borrowed BIGINT   NOT NULL DEFAULT 0,
+    pending_returns    BIGINT   NOT NULL DEFAULT 0,
+    -- {"2026-03": 4, "2026-04": 1, ...}; only the last 12 months are kept
+    monthly_activity   JSONB    NOT NULL DEFAULT '{}'::jsonb,
+    -- {"Fantasy": 7, "Other": 2, ...}
+    genre_counts       JSONB    NOT NULL DEFAULT '{}'::jsonb,
+    current_streak     INT      NOT NULL DEFAULT 0,
+    longest_streak     INT      NOT NULL DEFAULT 0,
+    last_activity_date DATE
+);
@@ -0,0 +1,35 @@
+-- ============================================================
+-- V1_16__add_book_rating_aggregates.sql
+-- Aggregated rating columns on book.
+--
+-- rating_sum / rating_count are incremented atomically whenever
+-- feedback is saved, so book lists never read the feedback table.
+-- rating is the derived average used for sorting and filtering
+-- the catalogue; it is computed by the database.
+-- ============================================================
+
+ALTER TABLE book
+    ADD COLUMN IF NOT EXISTS rating_sum   DOUBLE PRECISION NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS rating_count INTEGER          NOT NULL DEFAULT 0;
+
+-- Backfill from existing feedback
+UPDATE book b
+SET    rating_sum   = f.note_sum,
+       rating_count = f.note_count
+FROM  (SELECT book_id, SUM(note) AS note_sum, COUNT(note) AS note_count
+       FROM   feedback
+       WHERE  note IS NOT NULL
+       GROUP BY book_id) f
+WHERE  f.book_id = b.id;
+
+ALTER TABLE book
+    ADD COLUMN IF NOT EXISTS rating DOUBLE PRECISION
+        GENERATED ALWAYS AS (
+            CASE WHEN rating_count = 0 THEN 0
+                 ELSE ROUND((rating_sum / rating_count)::NUMERIC, 1)::DOUBLE PRECISION
+            END) STORED;
+
+-- Catalogue ordering / min-rating filter over shareable, non-archived books
+CREATE INDEX IF NOT EXISTS idx_book_catalogue_rating
+    ON book (rating DESC, created_date DESC)
+    WHERE archived = FALSE AND shareable = TRUE;
@@ -0,0 +1,34 @@
+-- ============================================================
+-- V1_17__add_friendship_edges.sql
+-- Materialized accepted friendships, one row per direction.
+--
+-- user_relation keeps the request workflow; friendship holds
+-- (user_id, friend_id) AND (friend_id, user_id) for every
+-- accepted FRIEND_REQUEST, so friendship checks, friend counts
+-- and friend pages are single range scans on the primary key
+-- instead of requester/addressee OR-queries.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS friendship (
+    user_id      BIGINT    NOT NULL REFERENCES _user(id)         ON DELETE CASCADE,
+    friend_id    BIGINT    NOT NULL REFERENCES _user(id)         ON DELETE CASCADE,
+    relation_id  BIGINT    NOT NULL REFERENCES user_relation(id) ON DELETE CASCADE,
+    created_at   TIMESTAMP NOT NULL DEFAULT NOW(),
+
+    CONSTRAINT pk_friendship PRIMARY KEY (user_id, friend_id)
+);
+
+-- Reverse lookups for cascades from _user / user_relation
+CREATE INDEX IF NOT EXISTS idx_friendship_friend   ON friendship (friend_id);
+CREATE INDEX IF NOT EXISTS idx_friendship_relation ON friendship (relation_id);
+
+-- Backfill both directions from accepted friend requests
+INSERT INTO friendship (user_id, friend_id, relation_id, created_at)
+SELECT requester_id, addressee_id, id, created_at
+FROM   user_relation
+WHERE  relation_type = 'FRIEND_REQUEST' AND status = 'ACCEPTED'
+UNION ALL
+SELECT addressee_id, requester_id, id, created_at
+FROM   user_relation
+WHERE  relation_type = 'FRIEND_REQUEST' AND status = 'ACCEPTED'
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,39 @@
+-- ============================================================
+-- V1_18__add_timeline_entries.sql
+-- Per-user home timeline materialized by fan-out on write.
+--
+-- When a post is created its id is pushed to the timeline of the
+-- author, their friends and their followers. Authors with very
+-- large follower counts only fan out to friends; their followers
+-- merge those posts in at read time. Reading a page is a range
+-- scan of the primary key, newest post id first.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS timeline_entry (
+    user_id     BIGINT    NOT NULL REFERENCES _user(id)     ON DELETE CASCADE,
+    post_id     BIGINT    NOT NULL REFERENCES home_post(id) ON DELETE CASCADE,
+    author_id   BIGINT    NOT NULL,
+    created_at  TIMESTAMP NOT NULL,
+
+    CONSTRAINT pk_timeline_entry PRIMARY KEY (user_id, post_id)
+);
+
+-- Removing an author's posts from a timeline after unfollow / unfriend
+CREATE INDEX IF NOT EXISTS idx_timeline_entry_user_author ON timeline_entry (user_id, author_id);
+-- Cascade from home_post
+CREATE INDEX IF NOT EXISTS idx_timeline_entry_post        ON timeline_entry (post_id);
+
+-- Backfill existing posts: author, friends and followers
+INSERT INTO timeline_entry (user_id, post_id, author_id, created_at)
+SELECT p.author_id, p.id, p.author_id, p.created_date
+FROM   home_post p
+UNION
+SELECT f.friend_id, p.id, p.author_id, p.created_date
+FROM   home_post p
+JOIN   friendship f ON f.user_id = p.author_id
+UNION
+SELECT r.requester_id, p.id, p.author_id, p.created_date
+FROM   home_post p
+JOIN   user_relation r ON r.addressee_id = p.author_id
+                      AND r.relation_type = 'FOLLOW'
+ON CONFLICT DO NOTHING;
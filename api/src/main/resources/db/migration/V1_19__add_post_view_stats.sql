@@ -0,0 +1,18 @@
+-- ============================================================
+-- V1_19__add_post_view_stats.sql
+-- Total views and unique-viewer estimates per home post.
+--
+-- Views are buffered in memory and flushed in batches, so this
+-- table sees one write per post per flush instead of one per
+-- view. viewer_sketch holds the HyperLogLog registers of the
+-- post's viewers; unique_viewers is its estimate at the last
+-- flush so reads never have to decode the sketch.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS post_view_stats (
+    post_id        BIGINT    PRIMARY KEY REFERENCES home_post(id) ON DELETE CASCADE,
+    view_count     BIGINT    NOT NULL DEFAULT 0,
+    unique_viewers BIGINT    NOT NULL DEFAULT 0,
+    viewer_sketch  BYTEA,
+    updated_at     TIMESTAMP NOT NULL DEFAULT now()
+);
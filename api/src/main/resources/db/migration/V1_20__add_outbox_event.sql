@@ -0,0 +1,27 @@
+-- ============================================================
+-- V1_20__add_outbox_event.sql
+-- Transactional outbox for side effects of user actions.
+--
+-- Notifications and e-mails are written here in the same
+-- transaction as the action that caused them and delivered by
+-- a background worker, which deletes each row once delivered.
+-- Failed deliveries are retried with exponential backoff until
+-- max attempts, after which failed_at is set and the row is kept
+-- for inspection.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id           BIGSERIAL   PRIMARY KEY,
+    event_type   VARCHAR(30) NOT NULL,
+    payload      JSONB       NOT NULL,
+    attempts     INT         NOT NULL DEFAULT 0,
+    -- Next time the worker may pick the row up; pushed forward while a delivery is in flight
+    available_at TIMESTAMP   NOT NULL DEFAULT now(),
+    last_error   TEXT,
+    failed_at    TIMESTAMP,
+    created_at   TIMESTAMP   NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_event_due
+    ON outbox_event (available_at, id)
+    WHERE failed_at IS NULL;
@@ -0,0 +1,26 @@
+-- ============================================================
+-- V1_21__coalesce_notifications.sql
+-- One notification row per burst of likes / comments / shares.
+--
+-- Same-type events on the same reference are merged into one
+-- unread row per recipient while its window is open:
+--   actor_count   distinct actors merged into the row
+--   latest_actors [{"id": 7, "name": "Alice"}, ...], newest first
+--   window_start  when the row's group was opened; created_at
+--                 moves to the latest event so the row resurfaces
+-- ============================================================
+
+ALTER TABLE notification
+    ADD COLUMN IF NOT EXISTS actor_count   INT       NOT NULL DEFAULT 1,
+    ADD COLUMN IF NOT EXISTS latest_actors JSONB,
+    ADD COLUMN IF NOT EXISTS window_start  TIMESTAMP;
+
+UPDATE notification SET window_start = created_at WHERE window_start IS NULL;
+
+ALTER TABLE notification ALTER COLUMN window_start SET NOT NULL;
+ALTER TABLE notification ALTER COLUMN window_start SET DEFAULT NOW();
+
+-- Lookup of the open group an incoming event merges into
+CREATE INDEX IF NOT EXISTS idx_notification_open_group
+    ON notification (recipient_id, type, reference_id)
+    WHERE is_read = FALSE;
@@ -0,0 +1,76 @@
+-- ============================================================
+-- V1_22__partition_notification.sql
+-- Range-partitions notification by created_at (one partition
+-- per month) so expired months are dropped instead of deleted
+-- row by row.
+--
+-- Partitions are named notification_pYYYYMM. This migration
+-- creates one for every month that has data plus the next two;
+-- NotificationRetention keeps creating them ahead of time and
+-- drops the ones past the retention age. notification_default
+-- catches anything outside the known ranges.
+--
+-- A partitioned table's primary key must contain the partition
+-- key, hence (id, created_at); ids still come from the original
+-- sequence and stay unique.
+-- ============================================================
+
+ALTER TABLE notification RENAME TO notification_unpartitioned;
+ALTER SEQUENCE notification_id_seq OWNED BY NONE;
+
+DROP INDEX IF EXISTS idx_notification_recipient;
+DROP INDEX IF EXISTS idx_notification_unread;
+DROP INDEX IF EXISTS idx_notification_open_group;
+
+CREATE TABLE notification (
+    id             BIGINT       NOT NULL DEFAULT nextval('notification_id_seq'),
+    recipient_id   BIGINT       NOT NULL REFERENCES _user(id) ON DELETE CASCADE,
+    actor_id       BIGINT       REFERENCES _user(id) ON DELETE SET NULL,
+    type           VARCHAR(60)  NOT NULL,
+    title          VARCHAR(255) NOT NULL,
+    message        TEXT,
+    is_read        BOOLEAN      NOT NULL DEFAULT FALSE,
+    reference_id   BIGINT,
+    reference_type VARCHAR(50),
+    created_at     TIMESTAMP    NOT NULL DEFAULT NOW(),
+    actor_count    INT          NOT NULL DEFAULT 1,
+    latest_actors  JSONB,
+    window_start   TIMESTAMP    NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE notification_id_seq OWNED BY notification.id;
+
+CREATE TABLE notification_default PARTITION OF notification DEFAULT;
+
+DO $$
+DECLARE
+    month DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM notification_unpartitioned), NOW()));
+    last  DATE := date_trunc('month', NOW()) + INTERVAL '2 months';
+BEGIN
+    WHILE month <= last LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF notification FOR VALUES FROM (%L) TO (%L)',
+            'notification_p' || to_char(month, 'YYYYMM'), month, month + INTERVAL '1 month');
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO notification (id, recipient_id, actor_id, type, title, message, is_read, reference_id,
+                          reference_type, created_at, actor_count, latest_actors, window_start)
+SELECT id, recipient_id, actor_id, type, title, message, is_read, reference_id,
+       reference_type, created_at, actor_count, latest_actors, window_start
+FROM notification_unpartitioned;
+
+DROP TABLE notification_unpartitioned;
+
+CREATE INDEX IF NOT EXISTS idx_notification_recipient
+    ON notification (recipient_id, created_at DESC);
+
+CREATE INDEX IF NOT EXISTS idx_notification_unread
+    ON notification (recipient_id, is_read)
+    WHERE is_read = FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_notification_open_group
+    ON notification (recipient_id, type, reference_id)
+    WHERE is_read = FALSE;
@@ -0,0 +1,16 @@
+-- ============================================================
+-- V1_23__add_notification_digest.sql
+-- Per-user e-mail digest of unread notifications.
+--
+-- Users without a row receive no digest. last_sent_at bounds
+-- the next digest to notifications created after it.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS notification_digest (
+    user_id      BIGINT      PRIMARY KEY REFERENCES _user(id) ON DELETE CASCADE,
+    frequency    VARCHAR(10) NOT NULL,
+    last_sent_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_digest_frequency
+    ON notification_digest (frequency, user_id);
@@ -0,0 +1,28 @@
+-- ============================================================
+-- V1_24__add_account_deletion.sql
+-- Progress of background account deletions.
+--
+-- An admin delete only records a row here; a worker then
+-- deletes the user's data step by step in small chunks, each
+-- chunk committed together with the progress it made, so a
+-- deletion resumes where it stopped after a restart. The row
+-- outlives the user (no FK) so the admin can see the outcome.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS account_deletion (
+    user_id      BIGINT      PRIMARY KEY,
+    status       VARCHAR(20) NOT NULL,
+    step         VARCHAR(30) NOT NULL,
+    rows_deleted BIGINT      NOT NULL DEFAULT 0,
+    attempts     INT         NOT NULL DEFAULT 0,
+    -- Next time a worker may pick the row up; pushed forward while a worker holds it
+    available_at TIMESTAMP   NOT NULL DEFAULT now(),
+    last_error   TEXT,
+    requested_at TIMESTAMP   NOT NULL DEFAULT now(),
+    updated_at   TIMESTAMP   NOT NULL DEFAULT now(),
+    finished_at  TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_account_deletion_due
+    ON account_deletion (available_at)
+    WHERE status IN ('PENDING', 'RUNNING');
@@ -0,0 +1,19 @@
+-- ============================================================
+-- V1_25__pooled_id_sequences.sql
+-- Pooled id allocation for high-write tables.
+--
+-- The entities of these tables now take ids from their sequence
+-- with Hibernate's pooled-lo optimizer (allocationSize = 50):
+-- one nextval reserves the block [v, v + 49], so inserts no
+-- longer need the IDENTITY round trip and Hibernate can send
+-- them as JDBC batches. The sequences step by the same amount.
+-- Column defaults keep using nextval, so plain SQL inserts take
+-- a fresh block and never collide with Hibernate's ids.
+-- ============================================================
+
+ALTER SEQUENCE message_id_seq         INCREMENT BY 50;
+ALTER SEQUENCE notification_id_seq    INCREMENT BY 50;
+ALTER SEQUENCE post_like_id_seq       INCREMENT BY 50;
+ALTER SEQUENCE post_share_id_seq      INCREMENT BY 50;
+ALTER SEQUENCE post_attachment_id_seq INCREMENT BY 50;
+ALTER SEQUENCE outbox_event_id_seq    INCREMENT BY 50;
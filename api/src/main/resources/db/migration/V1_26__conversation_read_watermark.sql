@@ -0,0 +1,33 @@
+-- ============================================================
+-- V1_26__conversation_read_watermark.sql
+-- Read state as a per-participant watermark on conversation.
+--
+-- userN_last_read_id is the id of the newest message userN has
+-- read in the conversation; every message of the other participant
+-- up to it counts as read. Opening a conversation moves one
+-- watermark instead of rewriting message rows, and a read receipt
+-- is a single "read up to" event. Message ids of a conversation
+-- grow in send order (V1_25 sequences, one writer per instance).
+-- ============================================================
+
+ALTER TABLE conversation
+    ADD COLUMN IF NOT EXISTS user1_last_read_id BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS user2_last_read_id BIGINT NOT NULL DEFAULT 0;
+
+-- Each watermark starts at the newest message of the other participant already read
+UPDATE conversation c
+SET user1_last_read_id = COALESCE((SELECT MAX(m.id) FROM message m
+                                   WHERE m.conversation_id = c.id
+                                     AND m.sender_id = c.user2_id
+                                     AND m.is_read), 0),
+    user2_last_read_id = COALESCE((SELECT MAX(m.id) FROM message m
+                                   WHERE m.conversation_id = c.id
+                                     AND m.sender_id = c.user1_id
+                                     AND m.is_read), 0);
+
+DROP INDEX IF EXISTS idx_message_unread;
+ALTER TABLE message DROP COLUMN IF EXISTS is_read;
+
+-- Unread counts scan the messages above a watermark
+CREATE INDEX IF NOT EXISTS idx_message_conversation_id
+    ON message (conversation_id, id);
@@ -0,0 +1,14 @@
+-- ============================================================
+-- V1_27__message_ids_in_commit_order.sql
+-- Message ids back to one at a time.
+--
+-- Read watermarks (V1_26) count every message above
+-- userN_last_read_id as unread, so within a conversation a
+-- message committed later must never get a smaller id. Pooled
+-- blocks (V1_25) hand each instance its own range and break
+-- that. Ids are now drawn singly, after the writer has locked
+-- the conversation row, i.e. after every earlier insert into
+-- the conversation has committed.
+-- ============================================================
+
+ALTER SEQUENCE message_id_seq INCREMENT BY 1;
@@ -0,0 +1,34 @@
+-- ============================================================
+-- V1_28__add_notification_actor.sql
+-- Distinct actors of each coalesced notification.
+--
+-- actor_count used to grow by every actor not among the row's
+-- latest_actors, so an actor returning after three others was
+-- counted again. mergeCoalesced now inserts (notification,
+-- actor) pairs here and adds only the pairs that were new.
+--
+-- No foreign key: notification's key is (id, created_at) and
+-- created_at moves with every merge. Pairs are only needed
+-- while the row's window is open; NotificationRetention
+-- deletes the older ones.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS notification_actor (
+    notification_id BIGINT    NOT NULL,
+    actor_id        BIGINT    NOT NULL,
+    added_at        TIMESTAMP NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (notification_id, actor_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_actor_added_at
+    ON notification_actor (added_at);
+
+-- Open groups keep counting from the actors they already show
+INSERT INTO notification_actor (notification_id, actor_id, added_at)
+SELECT n.id, (a ->> 'id')::BIGINT, n.window_start
+FROM   notification n
+CROSS JOIN LATERAL jsonb_array_elements(n.latest_actors) a
+WHERE  n.is_read = FALSE
+  AND  n.latest_actors IS NOT NULL
+  AND  n.window_start > NOW() - INTERVAL '1 day'
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,11 @@
+-- ============================================================
+-- V1_29__home_post_author_keyset.sql
+-- Keyset reads of an author's posts, newest first.
+--
+-- Timelines are read in slices before a post id. Posts of
+-- authors who are not fanned out are merged in by one scan per
+-- author (author_id = ? AND id < ? ORDER BY id DESC LIMIT n),
+-- which this index serves without touching other authors' posts.
+-- ============================================================
+
+CREATE INDEX IF NOT EXISTS idx_home_post_author_id ON home_post (author_id, id);
@@ -0,0 +1,12 @@
+-- ============================================================
+-- V1_30__post_children_by_post.sql
+-- Find comments and shares by the post they belong to.
+--
+-- Deleting an account removes other users' activity on the
+-- user's posts in bounded chunks before the posts themselves;
+-- each chunk joins the author's posts to their comments and
+-- shares by post_id. Likes are covered by uq_post_like.
+-- ============================================================
+
+CREATE INDEX IF NOT EXISTS idx_post_comment_post ON post_comment (post_id);
+CREATE INDEX IF NOT EXISTS idx_post_share_post   ON post_share (post_id);
@@ -0,0 +1,20 @@
+-- ============================================================
+-- V1_31__notification_actor_lookups.sql
+-- Find the notifications a user took part in as an actor.
+--
+-- Deleting an account removes the notifications the user
+-- triggered alone (actor_id) and takes the user out of the
+-- coalesced ones they took part in (latest_actors, and the
+-- pairs in notification_actor), chunk by chunk. Without these
+-- indexes each chunk would scan every partition.
+-- ============================================================
+
+CREATE INDEX IF NOT EXISTS idx_notification_actor_id
+    ON notification (actor_id)
+    WHERE actor_id IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_notification_latest_actors
+    ON notification USING GIN (latest_actors jsonb_path_ops);
+
+CREATE INDEX IF NOT EXISTS idx_notification_actor_actor
+    ON notification_actor (actor_id);
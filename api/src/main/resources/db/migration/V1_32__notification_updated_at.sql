@@ -0,0 +1,42 @@
+-- ============================================================
+-- V1_32__notification_updated_at.sql
+-- Keep the partition key of a notification fixed.
+--
+-- Coalescing used to move created_at to the latest merged
+-- event, so every merge could move the row to another
+-- partition. created_at now stays as the row was created and
+-- updated_at carries the latest event for ordering, digests and
+-- replay.
+--
+-- With the key fixed, notification_actor references its
+-- notification again (dropped in V1_28): the pairs carry the
+-- notification's created_at and go with it.
+-- ============================================================
+
+ALTER TABLE notification ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+UPDATE notification SET updated_at = created_at WHERE updated_at IS NULL;
+
+ALTER TABLE notification ALTER COLUMN updated_at SET NOT NULL;
+ALTER TABLE notification ALTER COLUMN updated_at SET DEFAULT NOW();
+
+DROP INDEX IF EXISTS idx_notification_recipient;
+
+CREATE INDEX IF NOT EXISTS idx_notification_recipient
+    ON notification (recipient_id, updated_at DESC);
+
+ALTER TABLE notification_actor ADD COLUMN IF NOT EXISTS notification_created_at TIMESTAMP;
+
+UPDATE notification_actor a
+SET    notification_created_at = n.created_at
+FROM   notification n
+WHERE  n.id = a.notification_id;
+
+DELETE FROM notification_actor WHERE notification_created_at IS NULL;
+
+ALTER TABLE notification_actor ALTER COLUMN notification_created_at SET NOT NULL;
+
+ALTER TABLE notification_actor
+    ADD CONSTRAINT fk_notification_actor_notification
+    FOREIGN KEY (notification_id, notification_created_at)
+    REFERENCES notification (id, created_at) ON DELETE CASCADE;
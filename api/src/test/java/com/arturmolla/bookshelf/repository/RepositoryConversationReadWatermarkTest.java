@@ -0,0 +1,144 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.TestJpaAuditingConfig;
+import com.arturmolla.bookshelf.model.entity.EntityConversation;
+import com.arturmolla.bookshelf.model.entity.EntityMessage;
+import com.arturmolla.bookshelf.model.user.Role;
+import com.arturmolla.bookshelf.model.user.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Read state is a per-participant watermark on {@code conversation}: unread counts are
+ * the other participant's messages above it, and marking read only ever moves it forward.
+ */
+@DataJpaTest
+@Import(TestJpaAuditingConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "JASYPT_ENCRYPTOR_PASSWORD=testpassword",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false"
+})
+class RepositoryConversationReadWatermarkTest {
+
+    @Autowired
+    private RepositoryConversation repositoryConversation;
+    @Autowired
+    private RepositoryMessage repositoryMessage;
+    @Autowired
+    private RepositoryUser repositoryUser;
+    @Autowired
+    private RepositoryRole repositoryRole;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User alice;
+    private User bob;
+    private Long conversationId;
+    /** Ids of bob's three messages to alice, then alice's reply. */
+    private final List<Long> messageIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Role role = repositoryRole.save(Role.builder().name("ROLE_USER").build());
+            alice = repositoryUser.save(user("Alice", "alice@test.com", role));
+            bob = repositoryUser.save(user("Bob", "bob@test.com", role));
+            EntityConversation conversation = repositoryConversation.save(
+                    EntityConversation.builder().user1(alice).user2(bob).build());
+            conversationId = conversation.getId();
+            for (int i = 0; i < 3; i++) {
+                messageIds.add(send(conversation, bob, "hi " + i));
+            }
+            messageIds.add(send(conversation, alice, "hello"));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM EntityMessage").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityConversation").executeUpdate();
+            repositoryUser.deleteAll();
+            repositoryRole.deleteAll();
+        });
+    }
+
+    @Test
+    @DisplayName("Unread counts are the other participant's messages above the watermark")
+    void unreadCounts_followWatermark() {
+        assertThat(unreadFor(alice)).isEqualTo(3);
+        assertThat(unreadFor(bob)).isEqualTo(1);
+        assertThat(repositoryMessage.countUnreadConversationsForUser(alice.getId())).isEqualTo(1);
+
+        advance(alice, messageIds.get(1));
+
+        assertThat(unreadFor(alice)).isEqualTo(1);
+        assertThat(repositoryMessage.countUnreadConversationsForUser(alice.getId())).isEqualTo(1);
+
+        advance(alice, messageIds.get(3));
+
+        assertThat(unreadFor(alice)).isZero();
+        assertThat(repositoryMessage.countUnreadConversationsForUser(alice.getId())).isZero();
+        assertThat(repositoryMessage.countUnreadConversationsForUser(bob.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("The watermark only moves forward and only for the reader")
+    void watermark_neverMovesBack() {
+        assertThat(advance(bob, messageIds.get(3))).isEqualTo(1);
+        assertThat(advance(bob, messageIds.get(0))).isZero();
+        assertThat(advance(bob, messageIds.get(3))).isZero();
+
+        EntityConversation conversation = repositoryConversation.findById(conversationId).orElseThrow();
+        assertThat(conversation.getUser2LastReadId()).isEqualTo(messageIds.get(3));
+        assertThat(conversation.getUser1LastReadId()).isZero();
+    }
+
+    private long unreadFor(User user) {
+        EntityConversation conversation = repositoryConversation.findById(conversationId).orElseThrow();
+        long lastRead = user.getId().equals(alice.getId())
+                ? conversation.getUser1LastReadId() : conversation.getUser2LastReadId();
+        return repositoryMessage.countUnreadForUser(conversationId, user.getId(), lastRead);
+    }
+
+    private Integer advance(User reader, long messageId) {
+        return transactionTemplate.execute(status ->
+                repositoryConversation.advanceReadWatermark(conversationId, reader.getId(), messageId));
+    }
+
+    private Long send(EntityConversation conversation, User sender, String content) {
+        EntityMessage message = EntityMessage.builder().conversation(conversation).sender(sender).content(content).build();
+        entityManager.persist(message);
+        entityManager.flush();
+        return message.getId();
+    }
+
+    private static User user(String firstname, String email, Role role) {
+        return User.builder()
+                .firstname(firstname).lastname("User")
+                .email(email)
+                .password("$2a$10$dummyhash")
+                .roles(List.of(role))
+                .enabled(true)
+                .build();
+    }
+}
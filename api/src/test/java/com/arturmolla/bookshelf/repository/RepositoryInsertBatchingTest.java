@@ -0,0 +1,204 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.TestJpaAuditingConfig;
+import com.arturmolla.bookshelf.model.entity.EntityConversation;
+import com.arturmolla.bookshelf.model.entity.EntityHomePost;
+import com.arturmolla.bookshelf.model.entity.EntityMessage;
+import com.arturmolla.bookshelf.model.entity.EntityNotification;
+import com.arturmolla.bookshelf.model.entity.EntityPostAttachment;
+import com.arturmolla.bookshelf.model.enums.NotificationType;
+import com.arturmolla.bookshelf.model.user.Role;
+import com.arturmolla.bookshelf.model.user.User;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark-style check that bulk inserts into the high-write tables are batched.
+ * <p>
+ * With pooled sequences (allocation 50) and {@code hibernate.jdbc.batch_size=50}, inserting
+ * {@value #ROWS} rows takes a handful of prepared statements: two sequence calls and one
+ * statement per JDBC batch. With IDENTITY ids it took one statement per row. The counts and
+ * timings are logged so a regression is visible in the test output.
+ * <p>
+ * Message ids are drawn one at a time (V1_27), so messages add one sequence call per row;
+ * the inserts themselves are still batched.
+ */
+@Slf4j
+@DataJpaTest
+@Import(TestJpaAuditingConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "JASYPT_ENCRYPTOR_PASSWORD=testpassword",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Same as application.yml, which the test classpath's application.yml shadows
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.jdbc.batch_versioned_data=true",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "spring.jpa.properties.hibernate.order_updates=true",
+        "spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=pooled-lo"
+})
+class RepositoryInsertBatchingTest {
+
+    private static final int ROWS = 100;
+
+    /** Sequence calls plus one statement per batch, with headroom for the parent row. */
+    private static final long MAX_STATEMENTS = 8;
+
+    @Autowired
+    private RepositoryNotification repositoryNotification;
+    @Autowired
+    private RepositoryHomePost repositoryHomePost;
+    @Autowired
+    private RepositoryUser repositoryUser;
+    @Autowired
+    private RepositoryRole repositoryRole;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User author;
+    private User friend;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Role role = repositoryRole.save(Role.builder().name("ROLE_USER").build());
+            author = repositoryUser.save(user("Batch", "batch-author@test.com", role));
+            friend = repositoryUser.save(user("Friend", "batch-friend@test.com", role));
+        });
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(author, null, author.getAuthorities()));
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createQuery("DELETE FROM EntityNotification").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityMessage").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityConversation").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityPostAttachment").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityHomePost").executeUpdate();
+            repositoryUser.deleteAll();
+            repositoryRole.deleteAll();
+        });
+    }
+
+    @Test
+    @DisplayName("Bulk notification inserts are sent as JDBC batches")
+    void notifications_areInsertedInBatches() {
+        List<EntityNotification> notifications = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            notifications.add(EntityNotification.builder()
+                    .recipient(author)
+                    .actor(friend)
+                    .type(NotificationType.POST_LIKED)
+                    .title("Liked")
+                    .message("Friend liked your post " + i)
+                    .referenceId((long) i)
+                    .build());
+        }
+
+        long statements = measure("notification", () -> repositoryNotification.saveAll(notifications));
+
+        assertThat(repositoryNotification.count()).isEqualTo(ROWS);
+        assertThat(statements).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    @Test
+    @DisplayName("Bulk message inserts are sent as JDBC batches")
+    void messages_areInsertedInBatches() {
+        EntityConversation conversation = transactionTemplate.execute(status -> {
+            EntityConversation created = EntityConversation.builder().user1(author).user2(friend).build();
+            entityManager.persist(created);
+            return created;
+        });
+
+        long statements = measure("message", () -> {
+            EntityConversation managed = entityManager.merge(conversation);
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(EntityMessage.builder()
+                        .conversation(managed)
+                        .sender(i % 2 == 0 ? author : friend)
+                        .content("message " + i)
+                        .build());
+            }
+        });
+
+        Long stored = transactionTemplate.execute(status ->
+                entityManager.createQuery("SELECT COUNT(m) FROM EntityMessage m", Long.class).getSingleResult());
+        assertThat(stored).isEqualTo(ROWS);
+        // One sequence call per row, and the merge selects the conversation once
+        assertThat(statements).isLessThanOrEqualTo(ROWS + MAX_STATEMENTS + 1);
+    }
+
+    @Test
+    @DisplayName("Attachments cascaded from a new post are sent as JDBC batches")
+    void attachments_areInsertedInBatches() {
+        EntityHomePost post = EntityHomePost.builder().title("Batch").content("attachments").author(author).build();
+        for (int i = 0; i < ROWS; i++) {
+            post.getAttachments().add(EntityPostAttachment.builder()
+                    .post(post)
+                    .data(new byte[16])
+                    .contentType("image/png")
+                    .fileName("a" + i + ".png")
+                    .fileSize(16L)
+                    .uploadedAt(LocalDateTime.now())
+                    .build());
+        }
+
+        long statements = measure("post_attachment", () -> repositoryHomePost.save(post));
+
+        Long stored = transactionTemplate.execute(status ->
+                entityManager.createQuery("SELECT COUNT(a) FROM EntityPostAttachment a", Long.class).getSingleResult());
+        assertThat(stored).isEqualTo(ROWS);
+        assertThat(statements).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    /** Runs {@code work} in one transaction and returns the statements Hibernate prepared for it. */
+    private long measure(String table, Runnable work) {
+        statistics.clear();
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> work.run());
+        long micros = (System.nanoTime() - started) / 1_000;
+        long statements = statistics.getPrepareStatementCount();
+        log.info("Inserted {} {} rows with {} prepared statements in {} µs", ROWS, table, statements, micros);
+        return statements;
+    }
+
+    private static User user(String firstname, String email, Role role) {
+        return User.builder()
+                .firstname(firstname).lastname("User")
+                .email(email)
+                .password("$2a$10$dummyhash")
+                .roles(List.of(role))
+                .enabled(true)
+                .build();
+    }
+}
@@ -0,0 +1,232 @@
+package com.arturmolla.bookshelf.repository;
+
+import com.arturmolla.bookshelf.TestJpaAuditingConfig;
+import com.arturmolla.bookshelf.model.entity.EntityBookPdf;
+import com.arturmolla.bookshelf.model.entity.EntityConversation;
+import com.arturmolla.bookshelf.model.entity.EntityHomePost;
+import com.arturmolla.bookshelf.model.entity.EntityMessage;
+import com.arturmolla.bookshelf.model.entity.EntityMessageMedia;
+import com.arturmolla.bookshelf.model.entity.EntityPostAttachment;
+import com.arturmolla.bookshelf.model.user.Role;
+import com.arturmolla.bookshelf.model.user.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that build-time bytecode enhancement makes blob columns genuinely lazy:
+ * metadata-only operations must never select {@code data} / {@code thumbnail}.
+ * Every SQL statement Hibernate prepares is captured by {@link SqlCapture}.
+ * Blob sizes stay below H2's default VARBINARY(255) since the schema is generated.
+ */
+@DataJpaTest
+@Import(TestJpaAuditingConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "JASYPT_ENCRYPTOR_PASSWORD=testpassword",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.arturmolla.bookshelf.repository.RepositoryLazyBlobLoadingTest$SqlCapture"
+})
+class RepositoryLazyBlobLoadingTest {
+
+    private static final Pattern BLOB_COLUMN = Pattern.compile("\\.(data|thumbnail)\\b");
+
+    @Autowired
+    private RepositoryBookPdf repositoryBookPdf;
+    @Autowired
+    private RepositoryHomePost repositoryHomePost;
+    @Autowired
+    private RepositoryMessageMedia repositoryMessageMedia;
+    @Autowired
+    private RepositoryUser repositoryUser;
+    @Autowired
+    private RepositoryRole repositoryRole;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        author = transactionTemplate.execute(status -> {
+            Role role = repositoryRole.save(Role.builder().name("ROLE_USER").build());
+            return repositoryUser.save(User.builder()
+                    .firstname("Blob").lastname("Owner")
+                    .email("blob-owner@test.com")
+                    .password("$2a$10$dummyhash")
+                    .roles(List.of(role))
+                    .enabled(true)
+                    .build());
+        });
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(author, null, author.getAuthorities()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        transactionTemplate.execute(status -> {
+            entityManager.createQuery("DELETE FROM EntityMessageMedia").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityMessage").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityConversation").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityPostAttachment").executeUpdate();
+            entityManager.createQuery("DELETE FROM EntityHomePost").executeUpdate();
+            repositoryBookPdf.deleteAll();
+            repositoryUser.deleteAll();
+            repositoryRole.deleteAll();
+            return null;
+        });
+    }
+
+    @Test
+    @DisplayName("Book PDF metadata and existence checks do not select the PDF bytes")
+    void bookPdf_metadataOnly_doesNotSelectData() {
+        transactionTemplate.execute(status -> repositoryBookPdf.save(EntityBookPdf.builder()
+                .bookId(42L)
+                .data(new byte[200])
+                .contentType("application/pdf")
+                .fileName("book.pdf")
+                .fileSize(200L)
+                .uploadedAt(LocalDateTime.now())
+                .build()));
+
+        SqlCapture.clear();
+        Long size = transactionTemplate.execute(status -> {
+            assertThat(repositoryBookPdf.existsByBookId(42L)).isTrue();
+            return repositoryBookPdf.findByBookId(42L).orElseThrow().getFileSize();
+        });
+
+        assertThat(size).isEqualTo(200L);
+        assertThat(SqlCapture.blobSelects()).isEmpty();
+
+        SqlCapture.clear();
+        byte[] data = transactionTemplate.execute(status ->
+                repositoryBookPdf.findByBookId(42L).orElseThrow().getData());
+
+        assertThat(data).hasSize(200);
+        assertThat(SqlCapture.blobSelects()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Listing and removing post attachments does not select attachment bytes")
+    void postAttachments_listAndRemove_doNotSelectData() {
+        Long postId = transactionTemplate.execute(status -> {
+            EntityHomePost post = EntityHomePost.builder().title("Lazy").content("blobs").author(author).build();
+            for (int i = 0; i < 3; i++) {
+                post.getAttachments().add(EntityPostAttachment.builder()
+                        .post(post)
+                        .data(new byte[100])
+                        .contentType("image/png")
+                        .fileName("a" + i + ".png")
+                        .fileSize(100L)
+                        .uploadedAt(LocalDateTime.now())
+                        .build());
+            }
+            return repositoryHomePost.save(post).getId();
+        });
+
+        SqlCapture.clear();
+        transactionTemplate.execute(status -> {
+            EntityHomePost post = repositoryHomePost.findById(postId).orElseThrow();
+            assertThat(post.getAttachments()).extracting(EntityPostAttachment::getFileName)
+                    .containsExactlyInAnyOrder("a0.png", "a1.png", "a2.png");
+            Long firstId = post.getAttachments().getFirst().getId();
+            post.getAttachments().removeIf(a -> a.getId().equals(firstId));
+            repositoryHomePost.saveAndFlush(post);
+            return null;
+        });
+
+        assertThat(SqlCapture.blobSelects()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Loading a message thumbnail does not select the original media bytes")
+    void messageMedia_thumbnail_doesNotSelectOriginal() {
+        Long messageId = transactionTemplate.execute(status -> {
+            User friend = repositoryUser.save(User.builder()
+                    .firstname("Chat").lastname("Friend")
+                    .email("blob-friend@test.com")
+                    .password("$2a$10$dummyhash")
+                    .roles(List.of())
+                    .enabled(true)
+                    .build());
+            EntityConversation conversation = EntityConversation.builder().user1(author).user2(friend).build();
+            entityManager.persist(conversation);
+            EntityMessage message = EntityMessage.builder()
+                    .conversation(conversation)
+                    .sender(author)
+                    .content("")
+                    .mediaType("image/png")
+                    .mediaSize(240L)
+                    .build();
+            entityManager.persist(message);
+            repositoryMessageMedia.save(EntityMessageMedia.builder()
+                    .message(message)
+                    .data(new byte[240])
+                    .thumbnail(new byte[60])
+                    .contentType("image/png")
+                    .fileSize(240L)
+                    .build());
+            return message.getId();
+        });
+
+        SqlCapture.clear();
+        byte[] thumbnail = transactionTemplate.execute(status ->
+                repositoryMessageMedia.findById(messageId).orElseThrow().getThumbnail());
+
+        assertThat(thumbnail).hasSize(60);
+        assertThat(SqlCapture.blobSelects())
+                .singleElement()
+                .satisfies(sql -> assertThat(sql).contains("thumbnail").doesNotContainPattern("\\.data\\b"));
+    }
+
+    /**
+     * Records every prepared SQL statement. Instantiated by Hibernate by class name,
+     * hence public with a no-arg constructor and static storage.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+        static void clear() {
+            STATEMENTS.clear();
+        }
+
+        /** Captured SELECT statements that read a blob column. */
+        static List<String> blobSelects() {
+            return STATEMENTS.stream()
+                    .filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+                    .filter(sql -> BLOB_COLUMN.matcher(sql).find())
+                    .toList();
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.arturmolla.bookshelf.model.enums.AppFeedbackStatus;
 import com.arturmolla.bookshelf.model.user.Role;
 import com.arturmolla.bookshelf.model.user.User;
 import com.arturmolla.bookshelf.repository.RepositoryAppFeedback;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
 import com.arturmolla.bookshelf.service.mapper.MapperAppFeedback;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -53,6 +54,12 @@ class AppFeedbackServiceTest {
     @Mock
     private MapperAppFeedback mapperAppFeedback;
 
+    @Mock
+    private RepositoryUser repositoryUser;
+
+    @Mock
+    private ServiceNotification serviceNotification;
+
     @InjectMocks
     private AppFeedbackService appFeedbackService;
 
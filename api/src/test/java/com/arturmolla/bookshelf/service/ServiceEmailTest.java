@@ -0,0 +1,96 @@
+package com.arturmolla.bookshelf.service;
+
+import com.arturmolla.bookshelf.service.outbox.EmailEvent;
+import com.arturmolla.bookshelf.service.outbox.ServiceOutbox;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+/** {@link ServiceEmail#deliverAll}: which e-mails of a batch are reported as failed, by index. */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceEmailTest {
+
+    @Mock private JavaMailSender mailSender;
+    @Mock private SpringTemplateEngine templateEngine;
+    @Mock private ServiceOutbox serviceOutbox;
+
+    private ServiceEmail serviceEmail;
+
+    @BeforeEach
+    void setUp() {
+        serviceEmail = new ServiceEmail(mailSender, templateEngine, serviceOutbox);
+        when(mailSender.createMimeMessage()).thenAnswer(call -> new MimeMessage(Session.getInstance(new Properties())));
+        when(templateEngine.process(any(String.class), any(IContext.class))).thenReturn("<p>hi</p>");
+        when(templateEngine.process(eq("broken"), any(IContext.class))).thenThrow(new IllegalStateException("bad template"));
+    }
+
+    private static EmailEvent email(String subject, String template) {
+        return new EmailEvent(subject + "@x", subject, template, Map.of());
+    }
+
+    private static List<EmailEvent> batch() {
+        return List.of(email("a", "digest"), email("b", "broken"), email("c", "digest"), email("d", "digest"));
+    }
+
+    @Test
+    @DisplayName("Render failures and the messages the server rejected are reported at their own index")
+    void failures_areMappedToTheirIndex() {
+        doAnswer(call -> {
+            for (Object argument : call.getArguments()) {
+                MimeMessage message = (MimeMessage) argument;
+                if ("c".equals(message.getSubject())) {
+                    throw new MailSendException("rejected", null, Map.<Object, Exception>of(message, new IllegalStateException("mailbox full")));
+                }
+            }
+            return null;
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        Map<Integer, Exception> failures = serviceEmail.deliverAll(batch());
+
+        assertThat(failures).containsOnlyKeys(1, 2);
+        assertThat(failures.get(1)).hasMessage("bad template");
+        assertThat(failures.get(2)).hasMessage("mailbox full");
+    }
+
+    @Test
+    @DisplayName("A failure that lists no message fails every rendered e-mail")
+    void connectionFailure_failsAllRendered() {
+        doThrow(new MailSendException("connection refused")).when(mailSender).send(any(MimeMessage[].class));
+
+        assertThat(serviceEmail.deliverAll(batch())).containsOnlyKeys(0, 1, 2, 3);
+    }
+
+    @Test
+    @DisplayName("Any other mail failure fails every rendered e-mail, and all sent means no failures")
+    void otherFailures_andSuccess() {
+        doThrow(new MailAuthenticationException("bad credentials")).when(mailSender).send(any(MimeMessage[].class));
+        assertThat(serviceEmail.deliverAll(batch())).containsOnlyKeys(0, 1, 2, 3);
+
+        doAnswer(call -> null).when(mailSender).send(any(MimeMessage[].class));
+        assertThat(serviceEmail.deliverAll(List.of(email("a", "digest")))).isEmpty();
+    }
+}
@@ -0,0 +1,154 @@
+package com.arturmolla.bookshelf.service;
+
+import com.arturmolla.bookshelf.model.entity.EntityNotification;
+import com.arturmolla.bookshelf.model.enums.NotificationType;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import com.arturmolla.bookshelf.repository.RepositoryNotificationDigest;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.messaging.SseDispatcher;
+import com.arturmolla.bookshelf.service.notification.NotificationRetention;
+import com.arturmolla.bookshelf.service.outbox.NotificationCoalescer;
+import com.arturmolla.bookshelf.service.outbox.NotificationEvent;
+import com.arturmolla.bookshelf.service.outbox.ServiceOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link ServiceNotification#mergeCoalesced} against an in-memory stand-in for the
+ * notification and {@code notification_actor} tables.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceNotificationCoalesceTest {
+
+    private static final long RECIPIENT = 99L;
+    private static final long POST = 10L;
+
+    @Mock private RepositoryNotification repositoryNotification;
+    @Mock private RepositoryUser repositoryUser;
+    @Mock private ServiceOutbox serviceOutbox;
+    @Mock private SseDispatcher sseDispatcher;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private RepositoryNotificationDigest repositoryNotificationDigest;
+    @Mock private NotificationRetention notificationRetention;
+
+    private final NotificationCoalescer coalescer = new NotificationCoalescer();
+    private final List<EntityNotification> rows = new ArrayList<>();
+    /** (notification id, actor id) pairs. */
+    private final Set<List<Long>> actorPairs = new HashSet<>();
+    private ServiceNotification serviceNotification;
+
+    @BeforeEach
+    void setUp() {
+        serviceNotification = new ServiceNotification(repositoryNotification, repositoryUser, serviceOutbox,
+                sseDispatcher, eventPublisher, coalescer, repositoryNotificationDigest, notificationRetention);
+        ReflectionTestUtils.setField(serviceNotification, "coalesceWindowMinutes", 60L);
+
+        when(repositoryUser.findExistingIds(anyCollection())).thenAnswer(call -> List.copyOf(call.<Collection<Long>>getArgument(0)));
+        when(repositoryUser.getReferenceById(anyLong())).thenAnswer(call -> User.builder().id(call.getArgument(0)).build());
+        when(repositoryNotification.findOpenGroups(anyCollection(), anyCollection(), anyCollection(), any()))
+                .thenAnswer(call -> List.copyOf(rows));
+        when(repositoryNotification.save(any(EntityNotification.class))).thenAnswer(call -> {
+            EntityNotification row = call.getArgument(0);
+            row.setId(500L + rows.size());
+            rows.add(row);
+            return row;
+        });
+        when(repositoryNotification.addActors(anyLong(), any(), anyCollection())).thenAnswer(call -> {
+            Long notificationId = call.getArgument(0);
+            Collection<Long> actorIds = call.getArgument(2);
+            return (int) actorIds.stream().filter(actor -> actorPairs.add(List.of(notificationId, actor))).count();
+        });
+    }
+
+    private void like(long actorId) {
+        coalescer.add(new NotificationEvent(RECIPIENT, actorId, "User " + actorId, NotificationType.POST_LIKED,
+                "User " + actorId + " liked your post", "liked your post", POST, "POST"));
+        serviceNotification.mergeCoalesced(coalescer.drain());
+    }
+
+    @Test
+    @DisplayName("An actor returning after more than the latest three others is counted once")
+    void returningActor_isCountedOnce() {
+        for (long actor : new long[]{1, 2, 3, 4, 5, 1}) {
+            like(actor);
+        }
+
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.getActorCount()).isEqualTo(5);
+            assertThat(row.getTitle()).isEqualTo("User 1 and 4 others liked your post");
+            assertThat(row.getLatestActors()).extracting(actor -> actor.id()).containsExactly(1L, 5L, 4L);
+        });
+    }
+
+    @Test
+    @DisplayName("Merging keeps the partition key and moves only updated_at")
+    void merge_keepsCreatedAt() throws InterruptedException {
+        like(1);
+        EntityNotification row = rows.getFirst();
+        LocalDateTime createdAt = row.getCreatedAt();
+        Thread.sleep(2);
+        like(2);
+
+        assertThat(row.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(row.getUpdatedAt()).isAfter(createdAt);
+    }
+
+    @Test
+    @DisplayName("Several actors in one flush add only the ones not seen before")
+    void batchOfActors_addsOnlyNewOnes() {
+        like(1);
+        coalescer.add(new NotificationEvent(RECIPIENT, 2L, "User 2", NotificationType.POST_LIKED,
+                "User 2 liked your post", "liked your post", POST, "POST"));
+        coalescer.add(new NotificationEvent(RECIPIENT, 1L, "User 1", NotificationType.POST_LIKED,
+                "User 1 liked your post", "liked your post", POST, "POST"));
+        serviceNotification.mergeCoalesced(coalescer.drain());
+
+        assertThat(rows).singleElement()
+                .satisfies(row -> assertThat(row.getActorCount()).isEqualTo(2));
+    }
+
+    @Test
+    @DisplayName("A deleted actor leaves the latest actors, the title and the count of other users' notifications")
+    void forgetActor_scrubsCoalescedRows() {
+        for (long actor : new long[]{1, 2, 3}) {
+            like(actor);
+        }
+        when(repositoryNotification.findWithLatestActor(anyLong(), anyInt())).thenAnswer(call -> rows.stream()
+                .filter(row -> row.getLatestActors().stream().anyMatch(a -> a.id().equals(call.getArgument(0))))
+                .toList());
+
+        assertThat(serviceNotification.forgetActor(3L, 10)).isEqualTo(1);
+
+        assertThat(rows).singleElement().satisfies(row -> {
+            assertThat(row.getActorCount()).isEqualTo(2);
+            assertThat(row.getTitle()).isEqualTo("User 2 and 1 other liked your post");
+            assertThat(row.getLatestActors()).extracting(actor -> actor.id()).containsExactly(2L, 1L);
+            assertThat(row.getActor().getId()).isEqualTo(2L);
+            assertThat(row.getMessage()).isNull();
+        });
+    }
+}
@@ -0,0 +1,177 @@
+package com.arturmolla.bookshelf.service;
+
+import com.arturmolla.bookshelf.model.entity.EntityUserReadingStats;
+import com.arturmolla.bookshelf.repository.RepositoryBook;
+import com.arturmolla.bookshelf.repository.RepositoryBookTransactionHistory;
+import com.arturmolla.bookshelf.repository.RepositoryUserReadingStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceReadingStatsTest {
+
+    @Mock
+    private RepositoryUserReadingStats repositoryStats;
+
+    @Mock
+    private RepositoryBook repositoryBook;
+
+    @Mock
+    private RepositoryBookTransactionHistory repositoryTransaction;
+
+    @InjectMocks
+    private ServiceReadingStats serviceReadingStats;
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    // -----------------------------------------------------------------------
+    // Streak
+    // -----------------------------------------------------------------------
+
+    @Nested
+    @DisplayName("Reading streak")
+    class Streak {
+
+        @Test
+        @DisplayName("Consecutive days extend the streak, a gap resets it")
+        void consecutiveDays_extendStreak_gapResets() {
+            EntityUserReadingStats stats = EntityUserReadingStats.builder().userId(1L).build();
+
+            ServiceReadingStats.recordActiveDay(stats, TODAY.minusDays(5));
+            ServiceReadingStats.recordActiveDay(stats, TODAY.minusDays(4));
+            ServiceReadingStats.recordActiveDay(stats, TODAY.minusDays(3));
+            assertThat(stats.getCurrentStreak()).isEqualTo(3);
+
+            ServiceReadingStats.recordActiveDay(stats, TODAY.minusDays(1));
+            assertThat(stats.getCurrentStreak()).isEqualTo(1);
+            assertThat(stats.getLongestStreak()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Several activities on the same day count once")
+        void sameDay_countsOnce() {
+            EntityUserReadingStats stats = EntityUserReadingStats.builder().userId(1L).build();
+
+            ServiceReadingStats.recordActiveDay(stats, TODAY);
+            ServiceReadingStats.recordActiveDay(stats, TODAY);
+
+            assertThat(stats.getCurrentStreak()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Shown streak drops to 0 once a full day passes without activity")
+        void effectiveStreak_expiresAfterMissedDay() {
+            EntityUserReadingStats stats = EntityUserReadingStats.builder()
+                    .userId(1L).currentStreak(4).lastActivityDate(TODAY.minusDays(1)).build();
+            assertThat(ServiceReadingStats.effectiveStreak(stats, TODAY)).isEqualTo(4);
+
+            stats.setLastActivityDate(TODAY.minusDays(2));
+            assertThat(ServiceReadingStats.effectiveStreak(stats, TODAY)).isZero();
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // Buckets
+    // -----------------------------------------------------------------------
+
+    @Test
+    @DisplayName("Finished books are bucketed by month and genre; months older than a year are pruned")
+    void recordFinished_bucketsAndPrunes() {
+        EntityUserReadingStats stats = EntityUserReadingStats.builder().userId(1L).build();
+
+        ServiceReadingStats.recordFinished(stats, TODAY.minusMonths(14), "Fantasy");
+        ServiceReadingStats.recordFinished(stats, TODAY, "Fantasy");
+        ServiceReadingStats.recordFinished(stats, TODAY, null);
+
+        assertThat(stats.getMonthlyActivity())
+                .containsOnlyKeys(TODAY.format(ServiceReadingStats.MONTH_FORMAT))
+                .containsValue(2L);
+        assertThat(stats.getGenreCounts())
+                .containsEntry("Fantasy", 2L)
+                .containsEntry(ServiceReadingStats.NO_GENRE, 1L);
+    }
+
+    // -----------------------------------------------------------------------
+    // Events
+    // -----------------------------------------------------------------------
+
+    @Test
+    @DisplayName("Events adjust the locked row in place")
+    void bookReturned_existingRows_areIncremented() {
+        EntityUserReadingStats borrower = EntityUserReadingStats.builder().userId(1L).currentlyBorrowed(2).build();
+        EntityUserReadingStats owner = EntityUserReadingStats.builder().userId(2L).build();
+        when(repositoryStats.findByUserIdForUpdate(1L)).thenReturn(Optional.of(borrower));
+        when(repositoryStats.findByUserIdForUpdate(2L)).thenReturn(Optional.of(owner));
+
+        serviceReadingStats.bookReturned(1L, 2L, "Poetry");
+
+        assertThat(borrower.getCurrentlyBorrowed()).isEqualTo(1);
+        assertThat(borrower.getGenreCounts()).containsEntry("Poetry", 1L);
+        assertThat(borrower.getCurrentStreak()).isEqualTo(1);
+        assertThat(owner.getPendingReturns()).isEqualTo(1);
+        verify(repositoryStats, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("A missing row is created and rebuilt from the source tables instead of incremented")
+    void event_missingRow_rebuildsFromSource() {
+        EntityUserReadingStats created = EntityUserReadingStats.builder().userId(1L).build();
+        when(repositoryStats.findByUserIdForUpdate(1L)).thenReturn(Optional.empty(), Optional.of(created));
+        when(repositoryStats.insertIfAbsent(1L)).thenReturn(1);
+        when(repositoryBook.countByOwnerId(1L)).thenReturn(3L);
+        when(repositoryBook.countByOwnerIdAndReadTrue(1L)).thenReturn(1L);
+        when(repositoryTransaction.findReturnedActivityByUserId(1L)).thenReturn(List.of());
+        when(repositoryBook.findReadActivityByOwnerId(1L)).thenReturn(List.of(TODAY.atStartOfDay()));
+
+        serviceReadingStats.bookAdded(1L, false);
+
+        assertThat(created.getBooksOwned()).isEqualTo(3);
+        assertThat(created.getBooksRead()).isEqualTo(1);
+        assertThat(created.getCurrentStreak()).isEqualTo(1);
+        verify(repositoryStats, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("A row another transaction created first gets the event applied instead of a second insert")
+    void event_rowCreatedConcurrently_isIncremented() {
+        EntityUserReadingStats theirs = EntityUserReadingStats.builder().userId(1L).booksOwned(3).build();
+        when(repositoryStats.findByUserIdForUpdate(1L)).thenReturn(Optional.empty(), Optional.of(theirs));
+        when(repositoryStats.insertIfAbsent(1L)).thenReturn(0);
+
+        serviceReadingStats.bookAdded(1L, false);
+
+        assertThat(theirs.getBooksOwned()).isEqualTo(4);
+        verify(repositoryBook, never()).countByOwnerId(any());
+        verify(repositoryStats, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Reading stats that another transaction is creating returns its row instead of failing")
+    void getStats_rowCreatedConcurrently_isReadBack() {
+        EntityUserReadingStats theirs = EntityUserReadingStats.builder().userId(1L).booksOwned(3).build();
+        when(repositoryStats.findById(1L)).thenReturn(Optional.empty(), Optional.of(theirs));
+        when(repositoryStats.insertIfAbsent(1L)).thenReturn(0);
+
+        assertThat(serviceReadingStats.getStats(1L)).isSameAs(theirs);
+        assertThat(theirs.getBooksOwned()).isEqualTo(3);
+        verify(repositoryStats, never()).save(any());
+    }
+}
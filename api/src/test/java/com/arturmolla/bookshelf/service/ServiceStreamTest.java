@@ -0,0 +1,196 @@
+package com.arturmolla.bookshelf.service;
+
+import com.arturmolla.bookshelf.config.WebRtcProperties;
+import com.arturmolla.bookshelf.model.dto.DtoStreamEvent;
+import com.arturmolla.bookshelf.model.enums.StreamEventType;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.service.socket.SocketSessions;
+import com.arturmolla.bookshelf.service.sse.SseAdmission;
+import com.arturmolla.bookshelf.service.stream.SignalCoalescer;
+import com.arturmolla.bookshelf.service.stream.StreamDelivery;
+import com.arturmolla.bookshelf.service.stream.StreamRegistry;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Room-state versions as each participant receives them: a snapshot, then deltas that
+ * each raise the version by exactly one. Events are written on {@link StreamDelivery}
+ * threads, so each test shuts it down (draining the queues) before looking at them.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceStreamTest {
+
+    private static final long HOST = 1L;
+
+    @Mock private WebRtcProperties webRtcProperties;
+    @Mock private SseAdmission sseAdmission;
+    @Mock private SocketSessions socketSessions;
+
+    /** Every event sent, per emitter, in the order it was sent. */
+    private final Map<SseEmitter, List<DtoStreamEvent>> sent = new ConcurrentHashMap<>();
+    /** Released to let writes of a snapshot addressed to {@link #SLOW} through. */
+    private final CountDownLatch slowWatcher = new CountDownLatch(1);
+    private static final long SLOW = 99L;
+    private StreamDelivery streamDelivery;
+    private ServiceStream serviceStream;
+
+    @BeforeEach
+    void setUp() {
+        streamDelivery = new StreamDelivery(4, 1000);
+        serviceStream = new ServiceStream(new StreamRegistry(), JsonMapper.builder().findAndAddModules().build(),
+                webRtcProperties, sseAdmission, socketSessions, new SignalCoalescer(20, 20, 1), streamDelivery) {
+            @Override
+            public void sendToOne(SseEmitter emitter, DtoStreamEvent event) {
+                if (event.type() == StreamEventType.STREAM_STATE && Long.valueOf(SLOW).equals(event.targetUserId())) {
+                    try {
+                        slowWatcher.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                sent.computeIfAbsent(emitter, e -> Collections.synchronizedList(new ArrayList<>())).add(event);
+            }
+        };
+        ReflectionTestUtils.setField(serviceStream, "hostFanout", 6);
+        ReflectionTestUtils.setField(serviceStream, "maxRelayFanout", 4);
+    }
+
+    private static Authentication as(long userId) {
+        Authentication auth = mock(Authentication.class);
+        when(auth.getPrincipal()).thenReturn(User.builder().id(userId).firstname("u" + userId).roles(List.of()).build());
+        return auth;
+    }
+
+    private void awaitDelivery() throws InterruptedException {
+        streamDelivery.shutdown();
+    }
+
+    private List<DtoStreamEvent> versioned(SseEmitter emitter) {
+        synchronized (sent.get(emitter)) {
+            return sent.get(emitter).stream().filter(event -> event.version() != null).toList();
+        }
+    }
+
+    /** The recipient's versions follow its first event one by one. */
+    private static void assertSequential(List<DtoStreamEvent> events) {
+        long first = events.getFirst().version();
+        assertThat(events).extracting(DtoStreamEvent::version)
+                .containsExactlyElementsOf(LongStream.range(first, first + events.size()).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("A joining watcher's snapshot precedes every delta, and each delta raises the version by one")
+    void snapshotThenDeltas_inVersionOrder() throws InterruptedException {
+        SseEmitter host = serviceStream.startStream("title", as(HOST));
+        SseEmitter first = serviceStream.joinStream(HOST, 0, as(2L));
+        SseEmitter second = serviceStream.joinStream(HOST, 0, as(3L));
+        serviceStream.leaveStream(HOST, as(2L));
+        serviceStream.stopStream(as(HOST));
+        awaitDelivery();
+
+        assertThat(versioned(host)).extracting(DtoStreamEvent::type).containsExactly(
+                StreamEventType.STREAM_STARTED, StreamEventType.WATCHER_JOINED, StreamEventType.WATCHER_JOINED,
+                StreamEventType.WATCHER_LEFT, StreamEventType.STREAM_STOPPED);
+        assertSequential(versioned(host));
+
+        assertThat(versioned(first)).extracting(DtoStreamEvent::type)
+                .containsExactly(StreamEventType.STREAM_STATE, StreamEventType.WATCHER_JOINED);
+        assertThat(versioned(first).getFirst().version()).isEqualTo(1);
+        assertSequential(versioned(first));
+
+        assertThat(versioned(second)).extracting(DtoStreamEvent::type).containsExactly(
+                StreamEventType.STREAM_STATE, StreamEventType.WATCHER_LEFT, StreamEventType.STREAM_STOPPED);
+        assertThat(versioned(second).getFirst().version()).isEqualTo(2);
+        assertSequential(versioned(second));
+    }
+
+    @Test
+    @DisplayName("A reconnecting watcher is announced again under a new version")
+    void reconnect_raisesVersion() throws InterruptedException {
+        SseEmitter host = serviceStream.startStream("title", as(HOST));
+        serviceStream.joinStream(HOST, 0, as(2L));
+        SseEmitter again = serviceStream.joinStream(HOST, 0, as(2L));
+        awaitDelivery();
+
+        assertThat(versioned(host)).extracting(DtoStreamEvent::version).containsExactly(0L, 1L, 2L);
+        assertThat(versioned(again)).singleElement().satisfies(snapshot -> {
+            assertThat(snapshot.type()).isEqualTo(StreamEventType.STREAM_STATE);
+            assertThat(snapshot.version()).isEqualTo(2);
+        });
+    }
+
+    @Test
+    @DisplayName("Concurrent joins reach every participant without gaps or reordering")
+    void concurrentJoins_keepEveryRecipientSequential() throws Exception {
+        SseEmitter host = serviceStream.startStream("title", as(HOST));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<SseEmitter>> joins = new ArrayList<>();
+        for (long id = 2; id < 42; id++) {
+            long watcherId = id;
+            joins.add(pool.submit(() -> serviceStream.joinStream(HOST, (int) (watcherId % 3), as(watcherId))));
+        }
+        List<SseEmitter> watchers = new ArrayList<>();
+        for (Future<SseEmitter> join : joins) {
+            watchers.add(join.get());
+        }
+        pool.shutdown();
+        awaitDelivery();
+
+        assertThat(versioned(host)).hasSize(41);
+        assertSequential(versioned(host));
+        for (SseEmitter watcher : watchers) {
+            assertThat(versioned(watcher).getFirst().type()).isEqualTo(StreamEventType.STREAM_STATE);
+            assertSequential(versioned(watcher));
+        }
+    }
+
+    @Test
+    @DisplayName("A watcher that cannot be written to holds up neither joins and leaves nor the others' events")
+    void slowWatcher_doesNotBlockTheRoom() throws InterruptedException {
+        SseEmitter host = serviceStream.startStream("title", as(HOST));
+        SseEmitter slow = serviceStream.joinStream(HOST, 0, as(SLOW));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            serviceStream.joinStream(HOST, 0, as(2L));
+            serviceStream.joinStream(HOST, 0, as(3L));
+            serviceStream.leaveStream(HOST, as(2L));
+        });
+        slowWatcher.countDown();
+        awaitDelivery();
+
+        assertThat(versioned(host)).hasSize(5);
+        assertSequential(versioned(host));
+        assertThat(versioned(slow)).extracting(DtoStreamEvent::type).containsExactly(
+                StreamEventType.STREAM_STATE, StreamEventType.WATCHER_JOINED, StreamEventType.WATCHER_JOINED,
+                StreamEventType.WATCHER_LEFT);
+        assertSequential(versioned(slow));
+    }
+}
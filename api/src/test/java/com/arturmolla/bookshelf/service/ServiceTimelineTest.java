@@ -0,0 +1,78 @@
+package com.arturmolla.bookshelf.service;
+
+import com.arturmolla.bookshelf.model.entity.EntityHomePost;
+import com.arturmolla.bookshelf.repository.RepositoryTimelineEntry;
+import com.arturmolla.bookshelf.service.social.SocialGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceTimelineTest {
+
+    @Mock private RepositoryTimelineEntry repositoryTimeline;
+    @Mock private SocialGraph socialGraph;
+
+    private ServiceTimeline serviceTimeline;
+
+    @BeforeEach
+    void setUp() {
+        serviceTimeline = new ServiceTimeline(repositoryTimeline, socialGraph);
+        ReflectionTestUtils.setField(serviceTimeline, "fanoutFollowerLimit", 100);
+        when(socialGraph.following(1L)).thenReturn(new long[]{7L, 8L});
+        when(socialGraph.followerCount(anyLong())).thenReturn(10);
+    }
+
+    private static List<EntityHomePost> posts(long newest, int count) {
+        return LongStream.range(0, count).mapToObj(i -> (EntityHomePost) EntityHomePost.builder().id(newest - i).build()).toList();
+    }
+
+    @Test
+    @DisplayName("A slice reads one row more than it returns to tell whether another follows")
+    void slice_readsOneExtraRow() {
+        when(repositoryTimeline.findTimeline(1L, Long.MAX_VALUE, Limit.of(3))).thenReturn(posts(50, 3));
+        when(repositoryTimeline.findTimeline(1L, 49L, Limit.of(3))).thenReturn(posts(48, 1));
+
+        Slice<EntityHomePost> first = serviceTimeline.getTimeline(1L, null, 2);
+        Slice<EntityHomePost> second = serviceTimeline.getTimeline(1L, 49L, 2);
+
+        assertThat(first.getContent()).extracting(EntityHomePost::getId).containsExactly(50L, 49L);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).extracting(EntityHomePost::getId).containsExactly(48L);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Followed authors that are not fanned out are merged in, friends among them are not")
+    void pullAuthors_areMergedIn() {
+        when(socialGraph.followerCount(7L)).thenReturn(500);
+        when(socialGraph.followerCount(8L)).thenReturn(500);
+        when(socialGraph.areFriends(1L, 8L)).thenReturn(true);
+        when(repositoryTimeline.findTimelineWithAuthors(1L, List.of(7L), 30L, 3)).thenReturn(posts(29, 2));
+
+        Slice<EntityHomePost> slice = serviceTimeline.getTimeline(1L, 30L, 2);
+
+        assertThat(slice.getContent()).extracting(EntityHomePost::getId).containsExactly(29L, 28L);
+        assertThat(slice.hasNext()).isFalse();
+        verify(repositoryTimeline, never()).findTimeline(anyLong(), anyLong(), any());
+    }
+}
@@ -0,0 +1,192 @@
+package com.arturmolla.bookshelf.service.account;
+
+import com.arturmolla.bookshelf.model.entity.EntityAccountDeletion;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStatus;
+import com.arturmolla.bookshelf.model.enums.AccountDeletionStep;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryAccountDeletion;
+import com.arturmolla.bookshelf.repository.RepositoryBook;
+import com.arturmolla.bookshelf.repository.RepositoryBookCover;
+import com.arturmolla.bookshelf.repository.RepositoryBookPdf;
+import com.arturmolla.bookshelf.repository.RepositoryBookTransactionHistory;
+import com.arturmolla.bookshelf.repository.RepositoryConversation;
+import com.arturmolla.bookshelf.repository.RepositoryFeedback;
+import com.arturmolla.bookshelf.repository.RepositoryHomePost;
+import com.arturmolla.bookshelf.repository.RepositoryMessage;
+import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import com.arturmolla.bookshelf.repository.RepositoryPostComment;
+import com.arturmolla.bookshelf.repository.RepositoryPostLike;
+import com.arturmolla.bookshelf.repository.RepositoryPostShare;
+import com.arturmolla.bookshelf.repository.RepositoryTimelineEntry;
+import com.arturmolla.bookshelf.repository.RepositoryToken;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.repository.RepositoryUserProfilePic;
+import com.arturmolla.bookshelf.repository.RepositoryUserRelation;
+import com.arturmolla.bookshelf.repository.RepositoryUserWallpaper;
+import com.arturmolla.bookshelf.service.ServiceNotification;
+import com.arturmolla.bookshelf.service.ServiceReadingStats;
+import com.arturmolla.bookshelf.service.feed.TrendingIndex;
+import com.arturmolla.bookshelf.service.social.SocialGraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AccountDeletionWorkerTest {
+
+    private static final long USER_ID = 7L;
+    private static final int CHUNK = 2;
+    private static final int PARENT_CHUNK = 1;
+
+    @Mock private RepositoryAccountDeletion repositoryAccountDeletion;
+    @Mock private RepositoryUser repositoryUser;
+    @Mock private RepositoryToken repositoryToken;
+    @Mock private RepositoryNotification repositoryNotification;
+    @Mock private RepositoryUserRelation repositoryUserRelation;
+    @Mock private RepositoryTimelineEntry repositoryTimelineEntry;
+    @Mock private RepositoryPostComment repositoryPostComment;
+    @Mock private RepositoryPostLike repositoryPostLike;
+    @Mock private RepositoryPostShare repositoryPostShare;
+    @Mock private RepositoryHomePost repositoryHomePost;
+    @Mock private RepositoryMessage repositoryMessage;
+    @Mock private RepositoryConversation repositoryConversation;
+    @Mock private RepositoryBookTransactionHistory repositoryBookTransactionHistory;
+    @Mock private RepositoryFeedback repositoryFeedback;
+    @Mock private RepositoryBook repositoryBook;
+    @Mock private RepositoryBookCover repositoryBookCover;
+    @Mock private RepositoryBookPdf repositoryBookPdf;
+    @Mock private RepositoryUserProfilePic repositoryUserProfilePic;
+    @Mock private RepositoryUserWallpaper repositoryUserWallpaper;
+    @Mock private ServiceNotification serviceNotification;
+    @Mock private ServiceReadingStats serviceReadingStats;
+    @Mock private SocialGraph socialGraph;
+    @Mock private TrendingIndex trendingIndex;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private EntityAccountDeletion job;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        job = EntityAccountDeletion.builder()
+                .userId(USER_ID)
+                .status(AccountDeletionStatus.PENDING)
+                .step(AccountDeletionStep.NOTIFICATIONS)
+                .availableAt(now)
+                .requestedAt(now)
+                .updatedAt(now)
+                .build();
+        when(repositoryAccountDeletion.lockDue(any())).thenReturn(Optional.of(job), Optional.empty());
+        when(repositoryAccountDeletion.findById(USER_ID)).thenReturn(Optional.of(job));
+        when(repositoryUser.findById(USER_ID)).thenReturn(Optional.of(User.builder().id(USER_ID).build()));
+        when(repositoryHomePost.findIdsByAuthorId(anyLong(), any())).thenReturn(List.of());
+        when(repositoryBook.findIdsByOwnerId(anyLong(), any())).thenReturn(List.of());
+        when(repositoryBookTransactionHistory.findIdsAndLenderIdsByBorrowerId(anyLong(), any())).thenReturn(List.of());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private AccountDeletionWorker worker(int maxAttempts) {
+        return new AccountDeletionWorker(repositoryAccountDeletion, repositoryUser, repositoryToken,
+                repositoryNotification, repositoryUserRelation, repositoryTimelineEntry, repositoryPostComment,
+                repositoryPostLike, repositoryPostShare, repositoryHomePost, repositoryMessage,
+                repositoryConversation, repositoryBookTransactionHistory, repositoryFeedback, repositoryBook,
+                repositoryBookCover, repositoryBookPdf, repositoryUserProfilePic, repositoryUserWallpaper,
+                serviceNotification, serviceReadingStats, socialGraph, trendingIndex, transactionTemplate,
+                CHUNK, PARENT_CHUNK, maxAttempts, 60);
+    }
+
+    @Test
+    @DisplayName("A step is repeated in chunks until one comes back short, then the next step starts")
+    void drain_repeatsChunksUntilShort_thenCompletes() {
+        when(repositoryNotification.deleteChunkByRecipientId(USER_ID, CHUNK)).thenReturn(2, 1, 0);
+        when(repositoryNotification.deleteChunkByActorId(USER_ID, 1)).thenReturn(1);
+        when(serviceNotification.forgetActor(USER_ID, CHUNK)).thenReturn(2, 0);
+        when(repositoryPostComment.deleteChunkOnPostsOf(USER_ID, CHUNK)).thenReturn(2, 0);
+        when(repositoryHomePost.findIdsByAuthorId(eq(USER_ID), any(Limit.class)))
+                .thenReturn(List.of(100L), List.of());
+
+        worker(5).drain();
+
+        verify(repositoryNotification, times(3)).deleteChunkByRecipientId(USER_ID, CHUNK);
+        verify(repositoryNotification).deleteChunkByActorId(USER_ID, 1);
+        verify(repositoryNotification).deleteChunkByActorId(USER_ID, CHUNK);
+        verify(serviceNotification, times(2)).forgetActor(USER_ID, CHUNK);
+        verify(repositoryHomePost, times(2)).findIdsByAuthorId(eq(USER_ID), eq(Limit.of(PARENT_CHUNK)));
+        verify(repositoryPostComment, times(2)).deleteChunkOnPostsOf(USER_ID, CHUNK);
+        verify(repositoryTimelineEntry).deleteChunkOnPostsOf(USER_ID, CHUNK);
+        verify(repositoryHomePost).deleteAllByIdInBatch(List.of(100L));
+        verify(socialGraph).userDeleted(USER_ID);
+        verify(repositoryUser).delete(any(User.class));
+        assertThat(job.getStatus()).isEqualTo(AccountDeletionStatus.COMPLETED);
+        assertThat(job.getRowsDeleted()).isEqualTo(9);
+        assertThat(job.getFinishedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("A failed chunk keeps the step and schedules a retry")
+    void drain_failedChunk_isRetriedLater() {
+        job.setStep(AccountDeletionStep.MESSAGES);
+        when(repositoryMessage.deleteChunkInConversationsOf(anyLong(), anyInt()))
+                .thenThrow(new IllegalStateException("lock timeout"));
+
+        worker(5).drain();
+
+        assertThat(job.getStatus()).isEqualTo(AccountDeletionStatus.RUNNING);
+        assertThat(job.getStep()).isEqualTo(AccountDeletionStep.MESSAGES);
+        assertThat(job.getAttempts()).isEqualTo(1);
+        assertThat(job.getLastError()).isEqualTo("lock timeout");
+        assertThat(job.getAvailableAt()).isAfter(LocalDateTime.now().plusSeconds(30));
+        verify(repositoryUser, never()).delete(any(User.class));
+    }
+
+    @Test
+    @DisplayName("The deletion is marked failed after max attempts")
+    void drain_givesUpAfterMaxAttempts() {
+        when(repositoryNotification.deleteChunkByRecipientId(anyLong(), anyInt()))
+                .thenThrow(new IllegalStateException("boom"));
+
+        worker(1).drain();
+
+        assertThat(job.getStatus()).isEqualTo(AccountDeletionStatus.FAILED);
+        assertThat(job.getFinishedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Steps run in declaration order and end after ACCOUNT")
+    void step_next() {
+        assertThat(AccountDeletionStep.NOTIFICATIONS.next()).isEqualTo(AccountDeletionStep.RELATIONS);
+        assertThat(AccountDeletionStep.BOOKS.next()).isEqualTo(AccountDeletionStep.ACCOUNT);
+        assertThat(AccountDeletionStep.ACCOUNT.next()).isNull();
+    }
+}
@@ -0,0 +1,170 @@
+package com.arturmolla.bookshelf.service.export;
+
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceDataExportTest {
+
+    private static final ObjectMapper JSON = JsonMapper.builder().findAndAddModules().build();
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:export;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=KEY,VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("""
+                CREATE TABLE _user (id BIGINT PRIMARY KEY, firstname VARCHAR, lastname VARCHAR, date_of_birth DATE,
+                    email VARCHAR, provider VARCHAR, bio VARCHAR, location VARCHAR,
+                    created_date TIMESTAMP, last_modified_date TIMESTAMP);
+                CREATE TABLE book (id BIGINT PRIMARY KEY, owner_id BIGINT, title VARCHAR);
+                CREATE TABLE feedback (id BIGINT PRIMARY KEY, created_by BIGINT, note DOUBLE);
+                CREATE TABLE book_transaction_history (id BIGINT PRIMARY KEY, user_id BIGINT, book_id BIGINT);
+                CREATE TABLE home_post (id BIGINT PRIMARY KEY, author_id BIGINT, title VARCHAR, content VARCHAR,
+                    created_date TIMESTAMP, last_modified_date TIMESTAMP);
+                CREATE TABLE post_comment (id BIGINT PRIMARY KEY, post_id BIGINT, author_id BIGINT, content VARCHAR,
+                    created_date TIMESTAMP, last_modified_date TIMESTAMP);
+                CREATE TABLE post_like (id BIGINT PRIMARY KEY, post_id BIGINT, user_id BIGINT, created_at TIMESTAMP);
+                CREATE TABLE post_share (id BIGINT PRIMARY KEY, post_id BIGINT, user_id BIGINT);
+                CREATE TABLE user_relation (id BIGINT PRIMARY KEY, requester_id BIGINT, addressee_id BIGINT,
+                    relation_type VARCHAR, status VARCHAR, created_at TIMESTAMP);
+                CREATE TABLE conversation (id BIGINT PRIMARY KEY, user1_id BIGINT, user2_id BIGINT,
+                    user1_last_read_id BIGINT, user2_last_read_id BIGINT);
+                CREATE TABLE message (id BIGINT PRIMARY KEY, conversation_id BIGINT, sender_id BIGINT, content VARCHAR,
+                    reply_to_id BIGINT, media_type VARCHAR, media_name VARCHAR, media_size BIGINT, created_at TIMESTAMP);
+                CREATE TABLE notification (id BIGINT PRIMARY KEY, recipient_id BIGINT, type VARCHAR, title VARCHAR,
+                    message VARCHAR, is_read BOOLEAN, reference_id BIGINT, reference_type VARCHAR, actor_id BIGINT,
+                    actor_count INT, created_at TIMESTAMP);
+                CREATE TABLE book_cover (id BIGINT PRIMARY KEY, book_id BIGINT, file_name VARCHAR, data VARBINARY);
+                CREATE TABLE book_pdf (id BIGINT PRIMARY KEY, book_id BIGINT, file_name VARCHAR, data VARBINARY);
+                CREATE TABLE post_attachment (id BIGINT PRIMARY KEY, post_id BIGINT, file_name VARCHAR, data VARBINARY);
+                CREATE TABLE message_media (message_id BIGINT PRIMARY KEY, file_name VARCHAR, data VARBINARY);
+                CREATE TABLE user_profile_pic (id BIGINT PRIMARY KEY, user_id BIGINT, file_name VARCHAR, data VARBINARY);
+                CREATE TABLE user_wallpaper (id BIGINT PRIMARY KEY, user_id BIGINT, file_name VARCHAR, data VARBINARY);
+                """);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+    private Map<String, byte[]> export(long userId) throws IOException {
+        ServiceDataExport service = new ServiceDataExport(Mockito.mock(RepositoryUser.class), JSON, dataSource,
+                new DataSourceTransactionManager(dataSource), 2, 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export(userId, out);
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        return entries;
+    }
+
+    private static List<JsonNode> lines(byte[] ndjson) {
+        return new String(ndjson, StandardCharsets.UTF_8).lines()
+                .map(line -> {
+                    try {
+                        return JSON.readTree(line);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .toList();
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + seed);
+        }
+        return data;
+    }
+
+    @Test
+    @DisplayName("An export streams the user's rows as NDJSON and copies blobs chunk by chunk")
+    void export_writesRowsAndChunkedBlobs() throws IOException {
+        jdbc.update("INSERT INTO _user (id, firstname, email) VALUES (1, 'Ada', 'ada@x'), (2, 'Bob', 'bob@x')");
+        jdbc.update("INSERT INTO book (id, owner_id, title) VALUES (10, 1, 'Mine'), (11, 1, 'Also mine'), (12, 2, 'Not mine')");
+        jdbc.update("INSERT INTO conversation VALUES (5, 1, 2, 0, 100)");
+        jdbc.update("INSERT INTO message (id, conversation_id, sender_id, content) VALUES (100, 5, 1, 'hi'), (101, 5, 1, 'there')");
+        jdbc.update("INSERT INTO notification (id, recipient_id, type, created_at) VALUES (7, 1, 'LIKE', CURRENT_TIMESTAMP)");
+        byte[] cover = bytes(2500, 1);
+        byte[] pdf = bytes(2048, 2);
+        jdbc.update("INSERT INTO book_cover VALUES (20, 10, 'front.png', ?)", (Object) cover);
+        jdbc.update("INSERT INTO book_pdf VALUES (21, 11, NULL, ?)", (Object) pdf);
+
+        Map<String, byte[]> entries = export(1);
+
+        assertThat(entries).containsKeys("profile.ndjson", "books.ndjson", "messages.ndjson", "notifications.ndjson",
+                "books/10/cover-front.png", "books/11/book.pdf");
+        assertThat(lines(entries.get("profile.ndjson"))).singleElement()
+                .satisfies(row -> assertThat(row.get("email").asText()).isEqualTo("ada@x"));
+        assertThat(lines(entries.get("books.ndjson")))
+                .extracting(row -> row.get("title").asText())
+                .containsExactly("Mine", "Also mine");
+        assertThat(lines(entries.get("messages.ndjson")))
+                .extracting(row -> row.get("is_read").asBoolean())
+                .containsExactly(true, false);
+        assertThat(lines(entries.get("notifications.ndjson"))).hasSize(1);
+        assertThat(lines(entries.get("posts.ndjson"))).isEmpty();
+
+        // 1 KB chunks: three for the cover, exactly two for the PDF
+        assertThat(Arrays.equals(entries.get("books/10/cover-front.png"), cover)).isTrue();
+        assertThat(Arrays.equals(entries.get("books/11/book.pdf"), pdf)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Uploaded file names cannot add path segments to their archive entry")
+    void export_keepsUploadedFileNamesInsideTheirFolder() throws IOException {
+        jdbc.update("INSERT INTO _user (id, firstname) VALUES (1, 'Ada')");
+        jdbc.update("INSERT INTO book (id, owner_id, title) VALUES (10, 1, 'Mine')");
+        jdbc.update("INSERT INTO book_cover VALUES (20, 10, '../../../etc/x', ?)", (Object) bytes(10, 3));
+        jdbc.update("INSERT INTO user_profile_pic VALUES (30, 1, '..\\..\\evil.exe', ?)", (Object) bytes(10, 4));
+
+        Map<String, byte[]> entries = export(1);
+
+        assertThat(entries.keySet())
+                .noneMatch(name -> name.contains(".."))
+                .contains("books/10/cover-______etc_x", "profile/picture-____evil.exe");
+    }
+
+    @Test
+    @DisplayName("safeFileName replaces separators and parent references")
+    void safeFileName_stripsPathSegments() {
+        assertThat(ServiceDataExport.safeFileName("photo.png")).isEqualTo("photo.png");
+        assertThat(ServiceDataExport.safeFileName("a/b\\c")).isEqualTo("a_b_c");
+        assertThat(ServiceDataExport.safeFileName("..")).isEqualTo("_");
+        assertThat(ServiceDataExport.safeFileName("C:\\evil.exe")).isEqualTo("C__evil.exe");
+        assertThat(ServiceDataExport.safeFileName(" ")).isEqualTo("file");
+        assertThat(ServiceDataExport.safeFileName(null)).isEqualTo("file");
+    }
+}
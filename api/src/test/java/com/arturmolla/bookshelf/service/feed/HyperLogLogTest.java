@@ -0,0 +1,47 @@
+package com.arturmolla.bookshelf.service.feed;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    @Test
+    @DisplayName("Small cardinalities are counted almost exactly and repeats are ignored")
+    void estimate_small() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int round = 0; round < 5; round++) {
+            for (long id = 1; id <= 100; id++) {
+                sketch.add(id);
+            }
+        }
+        assertThat(sketch.estimate()).isCloseTo(100L, within(3L));
+    }
+
+    @Test
+    @DisplayName("Large cardinalities stay within a few percent")
+    void estimate_large() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long id = 1; id <= 200_000; id++) {
+            sketch.add(id);
+        }
+        assertThat(sketch.estimate()).isCloseTo(200_000L, within(20_000L));
+    }
+
+    @Test
+    @DisplayName("Merging serialized sketches estimates the union")
+    void merge_roundTrip() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (long id = 1; id <= 1_000; id++) {
+            a.add(id);
+            b.add(id + 500);
+        }
+        HyperLogLog restored = HyperLogLog.fromBytes(a.toBytes());
+        restored.merge(b);
+        assertThat(restored.estimate()).isCloseTo(1_500L, within(150L));
+        assertThat(HyperLogLog.fromBytes(null).estimate()).isZero();
+    }
+}
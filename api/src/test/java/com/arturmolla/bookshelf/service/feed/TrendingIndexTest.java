@@ -0,0 +1,110 @@
+package com.arturmolla.bookshelf.service.feed;
+
+import com.arturmolla.bookshelf.repository.RepositoryPostComment;
+import com.arturmolla.bookshelf.repository.RepositoryPostLike;
+import com.arturmolla.bookshelf.repository.RepositoryPostShare;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TrendingIndexTest {
+
+    @Mock
+    private RepositoryPostLike repositoryPostLike;
+    @Mock
+    private RepositoryPostComment repositoryPostComment;
+    @Mock
+    private RepositoryPostShare repositoryPostShare;
+
+    private TrendingIndex trendingIndex;
+
+    @BeforeEach
+    void setUp() {
+        trendingIndex = new TrendingIndex(repositoryPostLike, repositoryPostComment, repositoryPostShare, 12, 7);
+    }
+
+    @Test
+    @DisplayName("Fresh interactions outrank older ones of the same weight")
+    void decay_ordersByRecency() {
+        Instant now = Instant.now();
+        trendingIndex.add(1L, 3.0, now.minus(Duration.ofHours(24)));
+        trendingIndex.add(2L, 1.0, now);
+        trendingIndex.add(3L, 1.0, now.minus(Duration.ofHours(2)));
+        trendingIndex.rebalance();
+
+        assertThat(trendingIndex.page(0, 10)).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    @DisplayName("Rebalance keeps the order, pages the ranking and prunes decayed posts")
+    void rebalance_prunesAndPages() {
+        Instant now = Instant.now();
+        trendingIndex.add(1L, 5.0, now);
+        trendingIndex.add(2L, 3.0, now);
+        trendingIndex.add(3L, 1.0, now);
+        trendingIndex.add(4L, 1.0, now.minus(Duration.ofDays(6)));
+        trendingIndex.rebalance();
+        trendingIndex.rebalance();
+
+        assertThat(trendingIndex.size()).isEqualTo(3);
+        assertThat(trendingIndex.page(0, 2)).containsExactly(1L, 2L);
+        assertThat(trendingIndex.page(1, 2)).containsExactly(3L);
+        assertThat(trendingIndex.page(5, 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Retracting an interaction drops the post back down")
+    void retract_lowersScore() {
+        LocalDateTime now = LocalDateTime.now();
+        trendingIndex.record(1L, TrendingIndex.Signal.LIKE);
+        trendingIndex.record(1L, TrendingIndex.Signal.LIKE);
+        trendingIndex.record(2L, TrendingIndex.Signal.COMMENT);
+        trendingIndex.retract(2L, TrendingIndex.Signal.LIKE, now);
+        trendingIndex.retract(2L, TrendingIndex.Signal.LIKE, now);
+        trendingIndex.rebalance();
+
+        assertThat(trendingIndex.page(0, 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("Retracting an old like removes what it added then, not a fresh like's weight")
+    void retract_usesOriginalTime() {
+        LocalDateTime likedAt = LocalDateTime.now().minusDays(1);
+        Instant likedInstant = likedAt.atZone(ZoneId.systemDefault()).toInstant();
+        trendingIndex.add(1L, 3.0, likedInstant);
+        trendingIndex.add(1L, 1.0, likedInstant);
+        trendingIndex.add(2L, 2.0, likedInstant);
+        trendingIndex.retract(1L, TrendingIndex.Signal.LIKE, likedAt);
+        trendingIndex.rebalance();
+
+        // Two half-lives later: 0.75 against 0.5; at the current time the like would have taken all of post 1's 1.0
+        assertThat(trendingIndex.page(0, 10)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("A negative page or size reads as an empty first page instead of failing")
+    void page_clampsNegativeArguments() {
+        Instant now = Instant.now();
+        trendingIndex.add(1L, 5.0, now);
+        trendingIndex.add(2L, 3.0, now);
+        trendingIndex.rebalance();
+
+        assertThat(trendingIndex.page(-1, 1)).containsExactly(1L);
+        assertThat(trendingIndex.page(0, -5)).isEmpty();
+        assertThat(trendingIndex.page(Integer.MAX_VALUE, Integer.MAX_VALUE)).isEmpty();
+    }
+}
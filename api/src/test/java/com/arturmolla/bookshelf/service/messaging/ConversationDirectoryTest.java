@@ -0,0 +1,81 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import com.arturmolla.bookshelf.model.entity.EntityConversation;
+import com.arturmolla.bookshelf.repository.RepositoryConversation;
+import com.arturmolla.bookshelf.repository.RepositoryFriendship;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ConversationDirectoryTest {
+
+    @Mock private RepositoryConversation repositoryConversation;
+    @Mock private RepositoryFriendship repositoryFriendship;
+    @Mock private RepositoryUser repositoryUser;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private ConversationDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        directory = new ConversationDirectory(repositoryConversation, repositoryFriendship, repositoryUser,
+                new TransactionTemplate(transactionManager), 100);
+    }
+
+    @Test
+    @DisplayName("Friendship is answered by the database, so an unfriend on another instance takes effect")
+    void areFriends_followsTheDatabase() {
+        when(repositoryFriendship.existsByUserIdAndFriendId(7L, 2L)).thenReturn(true, false);
+
+        assertThat(directory.areFriends(7L, 2L)).isTrue();
+        assertThat(directory.areFriends(7L, 2L)).isFalse();
+
+        verify(repositoryFriendship, times(2)).existsByUserIdAndFriendId(7L, 2L);
+    }
+
+    @Test
+    @DisplayName("A lookup never creates the conversation, and caches one it finds")
+    void findConversationId_onlyLooksUp() {
+        when(repositoryConversation.findByUsers(2L, 7L)).thenReturn(Optional.empty());
+        when(repositoryConversation.findByUsers(3L, 7L))
+                .thenReturn(Optional.of(EntityConversation.builder().id(40L).build()));
+
+        assertThat(directory.findConversationId(7L, 2L)).isEmpty();
+        assertThat(directory.findConversationId(7L, 3L)).contains(40L);
+        assertThat(directory.findConversationId(3L, 7L)).contains(40L);
+
+        verify(repositoryConversation, never()).save(any());
+        verify(repositoryConversation, times(1)).findByUsers(3L, 7L);
+    }
+
+    @Test
+    @DisplayName("conversationId creates the conversation on first use")
+    void conversationId_createsOnFirstUse() {
+        when(repositoryConversation.findByUsers(2L, 7L)).thenReturn(Optional.empty());
+        when(repositoryConversation.save(any())).thenReturn(EntityConversation.builder().id(41L).build());
+
+        assertThat(directory.conversationId(7L, 2L)).isEqualTo(41L);
+        assertThat(directory.conversationId(2L, 7L)).isEqualTo(41L);
+
+        verify(repositoryConversation, times(1)).save(any());
+    }
+}
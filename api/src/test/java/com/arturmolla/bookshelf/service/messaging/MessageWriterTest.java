@@ -0,0 +1,172 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import com.arturmolla.bookshelf.model.entity.EntityConversation;
+import com.arturmolla.bookshelf.model.entity.EntityMessage;
+import com.arturmolla.bookshelf.model.entity.EntityMessageMedia;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryConversation;
+import com.arturmolla.bookshelf.repository.RepositoryMessage;
+import com.arturmolla.bookshelf.repository.RepositoryMessageMedia;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MessageWriterTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Mock private RepositoryMessage repositoryMessage;
+    @Mock private RepositoryMessageMedia repositoryMessageMedia;
+    @Mock private RepositoryConversation repositoryConversation;
+    @Mock private RepositoryUser repositoryUser;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong ids = new AtomicLong(100);
+    private MessageWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(repositoryConversation.getReferenceById(anyLong())).thenAnswer(invocation ->
+                EntityConversation.builder().id(invocation.getArgument(0)).build());
+        when(repositoryUser.getReferenceById(anyLong())).thenAnswer(invocation ->
+                User.builder().id(invocation.getArgument(0)).build());
+        when(repositoryMessage.saveAll(anyList())).thenAnswer(invocation -> {
+            List<EntityMessage> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> "boom".equals(row.getContent()))) {
+                throw new IllegalStateException("constraint violated");
+            }
+            rows.forEach(row -> row.setId(ids.incrementAndGet()));
+            return rows;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    private MessageWriter writer(long lingerMs) {
+        return new MessageWriter(repositoryMessage, repositoryMessageMedia, repositoryConversation,
+                repositoryUser, transactionTemplate, 50, lingerMs, 100);
+    }
+
+    private static EntityMessage message(long conversationId, long senderId, String content, Instant at) {
+        return EntityMessage.builder()
+                .conversation(EntityConversation.builder().id(conversationId).build())
+                .sender(User.builder().id(senderId).build())
+                .content(content)
+                .createdAt(at)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Messages queued together are stored in one transaction with one update per conversation")
+    void concurrentMessages_areCommittedAsOneBatch() {
+        writer = writer(200);
+        writer.start();
+
+        CompletableFuture<EntityMessage> a = writer.submit(message(1, 10, "a", T0), null);
+        CompletableFuture<EntityMessage> b = writer.submit(message(1, 11, "b", T0.plusSeconds(1)), null);
+        CompletableFuture<EntityMessage> c = writer.submit(message(2, 10, "c", T0.plusSeconds(2)), null);
+
+        assertThat(List.of(a.join(), b.join(), c.join()))
+                .extracting(EntityMessage::getId)
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(repositoryMessage, times(1)).saveAll(anyList());
+        verify(repositoryConversation).advanceLastMessageAt(1L, T0.plusSeconds(1));
+        verify(repositoryConversation).advanceLastMessageAt(2L, T0.plusSeconds(2));
+    }
+
+    @Test
+    @DisplayName("Conversation rows are locked, in id order, before message ids are drawn")
+    void conversationsAreLockedBeforeInsert() {
+        writer = writer(200);
+        writer.start();
+
+        CompletableFuture<EntityMessage> a = writer.submit(message(9, 10, "a", T0), null);
+        CompletableFuture<EntityMessage> b = writer.submit(message(2, 11, "b", T0), null);
+        a.join();
+        b.join();
+
+        InOrder order = inOrder(repositoryConversation, repositoryMessage);
+        order.verify(repositoryConversation).lockForInsert(new TreeSet<>(List.of(2L, 9L)));
+        order.verify(repositoryMessage).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("A failing batch is retried message by message, failing only the bad message")
+    void failedBatch_isRetriedOneByOne() {
+        writer = writer(200);
+        writer.start();
+
+        CompletableFuture<EntityMessage> good = writer.submit(message(1, 10, "fine", T0), null);
+        CompletableFuture<EntityMessage> bad = writer.submit(message(1, 10, "boom", T0), null);
+
+        assertThat(good.join().getId()).isNotNull();
+        assertThatThrownBy(bad::join).hasCauseInstanceOf(IllegalStateException.class);
+        // The batch, then each message on its own
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    @DisplayName("Without a running writer thread a message is written on the caller's thread")
+    void notStarted_writesSynchronously() {
+        writer = writer(0);
+        EntityMessageMedia media = EntityMessageMedia.builder()
+                .data(new byte[]{1, 2, 3})
+                .contentType("image/png")
+                .fileSize(3L)
+                .build();
+
+        EntityMessage stored = writer.write(message(3, 10, "", T0), media);
+
+        assertThat(stored.getId()).isEqualTo(101L);
+        verify(repositoryMessageMedia).saveAll(anyList());
+        verify(repositoryConversation).advanceLastMessageAt(eq(3L), eq(T0));
+    }
+
+    @Test
+    @DisplayName("write() rethrows the failure of the caller's own message")
+    void write_rethrowsFailure() {
+        writer = writer(0);
+
+        assertThatThrownBy(() -> writer.write(message(1, 10, "boom", T0), null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("constraint violated");
+    }
+}
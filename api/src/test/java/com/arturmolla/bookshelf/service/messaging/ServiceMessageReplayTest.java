@@ -0,0 +1,103 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import com.arturmolla.bookshelf.model.entity.EntityMessage;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryConversation;
+import com.arturmolla.bookshelf.repository.RepositoryMessage;
+import com.arturmolla.bookshelf.service.ServiceMessage;
+import com.arturmolla.bookshelf.service.ServiceNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceMessageReplayTest {
+
+    private static final long HEAD = 1_700_000_000_000_000L;
+    /** An id the log no longer covers, a minute before {@link #HEAD}. */
+    private static final String STALE_ID = String.valueOf(HEAD - 60_000_000L);
+
+    @Mock private RepositoryMessage repositoryMessage;
+    @Mock private RepositoryConversation repositoryConversation;
+    @Mock private ServiceNotification serviceNotification;
+    @Mock private SseDispatcher sseDispatcher;
+    @Mock private SseEventLog sseEventLog;
+    @Mock private SseDispatcher.Sink sink;
+    @InjectMocks private ServiceMessage serviceMessage;
+
+    private final User user = User.builder().id(1L).roles(List.of()).build();
+    private final Object connection = new Object();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(serviceMessage, "replayDbLimit", 2);
+        when(sseEventLog.covers(anyLong())).thenReturn(false);
+        when(sseEventLog.head()).thenReturn(HEAD);
+        when(repositoryMessage.findReceivedSince(eq(1L), any(), any())).thenReturn(List.of());
+        when(repositoryConversation.findActiveSince(eq(1L), any(), any())).thenReturn(List.of());
+        when(serviceNotification.missedEvents(eq(1L), any(), anyInt())).thenReturn(List.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SsePushEvent> replayed() {
+        ArgumentCaptor<List<SsePushEvent>> missed = ArgumentCaptor.forClass(List.class);
+        verify(sseDispatcher).attach(eq(1L), eq(connection), eq(sink), eq(HEAD), missed.capture());
+        return missed.getValue();
+    }
+
+    @Test
+    @DisplayName("More missed messages than the replay limit send one resync event instead of a partial replay")
+    void truncatedMessages_sendResync() {
+        when(repositoryMessage.findReceivedSince(eq(1L), any(), eq(Limit.of(3))))
+                .thenReturn(List.of(mock(EntityMessage.class), mock(EntityMessage.class), mock(EntityMessage.class)));
+
+        serviceMessage.attachConnection(user, connection, sink, STALE_ID);
+
+        assertThat(replayed()).singleElement()
+                .satisfies(event -> assertThat(event.name()).isEqualTo(ServiceMessage.EVENT_RESYNC));
+    }
+
+    @Test
+    @DisplayName("More missed notifications than the replay limit send one resync event")
+    void truncatedNotifications_sendResync() {
+        SsePushEvent notification = new SsePushEvent(1L, ServiceNotification.EVENT_NOTIFICATION, "n");
+        when(serviceNotification.missedEvents(eq(1L), any(), eq(3)))
+                .thenReturn(List.of(notification, notification, notification));
+
+        serviceMessage.attachConnection(user, connection, sink, STALE_ID);
+
+        assertThat(replayed()).extracting(SsePushEvent::name).containsExactly(ServiceMessage.EVENT_RESYNC);
+    }
+
+    @Test
+    @DisplayName("Missed events within the limit are replayed as they are")
+    void missedWithinLimit_areReplayed() {
+        SsePushEvent notification = new SsePushEvent(1L, ServiceNotification.EVENT_NOTIFICATION, "n");
+        when(serviceNotification.missedEvents(eq(1L), any(), eq(3))).thenReturn(List.of(notification, notification));
+
+        serviceMessage.attachConnection(user, connection, sink, STALE_ID);
+
+        assertThat(replayed()).containsExactly(notification, notification);
+    }
+}
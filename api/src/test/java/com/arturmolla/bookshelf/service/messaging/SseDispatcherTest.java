@@ -0,0 +1,150 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseDispatcherTest {
+
+    private final MessageEmitterRegistry registry = new MessageEmitterRegistry();
+    private final SseEventLog eventLog = new SseEventLog(100);
+    private SseDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    /** Emitter that records what is sent to it, optionally blocking on the first send like a slow client. */
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+        final CountDownLatch release;
+        final Set<Thread> threads = new CopyOnWriteArraySet<>();
+
+        RecordingEmitter(int expected, CountDownLatch release) {
+            this.received = new CountDownLatch(expected);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            threads.add(Thread.currentThread());
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            builder.build().stream()
+                    .map(data -> String.valueOf(data.getData()))
+                    .flatMap(String::lines)
+                    .forEach(line -> {
+                        if (line.startsWith("{")) {
+                            sent.add(line);
+                        } else if (line.startsWith("id:")) {
+                            ids.add(line.substring(3));
+                        }
+                    });
+            received.countDown();
+        }
+    }
+
+    private void connect(Long userId, RecordingEmitter emitter, Long afterId, List<SsePushEvent> missed) {
+        dispatcher.attach(userId, emitter, afterId, missed);
+        registry.register(userId, emitter);
+    }
+
+    @Test
+    @DisplayName("Events are sent off the publishing thread, in publishing order per user")
+    void events_areSentAsynchronouslyInOrder() throws InterruptedException {
+        dispatcher = new SseDispatcher(eventLog, new ObjectMapper(), 2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(3, release);
+        connect(1L, emitter, null, List.of());
+
+        for (int i = 0; i < 3; i++) {
+            dispatcher.onPush(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", i)));
+        }
+        // The slow client has not taken the first event yet, but publishing returned
+        assertThat(emitter.sent).isEmpty();
+        release.countDown();
+
+        assertThat(emitter.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.sent).containsExactly("{\"seq\":0}", "{\"seq\":1}", "{\"seq\":2}");
+        assertThat(emitter.threads).noneMatch(thread -> thread == Thread.currentThread());
+    }
+
+    @Test
+    @DisplayName("Events for offline users are skipped and a full queue drops events")
+    void offlineUsers_andFullQueue() throws InterruptedException {
+        dispatcher = new SseDispatcher(eventLog, new ObjectMapper(), 1, 1);
+        dispatcher.onPush(new SsePushEvent(99L, "NEW_MESSAGE", Map.of()));
+        assertThat(dispatcher.droppedCount()).isZero();
+
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(2, release);
+        connect(1L, emitter, null, List.of());
+        // One event is being sent, one waits in the queue, the third does not fit
+        dispatcher.onPush(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 0)));
+        while (emitter.threads.isEmpty()) {
+            Thread.onSpinWait();
+        }
+        dispatcher.onPush(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 1)));
+        dispatcher.onPush(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 2)));
+        release.countDown();
+
+        assertThat(emitter.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.droppedCount()).isEqualTo(1);
+        assertThat(emitter.sent).containsExactly("{\"seq\":0}", "{\"seq\":1}");
+    }
+
+    @Test
+    @DisplayName("A reconnecting client gets the buffered events after its Last-Event-ID, then live ones")
+    void reconnect_replaysBufferedEvents() throws InterruptedException {
+        dispatcher = new SseDispatcher(eventLog, new ObjectMapper(), 1, 100);
+        long seen = eventLog.append(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 0)));
+        // Published while the client was away
+        dispatcher.onPush(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 1)));
+        dispatcher.onPush(new SsePushEvent(2L, "NEW_MESSAGE", Map.of("seq", 99)));
+        dispatcher.onPush(new SsePushEvent(1L, "MESSAGE_READ", Map.of("seq", 2)));
+
+        RecordingEmitter emitter = new RecordingEmitter(3, new CountDownLatch(0));
+        connect(1L, emitter, seen, List.of());
+        dispatcher.onPush(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 3)));
+
+        assertThat(emitter.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.sent).containsExactly("{\"seq\":1}", "{\"seq\":2}", "{\"seq\":3}");
+        assertThat(emitter.ids).hasSize(3).allMatch(id -> Long.parseLong(id) > seen);
+    }
+
+    @Test
+    @DisplayName("Events rebuilt from the database are sent first, the last one carrying the log head")
+    void reconnect_afterEviction_sendsRebuiltEvents() throws InterruptedException {
+        dispatcher = new SseDispatcher(eventLog, new ObjectMapper(), 1, 100);
+        long head = eventLog.head();
+
+        RecordingEmitter emitter = new RecordingEmitter(3, new CountDownLatch(0));
+        connect(1L, emitter, head, List.of(
+                new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 0)),
+                new SsePushEvent(1L, "notification", Map.of("seq", 1))));
+        dispatcher.onPush(new SsePushEvent(1L, "NEW_MESSAGE", Map.of("seq", 2)));
+
+        assertThat(emitter.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.sent).containsExactly("{\"seq\":0}", "{\"seq\":1}", "{\"seq\":2}");
+        assertThat(emitter.ids).first().isEqualTo(String.valueOf(head));
+    }
+}
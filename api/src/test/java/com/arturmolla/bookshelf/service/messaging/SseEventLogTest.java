@@ -0,0 +1,82 @@
+package com.arturmolla.bookshelf.service.messaging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseEventLogTest {
+
+    private static SsePushEvent event(long userId, int seq) {
+        return new SsePushEvent(userId, "NEW_MESSAGE", Map.of("seq", seq));
+    }
+
+    @Test
+    @DisplayName("Ids grow monotonically and map back to the time they were issued")
+    void ids_areMonotonicAndTimed() {
+        SseEventLog log = new SseEventLog(10);
+        long before = System.currentTimeMillis();
+
+        long a = log.append(event(1, 0));
+        long b = log.append(event(1, 1));
+
+        assertThat(b).isGreaterThan(a);
+        assertThat(log.head()).isEqualTo(b);
+        assertThat(SseEventLog.timeOf(a).toEpochMilli()).isGreaterThanOrEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("since() returns one user's newer events while the log still covers the id")
+    void since_filtersByUserAndId() {
+        SseEventLog log = new SseEventLog(10);
+        long first = log.append(event(1, 0));
+        log.append(event(2, 1));
+        long third = log.append(event(1, 2));
+
+        assertThat(log.since(1, first))
+                .extracting(SseEventLog.Entry::id)
+                .containsExactly(third);
+        assertThat(log.since(1, third)).isEmpty();
+        // An id from the future (another instance, clock skew) is not covered
+        assertThat(log.covers(third + 1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Evicted events stop the log from covering ids before them")
+    void eviction_dropsCoverage() {
+        SseEventLog log = new SseEventLog(2);
+        long start = log.head();
+        long first = log.append(event(1, 0));
+        assertThat(log.covers(start)).isTrue();
+
+        log.append(event(1, 1));
+        long third = log.append(event(1, 2));
+
+        assertThat(log.covers(start)).isFalse();
+        assertThat(log.since(1, start)).isNull();
+        assertThat(log.since(1, first))
+                .extracting(SseEventLog.Entry::id)
+                .hasSize(2)
+                .endsWith(third);
+    }
+
+    @Test
+    @DisplayName("An id this log did not issue is not covered, even inside its range")
+    void foreignId_isNotCovered() throws InterruptedException {
+        SseEventLog log = new SseEventLog(10);
+        long start = log.head();
+        long first = log.append(event(1, 0));
+        Thread.sleep(2);
+        long second = log.append(event(1, 1));
+        // E.g. the last id a client saw on the previous instance of a rolling deploy
+        long foreign = first + 1;
+
+        assertThat(foreign).isStrictlyBetween(first, second);
+        assertThat(log.covers(foreign)).isFalse();
+        assertThat(log.since(1, foreign)).isNull();
+        assertThat(log.covers(start)).isTrue();
+        assertThat(log.since(1, first)).extracting(SseEventLog.Entry::id).containsExactly(second);
+    }
+}
@@ -0,0 +1,134 @@
+package com.arturmolla.bookshelf.service.notification;
+
+import com.arturmolla.bookshelf.model.entity.EntityNotification;
+import com.arturmolla.bookshelf.model.entity.EntityNotificationDigest;
+import com.arturmolla.bookshelf.model.enums.DigestFrequency;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import com.arturmolla.bookshelf.repository.RepositoryNotificationDigest;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.ServiceEmail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class NotificationDigestJobTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_ITEMS = 2;
+
+    @Mock private RepositoryNotificationDigest repositoryNotificationDigest;
+    @Mock private RepositoryNotification repositoryNotification;
+    @Mock private RepositoryUser repositoryUser;
+    @Mock private ServiceEmail serviceEmail;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private NotificationDigestJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new NotificationDigestJob(repositoryNotificationDigest, repositoryNotification, repositoryUser,
+                serviceEmail, new TransactionTemplate(transactionManager), BATCH_SIZE, MAX_ITEMS,
+                DayOfWeek.MONDAY, "http://app");
+    }
+
+    private static EntityNotificationDigest subscription(long userId) {
+        return EntityNotificationDigest.builder().userId(userId).frequency(DigestFrequency.DAILY).build();
+    }
+
+    private static EntityNotification unread(long recipientId, String title) {
+        return EntityNotification.builder()
+                .recipient(User.builder().id(recipientId).build())
+                .title(title)
+                .message(title)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static User user(long id, boolean enabled) {
+        return User.builder().id(id).email(id + "@x").firstname("u" + id).enabled(enabled).build();
+    }
+
+    @Test
+    @DisplayName("Due subscriptions are claimed page by page and each user with unread notifications gets one digest")
+    void send_claimsPagesAndQueuesDigests() {
+        EntityNotificationDigest first = subscription(1);
+        EntityNotificationDigest second = subscription(2);
+        EntityNotificationDigest third = subscription(3);
+        when(repositoryNotificationDigest.claimDue(eq("DAILY"), eq(0L), any(), eq(BATCH_SIZE)))
+                .thenReturn(List.of(first, second));
+        when(repositoryNotificationDigest.claimDue(eq("DAILY"), eq(2L), any(), eq(BATCH_SIZE)))
+                .thenReturn(List.of(third));
+        when(repositoryNotification.countDigestItems(anyCollection(), any()))
+                .thenReturn(List.of(new Object[]{1L, 5L}, new Object[]{3L, 1L}));
+        when(repositoryNotification.findDigestItems(anyCollection(), any(), eq(MAX_ITEMS))).thenReturn(
+                List.of(unread(1, "newest"), unread(1, "older")),
+                List.of(unread(3, "only")));
+        when(repositoryUser.findAllById(anyCollection())).thenReturn(
+                List.of(user(1, true)),
+                List.of(user(3, false)));
+
+        assertThat(job.send(DigestFrequency.DAILY)).isEqualTo(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Map<String, String>>> items = ArgumentCaptor.forClass(List.class);
+        verify(serviceEmail).sendDigest(eq("1@x"), anyString(), items.capture(), eq(3), eq("http://app"),
+                eq("Your daily Bookshelf digest: 5 unread notifications"));
+        assertThat(items.getValue()).extracting(item -> item.get("title")).containsExactly("newest", "older");
+        verify(serviceEmail, never()).sendDigest(eq("3@x"), anyString(), anyList(), anyInt(), anyString(), anyString());
+        assertThat(List.of(first, second, third)).allSatisfy(s -> assertThat(s.getLastSentAt()).isNotNull());
+    }
+
+    @Test
+    @DisplayName("A page without unread notifications loads none and only advances the subscriptions")
+    void send_withoutUnread_loadsNothing() {
+        EntityNotificationDigest only = subscription(4);
+        when(repositoryNotificationDigest.claimDue(anyString(), anyLong(), any(), anyInt())).thenReturn(List.of(only));
+        when(repositoryNotification.countDigestItems(anyCollection(), any())).thenReturn(List.of());
+
+        assertThat(job.send(DigestFrequency.DAILY)).isZero();
+
+        verify(repositoryNotification, never()).findDigestItems(anyCollection(), any(), anyInt());
+        assertThat(only.getLastSentAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Only subscriptions without a digest in the last half period are claimed")
+    void send_claimsOnlyDueSubscriptions() {
+        when(repositoryNotificationDigest.claimDue(anyString(), anyLong(), any(), anyInt())).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.now();
+
+        job.send(DigestFrequency.WEEKLY);
+
+        ArgumentCaptor<LocalDateTime> dueBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repositoryNotificationDigest).claimDue(eq("WEEKLY"), eq(0L), dueBefore.capture(), eq(BATCH_SIZE));
+        assertThat(dueBefore.getValue()).isBetween(before.minusHours(84), LocalDateTime.now().minusHours(84));
+    }
+}
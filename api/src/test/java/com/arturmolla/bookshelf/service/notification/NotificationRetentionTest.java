@@ -0,0 +1,150 @@
+package com.arturmolla.bookshelf.service.notification;
+
+import com.arturmolla.bookshelf.repository.RepositoryNotification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class NotificationRetentionTest {
+
+    private static final String ESTIMATE = "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE relname = ?";
+
+    @Mock private RepositoryNotification repositoryNotification;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement lockStatement;
+    @Mock private ResultSet lockResult;
+
+    private NotificationRetention retention;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        retention = new NotificationRetention(repositoryNotification, jdbcTemplate,
+                new TransactionTemplate(transactionManager), 90, 500, 2, 60);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(call -> call.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.prepareStatement(anyString())).thenReturn(lockStatement);
+        when(lockStatement.executeQuery()).thenReturn(lockResult);
+        when(lockResult.next()).thenReturn(true);
+        when(lockResult.getBoolean(1)).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("A run creates the partitions of this month and the next ones")
+    void compact_createsUpcomingPartitions() {
+        YearMonth now = YearMonth.now();
+
+        assertThat(retention.compact()).isTrue();
+
+        for (int i = 0; i <= 2; i++) {
+            YearMonth month = now.plusMonths(i);
+            verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS " + NotificationRetention.partitionName(month)
+                    + " PARTITION OF notification FOR VALUES FROM ('" + month.atDay(1)
+                    + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        verify(jdbcTemplate, never()).execute(contains(NotificationRetention.partitionName(now.plusMonths(3))));
+    }
+
+    @Test
+    @DisplayName("Only partitions that ended before the cutoff are dropped, counted by the planner's estimate")
+    void compact_dropsExpiredPartitions() {
+        String expired = NotificationRetention.partitionName(YearMonth.now().minusMonths(4));
+        String boundary = NotificationRetention.partitionName(YearMonth.now().minusMonths(2));
+        when(repositoryNotification.findMonthlyPartitionNames()).thenReturn(List.of(expired, boundary, "notification_px"));
+        when(jdbcTemplate.queryForObject(ESTIMATE, Long.class, expired)).thenReturn(1200L);
+
+        retention.compact();
+
+        verify(jdbcTemplate).execute("ALTER TABLE notification DETACH PARTITION " + expired);
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS " + expired);
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS " + boundary);
+        verify(jdbcTemplate, never()).queryForObject(contains("COUNT(*)"), eq(Long.class));
+        assertThat(retention.stats().partitionsDropped()).isEqualTo(1);
+        assertThat(retention.stats().rowsDroppedWithPartitions()).isEqualTo(1200);
+    }
+
+    @Test
+    @DisplayName("A run is skipped while another session holds the compaction lock")
+    void compact_skipsWhileLocked() throws SQLException {
+        when(lockResult.getBoolean(1)).thenReturn(false);
+
+        assertThat(retention.compact()).isFalse();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(repositoryNotification, never()).deleteOlderThan(any());
+        verify(lockStatement).setLong(1, NotificationRetention.COMPACTION_LOCK);
+        assertThat(retention.stats().runs()).isZero();
+    }
+
+    @Test
+    @DisplayName("The lock is released after a run, also when the run fails")
+    void compact_releasesLock() throws SQLException {
+        PreparedStatement unlock = mock(PreparedStatement.class);
+        when(connection.prepareStatement("SELECT pg_advisory_unlock(?)")).thenReturn(unlock);
+        when(unlock.executeQuery()).thenReturn(lockResult);
+        when(repositoryNotification.findMonthlyPartitionNames()).thenThrow(new IllegalStateException("boom"));
+
+        assertThatThrownBy(retention::compact).hasMessage("boom");
+
+        verify(unlock).executeQuery();
+    }
+
+    @Test
+    @DisplayName("After the first full trim, only recipients written to since are trimmed to the cap")
+    void compact_trimsOnlyWrittenRecipients() {
+        when(repositoryNotification.findMonthlyPartitionNames()).thenReturn(List.of());
+
+        retention.compact();
+        verify(repositoryNotification).deleteBeyondCapPerRecipient(500);
+
+        retention.recordWrites(List.of(1L, 2L));
+        retention.compact();
+        verify(repositoryNotification).deleteBeyondCapOf(eq(500), argThat(ids -> ids.containsAll(List.of(1L, 2L))));
+
+        retention.compact();
+        verify(repositoryNotification).deleteBeyondCapPerRecipient(500);
+        verify(repositoryNotification).deleteBeyondCapOf(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Partition names map back to their month; other tables are ignored")
+    void parseMonth_roundTrips() {
+        YearMonth month = YearMonth.of(2026, 3);
+
+        assertThat(NotificationRetention.parseMonth(NotificationRetention.partitionName(month))).isEqualTo(month);
+        assertThat(NotificationRetention.parseMonth("notification_default")).isNull();
+        assertThat(NotificationRetention.parseMonth("notification_p2026")).isNull();
+    }
+}
@@ -0,0 +1,65 @@
+package com.arturmolla.bookshelf.service.outbox;
+
+import com.arturmolla.bookshelf.model.common.NotificationActor;
+import com.arturmolla.bookshelf.model.enums.NotificationType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NotificationCoalescerTest {
+
+    private final NotificationCoalescer coalescer = new NotificationCoalescer();
+
+    @Test
+    @DisplayName("Events on the same recipient, type and reference fold into one group")
+    void add_groupsByKey() {
+        coalescer.add(like(10L, 1L, "Alice"));
+        coalescer.add(like(10L, 2L, "Bob"));
+        coalescer.add(like(10L, 1L, "Alice"));
+        coalescer.add(like(11L, 3L, "Carol"));
+
+        Map<NotificationCoalescer.Key, NotificationCoalescer.Group> drained = coalescer.drain();
+
+        assertThat(drained).hasSize(2);
+        NotificationCoalescer.Group group = drained.get(new NotificationCoalescer.Key(99L, NotificationType.POST_LIKED, 10L));
+        assertThat(group.actorIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(group.latestActors()).containsExactly(
+                new NotificationActor(1L, "Alice"), new NotificationActor(2L, "Bob"));
+        assertThat(coalescer.drain()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Only the latest actors are kept, newest first")
+    void add_capsLatestActors() {
+        for (long actor = 1; actor <= 5; actor++) {
+            coalescer.add(like(10L, actor, "User " + actor));
+        }
+        NotificationCoalescer.Group group = coalescer.drain().values().iterator().next();
+
+        assertThat(group.actorIds()).hasSize(5);
+        assertThat(group.latestActors()).extracting(NotificationActor::id).containsExactly(5L, 4L, 3L);
+        assertThat(group.latest().actorId()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("Requeued groups are merged behind newer events")
+    void requeue_mergesWithNewerEvents() {
+        coalescer.add(like(10L, 1L, "Alice"));
+        Map<NotificationCoalescer.Key, NotificationCoalescer.Group> failed = coalescer.drain();
+        coalescer.add(like(10L, 2L, "Bob"));
+        coalescer.requeue(failed);
+
+        NotificationCoalescer.Group group = coalescer.drain().values().iterator().next();
+        assertThat(group.actorIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(group.latest().actorId()).isEqualTo(2L);
+        assertThat(group.latestActors()).extracting(NotificationActor::id).containsExactly(2L, 1L);
+    }
+
+    private static NotificationEvent like(Long postId, Long actorId, String actorName) {
+        return new NotificationEvent(99L, actorId, actorName, NotificationType.POST_LIKED,
+                actorName + " liked your post", "\"Post\" received a like.", postId, "POST");
+    }
+}
@@ -0,0 +1,135 @@
+package com.arturmolla.bookshelf.service.outbox;
+
+import com.arturmolla.bookshelf.model.entity.EntityOutboxEvent;
+import com.arturmolla.bookshelf.model.enums.NotificationType;
+import com.arturmolla.bookshelf.model.enums.OutboxEventType;
+import com.arturmolla.bookshelf.repository.RepositoryOutboxEvent;
+import com.arturmolla.bookshelf.service.ServiceEmail;
+import com.arturmolla.bookshelf.service.ServiceNotification;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OutboxWorkerTest {
+
+    @Mock private RepositoryOutboxEvent repositoryOutboxEvent;
+    @Mock private ServiceNotification serviceNotification;
+    @Mock private ServiceEmail serviceEmail;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final ServiceOutbox serviceOutbox =
+            new ServiceOutbox(null, JsonMapper.builder().findAndAddModules().build());
+    private OutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new OutboxWorker(repositoryOutboxEvent, serviceOutbox, serviceNotification, serviceEmail,
+                new NotificationCoalescer(), new TransactionTemplate(transactionManager), 10, 8, 30);
+    }
+
+    private static EntityOutboxEvent notification(long id, long recipientId) {
+        return EntityOutboxEvent.builder()
+                .id(id)
+                .type(OutboxEventType.NOTIFICATION)
+                .payload(Map.of(
+                        "recipientId", recipientId,
+                        "type", NotificationType.POST_LIKED.name(),
+                        "title", "Liked",
+                        "message", "liked your post"))
+                .availableAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static EntityOutboxEvent email(long id, String to) {
+        return EntityOutboxEvent.builder()
+                .id(id)
+                .type(OutboxEventType.EMAIL)
+                .payload(Map.of("to", to, "subject", "Digest", "templateName", "notification_digest", "variables", Map.of()))
+                .availableAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    @DisplayName("A batch of notifications is inserted in one transaction")
+    void notifications_areInsertedTogether() {
+        when(repositoryOutboxEvent.lockDue(any(), anyInt())).thenReturn(List.of(notification(1, 11), notification(2, 12)));
+
+        assertThat(worker.drainBatch()).isEqualTo(2);
+
+        verify(serviceNotification).createAll(argThat(payloads -> payloads.size() == 2));
+        verify(repositoryOutboxEvent).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(repositoryOutboxEvent, never()).reschedule(anyLong(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("When a batch fails, only the notification failing on its own is rescheduled")
+    void failedBatch_reschedulesOnlyTheBadEvent() {
+        when(repositoryOutboxEvent.lockDue(any(), anyInt()))
+                .thenReturn(List.of(notification(1, 11), notification(2, 666), notification(3, 13)));
+        doThrow(new IllegalStateException("no such recipient")).when(serviceNotification)
+                .createAll(argThat(payloads -> payloads.stream().anyMatch(p -> p.recipientId() == 666L)));
+
+        worker.drainBatch();
+
+        verify(repositoryOutboxEvent).deleteAllByIdInBatch(List.of(1L));
+        verify(repositoryOutboxEvent).deleteAllByIdInBatch(List.of(3L));
+        verify(repositoryOutboxEvent).reschedule(eq(2L), any(), eq("no such recipient"));
+        verify(repositoryOutboxEvent, never()).reschedule(eq(1L), any(), anyString());
+        verify(repositoryOutboxEvent, never()).reschedule(eq(3L), any(), anyString());
+        verify(repositoryOutboxEvent, never()).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    @DisplayName("A failing single notification is tried once and rescheduled with backoff")
+    void failedSingle_isTriedOnce() {
+        when(repositoryOutboxEvent.lockDue(any(), anyInt())).thenReturn(List.of(notification(2, 666)));
+        doThrow(new IllegalStateException("no such recipient")).when(serviceNotification).createAll(anyList());
+
+        worker.drainBatch();
+
+        verify(serviceNotification).createAll(anyList());
+        verify(repositoryOutboxEvent).reschedule(eq(2L), any(), eq("no such recipient"));
+    }
+
+    @Test
+    @DisplayName("E-mails reported failed by index are rescheduled, the others deleted")
+    void failedEmails_areMappedBackByIndex() {
+        when(repositoryOutboxEvent.lockDue(any(), anyInt()))
+                .thenReturn(List.of(email(1, "a@x"), email(2, "b@x"), email(3, "c@x")));
+        when(serviceEmail.deliverAll(anyList())).thenReturn(Map.of(1, new IllegalStateException("mailbox full")));
+
+        worker.drainBatch();
+
+        verify(serviceEmail).deliverAll(argThat(emails -> emails.stream().map(EmailEvent::to).toList()
+                .equals(List.of("a@x", "b@x", "c@x"))));
+        verify(repositoryOutboxEvent).deleteAllByIdInBatch(List.of(1L, 3L));
+        verify(repositoryOutboxEvent).reschedule(eq(2L), any(), eq("mailbox full"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.arturmolla.bookshelf.service.social;
+
+import com.arturmolla.bookshelf.model.enums.RelationStatus;
+import com.arturmolla.bookshelf.model.enums.RelationType;
+import com.arturmolla.bookshelf.repository.RepositoryUserRelation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SocialGraphTest {
+
+    @Mock
+    private RepositoryUserRelation relationRepository;
+
+    @InjectMocks
+    private SocialGraph socialGraph;
+
+    /*
+     * Friends: 1-2, 1-3, 2-4, 2-5, 3-5, 2-7
+     * User 1 follows 6 and has a pending request to 7.
+     */
+    @BeforeEach
+    void setUp() {
+        when(relationRepository.findAllGraphEdges()).thenReturn(List.of(
+                friend(1, 2), friend(1, 3), friend(2, 4), friend(2, 5), friend(3, 5),
+                new Object[]{1L, 6L, RelationType.FOLLOW, RelationStatus.ACCEPTED},
+                new Object[]{1L, 7L, RelationType.FRIEND_REQUEST, RelationStatus.PENDING},
+                friend(7, 2)
+        ));
+        socialGraph.load();
+    }
+
+    @Test
+    @DisplayName("Suggestions rank friends-of-friends by mutual friends and skip friends, self and pending")
+    void suggest_ranksByMutualFriends() {
+        assertThat(socialGraph.suggest(1L, 10)).containsExactly(
+                new SocialGraph.Suggestion(5L, 2),
+                new SocialGraph.Suggestion(4L, 1),
+                new SocialGraph.Suggestion(6L, 0));
+    }
+
+    @Test
+    @DisplayName("Suggestions are limited to the requested size")
+    void suggest_respectsLimit() {
+        assertThat(socialGraph.suggest(1L, 1)).extracting(SocialGraph.Suggestion::userId).containsExactly(5L);
+    }
+
+    @Test
+    @DisplayName("Mutual friend count is the intersection of both friend lists")
+    void mutualFriendCount() {
+        assertThat(socialGraph.mutualFriendCount(1L, 5L)).isEqualTo(2);
+        assertThat(socialGraph.mutualFriendCount(4L, 3L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Incremental changes are reflected immediately outside a transaction")
+    void incrementalChanges() {
+        socialGraph.friendRequestAccepted(1L, 7L);
+        assertThat(socialGraph.mutualFriendCount(1L, 2L)).isEqualTo(1);
+
+        socialGraph.friendshipEnded(1L, 2L);
+        assertThat(socialGraph.suggest(1L, 10)).extracting(SocialGraph.Suggestion::userId).contains(2L);
+
+        socialGraph.userDeleted(5L);
+        assertThat(socialGraph.suggest(1L, 10)).extracting(SocialGraph.Suggestion::userId).doesNotContain(5L);
+    }
+
+    @Test
+    @DisplayName("The adjacency overlay compacts into CSR without losing edges")
+    void adjacencyIndex_compaction() {
+        AdjacencyIndex index = new AdjacencyIndex(Runnable::run);
+        int vertices = AdjacencyIndex.COMPACT_THRESHOLD + 10;
+        for (long v = 0; v < vertices; v++) {
+            index.add(v, v + 1);
+            index.add(v, v + 2);
+        }
+        index.remove(3, 4);
+
+        assertThat(index.neighbours(0)).containsExactly(1, 2);
+        assertThat(index.neighbours(3)).containsExactly(5);
+        assertThat(index.degree(vertices - 1)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Writes made while the overlay is being merged survive the swap")
+    void adjacencyIndex_writesDuringCompaction() {
+        List<Runnable> merges = new ArrayList<>();
+        AdjacencyIndex index = new AdjacencyIndex(merges::add);
+        index.load(new long[]{0, 0, 1}, new long[]{2, 1, 0}, 3);
+        for (long v = 10; v < 10 + AdjacencyIndex.COMPACT_THRESHOLD; v++) {
+            index.add(v, v + 1);
+        }
+        assertThat(merges).hasSize(1);
+
+        index.add(0, 3);
+        index.clear(10);
+        index.add(10 + AdjacencyIndex.COMPACT_THRESHOLD, 1);
+        assertThat(index.neighbours(11)).containsExactly(12);
+        merges.getFirst().run();
+
+        assertThat(index.neighbours(0)).containsExactly(1, 2, 3);
+        assertThat(index.neighbours(1)).containsExactly(0);
+        assertThat(index.neighbours(10)).isEmpty();
+        assertThat(index.neighbours(11)).containsExactly(12);
+        assertThat(index.degree(10 + AdjacencyIndex.COMPACT_THRESHOLD)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Loading collapses duplicate edges and sorts each neighbour list")
+    void adjacencyIndex_load() {
+        AdjacencyIndex index = new AdjacencyIndex(Runnable::run);
+        index.load(new long[]{5, 2, 5, 5, 2}, new long[]{9, 7, 1, 9, 3}, 5);
+
+        assertThat(index.neighbours(5)).containsExactly(1, 9);
+        assertThat(index.neighbours(2)).containsExactly(3, 7);
+        assertThat(index.degree(4)).isZero();
+    }
+
+    private static Object[] friend(long a, long b) {
+        return new Object[]{a, b, RelationType.FRIEND_REQUEST, RelationStatus.ACCEPTED};
+    }
+}
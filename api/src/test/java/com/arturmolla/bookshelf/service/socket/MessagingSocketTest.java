@@ -0,0 +1,225 @@
+package com.arturmolla.bookshelf.service.socket;
+
+import com.arturmolla.bookshelf.model.dto.DtoMessageRequest;
+import com.arturmolla.bookshelf.model.dto.DtoMessageResponse;
+import com.arturmolla.bookshelf.model.dto.DtoSignalRequest;
+import com.arturmolla.bookshelf.model.user.User;
+import com.arturmolla.bookshelf.repository.RepositoryUser;
+import com.arturmolla.bookshelf.service.ServiceMessage;
+import com.arturmolla.bookshelf.service.ServiceStream;
+import com.arturmolla.bookshelf.service.messaging.SseDispatcher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import jakarta.validation.Validation;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MessagingSocketTest {
+
+    @Mock private ServiceMessage serviceMessage;
+    @Mock private ServiceStream serviceStream;
+    @Mock private SseDispatcher sseDispatcher;
+    @Mock private RepositoryUser repositoryUser;
+    @Mock private Session session;
+    @Mock private RemoteEndpoint.Basic remote;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Object> properties = new HashMap<>();
+    private final User user = User.builder().id(1L).roles(List.of()).build();
+    private final Authentication auth = new UsernamePasswordAuthenticationToken(user, null, List.of());
+    private SocketSessions socketSessions;
+    private MessagingSocket socket;
+
+    @BeforeEach
+    void setUp() {
+        socketSessions = new SocketSessions(objectMapper);
+        socket = new MessagingSocket(serviceMessage, serviceStream, sseDispatcher, socketSessions, repositoryUser,
+                objectMapper, Validation.buildDefaultValidatorFactory().getValidator(), 90, 3);
+        when(session.getUserProperties()).thenReturn(properties);
+        when(session.getRequestParameterMap()).thenReturn(Map.of("lastEventId", List.of("42")));
+        when(session.isOpen()).thenReturn(true);
+        when(session.getBasicRemote()).thenReturn(remote);
+    }
+
+    private List<String> sentFrames() throws Exception {
+        ArgumentCaptor<String> frames = ArgumentCaptor.forClass(String.class);
+        verify(remote, atLeast(0)).sendText(frames.capture());
+        return frames.getAllValues();
+    }
+
+    @Test
+    @DisplayName("A session refused at the handshake is closed as soon as it opens")
+    void refusedHandshake_isClosed() throws Exception {
+        CloseReason refusal = new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "unauthorized");
+        properties.put(SocketHandshake.REFUSAL, refusal);
+
+        socket.onOpen(session, null);
+
+        verify(session).close(refusal);
+        verify(serviceMessage, never()).attachConnection(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("An authenticated session is attached for pushes, resuming from lastEventId")
+    void open_attachesConnection() throws Exception {
+        properties.put(SocketHandshake.USER, user);
+
+        socket.onOpen(session, null);
+
+        ArgumentCaptor<SseDispatcher.Sink> sink = ArgumentCaptor.forClass(SseDispatcher.Sink.class);
+        verify(serviceMessage).attachConnection(eq(user), eq(session), sink.capture(), eq("42"));
+        assertThat(sink.getValue().send(7L, "NEW_MESSAGE", "{\"id\":3}")).isTrue();
+        assertThat(sentFrames()).containsExactly("{\"t\":\"NEW_MESSAGE\",\"i\":7,\"d\":{\"id\":3}}");
+    }
+
+    @Test
+    @DisplayName("send is acknowledged with the stored message under the request number")
+    void send_isAcknowledged() throws Exception {
+        when(serviceMessage.sendMessage(eq(2L), any(DtoMessageRequest.class), eq(auth)))
+                .thenReturn(DtoMessageResponse.builder().id(99L).content("Hi").build());
+
+        socket.onFrame(session, auth, "{\"t\":\"send\",\"r\":5,\"d\":{\"friendId\":2,\"content\":\"Hi\"}}");
+
+        assertThat(sentFrames()).singleElement().satisfies(frame -> {
+            assertThat(frame).startsWith("{\"t\":\"ack\",\"r\":5,\"d\":{");
+            assertThat(objectMapper.readTree(frame).at("/d/id").asLong()).isEqualTo(99L);
+        });
+    }
+
+    @Test
+    @DisplayName("Invalid requests are answered with an error frame")
+    void invalidRequest_isAnsweredWithError() throws Exception {
+        socket.onFrame(session, auth, "{\"t\":\"send\",\"r\":6,\"d\":{\"friendId\":2,\"content\":\"\"}}");
+        socket.onFrame(session, auth, "not json");
+
+        verify(serviceMessage, never()).sendMessage(any(), any(), any());
+        assertThat(sentFrames()).hasSize(2)
+                .first().asString().startsWith("{\"t\":\"error\",\"r\":6,\"d\":{\"error\":");
+    }
+
+    @Test
+    @DisplayName("signal is relayed to the stream, typing to the friend, ping answered")
+    void signalTypingAndPing() throws Exception {
+        socket.onFrame(session, auth,
+                "{\"t\":\"signal\",\"r\":7,\"d\":{\"hostId\":3,\"targetUserId\":4,\"signalType\":\"ice-candidate\",\"payload\":\"{}\"}}");
+        socket.onFrame(session, auth, "{\"t\":\"typing\",\"d\":{\"friendId\":2}}");
+        socket.onFrame(session, auth, "{\"t\":\"ping\"}");
+
+        verify(serviceStream).signal(3L, new DtoSignalRequest(4L, "ice-candidate", "{}"), auth);
+        verify(serviceMessage).typing(2L, auth);
+        assertThat(sentFrames()).containsExactly("{\"t\":\"ack\",\"r\":7}", "{\"t\":\"pong\"}");
+    }
+
+    @Test
+    @DisplayName("send, typing and signal frames beyond the per-user limit are refused, each type on its own budget")
+    void frames_areRateLimitedPerUserAndType() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            socket.onFrame(session, auth, "{\"t\":\"typing\",\"r\":" + i + ",\"d\":{\"friendId\":2}}");
+        }
+        socket.onFrame(session, auth,
+                "{\"t\":\"signal\",\"r\":9,\"d\":{\"hostId\":3,\"targetUserId\":4,\"signalType\":\"ice-candidate\",\"payload\":\"{}\"}}");
+        socket.onFrame(session, auth, "{\"t\":\"ping\",\"r\":10}");
+
+        verify(serviceMessage, times(3)).typing(2L, auth);
+        verify(serviceStream).signal(eq(3L), any(), eq(auth));
+        List<String> frames = sentFrames();
+        assertThat(frames).hasSize(6);
+        assertThat(frames.get(3)).startsWith("{\"t\":\"error\",\"r\":3,");
+        assertThat(frames.subList(4, 6)).containsExactly("{\"t\":\"ack\",\"r\":9}", "{\"t\":\"pong\",\"r\":10}");
+    }
+
+    @Test
+    @DisplayName("Unexpected failures are answered without their message, rate limits with their error code")
+    void errors_areMappedLikeOverHttp() throws Exception {
+        when(serviceMessage.sendMessage(any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates \"uq_secret\""));
+
+        socket.onFrame(session, auth, "{\"t\":\"send\",\"r\":1,\"d\":{\"friendId\":2,\"content\":\"Hi\"}}");
+        for (int i = 0; i < 4; i++) {
+            socket.onFrame(session, auth, "{\"t\":\"typing\",\"d\":{\"friendId\":2}}");
+        }
+
+        List<String> frames = sentFrames();
+        assertThat(frames.getFirst())
+                .isEqualTo("{\"t\":\"error\",\"r\":1,\"d\":{\"businessErrorDescription\":\"Internal error, contact the admin\"}}");
+        assertThat(objectMapper.readTree(frames.getLast()).at("/d/businessErrorCode").asInt()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("The sweep closes sessions past their token's expiry or of users no longer active")
+    void sweep_closesExpiredAndInactiveSessions() throws Exception {
+        Session expired = openSession(2L, Instant.now().minusSeconds(1));
+        Session locked = openSession(3L, Instant.now().plusSeconds(600));
+        Session valid = openSession(4L, Instant.now().plusSeconds(600));
+        when(repositoryUser.findActiveIds(anyCollection())).thenReturn(List.of(2L, 4L));
+
+        socket.sweep();
+
+        assertThat(closeReason(expired)).isEqualTo("1008 token expired");
+        assertThat(closeReason(locked)).isEqualTo("1008 unauthorized");
+        verify(valid, never()).close(any());
+    }
+
+    @Test
+    @DisplayName("The sweep drops rate-limit buckets that have refilled and keeps those in use")
+    void sweep_dropsRefilledBuckets() {
+        socket.onFrame(session, auth, "{\"t\":\"typing\",\"d\":{\"friendId\":2}}");
+        @SuppressWarnings("unchecked")
+        Map<String, Bucket> buckets = (Map<String, Bucket>) ReflectionTestUtils.getField(socket, "buckets");
+        buckets.put("9:typing", Bucket.builder()
+                .addLimit(Bandwidth.classic(3, Refill.greedy(3, Duration.ofMinutes(1))))
+                .build());
+
+        socket.sweep();
+
+        assertThat(buckets).containsOnlyKeys("1:typing");
+    }
+
+    private static String closeReason(Session closed) throws Exception {
+        ArgumentCaptor<CloseReason> reason = ArgumentCaptor.forClass(CloseReason.class);
+        verify(closed).close(reason.capture());
+        return reason.getValue().getCloseCode().getCode() + " " + reason.getValue().getReasonPhrase();
+    }
+
+    private Session openSession(long userId, Instant expiresAt) {
+        Session open = mock(Session.class);
+        when(open.getUserProperties()).thenReturn(new HashMap<>(Map.of(SocketHandshake.EXPIRES_AT, expiresAt)));
+        socketSessions.register(userId, open);
+        return open;
+    }
+}
@@ -0,0 +1,38 @@
+package com.arturmolla.bookshelf.service.sse;
+
+import com.arturmolla.bookshelf.config.exceptions.ConnectionThrottledException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class SseAdmissionTest {
+
+    @Test
+    @DisplayName("A burst beyond the bucket is refused with a jittered Retry-After")
+    void burst_isRefusedWithRetryAfter() {
+        SseAdmission admission = new SseAdmission(1, 3, 5);
+        for (int i = 0; i < 3; i++) {
+            assertThatCode(admission::admit).doesNotThrowAnyException();
+        }
+
+        ConnectionThrottledException refused = catchThrowableOfType(ConnectionThrottledException.class, admission::admit);
+
+        assertThat(refused).isNotNull();
+        assertThat(refused.getRetryAfterSeconds()).isBetween(1L, 7L);
+    }
+
+    @Test
+    @DisplayName("Every connect is refused once the instance drains")
+    void closed_refusesEverything() {
+        SseAdmission admission = new SseAdmission(1000, 1000, 0);
+        admission.close();
+
+        ConnectionThrottledException refused = catchThrowableOfType(ConnectionThrottledException.class, admission::admit);
+
+        assertThat(refused).isNotNull();
+        assertThat(refused.getRetryAfterSeconds()).isEqualTo(1L);
+    }
+}
@@ -0,0 +1,79 @@
+package com.arturmolla.bookshelf.service.sse;
+
+import com.arturmolla.bookshelf.config.exceptions.ConnectionThrottledException;
+import com.arturmolla.bookshelf.service.messaging.MessageEmitterRegistry;
+import com.arturmolla.bookshelf.service.socket.SocketSessions;
+import com.arturmolla.bookshelf.service.stream.LiveStream;
+import com.arturmolla.bookshelf.service.stream.StreamRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SseDrainTest {
+
+    private final MessageEmitterRegistry messageEmitterRegistry = new MessageEmitterRegistry();
+    private final StreamRegistry streamRegistry = new StreamRegistry();
+    private final SseAdmission admission = new SseAdmission(1000, 1000, 0);
+
+    /** Emitter that records the reconnect hint it was sent and when it was completed. */
+    private static final class RecordingEmitter extends SseEmitter {
+        Long retryMs;
+        long completedAt;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            builder.build().stream()
+                    .map(data -> String.valueOf(data.getData()))
+                    .flatMap(String::lines)
+                    .filter(line -> line.startsWith("retry:"))
+                    .forEach(line -> retryMs = Long.parseLong(line.substring(6)));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completedAt = System.nanoTime();
+        }
+    }
+
+    @Test
+    @DisplayName("Open connections get a jittered retry hint and are closed in waves")
+    void drain_closesInWavesWithRetryHints() {
+        List<RecordingEmitter> emitters = new ArrayList<>();
+        for (long userId = 1; userId <= 5; userId++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            messageEmitterRegistry.register(userId, emitter);
+            emitters.add(emitter);
+        }
+        LiveStream stream = new LiveStream(100L, "host", "title");
+        streamRegistry.register(stream);
+        for (long userId = 100; userId <= 102; userId++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            stream.addParticipant(userId, "user" + userId, emitter);
+            emitters.add(emitter);
+        }
+        SseDrain drain = new SseDrain(messageEmitterRegistry, streamRegistry,
+                new SocketSessions(new ObjectMapper()), admission, 3, 50, 1000, 1000, 2000);
+
+        drain.drain();
+
+        assertThat(emitters).allSatisfy(emitter -> {
+            assertThat(emitter.retryMs).isBetween(1000L, 2000L);
+            assertThat(emitter.completedAt).isPositive();
+        });
+        // 8 connections in waves of 3: the first and last close are two pauses apart
+        long first = emitters.stream().mapToLong(e -> e.completedAt).min().orElseThrow();
+        long last = emitters.stream().mapToLong(e -> e.completedAt).max().orElseThrow();
+        assertThat(last - first).isGreaterThanOrEqualTo(90_000_000L);
+        // Participants are detached first, so closing the host did not cascade
+        assertThat(stream.getEmitters()).isEmpty();
+        assertThatThrownBy(admission::admit).isInstanceOf(ConnectionThrottledException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.arturmolla.bookshelf.service.stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveStreamTest {
+
+    @Test
+    @DisplayName("Watchers are paged in ascending id order, without the host")
+    void watcherIds_arePagedInOrder() {
+        LiveStream stream = new LiveStream(50L, "host", "title");
+        stream.addParticipant(50L, "host", new SseEmitter());
+        for (long id : new long[]{7, 3, 90, 12, 41}) {
+            stream.addParticipant(id, "w" + id, new SseEmitter());
+        }
+
+        assertThat(stream.getWatcherCount()).isEqualTo(5);
+        assertThat(stream.getWatcherIds(0, 2)).containsExactly(3L, 7L);
+        assertThat(stream.getWatcherIds(1, 2)).containsExactly(12L, 41L);
+        assertThat(stream.getWatcherIds(2, 2)).containsExactly(90L);
+        assertThat(stream.getWatcherIds(3, 2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Each room-state change raises the version by one and is announced with it")
+    void change_isSequential() {
+        LiveStream stream = new LiveStream(50L, "host", "title");
+        List<String> announced = new ArrayList<>();
+
+        assertThat(stream.getVersion()).isZero();
+        assertThat(stream.change(() -> "a", (change, version) -> announced.add(change + version))).isEqualTo(1);
+        assertThat(stream.change(() -> "b", (change, version) -> announced.add(change + version))).isEqualTo(2);
+        assertThat(stream.getVersion()).isEqualTo(2);
+        assertThat(announced).containsExactly("a1", "b2");
+        stream.atCurrentVersion(version -> assertThat(version).isEqualTo(2));
+    }
+}
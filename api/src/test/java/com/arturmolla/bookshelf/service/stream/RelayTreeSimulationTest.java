@@ -0,0 +1,215 @@
+package com.arturmolla.bookshelf.service.stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a {@link RelayTree} with thousands of virtual watchers joining, leaving and
+ * failing as relays, replaying every returned move on a mirror of the topology (as the
+ * clients would) and checking the tree after each round.
+ */
+class RelayTreeSimulationTest {
+
+    private static final long HOST = 0;
+    private static final int HOST_FANOUT = 6;
+    private static final int MAX_RELAY_FANOUT = 4;
+
+    private final Map<Long, Long> mirror = new HashMap<>();
+    private final Map<Long, Integer> capacity = new HashMap<>();
+
+    private void apply(List<RelayTree.Move> moves) {
+        for (RelayTree.Move move : moves) {
+            if (move.oldParentId() != null) {
+                assertThat(mirror.get(move.childId())).isEqualTo(move.oldParentId());
+            }
+            mirror.put(move.childId(), move.newParentId());
+        }
+    }
+
+    private void join(RelayTree tree, long id, int relayCapacity) {
+        capacity.put(id, relayCapacity);
+        apply(tree.join(id, relayCapacity));
+        assertThat(mirror).containsKey(id);
+    }
+
+    private void leave(RelayTree tree, long id) {
+        mirror.remove(id);
+        capacity.remove(id);
+        apply(tree.leave(id));
+    }
+
+    private void assertConsistent(RelayTree tree, int maxDepth) {
+        assertThat(tree.size()).isEqualTo(mirror.size());
+        Map<Long, Integer> fanout = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : mirror.entrySet()) {
+            long id = entry.getKey();
+            assertThat(tree.parentOf(id)).as("parent of %d", id).isEqualTo(entry.getValue());
+            fanout.merge(entry.getValue(), 1, Integer::sum);
+
+            // Every watcher reaches the host, without cycles, within the depth bound
+            Set<Long> seen = new HashSet<>();
+            long node = id;
+            while (node != HOST) {
+                assertThat(seen.add(node)).as("cycle through %d", node).isTrue();
+                node = mirror.get(node);
+            }
+            assertThat(seen.size()).isEqualTo(tree.depthOf(id)).isLessThanOrEqualTo(maxDepth);
+        }
+        fanout.forEach((parent, children) -> {
+            int bound = parent == HOST ? HOST_FANOUT : capacity.get(parent);
+            assertThat(children).as("fanout of %d", parent).isLessThanOrEqualTo(bound);
+        });
+    }
+
+    @Test
+    @DisplayName("Thousands of watchers joining and leaving stay in a bounded-fanout tree under the host")
+    void churn_keepsFanoutAndDepthBounded() {
+        RelayTree tree = new RelayTree(HOST, HOST_FANOUT);
+        Random random = new Random(42);
+        List<Long> present = new ArrayList<>();
+        long nextId = 1;
+
+        // Ramp up to 3000 watchers, half of them relays
+        for (int i = 0; i < 3000; i++) {
+            long id = nextId++;
+            join(tree, id, random.nextBoolean() ? 1 + random.nextInt(MAX_RELAY_FANOUT) : 0);
+            present.add(id);
+        }
+        assertConsistent(tree, 10);
+
+        // Churn: 20 000 joins and leaves, with the occasional relay failure
+        for (int round = 0; round < 40; round++) {
+            for (int i = 0; i < 500; i++) {
+                int dice = random.nextInt(100);
+                if (dice < 48 && !present.isEmpty()) {
+                    long id = present.remove(random.nextInt(present.size()));
+                    leave(tree, id);
+                } else if (dice < 50 && !present.isEmpty()) {
+                    long id = present.get(random.nextInt(present.size()));
+                    capacity.put(id, 0);
+                    apply(tree.relayFailed(id));
+                } else {
+                    long id = nextId++;
+                    join(tree, id, random.nextBoolean() ? 1 + random.nextInt(MAX_RELAY_FANOUT) : 0);
+                    present.add(id);
+                }
+            }
+            assertConsistent(tree, 14);
+        }
+
+        // Everyone leaves
+        for (long id : present) {
+            leave(tree, id);
+        }
+        assertThat(tree.size()).isZero();
+        assertThat(tree.childrenOf(HOST)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A relay joining takes a direct slot from a non-relay and adopts it")
+    void relay_displacesShallowLeaf() {
+        RelayTree tree = new RelayTree(HOST, 2);
+        join(tree, 1, 0);
+        join(tree, 2, 0);
+
+        List<RelayTree.Move> moves = tree.join(3, 2);
+
+        assertThat(moves).containsExactly(
+                new RelayTree.Move(3, null, HOST),
+                new RelayTree.Move(1, HOST, 3));
+        assertThat(tree.childrenOf(HOST)).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(tree.depthOf(1)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("When a relay leaves, its most capable child takes its slot and adopts its siblings")
+    void leavingRelay_isReplacedByItsChild() {
+        RelayTree tree = new RelayTree(HOST, 1);
+        join(tree, 1, 3);
+        join(tree, 2, 2);
+        join(tree, 3, 0);
+        join(tree, 4, 0);
+
+        leave(tree, 1);
+
+        assertThat(tree.parentOf(2)).isEqualTo(HOST);
+        assertThat(tree.childrenOf(2)).containsExactlyInAnyOrder(3L, 4L);
+        assertConsistent(tree, 2);
+    }
+
+    @Test
+    @DisplayName("Without free slots a watcher falls back to the host, and a failed relay's watchers are re-homed")
+    void noSlots_fallBackToHost() {
+        RelayTree tree = new RelayTree(HOST, 1);
+        join(tree, 1, 1);
+        join(tree, 2, 0);
+        join(tree, 3, 0);
+
+        assertThat(tree.parentOf(2)).isEqualTo(1L);
+        assertThat(tree.parentOf(3)).isEqualTo(HOST);
+
+        capacity.put(1L, 0);
+        apply(tree.relayFailed(1));
+
+        assertThat(tree.childrenOf(1)).isEmpty();
+        assertThat(tree.parentOf(2)).isEqualTo(HOST);
+    }
+
+    @Test
+    @DisplayName("A relay is given up only once two of its children report it")
+    void relayFailure_needsTwoReporters() {
+        RelayTree tree = new RelayTree(HOST, 1);
+        join(tree, 1, 3);
+        join(tree, 2, 0);
+        join(tree, 3, 0);
+
+        assertThat(tree.reportFailure(2)).isEmpty();
+        assertThat(tree.reportFailure(2)).isEmpty();
+        assertThat(tree.childrenOf(1)).containsExactlyInAnyOrder(2L, 3L);
+
+        capacity.put(1L, 0);
+        apply(tree.reportFailure(3));
+
+        assertThat(tree.childrenOf(1)).isEmpty();
+        assertConsistent(tree, 2);
+    }
+
+    @Test
+    @DisplayName("A relay's only child can report it, and the relay gets its capacity back when it declares it again")
+    void failedRelay_canBeRestored() {
+        RelayTree tree = new RelayTree(HOST, 1);
+        join(tree, 1, 2);
+        join(tree, 2, 0);
+
+        capacity.put(1L, 0);
+        apply(tree.reportFailure(2));
+        assertThat(tree.parentOf(2)).isEqualTo(HOST);
+
+        capacity.put(1L, 2);
+        tree.restore(1, 2);
+        join(tree, 3, 0);
+
+        assertThat(tree.parentOf(3)).isEqualTo(1L);
+        assertConsistent(tree, 2);
+    }
+
+    @Test
+    @DisplayName("Reports from the host's direct watchers are ignored")
+    void reportAgainstHost_isIgnored() {
+        RelayTree tree = new RelayTree(HOST, 2);
+        join(tree, 1, 0);
+
+        assertThat(tree.reportFailure(1)).isEmpty();
+        assertThat(tree.parentOf(1)).isEqualTo(HOST);
+    }
+}
@@ -0,0 +1,84 @@
+package com.arturmolla.bookshelf.service.stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SignalCoalescerTest {
+
+    private final List<List<String>> flushed = new CopyOnWriteArrayList<>();
+    private final Consumer<List<String>> flush = flushed::add;
+    private SignalCoalescer coalescer;
+
+    private void awaitFlushes(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flushed.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Candidates for one target within the window go out together, in order")
+    void candidatesWithinWindow_areCoalesced() throws InterruptedException {
+        coalescer = new SignalCoalescer(50, 20, 1);
+
+        coalescer.add(1, 10, 20, "c1", flush);
+        coalescer.add(1, 10, 20, "c2", flush);
+        coalescer.add(1, 10, 21, "x1", flush);
+        coalescer.add(1, 10, 20, "c3", flush);
+
+        awaitFlushes(2);
+        assertThat(flushed).containsExactlyInAnyOrder(List.of("c1", "c2", "c3"), List.of("x1"));
+    }
+
+    @Test
+    @DisplayName("A full batch is flushed at once, on the caller's thread")
+    void fullBatch_isFlushedImmediately() {
+        coalescer = new SignalCoalescer(60_000, 3, 1);
+
+        coalescer.add(1, 10, 20, "c1", flush);
+        coalescer.add(1, 10, 20, "c2", flush);
+        coalescer.add(1, 10, 20, "c3", flush);
+
+        assertThat(flushed).containsExactly(List.of("c1", "c2", "c3"));
+    }
+
+    @Test
+    @DisplayName("Another signal on the lane flushes the queued candidates first")
+    void otherSignal_flushesQueuedCandidatesFirst() {
+        coalescer = new SignalCoalescer(60_000, 20, 1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+
+        coalescer.add(1, 10, 20, "c1", batch -> sent.add("candidates" + batch));
+        coalescer.inOrder(1, 10, 20, () -> sent.add("offer"));
+        coalescer.inOrder(1, 10, 99, () -> sent.add("other-lane"));
+
+        assertThat(sent).containsExactly("candidates[c1]", "offer", "other-lane");
+    }
+
+    @Test
+    @DisplayName("Lanes of a participant who left are dropped without flushing")
+    void forget_dropsLanes() throws InterruptedException {
+        coalescer = new SignalCoalescer(30, 20, 1);
+
+        coalescer.add(1, 10, 20, "to-leaver", flush);
+        coalescer.add(1, 20, 10, "from-leaver", flush);
+        coalescer.add(1, 10, 30, "kept", flush);
+        coalescer.forget(1, 20L);
+
+        awaitFlushes(1);
+        Thread.sleep(60);
+        assertThat(flushed).containsExactly(List.of("kept"));
+    }
+}
@@ -1,6 +1,7 @@
 import { Component, OnInit } from '@angular/core';
 import { AuthStateService } from '../../service/auth/auth-state.service';
 import {
+  DtoFriendResponse,
   DtoRelationResponse,
   DtoUserSearchResult,
   RelationStatus
@@ -28,7 +29,7 @@ export class FriendsComponent implements OnInit {
   incomingRequests: DtoRelationResponse[] = [];
   incomingLoading = false;
 
-  friends: DtoRelationResponse[] = [];
+  friends: DtoFriendResponse[] = [];
   friendsLoading = false;
 
   actionMessage = '';
@@ -101,7 +102,7 @@ export class FriendsComponent implements OnInit {
 
   loadFriends(): void {
     this.friendsLoading = true;
-    this.relationService.getFriends(0, 10).subscribe({
+    this.relationService.getFriends(undefined, 10).subscribe({
       next: (res) => {
         this.friends = res.content;
         this.friendsLoading = false;
@@ -154,14 +155,9 @@ export class FriendsComponent implements OnInit {
     });
   }
 
-  removeFriend(relation: DtoRelationResponse): void {
-    const targetUserId = this.getOtherUserId(relation);
-    if (!targetUserId) {
-      return;
-    }
-
+  removeFriend(friend: DtoFriendResponse): void {
     this.clearActionMessage();
-    this.relationService.removeFriend(targetUserId).subscribe({
+    this.relationService.removeFriend(friend.friendId).subscribe({
       next: () => {
         this.setSuccess('Friend removed.');
         this.loadFriends();
@@ -200,50 +196,6 @@ export class FriendsComponent implements OnInit {
     });
   }
 
-  getOtherUserName(relation: DtoRelationResponse): string {
-    const currentUser = this.authState.getCurrentUser();
-    const myId = this.currentUserId;
-    const myName = currentUser?.fullName;
-
-    if (myId) {
-      return myId === relation.addresseeId
-        ? relation.requesterFullName
-        : relation.addresseeFullName;
-    }
-
-    if (myName) {
-      return myName === relation.addresseeFullName
-        ? relation.requesterFullName
-        : relation.addresseeFullName;
-    }
-
-    return relation.addresseeFullName || relation.requesterFullName || 'Friend';
-  }
-
-  getOtherUserId(relation: DtoRelationResponse): number | null {
-    const currentUser = this.authState.getCurrentUser();
-    const myId = this.currentUserId;
-    const myName = currentUser?.fullName;
-
-    if (myId) {
-      return myId === relation.addresseeId
-        ? relation.requesterId
-        : relation.addresseeId;
-    }
-
-    if (myName) {
-      return myName === relation.addresseeFullName
-        ? relation.requesterId
-        : relation.addresseeId;
-    }
-
-    return relation.addresseeId || relation.requesterId || null;
-  }
-
-  getChatFriendId(relation: DtoRelationResponse): number | null {
-    return this.getOtherUserId(relation);
-  }
-
   hasPendingRequest(status: RelationStatus | null): boolean {
     return status === 'PENDING';
   }
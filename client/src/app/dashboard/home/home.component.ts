@@ -13,7 +13,7 @@ import { StreamService } from '../../service/stream/stream.service';
 import { WebRTCService } from '../../service/webrtc/webrtc.service';
 import { Observable, Subscription } from 'rxjs';
 import { HttpErrorResponse } from '@angular/common/http';
-import { DtoStreamInfo, DtoStreamStartRequest, DtoWatcherInfo } from '../../interfaces/stream.interface';
+import { DtoStreamInfo, DtoStreamStartRequest, StreamEvent } from '../../interfaces/stream.interface';
 
 type LiveReading = DtoStreamInfo;
 
@@ -63,6 +63,9 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
   remoteStream: MediaStream | null = null;
   streamConnected: boolean = false;
 
+  // Room-state version of the stream we host or watch (null until the first snapshot)
+  private roomVersion: number | null = null;
+
   @ViewChild('remoteVideoEl') remoteVideoEl?: ElementRef<HTMLVideoElement>;
 
   highlightedPostId: number | null = null;
@@ -247,6 +250,7 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
       const sub = this.streamService.startStream(request).subscribe({
         next: (event) => {
           console.log('Stream event:', event);
+          if (!this.acceptRoomVersion(event)) return;
           
           if (event.type === 'STREAM_STARTED') {
             this.isStreaming = true;
@@ -254,9 +258,6 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
             this.currentHostId = event.actorId; // Store host user ID
             this.streamWatcherCount = event.watcherCount || 0;
             this.closeStartStreamModal();
-
-            // On host reconnect, existing watchers are already connected and need fresh offers.
-            this.syncExistingWatchers(this.currentHostId);
             
             console.log('Stream started - streamId:', this.currentStreamId, 'hostId:', this.currentHostId);
             
@@ -264,11 +265,20 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
             setTimeout(() => {
               this.initVideoElement();
             }, 100);
+          } else if (event.type === 'STREAM_STATE') {
+            // Snapshot after a reconnect: the watchers we feed need fresh offers
+            this.isStreaming = true;
+            this.currentStreamId = event.streamId;
+            this.currentHostId = event.actorId;
+            this.streamWatcherCount = event.watcherCount || 0;
+            (event.peerIds || []).forEach((watcherId) => void this.handleWatcherJoined(watcherId));
           } else if (event.type === 'WATCHER_JOINED') {
             this.streamWatcherCount = event.watcherCount || 0;
             console.log('WATCHER_JOINED event received:', event);
-            // Create peer connection and send offer to new watcher
-            this.handleWatcherJoined(event.actorId);
+            // Offer only to watchers we feed ourselves; the others get it from their relay
+            if (event.parentId == null || event.parentId === this.currentHostId) {
+              this.handleWatcherJoined(event.actorId);
+            }
           } else if (event.type === 'WATCHER_LEFT') {
             this.streamWatcherCount = event.watcherCount || 0;
             // Clean up peer connection for watcher who left
@@ -352,6 +362,40 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
     });
   }
 
+  /**
+   * Checks a stream event against the room-state version: a snapshot sets it, a delta
+   * must raise it by exactly one. Returns false for a delta older than what we have.
+   * On a gap the stream info is fetched again for the current watcher count and version.
+   */
+  private acceptRoomVersion(event: StreamEvent): boolean {
+    if (event.version == null) return true;
+
+    if (event.type === 'STREAM_STARTED' || event.type === 'STREAM_STATE' || this.roomVersion == null) {
+      this.roomVersion = event.version;
+      return true;
+    }
+    if (event.version <= this.roomVersion) {
+      return false;
+    }
+    if (event.version > this.roomVersion + 1) {
+      console.warn('Missed room-state changes:', this.roomVersion, '->', event.version);
+      this.resyncRoom(event.streamId);
+    }
+    this.roomVersion = event.version;
+    return true;
+  }
+
+  private resyncRoom(hostId: number): void {
+    this.streamService.getStreamInfo(hostId).subscribe({
+      next: (info) => {
+        if (info.version == null || (this.roomVersion != null && info.version < this.roomVersion)) return;
+        this.roomVersion = info.version;
+        this.streamWatcherCount = info.watcherCount;
+      },
+      error: (error) => console.error('Error re-fetching stream state:', error)
+    });
+  }
+
   // WebRTC - Host side methods
   private async handleWatcherJoined(watcherId: number): Promise<void> {
     if (!this.localStream || !this.currentHostId) {
@@ -384,22 +428,6 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
     this.webrtcService.createOffer(watcherId, this.currentHostId);
   }
 
-  private syncExistingWatchers(hostId: number): void {
-    const sub = this.streamService.getWatchers(hostId).subscribe({
-      next: (watchers: DtoWatcherInfo[]) => {
-        this.streamWatcherCount = watchers.length;
-        watchers.forEach((watcher) => {
-          void this.handleWatcherJoined(watcher.watcherId);
-        });
-      },
-      error: (error: HttpErrorResponse) => {
-        console.error('Failed to sync existing watchers:', error);
-      }
-    });
-
-    this.subscriptions.add(sub);
-  }
-
   private handleSignalAsHost(event: any): void {
     if (!event.payload) return;
 
@@ -411,10 +439,21 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
 
       console.log('Parsed signal:', signal, 'from user:', senderId);
 
-      if (signal.type === 'answer') {
+      if (event.signalType === 'relay-child') {
+        // A watcher was moved under us: feed it directly
+        void this.handleWatcherJoined(signal.peerId);
+      } else if (event.signalType === 'relay-drop') {
+        // A watcher now receives the stream from a relay
+        this.webrtcService.closePeerConnection(signal.peerId);
+      } else if (signal.type === 'answer') {
         console.log('Handling answer from watcher:', senderId);
         // Watcher sent answer, set it as remote description
         this.webrtcService.handleAnswer(senderId, signal);
+      } else if (event.signalType === 'ice-candidates' && Array.isArray(signal)) {
+        // Several ICE candidates coalesced by the server, in order
+        for (const candidate of signal) {
+          this.webrtcService.handleIceCandidate(senderId, candidate);
+        }
       } else if (signal.candidate) {
         console.log('Handling ICE candidate from watcher:', senderId);
         // Received ICE candidate from watcher
@@ -455,8 +494,9 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
     const sub = this.streamService.joinStream(stream.hostId).subscribe({
       next: (event) => {
         console.log('Stream event:', event);
+        if (!this.acceptRoomVersion(event)) return;
         
-        if (event.type === 'WATCHER_JOINED') {
+        if (event.type === 'STREAM_STATE') {
           this.isWatching = true;
           console.log('Successfully joined stream, waiting for offer from host');
           
@@ -535,6 +575,11 @@ export class HomeComponent implements OnInit, OnDestroy, AfterViewChecked {
         console.log('Handling offer from host:', this.watchedStreamHostId);
         // Host sent offer, handle it and send answer
         this.webrtcService.handleOffer(this.watchedStreamHostId, signal);
+      } else if (event.signalType === 'ice-candidates' && Array.isArray(signal)) {
+        // Several ICE candidates coalesced by the server, in order
+        for (const candidate of signal) {
+          this.webrtcService.handleIceCandidate(this.watchedStreamHostId, candidate);
+        }
       } else if (signal.candidate) {
         console.log('Handling ICE candidate from host:', this.watchedStreamHostId);
         // Received ICE candidate from host
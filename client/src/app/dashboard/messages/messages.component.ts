@@ -36,6 +36,8 @@ export class MessagesComponent implements OnInit, OnDestroy {
   selectedFilePreview: string | null = null;
   zoomedImage: string | null = null;
   isSidebarCollapsed = false;
+  /** Object URLs of loaded message thumbnails, keyed by message id. */
+  mediaUrls: Record<number, string> = {};
 
   private subs: Subscription[] = [];
 
@@ -77,6 +79,7 @@ export class MessagesComponent implements OnInit, OnDestroy {
         // Avoid duplicates (e.g. own message already pushed in sendMessage)
         if (!this.messages.some((m) => m.id === msg.id)) {
           this.messages.push(msg);
+          this.loadThumbnails([msg]);
           this.scrollToBottom();
         }
         // Auto-mark as read since the user is looking at this conversation
@@ -88,17 +91,28 @@ export class MessagesComponent implements OnInit, OnDestroy {
     this.subs.push(msgSub);
 
     // Listen to read notifications
-    const readSub = this.messageService.messageRead$.subscribe((msg) => {
-      const idx = this.messages.findIndex((m) => m.id === msg.id);
-      if (idx >= 0) {
-        this.messages[idx] = { ...this.messages[idx], read: true };
-      }
+    const readSub = this.messageService.messageRead$.subscribe((receipt) => {
+      this.messages = this.messages.map((m) =>
+        m.conversationId === receipt.conversationId && m.senderId !== receipt.readerId
+          && !m.read && m.id <= receipt.lastReadMessageId
+          ? { ...m, read: true }
+          : m
+      );
     });
     this.subs.push(readSub);
+
+    // Missed more than the server could replay: reload the sidebar and the open chat
+    const resyncSub = this.messageService.resync$.subscribe(() => {
+      this.loadConversations();
+      this.loadMessages(0);
+    });
+    this.subs.push(resyncSub);
   }
 
   ngOnDestroy(): void {
     this.subs.forEach((s) => s.unsubscribe());
+    Object.values(this.mediaUrls).forEach((url) => URL.revokeObjectURL(url));
+    this.closeZoom();
   }
 
   private loadConversations(): void {
@@ -137,6 +151,7 @@ export class MessagesComponent implements OnInit, OnDestroy {
         } else {
           this.messages = [...response.content, ...this.messages];
         }
+        this.loadThumbnails(response.content);
         this.totalPages = response.totalPages;
         this.currentPage = response.number;
         this.messagesLoading = false;
@@ -208,6 +223,7 @@ export class MessagesComponent implements OnInit, OnDestroy {
     this.messageService.sendMessage(this.friendId, request).subscribe({
       next: (msg) => {
         this.messages.push(msg);
+        this.loadThumbnails([msg]);
         // Keep activeConversationId in sync for first message in a new convo
         if (!this.activeConversationId) {
           this.activeConversationId = msg.conversationId;
@@ -323,10 +339,32 @@ export class MessagesComponent implements OnInit, OnDestroy {
     this.zoomedImage = data;
   }
 
+  /** Opens the full-resolution media of a message in the zoom overlay. */
+  zoomMedia(msg: DtoMessageResponse): void {
+    if (!msg.mediaUrl) return;
+    this.messageService.getMediaBlob(msg.mediaUrl).subscribe({
+      next: (blob) => this.zoomImage(URL.createObjectURL(blob)),
+    });
+  }
+
   closeZoom(): void {
+    if (this.zoomedImage?.startsWith('blob:')) {
+      URL.revokeObjectURL(this.zoomedImage);
+    }
     this.zoomedImage = null;
   }
 
+  /** Fetches thumbnails for image messages that are not loaded yet. */
+  private loadThumbnails(messages: DtoMessageResponse[]): void {
+    messages
+      .filter((m) => m.thumbnailUrl && !this.mediaUrls[m.id])
+      .forEach((m) => {
+        this.messageService.getMediaBlob(m.thumbnailUrl!).subscribe({
+          next: (blob) => (this.mediaUrls[m.id] = URL.createObjectURL(blob)),
+        });
+      });
+  }
+
   toggleSidebar(): void {
     this.isSidebarCollapsed = !this.isSidebarCollapsed;
   }
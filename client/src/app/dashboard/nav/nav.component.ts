@@ -79,7 +79,7 @@ export class NavComponent implements OnInit, OnDestroy {
     event.stopPropagation(); // prevent HostListener from firing
     // Mark as read
     if (!n.read) {
-      this.notificationService.markAsRead(n.id).subscribe({
+      this.notificationService.markAsRead(n.id, n.createdAt).subscribe({
         next: (updated) => {
           const idx = this.notifications.findIndex(x => x.id === updated.id);
           if (idx >= 0) this.notifications[idx] = updated;
@@ -109,7 +109,7 @@ export class NavComponent implements OnInit, OnDestroy {
 
   deleteNotification(event: MouseEvent, n: DtoNotificationResponse): void {
     event.stopPropagation();
-    this.notificationService.deleteNotification(n.id).subscribe({
+    this.notificationService.deleteNotification(n.id, n.createdAt).subscribe({
       next: () => {
         this.notifications = this.notifications.filter(x => x.id !== n.id);
         if (!n.read) this.unreadCount = Math.max(0, this.unreadCount - 1);
@@ -238,6 +238,17 @@ export class NavComponent implements OnInit, OnDestroy {
         });
         this.messageSubs.push(refreshSub);
 
+        // Pushed notifications, and a full reload when the server asks for one
+        const notificationSub = this.messageService.notification$.subscribe(() => {
+          this.fetchUnreadCount();
+          if (this.showNotifications) this.loadNotifications();
+        });
+        const resyncSub = this.messageService.resync$.subscribe(() => {
+          this.refreshConversations();
+          if (this.showNotifications) this.loadNotifications();
+        });
+        this.messageSubs.push(notificationSub, resyncSub);
+
         // Listen for profile picture updates
         const profilePicSub = this.profileService.profilePictureUpdated$.subscribe(() => {
           this.loadProfilePicture();
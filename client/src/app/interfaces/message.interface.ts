@@ -23,7 +23,17 @@ export interface DtoMessageResponse {
   mediaName?: string | null;
   mediaSize?: number | null;
   hasMedia?: boolean;
-  mediaData?: string | null;
+  /** Relative API path of the original media, e.g. `messages/42/media`. */
+  mediaUrl?: string | null;
+  /** Relative API path of a downscaled preview (images only). */
+  thumbnailUrl?: string | null;
+}
+
+/** Payload of `MESSAGE_READ`: `readerId` has read every message up to `lastReadMessageId`. */
+export interface DtoReadReceipt {
+  conversationId: number;
+  readerId: number;
+  lastReadMessageId: number;
 }
 
 export interface DtoConversationResponse {
@@ -22,4 +22,10 @@ export interface DtoNotificationResponse {
   actorId: number | null;
   actorName: string | null;
   createdAt: string; // ISO LocalDateTime string
+  /** Time of the latest event merged into this notification */
+  updatedAt: string;
+  /** Distinct actors merged into this notification ("Alice and 23 others ...") */
+  actorCount: number;
+  /** Most recent actors, newest first */
+  latestActors: { id: number; name: string }[];
 }
@@ -6,4 +6,11 @@ export interface PageResponse<T> {
   totalPages: number;
   first: boolean;
   last: boolean;
-}
\ No newline at end of file
+}
+/** A keyset slice: `next` is the cursor of the following slice, `null` on the last one. */
+export interface SliceResponse<T> {
+  content: T[];
+  size: number;
+  last: boolean;
+  next: number | null;
+}
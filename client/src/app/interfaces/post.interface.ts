@@ -22,6 +22,9 @@ export interface HomePost {
   commentCount?: number;
   shareCount?: number;
   likedByCurrentUser?: boolean;
+  viewCount?: number;
+  /** Estimated distinct viewers; may lag a few seconds behind viewCount */
+  uniqueViewers?: number;
 
   // Backward-compatible aliases for older API payloads
   likesCount?: number;
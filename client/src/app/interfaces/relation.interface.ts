@@ -1,4 +1,4 @@
-import { PageResponse } from './page.interface';
+import { PageResponse, SliceResponse } from './page.interface';
 
 export type RelationStatus = 'PENDING' | 'ACCEPTED' | 'REJECTED';
 export type RelationType = 'FRIEND_REQUEST' | 'FOLLOW';
@@ -14,6 +14,11 @@ export interface DtoRelationResponse {
   createdAt: string;
 }
 
+export interface DtoFriendResponse {
+  friendId: number;
+  fullName: string;
+}
+
 export interface DtoUserSearchResult {
   id: number;
   firstname: string;
@@ -51,4 +56,5 @@ export interface DtoFriendPageResponse {
 }
 
 export type RelationPageResponse = PageResponse<DtoRelationResponse>;
+export type FriendSliceResponse = SliceResponse<DtoFriendResponse>;
 export type UserSearchPageResponse = PageResponse<DtoUserSearchResult>;
@@ -8,6 +8,7 @@ export interface DtoStreamInfo {
   totalPages?: number;
   startedAt: string;
   watcherCount: number;
+  version?: number;
   isActive: boolean;
 }
 
@@ -33,10 +34,16 @@ export interface DtoWatcherInfo {
 }
 
 export interface StreamEvent {
-  type: 'STREAM_STARTED' | 'WATCHER_JOINED' | 'WATCHER_LEFT' | 'STREAM_STOPPED' | 'SIGNAL';
+  type: 'STREAM_STARTED' | 'STREAM_STATE' | 'WATCHER_JOINED' | 'WATCHER_LEFT' | 'STREAM_STOPPED' | 'SIGNAL';
   streamId: number;
   actorId: number;
   actorName: string;
   payload?: string;
   watcherCount?: number;
+  /** Room-state version: on STREAM_STATE snapshots and on join/leave/stop deltas. */
+  version?: number;
+  /** STREAM_STATE only: the watchers this participant sends the media to. */
+  peerIds?: number[];
+  /** WATCHER_JOINED only: who the watcher receives the media from (the host or a relay). */
+  parentId?: number;
 }
\ No newline at end of file
@@ -6,8 +6,10 @@ import {
   DtoMessageResponse,
   DtoConversationResponse,
   DtoMessageRequest,
+  DtoReadReceipt,
 } from '../../interfaces/message.interface';
 import { PageResponse } from '../../interfaces/page.interface';
+import { DtoNotificationResponse } from '../../interfaces/notification.interface';
 import { Subject, Observable } from 'rxjs';
 import { AuthStateService } from '../auth/auth-state.service';
 
@@ -18,13 +20,21 @@ export class MessageService {
   private apiUrl = `${environment.apiUrl}/messages`;
   private sseEmitter: EventSource | EventSourcePolyfill | null = null;
   private messageSubject = new Subject<DtoMessageResponse>();
-  private messageReadSubject = new Subject<DtoMessageResponse>();
+  private messageReadSubject = new Subject<DtoReadReceipt>();
 
   /** Emits every incoming message received via SSE. */
   public message$ = this.messageSubject.asObservable();
-  /** Emits whenever a message is marked read via SSE. */
+  /** Emits whenever the other participant has read a conversation up to a message, via SSE. */
   public messageRead$ = this.messageReadSubject.asObservable();
 
+  private notificationSubject = new Subject<DtoNotificationResponse>();
+  private resyncSubject = new Subject<void>();
+
+  /** Emits every notification pushed on the messaging channel. */
+  public notification$ = this.notificationSubject.asObservable();
+  /** Emits when the server could not replay everything missed; conversations and notifications must be reloaded. */
+  public resync$ = this.resyncSubject.asObservable();
+
   private refreshUnreadCountSubject = new Subject<void>();
   /** Emits when components should refresh their unread conversation counts. */
   public refreshUnreadCount$ = this.refreshUnreadCountSubject.asObservable();
@@ -33,6 +43,10 @@ export class MessageService {
   private reconnectDelay = 2000;   // start at 2 s
   private readonly maxDelay = 60000; // cap at 60 s
   private intentionalDisconnect = false;
+  /** Id of the last event received; sent as Last-Event-ID on reconnect to get what was missed. */
+  private lastEventId: string | null = null;
+  /** Delay the server asked for before it closed the stream (shutdown drain); used once. */
+  private serverRetryDelay: number | null = null;
 
   constructor(
     private http: HttpClient,
@@ -63,6 +77,7 @@ export class MessageService {
         headers: {
           Authorization: `Bearer ${token}`,
           Accept: 'text/event-stream',
+          ...(this.lastEventId ? { 'Last-Event-ID': this.lastEventId } : {}),
         },
         withCredentials: true,
         heartbeatTimeout: 120000,
@@ -80,6 +95,7 @@ export class MessageService {
 
     // Listen for incoming messages
     this.sseEmitter.addEventListener('NEW_MESSAGE', (event: MessageEvent<string>) => {
+      this.trackEventId(event);
       try {
         const message = JSON.parse(event.data) as DtoMessageResponse;
         this.ngZone.run(() => this.messageSubject.next(message));
@@ -90,14 +106,44 @@ export class MessageService {
 
     // Listen for message read notifications
     this.sseEmitter.addEventListener('MESSAGE_READ', (event: MessageEvent<string>) => {
+      this.trackEventId(event);
       try {
-        const message = JSON.parse(event.data) as DtoMessageResponse;
-        this.ngZone.run(() => this.messageReadSubject.next(message));
+        const receipt = JSON.parse(event.data) as DtoReadReceipt;
+        this.ngZone.run(() => this.messageReadSubject.next(receipt));
       } catch (error) {
         console.error('Failed to parse MESSAGE_READ event:', error);
       }
     });
 
+    // Notifications share the channel, and its event ids
+    this.sseEmitter.addEventListener('notification', (event: MessageEvent<string>) => {
+      this.trackEventId(event);
+      try {
+        const notification = JSON.parse(event.data) as DtoNotificationResponse;
+        this.ngZone.run(() => this.notificationSubject.next(notification));
+      } catch (error) {
+        console.error('Failed to parse notification event:', error);
+      }
+    });
+
+    // More was missed than the server replays: reload instead
+    this.sseEmitter.addEventListener('resync', (event: MessageEvent<string>) => {
+      this.trackEventId(event);
+      this.ngZone.run(() => {
+        this.resyncSubject.next();
+        this.refreshUnreadCountSubject.next();
+      });
+    });
+
+    // The server is shutting down and tells each client when to come back
+    this.sseEmitter.addEventListener('reconnect', (event: MessageEvent<string>) => {
+      try {
+        this.serverRetryDelay = (JSON.parse(event.data) as { retryMs: number }).retryMs;
+      } catch {
+        this.serverRetryDelay = null;
+      }
+    });
+
     // Ignore heartbeat
     this.sseEmitter.addEventListener('heartbeat', () => { /* keep-alive */ });
 
@@ -112,9 +158,19 @@ export class MessageService {
     };
   }
 
+  private trackEventId(event: MessageEvent<string>): void {
+    if (event.lastEventId) {
+      this.lastEventId = event.lastEventId;
+    }
+  }
+
   private _scheduleReconnect(): void {
     if (this.reconnectTimer) return;
 
+    // Jitter the back-off so clients dropped together do not all come back together
+    const delay = this.serverRetryDelay ?? this.reconnectDelay / 2 + Math.random() * this.reconnectDelay / 2;
+    this.serverRetryDelay = null;
+
     this.reconnectTimer = setTimeout(() => {
       this.reconnectTimer = null;
       if (!this.intentionalDisconnect) {
@@ -122,7 +178,7 @@ export class MessageService {
         // Double the delay for next failure, capped at maxDelay
         this.reconnectDelay = Math.min(this.reconnectDelay * 2, this.maxDelay);
       }
-    }, this.reconnectDelay);
+    }, delay);
   }
 
   /**
@@ -138,6 +194,7 @@ export class MessageService {
       this.sseEmitter.close();
       this.sseEmitter = null;
     }
+    this.lastEventId = null;
     this.reconnectDelay = 2000;
   }
 
@@ -214,6 +271,16 @@ export class MessageService {
     this.refreshUnreadCountSubject.next();
   }
 
+  /**
+   * Fetch message media (or its thumbnail) as a blob.
+   * The endpoint requires the Authorization header, so it cannot be used directly as an img src.
+   *
+   * @param path relative path as returned in `mediaUrl` / `thumbnailUrl`
+   */
+  getMediaBlob(path: string): Observable<Blob> {
+    return this.http.get(`${environment.apiUrl}/${path}`, { responseType: 'blob' });
+  }
+
   /**
    * Delete a message (sender only).
    */
@@ -23,9 +23,10 @@ export class NotificationService {
     return this.http.get<{ unreadCount: number }>(`${this.baseUrl}/unread-count`);
   }
 
-  markAsRead(notificationId: number): Observable<DtoNotificationResponse> {
+  /** `createdAt` as received with the notification; the server locates its partition with it. */
+  markAsRead(notificationId: number, createdAt: string): Observable<DtoNotificationResponse> {
     return this.http.patch<DtoNotificationResponse>(
-      `${this.baseUrl}/${notificationId}/read`,
+      `${this.baseUrl}/${notificationId}/read?createdAt=${encodeURIComponent(createdAt)}`,
       {}
     );
   }
@@ -34,8 +35,8 @@ export class NotificationService {
     return this.http.patch<void>(`${this.baseUrl}/read-all`, {});
   }
 
-  deleteNotification(notificationId: number): Observable<void> {
-    return this.http.delete<void>(`${this.baseUrl}/${notificationId}`);
+  deleteNotification(notificationId: number, createdAt: string): Observable<void> {
+    return this.http.delete<void>(`${this.baseUrl}/${notificationId}?createdAt=${encodeURIComponent(createdAt)}`);
   }
 
   clearAll(): Observable<void> {
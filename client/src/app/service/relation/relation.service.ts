@@ -4,6 +4,7 @@ import { Observable } from 'rxjs';
 import { environment } from '../../../environments/environment';
 import {
   DtoFriendPageResponse,
+  FriendSliceResponse,
   DtoRelationResponse,
   DtoUserSearchResult,
   RelationPageResponse,
@@ -38,8 +39,10 @@ export class RelationService {
     return this.http.get<RelationPageResponse>(`${this.baseUrl}/friend-requests/outgoing?page=${page}&size=${size}`);
   }
 
-  getFriends(page: number = 0, size: number = 20): Observable<RelationPageResponse> {
-    return this.http.get<RelationPageResponse>(`${this.baseUrl}/friends?page=${page}&size=${size}`);
+  /** Friends after friend id `after` (from the start when omitted), in id order. */
+  getFriends(after?: number, size: number = 20): Observable<FriendSliceResponse> {
+    const cursor = after != null ? `after=${after}&` : '';
+    return this.http.get<FriendSliceResponse>(`${this.baseUrl}/friends?${cursor}size=${size}`);
   }
 
   removeFriend(targetUserId: number): Observable<void> {
@@ -2,6 +2,7 @@ import { Injectable, NgZone } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable, Subject } from 'rxjs';
 import { environment } from '../../../environments/environment';
+import { PageResponse } from '../../interfaces/page.interface';
 import { DtoIceServer, DtoSignalRequest, DtoStreamInfo, DtoStreamStartRequest, DtoWatcherInfo, StreamEvent } from '../../interfaces/stream.interface';
 
 
@@ -90,6 +91,13 @@ export class StreamService {
     return this.http.post<void>(`${this.baseUrl}/${hostId}/signal`, request);
   }
 
+  /**
+   * Send several WebRTC signalling messages in one request, in order.
+   */
+  signalBatch(hostId: number, signals: DtoSignalRequest[]): Observable<void> {
+    return this.http.post<void>(`${this.baseUrl}/${hostId}/signals`, { signals });
+  }
+
   // =========================================================================
   // DISCOVERY
   // =========================================================================
@@ -109,10 +117,12 @@ export class StreamService {
   }
 
   /**
-   * List watchers currently connected to a host's stream.
+   * List one page of the watchers currently connected to a host's stream.
    */
-  getWatchers(hostId: number): Observable<DtoWatcherInfo[]> {
-    return this.http.get<DtoWatcherInfo[]>(`${this.baseUrl}/${hostId}/watchers`);
+  getWatchers(hostId: number, page = 0, size = 50): Observable<PageResponse<DtoWatcherInfo>> {
+    return this.http.get<PageResponse<DtoWatcherInfo>>(`${this.baseUrl}/${hostId}/watchers`, {
+      params: { page, size }
+    });
   }
 
   /**
@@ -192,6 +202,10 @@ export class StreamService {
             eventType = line.substring(6).trim();
           } else if (line.startsWith('data:')) {
             eventData = line.substring(5).trim();
+          } else if (line === '' && eventType === 'reconnect') {
+            // Shutdown drain hint — the connection closes right after; not a stream event
+            eventType = '';
+            eventData = '';
           } else if (line === '' && eventType && eventData) {
             // Complete event received
             try {
@@ -9,6 +9,9 @@ import { StreamService } from '../stream/stream.service';
 export class WebRTCService {
   private peerConnections: Map<number, RTCPeerConnection> = new Map();
   private pendingCandidates: Map<number, RTCIceCandidateInit[]> = new Map();
+  /** Local ICE candidates waiting to be sent, per stream (host id). */
+  private outgoingCandidates: Map<number, DtoSignalRequest[]> = new Map();
+  private readonly candidateBatchDelayMs = 20;
   private iceServersCache: DtoIceServer[] | null = null;
 
   // Fallback used only if the backend is unreachable
@@ -268,7 +271,8 @@ export class WebRTCService {
   }
 
   /**
-   * Send ICE candidate to remote peer
+   * Send ICE candidate to remote peer. Candidates gathered within a few milliseconds
+   * of each other are sent together through the batch signal endpoint.
    */
   sendIceCandidate(
     hostId: number,
@@ -281,11 +285,24 @@ export class WebRTCService {
       payload: JSON.stringify(candidate.toJSON())
     };
 
-    console.log('Sending ICE candidate to user', targetUserId, 'via /streams/' + hostId + '/signal');
+    const queue = this.outgoingCandidates.get(hostId) ?? [];
+    queue.push(signalRequest);
+    this.outgoingCandidates.set(hostId, queue);
+    if (queue.length === 1) {
+      setTimeout(() => this.flushOutgoingCandidates(hostId), this.candidateBatchDelayMs);
+    }
+  }
+
+  private flushOutgoingCandidates(hostId: number): void {
+    const signals = this.outgoingCandidates.get(hostId);
+    this.outgoingCandidates.delete(hostId);
+    if (!signals || signals.length === 0) return;
+
+    console.log(`Sending ${signals.length} ICE candidate(s) via /streams/${hostId}/signals`);
 
-    this.streamService.signal(hostId, signalRequest).subscribe({
-      next: () => console.log('✓ ICE candidate sent to user:', targetUserId),
-      error: (error) => console.error('✗ Error sending ICE candidate:', error)
+    this.streamService.signalBatch(hostId, signals).subscribe({
+      next: () => console.log('✓ ICE candidates sent:', signals.length),
+      error: (error) => console.error('✗ Error sending ICE candidates:', error)
     });
   }
 